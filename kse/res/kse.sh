@@ -34,6 +34,11 @@ SCRIPT_DIR=$(dirname "$REAL_SCRIPT_PATH")
 JAR_FILE="${SCRIPT_DIR}/kse.jar"
 JAVA_OPTIONS="-splash:${SCRIPT_DIR}/splash.png"
 
+# batch mode runs headless, so no splash screen
+if [ "$1" == "--batch" ]; then
+    JAVA_OPTIONS="-Djava.awt.headless=true"
+fi
+
 if [ -d "${SCRIPT_DIR}/jre" ]; then
     "${SCRIPT_DIR}/jre/bin/java" "${JAVA_OPTIONS}" -jar "${JAR_FILE}" "$@"
 else
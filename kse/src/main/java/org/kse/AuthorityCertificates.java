@@ -22,11 +22,15 @@ package org.kse;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
 
 import org.kse.crypto.CryptoException;
 import org.kse.crypto.keystore.KeyStoreUtil;
 import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.crypto.keystore.MsCapiStoreType;
+import org.kse.crypto.x509.TrustedCertificateStore;
+import org.kse.utilities.history.KeyStoreState;
 
 /**
  * Singleton that maintains authority certificates KeyStores.
@@ -38,6 +42,33 @@ public class AuthorityCertificates {
     private static AuthorityCertificates authorityCertificates;
     private KseKeyStore caCertificates;
     private KseKeyStore windowsTrustedRootCertificates;
+    private final Map<TrustedCertificatesKind, TrustedCertificates> trustedCertificates =
+            new EnumMap<>(TrustedCertificatesKind.class);
+
+    /**
+     * How the certificates of a shared pool of trusted certificates are selected.
+     */
+    public enum TrustedCertificatesKind {
+        /** Certificate entries of the active KeyStore and of the authority KeyStores */
+        CERTIFICATE_ENTRIES,
+        /** All certificates of the active KeyStore, including key pair chains, and of the authority KeyStores */
+        ALL_CERTIFICATES,
+        /** Certificate entries of the authority KeyStores only, regardless of the preferences */
+        AUTHORITIES_ONLY
+    }
+
+    /**
+     * The KeyStores a pool of trusted certificates was extracted from. KeyStore states are
+     * replaced on every change and neither states nor KeyStores override equals, so the record
+     * equality detects changes.
+     *
+     * @param state                          State of the active KeyStore or null if not used
+     * @param caCertificates                 CA Certificates KeyStore or null if not used
+     * @param windowsTrustedRootCertificates Windows Trusted Root Certificates KeyStore or null if not used
+     */
+    public record TrustedCertificatesSources(KeyStoreState state, KseKeyStore caCertificates,
+                                             KseKeyStore windowsTrustedRootCertificates) {
+    }
 
     private AuthorityCertificates() {
     }
@@ -72,6 +103,7 @@ public class AuthorityCertificates {
      */
     public void setCaCertificates(KseKeyStore caCertificates) {
         this.caCertificates = caCertificates;
+        invalidateTrustedCertificates();
     }
 
     /**
@@ -103,4 +135,45 @@ public class AuthorityCertificates {
 
         return windowsTrustedRootCertificates;
     }
+
+    /**
+     * Get the shared pool of trusted certificates of the supplied kind if it was built from
+     * the supplied sources.
+     *
+     * @param kind    How the trusted certificates were selected
+     * @param sources The KeyStores the trusted certificates were extracted from
+     * @return Trusted certificates or null if the pool has to be built (again)
+     */
+    public synchronized TrustedCertificateStore getTrustedCertificates(TrustedCertificatesKind kind,
+                                                                       TrustedCertificatesSources sources) {
+        TrustedCertificates cached = trustedCertificates.get(kind);
+        if (cached == null || !cached.sources().equals(sources)) {
+            return null;
+        }
+        return cached.store();
+    }
+
+    /**
+     * Set the shared pool of trusted certificates of the supplied kind. A pool that was
+     * built from other sources before is replaced.
+     *
+     * @param kind    How the trusted certificates were selected
+     * @param sources The KeyStores the trusted certificates were extracted from
+     * @param store   Trusted certificates
+     */
+    public synchronized void setTrustedCertificates(TrustedCertificatesKind kind, TrustedCertificatesSources sources,
+                                                    TrustedCertificateStore store) {
+        trustedCertificates.put(kind, new TrustedCertificates(sources, store));
+    }
+
+    /**
+     * Discard all pools of trusted certificates, e.g. because an authority KeyStore was
+     * replaced.
+     */
+    public synchronized void invalidateTrustedCertificates() {
+        trustedCertificates.clear();
+    }
+
+    private record TrustedCertificates(TrustedCertificatesSources sources, TrustedCertificateStore store) {
+    }
 }
@@ -28,6 +28,7 @@ import java.security.Provider;
 import java.security.Security;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -38,6 +39,7 @@ import javax.swing.SwingUtilities;
 
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.kse.cli.KseBatch;
 import org.kse.crypto.csr.pkcs12.Pkcs12Util;
 import org.kse.crypto.provider.KseProvider;
 import org.kse.crypto.x509.KseX500NameStyle;
@@ -81,11 +83,17 @@ public class KSE {
 
     /**
      * Start the KeyStore Explorer application. Takes one optional argument -
-     * the location of a KeyStore file to open upon startup.
+     * the location of a KeyStore file to open upon startup. If the first argument
+     * is {@value KseBatch#BATCH_OPTION}, the remaining arguments are processed
+     * headless by {@link KseBatch} instead.
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0 && KseBatch.BATCH_OPTION.equals(args[0])) {
+            System.exit(KseBatch.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
         try {
             // To take effect these must be set before the splash screen is instantiated
             if (OperatingSystem.isMacOs()) {
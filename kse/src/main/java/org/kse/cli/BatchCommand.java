@@ -0,0 +1,492 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.cli;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import org.kse.KSE;
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.digest.DigestType;
+import org.kse.crypto.filetype.CryptoFileUtil;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.privatekey.OpenSslPbeType;
+import org.kse.crypto.privatekey.OpenSslPvkUtil;
+import org.kse.crypto.privatekey.Pkcs8PbeType;
+import org.kse.crypto.privatekey.Pkcs8Util;
+import org.kse.crypto.signing.CmsSigner;
+import org.kse.crypto.signing.JarSigningEngine;
+import org.kse.crypto.signing.SignatureType;
+import org.kse.crypto.x509.X509CertUtil;
+import org.kse.gui.passwordmanager.Password;
+import org.kse.utilities.AliasUtil;
+import org.kse.utilities.io.FileNameUtil;
+
+/**
+ * The batch commands. Each command is prepared once per invocation (e.g. the signing key is
+ * loaded only once) and then applied to every file, possibly concurrently.
+ */
+public enum BatchCommand {
+
+    /**
+     * Detect the type of cryptographic files.
+     */
+    DETECT("detect") {
+        @Override
+        FileProcessor prepare(BatchOptions options) {
+            return (file, result) -> result.put("type", CryptoFileUtil.detectFileType(file).name());
+        }
+    },
+
+    /**
+     * List the entries of KeyStores.
+     */
+    LIST("list") {
+        @Override
+        FileProcessor prepare(BatchOptions options) {
+            return (file, result) -> {
+                KseKeyStore keyStore = loadKeyStore(file, options.getPassword());
+                result.put("keyStoreType", KeyStoreType.resolveJce(keyStore.getType()).name());
+
+                List<Map<String, Object>> entries = new ArrayList<>();
+                for (String alias : Collections.list(keyStore.aliases())) {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("alias", alias);
+                    entry.put("entryType", getEntryType(keyStore, alias));
+
+                    Certificate cert = keyStore.getCertificate(alias);
+                    if (cert != null) {
+                        putCertificate(entry, X509CertUtil.convertCertificate(cert));
+                    }
+                    entries.add(entry);
+                }
+                result.put("entries", entries);
+            };
+        }
+    },
+
+    /**
+     * Convert KeyStores to another type.
+     */
+    CONVERT("convert") {
+        @Override
+        FileProcessor prepare(BatchOptions options) {
+            KeyStoreType newType = resolveKeyStoreType(requireOption(options.getType(), "--type"));
+
+            return (file, result) -> {
+                Password password = BatchOptions.resolvePassword(options.getPassword());
+                Password outPassword = options.getOutPassword() != null ?
+                                       BatchOptions.resolvePassword(options.getOutPassword()) : password;
+
+                KseKeyStore keyStore = loadKeyStore(file, options.getPassword());
+                KseKeyStore newKeyStore = KeyStoreUtil.create(newType);
+
+                // Copy all entries to the new KeyStore: Trusted certs, key pairs and secret keys
+                for (String alias : Collections.list(keyStore.aliases())) {
+                    if (KeyStoreUtil.isTrustedCertificateEntry(alias, keyStore)) {
+                        Certificate cert = keyStore.getCertificate(alias);
+                        newKeyStore.setCertificateEntry(newAlias(newType, newKeyStore, alias, cert), cert);
+                    } else if (KeyStoreUtil.isKeyEntry(alias, keyStore)) {
+                        Key key = keyStore.getKey(alias, password.toCharArray());
+                        Certificate[] chain = keyStore.getCertificateChain(alias);
+                        Certificate cert = chain != null && chain.length > 0 ? chain[0] : null;
+
+                        newKeyStore.setKeyEntry(newAlias(newType, newKeyStore, alias, cert), key,
+                                                outPassword.toCharArray(), chain);
+                    }
+                }
+
+                File outputFile = getOutputFile(file, options, "." + getExtension(newType));
+                if (outputFile.equals(file)) {
+                    throw new IOException(MessageFormat.format(res.getString("BatchCommand.SameFile.message"), file));
+                }
+                KeyStoreUtil.save(newKeyStore, outputFile, outPassword);
+
+                result.put("keyStoreType", newType.name());
+                result.put("entries", newKeyStore.size());
+                result.put("output", outputFile.getPath());
+            };
+        }
+    },
+
+    /**
+     * Export certificates from KeyStores or certificate files as PEM.
+     */
+    EXPORT_CERTS("export-certs") {
+        @Override
+        FileProcessor prepare(BatchOptions options) {
+            return (file, result) -> {
+                List<String> outputs = new ArrayList<>();
+
+                if (CryptoFileUtil.detectKeyStoreType(file) != null) {
+                    KseKeyStore keyStore = loadKeyStore(file, options.getPassword());
+
+                    for (String alias : Collections.list(keyStore.aliases())) {
+                        if (options.getAlias() != null && !options.getAlias().equals(alias)) {
+                            continue;
+                        }
+
+                        Certificate[] chain = keyStore.getCertificateChain(alias);
+                        if (chain == null) {
+                            Certificate cert = keyStore.getCertificate(alias);
+                            chain = cert != null ? new Certificate[] { cert } : null;
+                        }
+                        if (chain != null) {
+                            String pem = X509CertUtil.getCertsEncodedX509Pem(X509CertUtil.convertCertificates(chain));
+                            outputs.add(write(getOutputFile(file, options, alias, ".pem"), pem));
+                        }
+                    }
+                } else {
+                    X509Certificate[] certs = X509CertUtil.loadCertificates(Files.readAllBytes(file.toPath()));
+                    String pem = X509CertUtil.getCertsEncodedX509Pem(certs);
+                    outputs.add(write(getOutputFile(file, options, ".pem"), pem));
+                }
+
+                result.put("outputs", outputs);
+            };
+        }
+    },
+
+    /**
+     * Export the private keys of KeyStores as PKCS #8 or OpenSSL PEM.
+     */
+    EXPORT_KEYS("export-keys") {
+        @Override
+        FileProcessor prepare(BatchOptions options) {
+            String format = options.getFormat() != null ? options.getFormat().toLowerCase(Locale.ENGLISH) : "pkcs8";
+            if (!format.equals("pkcs8") && !format.equals("openssl")) {
+                throw new IllegalArgumentException(
+                        MessageFormat.format(res.getString("BatchOptions.InvalidValue.message"), "--format",
+                                             options.getFormat()));
+            }
+
+            return (file, result) -> {
+                Password password = BatchOptions.resolvePassword(options.getPassword());
+                KseKeyStore keyStore = loadKeyStore(file, options.getPassword());
+                List<String> outputs = new ArrayList<>();
+
+                for (String alias : Collections.list(keyStore.aliases())) {
+                    if ((options.getAlias() != null && !options.getAlias().equals(alias)) ||
+                        !KeyStoreUtil.isKeyPairEntry(alias, keyStore)) {
+                        continue;
+                    }
+
+                    PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, password.toCharArray());
+                    String pem = getPrivateKeyPem(privateKey, format, options.getOutPassword());
+                    outputs.add(write(getOutputFile(file, options, alias, ".key"), pem));
+                }
+
+                result.put("outputs", outputs);
+            };
+        }
+    },
+
+    /**
+     * Sign JAR files.
+     */
+    SIGN_JAR("sign-jar") {
+        @Override
+        FileProcessor prepare(BatchOptions options) throws Exception {
+            SigningKey signingKey = SigningKey.load(options);
+            String signatureName = options.getSignatureName() != null ? options.getSignatureName() :
+                                   signingKey.alias();
+            DigestType digestType = options.getDigest() != null ? resolveDigestType(options.getDigest()) :
+                                    DigestType.SHA256;
+
+            JarSigningEngine engine = new JarSigningEngine(signingKey.privateKey(), signingKey.chain(),
+                                                           signingKey.signatureType(), signatureName,
+                                                           KSE.getFullApplicationName(), digestType,
+                                                           options.getTsaUrl(), null);
+
+            return (file, result) -> {
+                File outputFile = getOutputFile(file, options, "");
+                engine.sign(file, outputFile);
+                result.put("output", outputFile.getPath());
+            };
+        }
+    },
+
+    /**
+     * Sign files with PKCS #7 CMS signatures.
+     */
+    SIGN_CMS("sign-cms") {
+        @Override
+        FileProcessor prepare(BatchOptions options) throws Exception {
+            SigningKey signingKey = SigningKey.load(options);
+
+            return (file, result) -> {
+                byte[] signature = CmsSigner.sign(file, signingKey.privateKey(), signingKey.chain(),
+                                                  options.isDetached(), signingKey.signatureType(),
+                                                  options.getTsaUrl(), null).getEncoded();
+
+                String extension = options.isDetached() ? ".p7s" : ".p7m";
+                File outputFile = options.getOutDir() != null ?
+                                  new File(options.getOutDir(), file.getName() + extension) :
+                                  new File(file.getPath() + extension);
+                try (OutputStream os = new FileOutputStream(outputFile)) {
+                    os.write(signature);
+                }
+                result.put("output", outputFile.getPath());
+            };
+        }
+    };
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/cli/resources");
+
+    /**
+     * Processes a single file and adds its results to the supplied map.
+     */
+    @FunctionalInterface
+    interface FileProcessor {
+        void process(File file, Map<String, Object> result) throws Exception;
+    }
+
+    private final String name;
+
+    BatchCommand(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Prepare the command for processing files.
+     *
+     * @param options Options of this invocation
+     * @return Processor that can be applied to several files concurrently
+     * @throws Exception If the command could not be prepared
+     */
+    abstract FileProcessor prepare(BatchOptions options) throws Exception;
+
+    /**
+     * Get the command name as used on the command line.
+     *
+     * @return Command name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Resolve a command by its name.
+     *
+     * @param name Command name
+     * @return The command
+     * @throws IllegalArgumentException If there is no such command
+     */
+    public static BatchCommand resolve(String name) {
+        for (BatchCommand command : values()) {
+            if (command.name.equals(name)) {
+                return command;
+            }
+        }
+        throw new IllegalArgumentException(MessageFormat.format(res.getString("BatchCommand.Unknown.message"), name));
+    }
+
+    private static KseKeyStore loadKeyStore(File file, String passwordOption) throws Exception {
+        KseKeyStore keyStore = KeyStoreUtil.load(file, BatchOptions.resolvePassword(passwordOption));
+        if (keyStore == null) {
+            throw new CryptoException(MessageFormat.format(res.getString("BatchCommand.NoKeyStore.message"), file));
+        }
+        return keyStore;
+    }
+
+    private static String getEntryType(KseKeyStore keyStore, String alias) throws Exception {
+        if (KeyStoreUtil.isKeyPairEntry(alias, keyStore)) {
+            return "KEY_PAIR";
+        } else if (KeyStoreUtil.isTrustedCertificateEntry(alias, keyStore)) {
+            return "TRUSTED_CERTIFICATE";
+        }
+        return "KEY";
+    }
+
+    private static void putCertificate(Map<String, Object> entry, X509Certificate cert) throws CryptoException {
+        entry.put("subject", cert.getSubjectX500Principal().getName());
+        entry.put("issuer", cert.getIssuerX500Principal().getName());
+        entry.put("serialNumber", X509CertUtil.getSerialNumberAsHex(cert));
+        entry.put("notBefore", cert.getNotBefore().toInstant().toString());
+        entry.put("notAfter", cert.getNotAfter().toInstant().toString());
+        entry.put("sha256", X509CertUtil.getFingerprint(cert, DigestType.SHA256));
+    }
+
+    private static String newAlias(KeyStoreType newType, KseKeyStore newKeyStore, String alias, Certificate cert)
+            throws Exception {
+        if (!newType.supportsAliases() && cert != null) {
+            return AliasUtil.uniqueAlias(newKeyStore, cert);
+        }
+        String normalizedAlias = newType.normalizeAlias(alias);
+        return newKeyStore.containsAlias(normalizedAlias) ?
+               AliasUtil.uniqueAlias(newKeyStore, normalizedAlias) : normalizedAlias;
+    }
+
+    private static String getPrivateKeyPem(PrivateKey privateKey, String format, String outPasswordOption)
+            throws Exception {
+        if (outPasswordOption == null) {
+            return format.equals("openssl") ? OpenSslPvkUtil.getPem(privateKey) : Pkcs8Util.getPem(privateKey);
+        }
+
+        Password outPassword = BatchOptions.resolvePassword(outPasswordOption);
+        return format.equals("openssl") ?
+               OpenSslPvkUtil.getEncrypted(privateKey, OpenSslPbeType.AES_256BIT_CBC, outPassword) :
+               Pkcs8Util.getEncryptedPem(privateKey, Pkcs8PbeType.PBES2_AES256_SHA256, outPassword);
+    }
+
+    private static String write(File outputFile, String content) throws IOException {
+        Files.write(outputFile.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return outputFile.getPath();
+    }
+
+    private static File getOutputFile(File file, BatchOptions options, String alias, String extension) {
+        String name = FileNameUtil.removeExtension(file.getName()) + "-" + FileNameUtil.cleanFileName(alias);
+        File dir = options.getOutDir() != null ? options.getOutDir() : file.getAbsoluteFile().getParentFile();
+        return new File(dir, name + extension);
+    }
+
+    /*
+     * Output file with the extension replaced, or with the same name if extension is empty
+     */
+    private static File getOutputFile(File file, BatchOptions options, String extension) {
+        String name = extension.isEmpty() ? file.getName() : FileNameUtil.removeExtension(file.getName()) + extension;
+        File dir = options.getOutDir() != null ? options.getOutDir() : file.getAbsoluteFile().getParentFile();
+        return new File(dir, name);
+    }
+
+    private static String getExtension(KeyStoreType keyStoreType) {
+        return keyStoreType == KeyStoreType.PKCS12 ? "p12" : keyStoreType.jce().toLowerCase(Locale.ENGLISH);
+    }
+
+    private static String requireOption(String value, String option) {
+        if (value == null) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format(res.getString("BatchOptions.MissingOption.message"), option));
+        }
+        return value;
+    }
+
+    private static KeyStoreType resolveKeyStoreType(String value) {
+        for (KeyStoreType keyStoreType : KeyStoreType.values()) {
+            if (keyStoreType.isFileBased() &&
+                (keyStoreType.name().equalsIgnoreCase(value) || keyStoreType.jce().equalsIgnoreCase(value))) {
+                return keyStoreType;
+            }
+        }
+        throw new IllegalArgumentException(
+                MessageFormat.format(res.getString("BatchOptions.InvalidValue.message"), "--type", value));
+    }
+
+    private static DigestType resolveDigestType(String value) {
+        for (DigestType digestType : DigestType.values()) {
+            if (digestType.name().equalsIgnoreCase(value) || digestType.jce().equalsIgnoreCase(value)) {
+                return digestType;
+            }
+        }
+        throw new IllegalArgumentException(
+                MessageFormat.format(res.getString("BatchOptions.InvalidValue.message"), "--digest", value));
+    }
+
+    /*
+     * Key pair used for signing, loaded once per invocation
+     */
+    private record SigningKey(String alias, PrivateKey privateKey, X509Certificate[] chain,
+                              SignatureType signatureType) {
+
+        static SigningKey load(BatchOptions options) throws Exception {
+            File keyStoreFile = new File(requireOption(options.getKeyStore(), "--keystore"));
+            KseKeyStore keyStore = loadKeyStore(keyStoreFile, options.getKeyStorePassword());
+
+            String alias = options.getAlias();
+            if (alias == null) {
+                // use the only key pair
+                for (String candidate : Collections.list(keyStore.aliases())) {
+                    if (KeyStoreUtil.isKeyPairEntry(candidate, keyStore)) {
+                        if (alias != null) {
+                            throw new IllegalArgumentException(
+                                    MessageFormat.format(res.getString("BatchOptions.MissingOption.message"),
+                                                         "--alias"));
+                        }
+                        alias = candidate;
+                    }
+                }
+            }
+            if (alias == null || !KeyStoreUtil.isKeyPairEntry(alias, keyStore)) {
+                throw new IllegalArgumentException(
+                        MessageFormat.format(res.getString("BatchCommand.NoKeyPair.message"), keyStoreFile));
+            }
+
+            Password password = BatchOptions.resolvePassword(options.getKeyStorePassword());
+            PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, password.toCharArray());
+            X509Certificate[] chain = X509CertUtil.orderX509CertChain(
+                    X509CertUtil.convertCertificates(keyStore.getCertificateChain(alias)));
+
+            SignatureType signatureType = options.getSignatureType() != null ?
+                                          resolveSignatureType(options.getSignatureType()) :
+                                          getDefaultSignatureType(privateKey);
+
+            return new SigningKey(alias, privateKey, chain, signatureType);
+        }
+
+        private static SignatureType resolveSignatureType(String value) {
+            for (SignatureType signatureType : SignatureType.values()) {
+                if (signatureType.name().equalsIgnoreCase(value) || signatureType.jce().equalsIgnoreCase(value)) {
+                    return signatureType;
+                }
+            }
+            throw new IllegalArgumentException(
+                    MessageFormat.format(res.getString("BatchOptions.InvalidValue.message"), "--signature-type",
+                                         value));
+        }
+
+        private static SignatureType getDefaultSignatureType(PrivateKey privateKey) {
+            switch (privateKey.getAlgorithm()) {
+            case "RSA":
+                return SignatureType.SHA256_RSA;
+            case "EC":
+            case "ECDSA":
+                return SignatureType.SHA256_ECDSA;
+            case "DSA":
+                return SignatureType.SHA256_DSA;
+            case "Ed25519":
+                return SignatureType.ED25519;
+            case "Ed448":
+                return SignatureType.ED448;
+            default:
+                throw new IllegalArgumentException(
+                        MessageFormat.format(res.getString("BatchOptions.MissingOption.message"),
+                                             "--signature-type"));
+            }
+        }
+    }
+}
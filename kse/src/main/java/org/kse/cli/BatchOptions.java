@@ -0,0 +1,261 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import org.kse.gui.passwordmanager.Password;
+
+/**
+ * Command line options of a batch invocation.
+ * <p>
+ * Passwords can be given as <code>pass:secret</code>, <code>env:VARIABLE</code> or
+ * <code>file:path</code> (first line of the file), so that they do not have to appear
+ * in the process list. A value without prefix is used literally.
+ */
+public class BatchOptions {
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/cli/resources");
+
+    private final BatchCommand command;
+    private final List<File> files = new ArrayList<>();
+
+    private String password;
+    private String outPassword;
+    private String keyStore;
+    private String keyStorePassword;
+    private String alias;
+    private String type;
+    private String format;
+    private String signatureType;
+    private String signatureName;
+    private String digest;
+    private String tsaUrl;
+    private File outDir;
+    private boolean detached;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private BatchOptions(BatchCommand command) {
+        this.command = command;
+    }
+
+    /**
+     * Parse the command line arguments (without the leading batch option).
+     *
+     * @param args Arguments, the first one is the command
+     * @return Parsed options
+     * @throws IllegalArgumentException If the arguments are invalid
+     */
+    public static BatchOptions parse(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException(res.getString("BatchOptions.NoCommand.message"));
+        }
+
+        BatchOptions options = new BatchOptions(BatchCommand.resolve(args[0]));
+
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+
+            if (!arg.startsWith("--")) {
+                options.files.add(new File(arg));
+                continue;
+            }
+
+            switch (arg) {
+            case "--detached":
+                options.detached = true;
+                continue;
+            case "--":
+                for (i++; i < args.length; i++) {
+                    options.files.add(new File(args[i]));
+                }
+                continue;
+            default:
+                break;
+            }
+
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(
+                        MessageFormat.format(res.getString("BatchOptions.MissingValue.message"), arg));
+            }
+            String value = args[++i];
+
+            switch (arg) {
+            case "--password":
+                options.password = value;
+                break;
+            case "--out-password":
+                options.outPassword = value;
+                break;
+            case "--keystore":
+                options.keyStore = value;
+                break;
+            case "--keystore-password":
+                options.keyStorePassword = value;
+                break;
+            case "--alias":
+                options.alias = value;
+                break;
+            case "--type":
+                options.type = value;
+                break;
+            case "--format":
+                options.format = value;
+                break;
+            case "--signature-type":
+                options.signatureType = value;
+                break;
+            case "--signature-name":
+                options.signatureName = value;
+                break;
+            case "--digest":
+                options.digest = value;
+                break;
+            case "--tsa":
+                options.tsaUrl = value;
+                break;
+            case "--out-dir":
+                options.outDir = new File(value);
+                break;
+            case "--threads":
+                try {
+                    options.threads = Math.max(1, Integer.parseInt(value));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException(
+                            MessageFormat.format(res.getString("BatchOptions.InvalidValue.message"), arg, value));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        MessageFormat.format(res.getString("BatchOptions.UnknownOption.message"), arg));
+            }
+        }
+
+        if (options.files.isEmpty()) {
+            throw new IllegalArgumentException(res.getString("BatchOptions.NoFiles.message"));
+        }
+
+        return options;
+    }
+
+    /**
+     * Resolve a password option value.
+     *
+     * @param value Option value or null
+     * @return The password, an empty password if value is null
+     * @throws IOException If a password file could not be read
+     */
+    static Password resolvePassword(String value) throws IOException {
+        if (value == null) {
+            return new Password(new char[0]);
+        }
+
+        String resolved;
+        if (value.startsWith("pass:")) {
+            resolved = value.substring("pass:".length());
+        } else if (value.startsWith("env:")) {
+            String variable = value.substring("env:".length());
+            resolved = System.getenv(variable);
+            if (resolved == null) {
+                throw new IllegalArgumentException(
+                        MessageFormat.format(res.getString("BatchOptions.NoEnvironmentVariable.message"), variable));
+            }
+        } else if (value.startsWith("file:")) {
+            List<String> lines = Files.readAllLines(new File(value.substring("file:".length())).toPath(),
+                                                    StandardCharsets.UTF_8);
+            resolved = lines.isEmpty() ? "" : lines.get(0);
+        } else {
+            resolved = value;
+        }
+
+        return new Password(resolved.toCharArray());
+    }
+
+    public BatchCommand getCommand() {
+        return command;
+    }
+
+    public List<File> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public String getOutPassword() {
+        return outPassword;
+    }
+
+    public String getKeyStore() {
+        return keyStore;
+    }
+
+    public String getKeyStorePassword() {
+        return keyStorePassword;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public String getSignatureType() {
+        return signatureType;
+    }
+
+    public String getSignatureName() {
+        return signatureName;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public String getTsaUrl() {
+        return tsaUrl;
+    }
+
+    public File getOutDir() {
+        return outDir;
+    }
+
+    public boolean isDetached() {
+        return detached;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kse.KSE;
+import org.kse.cli.BatchCommand.FileProcessor;
+import org.kse.crypto.provider.KseProvider;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+
+/**
+ * Headless batch mode of KeyStore Explorer.
+ * <p>
+ * Started with <code>kse --batch &lt;command&gt; [options] files...</code>. The files are processed
+ * in parallel and one JSON object per file is written to standard output as soon as it is
+ * done (JSON Lines), followed by a summary object. Neither AWT/Swing nor the look and feel
+ * are initialized, and the user preferences are not read.
+ * <p>
+ * The exit code is 0 if all files were processed successfully, 1 if processing failed for
+ * at least one file and 2 for invalid arguments.
+ */
+public class KseBatch {
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/cli/resources");
+
+    /**
+     * Command line option that selects the batch mode.
+     */
+    public static final String BATCH_OPTION = "--batch";
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final JSON json = JSON.std;
+
+    private final PrintStream out;
+
+    KseBatch(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Run the batch mode.
+     *
+     * @param args The command line arguments following the batch option
+     * @return Exit code
+     */
+    public static int run(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        if (Security.getProvider(KSE.BC.getName()) == null) {
+            Security.addProvider(KSE.BC);
+            Security.addProvider(new KseProvider());
+        }
+
+        return new KseBatch(new PrintStream(System.out, false, StandardCharsets.UTF_8)).execute(args);
+    }
+
+    int execute(String[] args) {
+        BatchOptions options;
+        FileProcessor processor;
+        try {
+            options = BatchOptions.parse(args);
+            processor = options.getCommand().prepare(options);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(res.getString("KseBatch.Usage.text"));
+            return EXIT_USAGE;
+        } catch (Exception ex) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("command", args[0]);
+            result.put("status", "error");
+            result.put("error", getMessage(ex));
+            print(result);
+            return EXIT_FAILED;
+        }
+
+        List<File> files = options.getFiles();
+        AtomicInteger failed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.getThreads(), files.size()),
+                                                                runnable -> {
+                                                                    Thread thread = new Thread(runnable, "KseBatch");
+                                                                    thread.setDaemon(true);
+                                                                    return thread;
+                                                                });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (File file : files) {
+                futures.add(executor.submit(() -> {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("command", options.getCommand().getName());
+                    result.put("file", file.getPath());
+                    try {
+                        processor.process(file, result);
+                        result.put("status", "ok");
+                    } catch (Exception ex) {
+                        failed.incrementAndGet();
+                        result.put("status", "error");
+                        result.put("error", getMessage(ex));
+                    }
+                    print(result);
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return EXIT_FAILED;
+        } catch (ExecutionException ex) {
+            // a result could not be printed
+            failed.incrementAndGet();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("command", options.getCommand().getName());
+        summary.put("summary", true);
+        summary.put("files", files.size());
+        summary.put("failed", failed.get());
+        print(summary);
+
+        return failed.get() == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private synchronized void print(Map<String, Object> result) {
+        try {
+            out.println(json.asString(result));
+        } catch (IOException ex) {
+            out.println("{\"status\":\"error\"}");
+        }
+        out.flush();
+    }
+
+    private static String getMessage(Throwable t) {
+        StringBuilder sb = new StringBuilder(t.getMessage() != null ? t.getMessage() : t.toString());
+        for (Throwable cause = t.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null) {
+                sb.append(": ").append(cause.getMessage());
+            }
+        }
+        return sb.toString();
+    }
+}
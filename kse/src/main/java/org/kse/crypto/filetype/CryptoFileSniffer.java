@@ -0,0 +1,308 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.filetype;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.kse.crypto.keystore.kdb.KdbKeyDatabase;
+
+/**
+ * Structural classification of cryptographic data by looking only at a bounded prefix.
+ * <p>
+ * The prefix is examined once for known magic numbers (JKS, JCEKS, ZIP, KDB, MS PVK,
+ * BKS/UBER), a PEM header, the outer DER tag and length together with the tag of the
+ * first nested element, or JSON/plain text. No parser is run, so no exceptions are
+ * thrown for data that turns out not to be of a cryptographic type. CryptoFileUtil uses
+ * the result to run only the parsers that can possibly match.
+ */
+public class CryptoFileSniffer {
+
+    /**
+     * Number of bytes that are examined.
+     */
+    public static final int PREFIX_LENGTH = 1024;
+
+    /**
+     * Format of the examined data.
+     */
+    public enum Format {
+        /** No data */
+        EMPTY,
+        /** JKS KeyStore */
+        JKS,
+        /** JCEKS KeyStore */
+        JCEKS,
+        /** ZIP or JAR archive */
+        ZIP,
+        /** CMS key database */
+        KDB,
+        /** Microsoft PVK private key */
+        MS_PVK,
+        /** BKS or UBER KeyStore, to be distinguished by the end of the data */
+        BKS_OR_UBER,
+        /** Text starting with a PEM header */
+        PEM,
+        /** DER/BER encoded ASN.1 sequence */
+        DER,
+        /** JSON object */
+        JSON,
+        /** Other text (for example Base64, SPKAC or JWT) */
+        TEXT,
+        /** Other binary data */
+        BINARY
+    }
+
+    private static final int JKS_MAGIC_NUMBER = 0xFEEDFEED;
+    private static final int JCEKS_MAGIC_NUMBER = 0xCECECECE;
+    private static final int MS_PVK_MAGIC_NUMBER = 0xB0B5F11E; // little endian
+
+    private static final int ZIP_MAGIC_NUMBER1 = 0x4C5A4950;
+    private static final int ZIP_MAGIC_NUMBER2 = 0x504B0304;
+    private static final int ZIP_MAGIC_NUMBER3 = 0x504B0506;
+    private static final int ZIP_MAGIC_NUMBER4 = 0x504B0708;
+
+    private static final byte[] PEM_BEGIN_MARKER = "-----BEGIN ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PEM_FIVE_DASHES = "-----".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int DER_SEQUENCE_TAG = 0x30;
+
+    private final Format format;
+    private final String pemType;
+    private final int firstElementTag;
+
+    private CryptoFileSniffer(Format format, String pemType, int firstElementTag) {
+        this.format = format;
+        this.pemType = pemType;
+        this.firstElementTag = firstElementTag;
+    }
+
+    /**
+     * Examine the prefix of the supplied data.
+     *
+     * @param data Cryptographic data
+     * @return Sniffing result
+     */
+    public static CryptoFileSniffer sniff(byte[] data) {
+        return sniff(data, Math.min(data.length, PREFIX_LENGTH));
+    }
+
+    /**
+     * Examine the supplied prefix of some data, for example the first bytes read from a stream
+     * or file channel.
+     *
+     * @param prefix Buffer containing the prefix
+     * @param length Number of valid bytes in the buffer
+     * @return Sniffing result
+     */
+    public static CryptoFileSniffer sniff(byte[] prefix, int length) {
+        length = Math.min(length, prefix.length);
+
+        if (length == 0) {
+            return new CryptoFileSniffer(Format.EMPTY, null, -1);
+        }
+
+        // Binary formats identified by magic numbers
+        if (length >= 4) {
+            int magic = readInt(prefix, 0);
+
+            if (magic == ZIP_MAGIC_NUMBER1 || magic == ZIP_MAGIC_NUMBER2 || magic == ZIP_MAGIC_NUMBER3 ||
+                magic == ZIP_MAGIC_NUMBER4) {
+                return new CryptoFileSniffer(Format.ZIP, null, -1);
+            }
+            if (magic == JKS_MAGIC_NUMBER) {
+                return new CryptoFileSniffer(Format.JKS, null, -1);
+            }
+            if (magic == JCEKS_MAGIC_NUMBER) {
+                return new CryptoFileSniffer(Format.JCEKS, null, -1);
+            }
+            if (KdbKeyDatabase.isKeyDatabase(length == prefix.length ? prefix : Arrays.copyOf(prefix, length))) {
+                return new CryptoFileSniffer(Format.KDB, null, -1);
+            }
+            if (Integer.reverseBytes(magic) == MS_PVK_MAGIC_NUMBER) {
+                return new CryptoFileSniffer(Format.MS_PVK, null, -1);
+            }
+            // BKS and UBER start with a version number of 1 (UBER) or 2 (BKS)
+            if (magic == 1 || magic == 2) {
+                return new CryptoFileSniffer(Format.BKS_OR_UBER, null, -1);
+            }
+        }
+
+        int start = skipBomAndWhitespace(prefix, length);
+
+        if (!isText(prefix, start, length)) {
+            // Text never contains the tags of the ASN.1 structures we are looking for
+            if ((prefix[0] & 0xFF) == DER_SEQUENCE_TAG) {
+                int firstElementOffset = getFirstElementOffset(prefix, length);
+                if (firstElementOffset > 0) {
+                    int tag = firstElementOffset < length ? prefix[firstElementOffset] & 0xFF : -1;
+                    return new CryptoFileSniffer(Format.DER, null, tag);
+                }
+            }
+            return new CryptoFileSniffer(Format.BINARY, null, -1);
+        }
+
+        if (startsWith(prefix, start, length, PEM_BEGIN_MARKER)) {
+            return new CryptoFileSniffer(Format.PEM, getPemType(prefix, start, length), -1);
+        }
+
+        if (start < length && prefix[start] == '{') {
+            return new CryptoFileSniffer(Format.JSON, null, -1);
+        }
+
+        return new CryptoFileSniffer(Format.TEXT, null, -1);
+    }
+
+    /**
+     * Check if the supplied data contains a PEM header anywhere (PEM blocks may be preceded by
+     * arbitrary text).
+     *
+     * @param data Data
+     * @return True if a PEM header was found
+     */
+    public static boolean containsPemHeader(byte[] data) {
+        for (int i = 0; i <= data.length - PEM_BEGIN_MARKER.length; i++) {
+            if (data[i] == '-' && startsWith(data, i, data.length, PEM_BEGIN_MARKER)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the format of the examined data.
+     *
+     * @return Format
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Get the type of the first PEM block (e.g. "CERTIFICATE").
+     *
+     * @return PEM type or null if the format is not PEM or the header was not complete
+     */
+    public String getPemType() {
+        return pemType;
+    }
+
+    /**
+     * Get the tag of the first element inside the outer DER sequence.
+     *
+     * @return Tag or -1 if the format is not DER or the prefix was too short
+     */
+    public int getFirstElementTag() {
+        return firstElementTag;
+    }
+
+    /**
+     * Is the format text based (PEM, JSON or other text)?
+     *
+     * @return True if text based
+     */
+    public boolean isText() {
+        return format == Format.PEM || format == Format.JSON || format == Format.TEXT;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16 | (data[offset + 2] & 0xFF) << 8 |
+               (data[offset + 3] & 0xFF);
+    }
+
+    private static int skipBomAndWhitespace(byte[] data, int length) {
+        int start = 0;
+
+        if (length >= 3 && data[0] == (byte) 0xEF && data[1] == (byte) 0xBB && data[2] == (byte) 0xBF) {
+            start = 3;
+        }
+
+        // same as String.trim()
+        while (start < length && (data[start] & 0xFF) <= ' ') {
+            start++;
+        }
+
+        return start;
+    }
+
+    private static boolean isText(byte[] data, int start, int length) {
+        for (int i = start; i < length; i++) {
+            int b = data[i] & 0xFF;
+
+            // allow whitespace, Ctrl-Z (EOF marker of some editors) and ESC; high bytes may be UTF-8
+            if (b < ' ' && b != '\t' && b != '\n' && b != 0x0B && b != '\f' && b != '\r' && b != 0x1A && b != 0x1B) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int length, byte[] expected) {
+        if (length - offset < expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (data[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getPemType(byte[] data, int start, int length) {
+        int typeStart = start + PEM_BEGIN_MARKER.length;
+
+        for (int i = typeStart; i < length; i++) {
+            if (data[i] == '\r' || data[i] == '\n') {
+                break;
+            }
+            if (startsWith(data, i, length, PEM_FIVE_DASHES)) {
+                return new String(data, typeStart, i - typeStart, StandardCharsets.US_ASCII);
+            }
+        }
+
+        return null;
+    }
+
+    /*
+     * Returns the offset of the first element inside the outer sequence or -1 if the
+     * length octets are not a valid DER/BER length.
+     */
+    private static int getFirstElementOffset(byte[] data, int length) {
+        if (length < 2) {
+            return -1;
+        }
+
+        int lengthOctet = data[1] & 0xFF;
+
+        // short form or indefinite length (BER)
+        if (lengthOctet <= 0x80) {
+            return 2;
+        }
+
+        // long form with up to four length bytes
+        int lengthBytes = lengthOctet & 0x7F;
+        if (lengthBytes > 4) {
+            return -1;
+        }
+
+        return 2 + lengthBytes;
+    }
+}
@@ -52,12 +52,17 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -67,6 +72,7 @@ import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1Integer;
 import org.bouncycastle.asn1.ASN1Primitive;
 import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.BERTags;
 import org.bouncycastle.asn1.DLSequence;
 import org.kse.crypto.CryptoException;
 import org.kse.crypto.csr.CsrType;
@@ -95,10 +101,56 @@ public class CryptoFileUtil {
     private static final int JKS_MAGIC_NUMBER = 0xFEEDFEED;
     private static final int JCEKS_MAGIC_NUMBER = 0xCECECECE;
 
-    private static final int ZIP_MAGIC_NUMBER1 = 0x4C5A4950;
-    private static final int ZIP_MAGIC_NUMBER2 = 0x504B0304;
-    private static final int ZIP_MAGIC_NUMBER3 = 0x504B0506;
-    private static final int ZIP_MAGIC_NUMBER4 = 0x504B0708;
+    /**
+     * A parser for a group of cryptographic file types.
+     */
+    @FunctionalInterface
+    private interface Detector {
+        /**
+         * @return Detected type or null if the data is not of this group of types
+         */
+        CryptoFileType detect(byte[] data, List<PemInfo> pemInfos) throws IOException;
+    }
+
+    private static final Detector PKCS8_DETECTOR = CryptoFileUtil::detectPkcs8;
+    private static final Detector OPENSSL_PVK_DETECTOR = CryptoFileUtil::detectOpenSslPvk;
+    private static final Detector OPENSSL_PUB_DETECTOR = CryptoFileUtil::detectOpenSslPub;
+    private static final Detector CERT_DETECTOR = CryptoFileUtil::detectCertificates;
+    private static final Detector CRL_DETECTOR = CryptoFileUtil::detectCrl;
+    private static final Detector CSR_DETECTOR = CryptoFileUtil::detectCsr;
+    private static final Detector KEYSTORE_DETECTOR = CryptoFileUtil::detectKeyStore;
+    private static final Detector JWK_DETECTOR = CryptoFileUtil::detectJwk;
+    private static final Detector JWT_DETECTOR = CryptoFileUtil::detectJwt;
+
+    // The lists keep the order in which the parsers have always been applied, they only leave
+    // out the parsers that cannot match the structure of the data.
+    private static final List<Detector> PEM_DETECTORS = List.of(
+            PKCS8_DETECTOR, OPENSSL_PVK_DETECTOR, OPENSSL_PUB_DETECTOR, CERT_DETECTOR, CRL_DETECTOR, CSR_DETECTOR,
+            KEYSTORE_DETECTOR, JWK_DETECTOR, JWT_DETECTOR);
+    private static final List<Detector> DER_DETECTORS = List.of(
+            PKCS8_DETECTOR, OPENSSL_PVK_DETECTOR, OPENSSL_PUB_DETECTOR, CERT_DETECTOR, CRL_DETECTOR, CSR_DETECTOR,
+            KEYSTORE_DETECTOR);
+    private static final List<Detector> DER_INTEGER_DETECTORS = List.of(
+            PKCS8_DETECTOR, OPENSSL_PVK_DETECTOR, KEYSTORE_DETECTOR);
+    private static final List<Detector> DER_SEQUENCE_DETECTORS = List.of(
+            PKCS8_DETECTOR, OPENSSL_PUB_DETECTOR, CERT_DETECTOR, CRL_DETECTOR, CSR_DETECTOR, KEYSTORE_DETECTOR);
+    private static final List<Detector> TEXT_DETECTORS = List.of(
+            CERT_DETECTOR, CSR_DETECTOR, JWK_DETECTOR, JWT_DETECTOR);
+    private static final List<Detector> JSON_DETECTORS = List.of(JWK_DETECTOR, JWT_DETECTOR);
+
+    // Parser to try first for a PEM type
+    private static final Map<String, Detector> PEM_TYPE_DETECTORS = Map.ofEntries(
+            Map.entry(Pkcs8Util.PKCS8_UNENC_PVK_PEM_TYPE, PKCS8_DETECTOR),
+            Map.entry(Pkcs8Util.PKCS8_ENC_PVK_PEM_TYPE, PKCS8_DETECTOR),
+            Map.entry(OpenSslPvkUtil.OPENSSL_RSA_PVK_PEM_TYPE, OPENSSL_PVK_DETECTOR),
+            Map.entry(OpenSslPvkUtil.OPENSSL_DSA_PVK_PEM_TYPE, OPENSSL_PVK_DETECTOR),
+            Map.entry(OpenSslPvkUtil.OPENSSL_EC_PVK_PEM_TYPE, OPENSSL_PVK_DETECTOR),
+            Map.entry("PUBLIC KEY", OPENSSL_PUB_DETECTOR),
+            Map.entry(X509CertUtil.CERT_PEM_TYPE, CERT_DETECTOR),
+            Map.entry("PKCS7", CERT_DETECTOR),
+            Map.entry("X509 CRL", CRL_DETECTOR),
+            Map.entry("CERTIFICATE REQUEST", CSR_DETECTOR),
+            Map.entry("NEW CERTIFICATE REQUEST", CSR_DETECTOR));
 
     private CryptoFileUtil() {
     }
@@ -113,7 +165,9 @@ public class CryptoFileUtil {
      * @throws NoSuchFileException If the file does not exist.
      */
     public static CryptoFileType detectFileType(File file) throws IOException {
-        return detectFileType(Files.readAllBytes(file.toPath()));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return detectFileType(channel);
+        }
     }
 
     /** Attempts to decode Base64 encoded file and for PEM files, remove excessive indentations from each line
@@ -137,14 +191,33 @@ public class CryptoFileUtil {
                     .map(String::trim)
                     .collect(Collectors.joining(System.lineSeparator()))
                     .getBytes();
-        } else {
+        } else if (isBase64(input)) {
             try {
                 // handle base64 encoded binary data
                 return Base64.getDecoder().decode(input.getBytes(StandardCharsets.US_ASCII));
             } catch (IllegalArgumentException e) {
                 return data;
             }
+        } else {
+            return data;
+        }
+    }
+
+    /*
+     * Cheap check for the Base64 alphabet, avoids the exception of the decoder for most other data.
+     */
+    private static boolean isBase64(String input) {
+        if (input.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/'
+                  || c == '=')) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
@@ -156,57 +229,227 @@ public class CryptoFileUtil {
      */
     public static CryptoFileType detectFileType(byte[] data) throws IOException {
 
-        // first handle base64 encoded binary data
-        try {
-            data =  decodeIfBase64sanitizeIfPem(data);
-        } catch(IllegalArgumentException e) {
-            // was not valid b64
+        // binary formats with a magic number do not need any parsing
+        CryptoFileSniffer sniffer = CryptoFileSniffer.sniff(data);
+        CryptoFileType fileType = detectFileTypeByMagicNumber(sniffer, data);
+        if (fileType != null) {
+            return fileType;
         }
 
-        List<PemInfo> pemInfos = null;
-        try {
-            pemInfos = PemUtil.decodeAll(data);
-            if (isPemKeyStore(pemInfos)) {
-                return PEM_KS;
+        // next handle base64 encoded binary data (only text can be base64 or PEM)
+        if (sniffer.isText()) {
+            data = decodeIfBase64sanitizeIfPem(data);
+            sniffer = CryptoFileSniffer.sniff(data);
+
+            fileType = detectFileTypeByMagicNumber(sniffer, data);
+            if (fileType != null) {
+                return fileType;
             }
-        } catch (IOException e) {
-            // was not valid PEM
         }
 
-        if (isJarFile(data)) {
+        // only run the parsers that can match the structure of the data
+        switch (sniffer.getFormat()) {
+        case BKS_OR_UBER:
+            return detectFileType(data, List.of(KEYSTORE_DETECTOR));
+        case PEM:
+            return detectPemFileType(data, sniffer.getPemType());
+        case DER:
+            return detectFileType(data, getDerDetectors(sniffer.getFirstElementTag()));
+        case JSON:
+            return detectFileType(data, JSON_DETECTORS);
+        case TEXT:
+        case BINARY:
+            // PEM blocks may be preceded by arbitrary text
+            if (CryptoFileSniffer.containsPemHeader(data)) {
+                return detectPemFileType(data, null);
+            }
+            return sniffer.isText() ? detectFileType(data, TEXT_DETECTORS) : UNKNOWN;
+        default:
+            // Not a recognised type
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Detect the cryptographic file type of the supplied input stream. If the type can be
+     * determined from the first bytes (e.g. JKS or JAR), the rest of the stream is not read.
+     *
+     * @param is Input stream with cryptographic data
+     * @return Type or UNKNOWN if the data is not of a recognised type
+     * @throws IOException If an I/O problem occurred
+     */
+    public static CryptoFileType detectFileType(InputStream is) throws IOException {
+        byte[] prefix = is.readNBytes(CryptoFileSniffer.PREFIX_LENGTH);
+
+        CryptoFileType fileType = detectFileTypeByMagicNumber(CryptoFileSniffer.sniff(prefix), prefix);
+        if (fileType != null) {
+            return fileType;
+        }
+
+        byte[] rest = is.readAllBytes();
+        byte[] data = Arrays.copyOf(prefix, prefix.length + rest.length);
+        System.arraycopy(rest, 0, data, prefix.length, rest.length);
+
+        return detectFileType(data);
+    }
+
+    /**
+     * Detect the cryptographic file type of the supplied file channel. If the type can be
+     * determined from the first bytes (e.g. JKS, BKS or JAR), the rest of the file is not read.
+     * The position of the channel is not changed.
+     *
+     * @param channel File channel with cryptographic data
+     * @return Type or UNKNOWN if the data is not of a recognised type
+     * @throws IOException If an I/O problem occurred
+     */
+    public static CryptoFileType detectFileType(FileChannel channel) throws IOException {
+        long size = channel.size();
+        byte[] prefix = read(channel, 0, (int) Math.min(size, CryptoFileSniffer.PREFIX_LENGTH));
+
+        CryptoFileSniffer sniffer = CryptoFileSniffer.sniff(prefix);
+        CryptoFileType fileType = detectFileTypeByMagicNumber(sniffer, prefix);
+        if (fileType != null) {
+            return fileType;
+        }
+
+        if (sniffer.getFormat() == CryptoFileSniffer.Format.BKS_OR_UBER) {
+            // only the 21st byte from the end is needed (see detectKeyStoreType)
+            if (size < 26) {
+                return UNKNOWN;
+            }
+            byte[] nullByte = read(channel, size - 21, 1);
+            return nullByte.length == 1 && nullByte[0] == 0 ? BKS.getCryptoFileType() : UBER.getCryptoFileType();
+        }
+
+        if (size > Integer.MAX_VALUE - 8) {
+            return UNKNOWN; // too large for any cryptographic file type
+        }
+
+        return detectFileType(read(channel, 0, (int) size));
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /*
+     * Returns the type for formats that are identified by their magic number or null if
+     * the data has to be parsed.
+     */
+    private static CryptoFileType detectFileTypeByMagicNumber(CryptoFileSniffer sniffer, byte[] data)
+            throws IOException {
+        switch (sniffer.getFormat()) {
+        case EMPTY:
+            return UNKNOWN;
+        case ZIP:
             return JAR;
+        case JKS:
+            return JKS.getCryptoFileType();
+        case JCEKS:
+            return JCEKS.getCryptoFileType();
+        case KDB:
+            return KDB.getCryptoFileType();
+        case MS_PVK:
+            // null if the remaining header fields are invalid
+            return detectMsPvk(data);
+        default:
+            return null;
         }
+    }
 
-        EncryptionType pkcs8EncType = Pkcs8Util.getEncryptionType(data);
+    private static CryptoFileType detectPemFileType(byte[] data, String pemType) throws IOException {
+        List<PemInfo> pemInfos = PemUtil.decodeAll(data);
+        if (isPemKeyStore(pemInfos)) {
+            return PEM_KS;
+        }
 
-        if (pkcs8EncType != null) {
-            if (pkcs8EncType == ENCRYPTED) {
-                return ENC_PKCS8_PVK;
-            } else if (pkcs8EncType == UNENCRYPTED) {
-                return UNENC_PKCS8_PVK;
+        // try the parser that matches the PEM type first
+        Detector preferred = pemType == null ? null : PEM_TYPE_DETECTORS.get(pemType);
+        if (preferred != null) {
+            CryptoFileType fileType = preferred.detect(data, pemInfos);
+            if (fileType != null) {
+                return fileType;
             }
         }
 
-        EncryptionType msPvkEncType = MsPvkUtil.getEncryptionType(data);
+        for (Detector detector : PEM_DETECTORS) {
+            if (detector != preferred) {
+                CryptoFileType fileType = detector.detect(data, pemInfos);
+                if (fileType != null) {
+                    return fileType;
+                }
+            }
+        }
+
+        // Not a recognised type
+        return UNKNOWN;
+    }
 
-        if (msPvkEncType != null) {
-            if (msPvkEncType == ENCRYPTED) {
-                return ENC_MS_PVK;
-            } else if (msPvkEncType == UNENCRYPTED) {
-                return UNENC_MS_PVK;
+    private static CryptoFileType detectFileType(byte[] data, List<Detector> detectors) throws IOException {
+        for (Detector detector : detectors) {
+            CryptoFileType fileType = detector.detect(data, Collections.emptyList());
+            if (fileType != null) {
+                return fileType;
             }
         }
 
+        // Not a recognised type
+        return UNKNOWN;
+    }
+
+    private static List<Detector> getDerDetectors(int firstElementTag) {
+        switch (firstElementTag) {
+        case BERTags.INTEGER:
+            // unencrypted private keys and PKCS #12
+            return DER_INTEGER_DETECTORS;
+        case BERTags.SEQUENCE | BERTags.CONSTRUCTED:
+            // encrypted private keys, public keys, certificates, CRLs, CSRs and BCFKS
+            return DER_SEQUENCE_DETECTORS;
+        default:
+            return DER_DETECTORS;
+        }
+    }
+
+    private static CryptoFileType detectPkcs8(byte[] data, List<PemInfo> pemInfos) throws IOException {
+        EncryptionType pkcs8EncType = Pkcs8Util.getEncryptionType(data);
+
+        if (pkcs8EncType == ENCRYPTED) {
+            return ENC_PKCS8_PVK;
+        } else if (pkcs8EncType == UNENCRYPTED) {
+            return UNENC_PKCS8_PVK;
+        }
+        return null;
+    }
+
+    private static CryptoFileType detectMsPvk(byte[] data) {
+        EncryptionType msPvkEncType = MsPvkUtil.getEncryptionType(data);
+
+        if (msPvkEncType == ENCRYPTED) {
+            return ENC_MS_PVK;
+        } else if (msPvkEncType == UNENCRYPTED) {
+            return UNENC_MS_PVK;
+        }
+        return null;
+    }
+
+    private static CryptoFileType detectOpenSslPvk(byte[] data, List<PemInfo> pemInfos) throws IOException {
         EncryptionType openSslPvkEncType = OpenSslPvkUtil.getEncryptionType(data);
 
-        if (openSslPvkEncType != null) {
-            if (openSslPvkEncType == ENCRYPTED) {
-                return ENC_OPENSSL_PVK;
-            } else if (openSslPvkEncType == UNENCRYPTED) {
-                return UNENC_OPENSSL_PVK;
-            }
+        if (openSslPvkEncType == ENCRYPTED) {
+            return ENC_OPENSSL_PVK;
+        } else if (openSslPvkEncType == UNENCRYPTED) {
+            return UNENC_OPENSSL_PVK;
         }
+        return null;
+    }
 
+    private static CryptoFileType detectOpenSslPub(byte[] data, List<PemInfo> pemInfos) {
         try {
             OpenSslPubUtil.load(data);
             return OPENSSL_PUB;
@@ -216,7 +459,10 @@ public class CryptoFileUtil {
             // Ignore - not an OpenSSL public key file, some files cause the
             // heap space to fill up with the load call
         }
+        return null;
+    }
 
+    private static CryptoFileType detectCertificates(byte[] data, List<PemInfo> pemInfos) {
         try {
             if (X509CertUtil.loadCertificates(data).length > 0) {
                 return CERT;
@@ -224,26 +470,30 @@ public class CryptoFileUtil {
         } catch (Exception ex) {
             // Ignore - not a certificate file
         }
+        return null;
+    }
 
+    private static CryptoFileType detectCrl(byte[] data, List<PemInfo> pemInfos) {
         try {
             X509CertUtil.loadCRL(data);
             return CRL;
         } catch (Exception ex) {
             // Ignore - not a CRL file
         }
+        return null;
+    }
 
+    private static CryptoFileType detectCsr(byte[] data, List<PemInfo> pemInfos) throws IOException {
         CsrType csrType = detectCsrType(data);
+        return csrType != null ? csrType.getCryptoFileType() : null;
+    }
 
-        if (csrType != null) {
-            return csrType.getCryptoFileType();
-        }
-
+    private static CryptoFileType detectKeyStore(byte[] data, List<PemInfo> pemInfos) throws IOException {
         KeyStoreType keyStoreType = detectKeyStoreType(data, pemInfos);
+        return keyStoreType != null ? keyStoreType.getCryptoFileType() : null;
+    }
 
-        if (keyStoreType != null) {
-            return keyStoreType.getCryptoFileType();
-        }
-
+    private static CryptoFileType detectJwk(byte[] data, List<PemInfo> pemInfos) {
         EncryptionType jwkEncType = JwkUtil.getEncryptionType(data);
         if (jwkEncType != null) {
             try {
@@ -266,25 +516,11 @@ public class CryptoFileUtil {
                 // Data is not JWK key
             }
         }
-
-        if (isJwt(data)) {
-            return JSON_WEB_TOKEN;
-        }
-
-        // Not a recognised type
-        return UNKNOWN;
+        return null;
     }
 
-    private static boolean isJarFile(byte[] data) {
-        if (data.length < 4) {
-            return false;
-        }
-
-        int magic = (data[0] << 24) & 0xff000000 | (data[1] << 16) & 0x00ff0000 | (data[2] << 8) & 0x0000ff00 |
-                    (data[3]) & 0x000000ff;
-
-        return magic == ZIP_MAGIC_NUMBER1 || magic == ZIP_MAGIC_NUMBER2 || magic == ZIP_MAGIC_NUMBER3 ||
-               magic == ZIP_MAGIC_NUMBER4;
+    private static CryptoFileType detectJwt(byte[] data, List<PemInfo> pemInfos) {
+        return isJwt(data) ? JSON_WEB_TOKEN : null;
     }
 
     private static boolean isJwt(byte[] data) {
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.keystore;
+
+import java.nio.ByteBuffer;
+import java.security.KeyStoreException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An index from the SHA-256 fingerprint of each entry's certificate to the aliases that hold it.
+ * <p>
+ * Used to answer "is this certificate already present", "which alias holds this certificate" and
+ * "is this alias taken" without enumerating and comparing all entries. The index is kept up to
+ * date entry by entry as the KeyStore is changed (see {@link CopyOnWriteKeyStore}), so importing
+ * many certificates does not rescan the KeyStore for every certificate.
+ * </p>
+ * Aliases are compared with the alias comparator of the KeyStore type.
+ */
+public class CertificateFingerprintIndex {
+
+    private final TreeMap<String, IndexedEntry> byAlias;
+    private final Map<ByteBuffer, List<String>> aliasesByFingerprint = new HashMap<>();
+    private final TreeMap<String, Integer> aliasSuffixHints;
+
+    private record IndexedEntry(String alias, ByteBuffer fingerprint, boolean trustedCertificate) {}
+
+    private CertificateFingerprintIndex(Comparator<String> aliasComparator) {
+        byAlias = new TreeMap<>(aliasComparator);
+        aliasSuffixHints = new TreeMap<>(aliasComparator);
+    }
+
+    /**
+     * Create a copy of another index. Changes to the copy do not affect the original.
+     *
+     * @param other Index to copy
+     */
+    public CertificateFingerprintIndex(CertificateFingerprintIndex other) {
+        byAlias = new TreeMap<>(other.byAlias);
+        other.aliasesByFingerprint.forEach((fingerprint, aliases) -> aliasesByFingerprint.put(fingerprint,
+                                                                                            new ArrayList<>(aliases)));
+        aliasSuffixHints = new TreeMap<>(other.aliasSuffixHints);
+    }
+
+    /**
+     * Build the index for all entries of a KeyStore.
+     *
+     * @param keyStore KeyStore
+     * @param type     Type of the KeyStore
+     * @return The index
+     * @throws KeyStoreException If there was a problem accessing the KeyStore
+     */
+    public static CertificateFingerprintIndex build(KseKeyStore keyStore, KeyStoreType type)
+            throws KeyStoreException {
+        CertificateFingerprintIndex index = new CertificateFingerprintIndex(type.getAliasComparator());
+
+        for (Enumeration<String> aliases = keyStore.aliases(); aliases.hasMoreElements(); ) {
+            index.update(keyStore, aliases.nextElement());
+        }
+
+        return index;
+    }
+
+    /**
+     * Re-read a single entry of the KeyStore after it has been set or deleted.
+     *
+     * @param keyStore KeyStore
+     * @param alias    Alias of the entry
+     * @throws KeyStoreException If there was a problem accessing the KeyStore
+     */
+    public void update(KseKeyStore keyStore, String alias) throws KeyStoreException {
+        remove(alias);
+
+        if (!keyStore.containsAlias(alias)) {
+            return;
+        }
+
+        ByteBuffer fingerprint = fingerprint(keyStore.getCertificate(alias));
+        IndexedEntry entry = new IndexedEntry(alias, fingerprint, keyStore.isCertificateEntry(alias));
+        byAlias.put(alias, entry);
+
+        if (fingerprint != null) {
+            aliasesByFingerprint.computeIfAbsent(fingerprint, f -> new ArrayList<>()).add(alias);
+        }
+    }
+
+    private void remove(String alias) {
+        IndexedEntry entry = byAlias.remove(alias);
+
+        if (entry == null) {
+            return;
+        }
+
+        // an alias is free again, so lower suffixes may be available again as well
+        aliasSuffixHints.clear();
+
+        if (entry.fingerprint() != null) {
+            List<String> aliases = aliasesByFingerprint.get(entry.fingerprint());
+            aliases.remove(entry.alias());
+            if (aliases.isEmpty()) {
+                aliasesByFingerprint.remove(entry.fingerprint());
+            }
+        }
+    }
+
+    /**
+     * Is the alias in use?
+     *
+     * @param alias Alias
+     * @return True if it is
+     */
+    public boolean containsAlias(String alias) {
+        return byAlias.containsKey(alias);
+    }
+
+    /**
+     * Is the certificate held by any entry?
+     *
+     * @param cert Certificate
+     * @return True if it is
+     */
+    public boolean containsCertificate(Certificate cert) {
+        return getCertificateAlias(cert) != null;
+    }
+
+    /**
+     * Get the alias of the first entry whose certificate (the first of the chain for key pair
+     * entries) is the supplied one.
+     *
+     * @param cert Certificate
+     * @return Alias or null if there is none
+     */
+    public String getCertificateAlias(Certificate cert) {
+        List<String> aliases = aliasesByFingerprint.get(fingerprint(cert));
+        return aliases == null ? null : aliases.get(0);
+    }
+
+    /**
+     * Get the alias of the first trusted certificate entry that holds the supplied certificate.
+     *
+     * @param cert Certificate
+     * @return Alias or null if there is none
+     */
+    public String getTrustedCertificateAlias(Certificate cert) {
+        List<String> aliases = aliasesByFingerprint.get(fingerprint(cert));
+
+        if (aliases != null) {
+            for (String alias : aliases) {
+                if (byAlias.get(alias).trustedCertificate()) {
+                    return alias;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the suffix number at which the search for an unused variant of an alias should start.
+     * All lower suffixes were found to be in use and no entry has been removed since.
+     *
+     * @param alias Alias without suffix
+     * @return Suffix number, 1 if nothing is known
+     */
+    public int getAliasSuffixHint(String alias) {
+        return aliasSuffixHints.getOrDefault(alias, 1);
+    }
+
+    /**
+     * Record the suffix number of the unused variant of an alias that was found.
+     *
+     * @param alias  Alias without suffix
+     * @param suffix Suffix number
+     */
+    public void setAliasSuffixHint(String alias, int suffix) {
+        aliasSuffixHints.put(alias, suffix);
+    }
+
+    private static ByteBuffer fingerprint(Certificate cert) {
+        if (cert == null) {
+            return null;
+        }
+
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(cert.getEncoded()));
+        } catch (NoSuchAlgorithmException | CertificateEncodingException e) {
+            return null;
+        }
+    }
+}
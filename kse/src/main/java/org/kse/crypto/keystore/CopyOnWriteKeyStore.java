@@ -0,0 +1,636 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.keystore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStore.Entry;
+import java.security.KeyStore.LoadStoreParameter;
+import java.security.KeyStore.PasswordProtection;
+import java.security.KeyStore.ProtectionParameter;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.UnrecoverableEntryException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.kse.crypto.CryptoException;
+import org.kse.gui.passwordmanager.Password;
+
+/**
+ * A KeyStore that shares its entries with the KeyStore it was created from and
+ * only records the entries that were changed since.
+ * <p>
+ * The base KeyStore is never modified. Every changed entry is held in a small
+ * KeyStore of the same type that contains just that entry, so reading it back
+ * behaves exactly like reading it from a full copy (alias normalization, entry
+ * password checks, creation dates, ...). Deleted entries are recorded as well.
+ * The changes are kept in layers: taking a snapshot freezes the current layer,
+ * which is then shared by both KeyStores.
+ * </p>
+ * The complete KeyStore is only built when it is stored and then replaces the base,
+ * so it is built once for a set of changes. Key entries are copied into it from
+ * their single entry KeyStore with a copy of the entry password, which is nulled by
+ * {@link #nullPasswords()}.
+ * <p>
+ * A {@link CertificateFingerprintIndex} is built on first request and then updated with every
+ * changed entry. Snapshots share the index of the KeyStore they were created from until their
+ * first change.
+ * <p>
+ * The aliases changed in a snapshot itself, as opposed to the changes inherited from the KeyStore
+ * it was created from, are available as {@link #getChangedAliases()}.
+ */
+public class CopyOnWriteKeyStore extends KseKeyStore {
+
+    private static final Set<KeyStoreType> SUPPORTED_TYPES = EnumSet.of(KeyStoreType.JKS, KeyStoreType.JCEKS,
+                                                                        KeyStoreType.PKCS12, KeyStoreType.BKS,
+                                                                        KeyStoreType.UBER, KeyStoreType.BCFKS);
+
+    // number of layers after which the inherited changes are merged into one layer
+    private static final int MAX_LAYERS = 16;
+
+    private final KeyStoreType type;
+    private volatile KseKeyStore base;
+    private volatile ChangeLayer changes;
+    private int sizeDelta;
+    private TreeSet<String> changedAliases;
+    private final List<ChangedEntry> ownEntries = new ArrayList<>();
+    private CertificateFingerprintIndex certificateIndex;
+    private boolean certificateIndexShared;
+
+    /**
+     * A changed entry. If the entry was deleted, there is no single entry KeyStore and no copy
+     * operation.
+     */
+    private static class ChangedEntry {
+        private final String alias;
+        private final KseKeyStore entryKeyStore;
+        private final EntryCopy copy;
+        private final Password password;
+
+        private ChangedEntry(String alias, KseKeyStore entryKeyStore, EntryCopy copy, Password password) {
+            this.alias = alias;
+            this.entryKeyStore = entryKeyStore;
+            this.copy = copy;
+            this.password = password;
+        }
+
+        private boolean isDeleted() {
+            return entryKeyStore == null;
+        }
+
+        private void copyTo(KseKeyStore keyStore) throws KeyStoreException {
+            char[] entryPassword;
+            try {
+                entryPassword = password == null ? null : password.toCharArray();
+            } catch (IllegalStateException ex) {
+                throw new KeyStoreException(ex);
+            }
+            copy.copy(entryKeyStore, keyStore, alias, entryPassword);
+        }
+    }
+
+    /**
+     * A write operation on a KeyStore.
+     */
+    @FunctionalInterface
+    private interface EntryWrite {
+        void writeTo(KseKeyStore keyStore, String alias) throws KeyStoreException;
+    }
+
+    /**
+     * Copies a changed entry from its single entry KeyStore when the complete KeyStore is built.
+     */
+    @FunctionalInterface
+    private interface EntryCopy {
+        void copy(KseKeyStore source, KseKeyStore target, String alias, char[] password) throws KeyStoreException;
+    }
+
+    /**
+     * A layer of changed entries on top of the layers inherited from the KeyStore a snapshot was
+     * created from. Only the top layer of a KeyStore is changed, inherited layers are frozen.
+     */
+    private static class ChangeLayer {
+        private final ChangeLayer parent;
+        private final TreeMap<String, ChangedEntry> entries;
+        private final int depth;
+
+        private ChangeLayer(ChangeLayer parent, Comparator<String> aliasComparator) {
+            this.parent = parent;
+            this.entries = new TreeMap<>(aliasComparator);
+            this.depth = parent == null ? 1 : parent.depth + 1;
+        }
+
+        private ChangedEntry get(String alias) {
+            for (ChangeLayer layer = this; layer != null; layer = layer.parent) {
+                ChangedEntry changed = layer.entries.get(alias);
+                if (changed != null) {
+                    return changed;
+                }
+            }
+            return null;
+        }
+
+        private boolean isEmpty() {
+            for (ChangeLayer layer = this; layer != null; layer = layer.parent) {
+                if (!layer.entries.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * All changes of this layer and the inherited ones, the most recent change of an alias winning.
+         */
+        private TreeMap<String, ChangedEntry> merge() {
+            if (parent == null) {
+                return entries;
+            }
+            TreeMap<String, ChangedEntry> merged = new TreeMap<>(parent.merge());
+            merged.putAll(entries);
+            return merged;
+        }
+    }
+
+    private CopyOnWriteKeyStore(KseKeyStore base, KeyStoreType type, ChangeLayer changes, int sizeDelta) {
+        super(null);
+        this.base = base;
+        this.type = type;
+        this.changes = changes;
+        this.sizeDelta = sizeDelta;
+        this.changedAliases = new TreeSet<>(type.getAliasComparator());
+    }
+
+    /**
+     * Is a copy-on-write snapshot supported for the KeyStore type?
+     *
+     * @param keyStoreType KeyStore type
+     * @return True if it is
+     */
+    public static boolean isSupported(KeyStoreType keyStoreType) {
+        return SUPPORTED_TYPES.contains(keyStoreType);
+    }
+
+    /**
+     * Create a snapshot of a KeyStore. The snapshot can be changed without affecting the
+     * original KeyStore. The original KeyStore must not be changed afterwards.
+     *
+     * @param keyStore KeyStore of a supported type
+     * @return Snapshot
+     */
+    public static CopyOnWriteKeyStore snapshot(KseKeyStore keyStore) {
+        if (keyStore instanceof CopyOnWriteKeyStore) {
+            CopyOnWriteKeyStore cowKeyStore = (CopyOnWriteKeyStore) keyStore;
+            Comparator<String> aliasComparator = cowKeyStore.type.getAliasComparator();
+
+            synchronized (cowKeyStore) {
+                // freeze the changes so far, they are shared by both KeyStores from now on
+                ChangeLayer frozen = cowKeyStore.changes;
+                if (frozen.depth >= MAX_LAYERS) {
+                    ChangeLayer merged = new ChangeLayer(null, aliasComparator);
+                    merged.entries.putAll(frozen.merge());
+                    frozen = merged;
+                }
+                cowKeyStore.changes = new ChangeLayer(frozen, aliasComparator);
+
+                CopyOnWriteKeyStore snapshot = new CopyOnWriteKeyStore(cowKeyStore.base, cowKeyStore.type,
+                                                                       new ChangeLayer(frozen, aliasComparator),
+                                                                       cowKeyStore.sizeDelta);
+                snapshot.certificateIndex = cowKeyStore.certificateIndex;
+                snapshot.certificateIndexShared = true;
+                return snapshot;
+            }
+        }
+
+        KeyStoreType type = KeyStoreType.resolveJce(keyStore.getType());
+        return new CopyOnWriteKeyStore(keyStore, type, new ChangeLayer(null, type.getAliasComparator()), 0);
+    }
+
+    /**
+     * Get the certificate fingerprint index of this KeyStore. Entries of the index are only updated
+     * by this KeyStore; callers may record alias suffix hints, which hold for any snapshot sharing
+     * the index.
+     *
+     * @return Index
+     * @throws KeyStoreException If there was a problem accessing the KeyStore
+     */
+    public synchronized CertificateFingerprintIndex getCertificateIndex() throws KeyStoreException {
+        if (certificateIndex == null) {
+            certificateIndex = CertificateFingerprintIndex.build(this, type);
+            certificateIndexShared = false;
+        }
+        return certificateIndex;
+    }
+
+    /**
+     * Get the aliases of the entries that were added, changed or deleted since this snapshot was
+     * created. For a renamed entry both the old and the new alias are included.
+     *
+     * @return Changed aliases or null if the KeyStore was reloaded
+     */
+    public synchronized Set<String> getChangedAliases() {
+        return changedAliases == null ? null : Collections.unmodifiableSet(changedAliases);
+    }
+
+    /**
+     * Get the number of entries that were changed compared to the base KeyStore.
+     *
+     * @return Number of changed entries
+     */
+    public int getChangeCount() {
+        return changes.merge().size();
+    }
+
+    /**
+     * Null the copies of the entry passwords that were recorded by changes to this KeyStore.
+     * Afterwards the KeyStore can no longer be stored if it contains such changes. The changes
+     * inherited from the KeyStore this snapshot was created from are not affected.
+     */
+    public synchronized void nullPasswords() {
+        for (ChangedEntry changed : ownEntries) {
+            if (changed.password != null) {
+                changed.password.nullPassword();
+            }
+        }
+    }
+
+    /**
+     * Get a copy of the complete KeyStore. Changes to the returned KeyStore do not affect this
+     * KeyStore or any snapshot.
+     *
+     * @return Copy of the KeyStore
+     */
+    @Override
+    @Deprecated
+    public KeyStore getKeyStore() {
+        try {
+            return KeyStoreUtil.copy(materialize()).getKeyStore();
+        } catch (KeyStoreException | CryptoException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public Provider getProvider() {
+        return base.getProvider();
+    }
+
+    @Override
+    public String getType() {
+        return base.getType();
+    }
+
+    @Override
+    public Key getKey(String alias, char[] password)
+            throws UnrecoverableKeyException, KeyStoreException, NoSuchAlgorithmException {
+        ChangedEntry changed = changes.get(alias);
+        if (changed == null) {
+            return base.getKey(alias, password);
+        }
+        return changed.isDeleted() ? null : changed.entryKeyStore.getKey(changed.alias, password);
+    }
+
+    @Override
+    public Certificate[] getCertificateChain(String alias) throws KeyStoreException {
+        ChangedEntry changed = changes.get(alias);
+        if (changed == null) {
+            return base.getCertificateChain(alias);
+        }
+        return changed.isDeleted() ? null : changed.entryKeyStore.getCertificateChain(changed.alias);
+    }
+
+    @Override
+    public Certificate getCertificate(String alias) throws KeyStoreException {
+        ChangedEntry changed = changes.get(alias);
+        if (changed == null) {
+            return base.getCertificate(alias);
+        }
+        return changed.isDeleted() ? null : changed.entryKeyStore.getCertificate(changed.alias);
+    }
+
+    @Override
+    public Date getCreationDate(String alias) throws KeyStoreException {
+        ChangedEntry changed = changes.get(alias);
+        if (changed == null) {
+            return base.getCreationDate(alias);
+        }
+        return changed.isDeleted() ? null : changed.entryKeyStore.getCreationDate(changed.alias);
+    }
+
+    @Override
+    public void setKeyEntry(String alias, Key key, char[] password, Certificate[] chain) throws KeyStoreException {
+        // the key is read back from the single entry KeyStore, so only the password is kept
+        recordChange(alias, (ks, a) -> ks.setKeyEntry(a, key, password, chain), password,
+                     CopyOnWriteKeyStore::copyKeyEntry);
+    }
+
+    @Override
+    public void setKeyEntry(String alias, byte[] key, Certificate[] chain) throws KeyStoreException {
+        byte[] keyCopy = key.clone();
+        Certificate[] chainCopy = chain == null ? null : chain.clone();
+
+        EntryWrite write = (ks, a) -> ks.setKeyEntry(a, keyCopy, chainCopy);
+        recordChange(alias, write, null, (source, target, a, p) -> write.writeTo(target, a));
+    }
+
+    @Override
+    public void setCertificateEntry(String alias, Certificate cert) throws KeyStoreException {
+        EntryWrite write = (ks, a) -> ks.setCertificateEntry(a, cert);
+        recordChange(alias, write, null, (source, target, a, p) -> write.writeTo(target, a));
+    }
+
+    @Override
+    public void setEntry(String alias, Entry entry, ProtectionParameter protParam) throws KeyStoreException {
+        EntryWrite write = (ks, a) -> ks.setEntry(a, entry, protParam);
+
+        if (protParam instanceof PasswordProtection) {
+            PasswordProtection passwordProtection = (PasswordProtection) protParam;
+            String protectionAlgorithm = passwordProtection.getProtectionAlgorithm();
+            AlgorithmParameterSpec protectionParameters = passwordProtection.getProtectionParameters();
+
+            // the entry is read back from the single entry KeyStore, so only the password is kept
+            recordChange(alias, write, passwordProtection.getPassword(), (source, target, a, p) -> {
+                PasswordProtection copyProtection = new PasswordProtection(p, protectionAlgorithm,
+                                                                           protectionParameters);
+                try {
+                    target.setEntry(a, source.getEntry(a, copyProtection), copyProtection);
+                } catch (NoSuchAlgorithmException | UnrecoverableEntryException ex) {
+                    throw new KeyStoreException(ex);
+                }
+            });
+        } else {
+            recordChange(alias, write, null, (source, target, a, p) -> write.writeTo(target, a));
+        }
+    }
+
+    @Override
+    public synchronized void deleteEntry(String alias) throws KeyStoreException {
+        if (containsAlias(alias)) {
+            changes.entries.put(alias, new ChangedEntry(alias, null, null, null));
+            sizeDelta--;
+            recordChangedAlias(alias);
+            updateCertificateIndex(alias);
+        }
+    }
+
+    @Override
+    public Enumeration<String> aliases() throws KeyStoreException {
+        KseKeyStore baseKeyStore;
+        TreeMap<String, ChangedEntry> allChanges;
+        synchronized (this) {
+            baseKeyStore = base;
+            allChanges = changes.merge();
+        }
+
+        List<String> aliases = new ArrayList<>();
+
+        for (Enumeration<String> baseAliases = baseKeyStore.aliases(); baseAliases.hasMoreElements(); ) {
+            String alias = baseAliases.nextElement();
+            if (!allChanges.containsKey(alias)) {
+                aliases.add(alias);
+            }
+        }
+
+        for (ChangedEntry changed : allChanges.values()) {
+            if (!changed.isDeleted()) {
+                aliases.add(changed.alias);
+            }
+        }
+
+        return Collections.enumeration(aliases);
+    }
+
+    @Override
+    public boolean containsAlias(String alias) throws KeyStoreException {
+        ChangedEntry changed = changes.get(alias);
+        if (changed == null) {
+            return base.containsAlias(alias);
+        }
+        return !changed.isDeleted();
+    }
+
+    @Override
+    public synchronized int size() throws KeyStoreException {
+        return base.size() + sizeDelta;
+    }
+
+    @Override
+    public boolean isKeyEntry(String alias) throws KeyStoreException {
+        ChangedEntry changed = changes.get(alias);
+        if (changed == null) {
+            return base.isKeyEntry(alias);
+        }
+        return !changed.isDeleted() && changed.entryKeyStore.isKeyEntry(changed.alias);
+    }
+
+    @Override
+    public boolean isCertificateEntry(String alias) throws KeyStoreException {
+        ChangedEntry changed = changes.get(alias);
+        if (changed == null) {
+            return base.isCertificateEntry(alias);
+        }
+        return !changed.isDeleted() && changed.entryKeyStore.isCertificateEntry(changed.alias);
+    }
+
+    @Override
+    public String getCertificateAlias(Certificate cert) throws KeyStoreException {
+        return getCertificateIndex().getCertificateAlias(cert);
+    }
+
+    @Override
+    public void store(OutputStream out, char[] password)
+            throws KeyStoreException, NoSuchAlgorithmException, CertificateException, IOException {
+        materialize().store(out, password);
+    }
+
+    @Override
+    public void store(LoadStoreParameter param)
+            throws KeyStoreException, NoSuchAlgorithmException, CertificateException, IOException {
+        materialize().store(param);
+    }
+
+    /**
+     * Load the KeyStore into a new base KeyStore. All changes are discarded and the changed
+     * aliases are no longer known.
+     */
+    @Override
+    public void load(InputStream stream, char[] password)
+            throws NoSuchAlgorithmException, CertificateException, IOException {
+        KseKeyStore keyStore = createBase();
+        keyStore.load(stream, password);
+        replaceBase(keyStore);
+    }
+
+    /**
+     * Load the KeyStore into a new base KeyStore. All changes are discarded and the changed
+     * aliases are no longer known.
+     */
+    @Override
+    public void load(LoadStoreParameter param) throws NoSuchAlgorithmException, CertificateException, IOException {
+        KseKeyStore keyStore = createBase();
+        keyStore.load(param);
+        replaceBase(keyStore);
+    }
+
+    @Override
+    public Entry getEntry(String alias, ProtectionParameter protParam)
+            throws NoSuchAlgorithmException, UnrecoverableEntryException, KeyStoreException {
+        ChangedEntry changed = changes.get(alias);
+        if (changed == null) {
+            return base.getEntry(alias, protParam);
+        }
+        return changed.isDeleted() ? null : changed.entryKeyStore.getEntry(changed.alias, protParam);
+    }
+
+    @Override
+    public boolean entryInstanceOf(String alias, Class<? extends Entry> entryClass) throws KeyStoreException {
+        ChangedEntry changed = changes.get(alias);
+        if (changed == null) {
+            return base.entryInstanceOf(alias, entryClass);
+        }
+        return !changed.isDeleted() && changed.entryKeyStore.entryInstanceOf(changed.alias, entryClass);
+    }
+
+    private static void copyKeyEntry(KseKeyStore source, KseKeyStore target, String alias, char[] password)
+            throws KeyStoreException {
+        try {
+            target.setKeyEntry(alias, source.getKey(alias, password), password, source.getCertificateChain(alias));
+        } catch (NoSuchAlgorithmException | UnrecoverableKeyException ex) {
+            throw new KeyStoreException(ex);
+        }
+    }
+
+    private synchronized void recordChange(String alias, EntryWrite write, char[] password, EntryCopy copy)
+            throws KeyStoreException {
+        KseKeyStore entryKeyStore;
+        try {
+            entryKeyStore = KeyStoreUtil.create(type);
+        } catch (CryptoException | IOException ex) {
+            throw new KeyStoreException(ex);
+        }
+
+        // the single entry KeyStore validates the entry and normalizes the alias like a full copy would
+        write.writeTo(entryKeyStore, alias);
+        String storedAlias = entryKeyStore.aliases().nextElement();
+
+        if (!containsAlias(alias)) {
+            sizeDelta++;
+        }
+
+        ChangedEntry changed = new ChangedEntry(storedAlias, entryKeyStore, copy,
+                                                password == null ? null : new Password(password.clone()));
+        ownEntries.add(changed);
+
+        changes.entries.remove(alias);
+        changes.entries.put(storedAlias, changed);
+        recordChangedAlias(alias);
+        recordChangedAlias(storedAlias);
+
+        updateCertificateIndex(alias);
+        if (!storedAlias.equals(alias)) {
+            updateCertificateIndex(storedAlias);
+        }
+    }
+
+    private void recordChangedAlias(String alias) {
+        if (changedAliases != null) {
+            changedAliases.add(alias);
+        }
+    }
+
+    private synchronized void updateCertificateIndex(String alias) throws KeyStoreException {
+        if (certificateIndex == null) {
+            return;
+        }
+        if (certificateIndexShared) {
+            certificateIndex = new CertificateFingerprintIndex(certificateIndex);
+            certificateIndexShared = false;
+        }
+        certificateIndex.update(this, alias);
+    }
+
+    private KseKeyStore createBase() throws IOException {
+        try {
+            return KeyStoreUtil.create(type);
+        } catch (CryptoException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private synchronized void replaceBase(KseKeyStore keyStore) {
+        base = keyStore;
+        changes = new ChangeLayer(null, type.getAliasComparator());
+        sizeDelta = 0;
+        changedAliases = null;
+        certificateIndex = null;
+        certificateIndexShared = false;
+    }
+
+    /**
+     * Build the complete KeyStore by copying the base KeyStore and applying all changes. The
+     * result becomes the new base, so this is only done once for a set of changes. The copy is
+     * needed because the base is shared with other snapshots.
+     */
+    private synchronized KseKeyStore materialize() throws KeyStoreException {
+        if (changes.isEmpty()) {
+            return base;
+        }
+
+        KseKeyStore keyStore;
+        try {
+            keyStore = KeyStoreUtil.copy(base);
+        } catch (CryptoException ex) {
+            throw new KeyStoreException(ex);
+        }
+
+        for (ChangedEntry changed : changes.merge().values()) {
+            if (keyStore.containsAlias(changed.alias)) {
+                keyStore.deleteEntry(changed.alias);
+            }
+            if (!changed.isDeleted()) {
+                changed.copyTo(keyStore);
+            }
+        }
+
+        // readers look at the changes first, so the new base must be visible before the changes are dropped
+        base = keyStore;
+        changes = new ChangeLayer(null, type.getAliasComparator());
+        sizeDelta = 0;
+
+        return base;
+    }
+}
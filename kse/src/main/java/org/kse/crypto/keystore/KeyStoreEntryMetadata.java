@@ -0,0 +1,376 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.keystore;
+
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.KeyInfo;
+import org.kse.crypto.digest.DigestType;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.x509.KseX500NameStyle;
+import org.kse.crypto.x509.X500NameUtils;
+import org.kse.crypto.x509.X509CertUtil;
+import org.kse.crypto.x509.X509Ext;
+import org.kse.crypto.x509.X509ExtensionType;
+import org.kse.utilities.io.HexUtil;
+
+/**
+ * Certificate related information about a single KeyStore entry.
+ * <p>
+ * Retrieving the certificate chain of an entry, converting and ordering it is expensive, so this
+ * is done only once per entry and the derived values (DNs, key identifiers, fingerprints, ...) are
+ * kept together here. Instances are immutable apart from the lazily calculated fingerprints.
+ * </p>
+ * For key entries (secret keys or private keys without certificate) there is no certificate and
+ * all certificate related getters return null.
+ */
+public class KeyStoreEntryMetadata {
+    private final String alias;
+    private final boolean trustedCertificateEntry;
+    private final boolean keyPairEntry;
+    private final X509Certificate[] certificateChain;
+    private final KeyInfo keyInfo;
+    private final String subjectDN;
+    private final String issuerDN;
+    private final String subjectCN;
+    private final String issuerCN;
+    private final String subjectO;
+    private final String issuerO;
+    private final String serialNumberHex;
+    private final String serialNumberDec;
+    private final String ski;
+    private final String aki;
+    private final Date earliestChainExpiry;
+    private final Map<DigestType, String> fingerprints = new ConcurrentHashMap<>();
+
+    private KeyStoreEntryMetadata(String alias, boolean trustedCertificateEntry, boolean keyPairEntry,
+                                  X509Certificate[] certificateChain) throws CryptoException {
+        this.alias = alias;
+        this.trustedCertificateEntry = trustedCertificateEntry;
+        this.keyPairEntry = keyPairEntry;
+        this.certificateChain = certificateChain;
+
+        if (certificateChain == null) {
+            // Key entry - no certificate information available
+            keyInfo = null;
+            subjectDN = null;
+            issuerDN = null;
+            subjectCN = null;
+            issuerCN = null;
+            subjectO = null;
+            issuerO = null;
+            serialNumberHex = null;
+            serialNumberDec = null;
+            ski = null;
+            aki = null;
+            earliestChainExpiry = null;
+            return;
+        }
+
+        X509Certificate cert = certificateChain[0];
+
+        keyInfo = KeyPairUtil.getKeyInfo(cert.getPublicKey());
+
+        X500Name subject = X500NameUtils.x500PrincipalToX500Name(cert.getSubjectX500Principal());
+        X500Name issuer = X500NameUtils.x500PrincipalToX500Name(cert.getIssuerX500Principal());
+        subjectDN = subject.toString();
+        issuerDN = issuer.toString();
+        subjectCN = X500NameUtils.extractCN(cert.getSubjectX500Principal());
+        issuerCN = X500NameUtils.extractCN(cert.getIssuerX500Principal());
+        subjectO = X500NameUtils.getRdn(subject, KseX500NameStyle.O);
+        issuerO = X500NameUtils.getRdn(issuer, KseX500NameStyle.O);
+
+        serialNumberHex = X509CertUtil.getSerialNumberAsHex(cert);
+        serialNumberDec = X509CertUtil.getSerialNumberAsDec(cert);
+
+        ski = readSki(cert);
+        aki = readAki(cert);
+
+        earliestChainExpiry = readEarliestExpiry(certificateChain);
+    }
+
+    /**
+     * Read the certificate information of an entry.
+     *
+     * @param alias    Alias of the entry
+     * @param keyStore KeyStore that contains the entry
+     * @return The entry's metadata
+     * @throws KeyStoreException If there was a problem accessing the KeyStore
+     * @throws CryptoException   If the certificate(s) of the entry could not be converted
+     */
+    public static KeyStoreEntryMetadata create(String alias, KseKeyStore keyStore)
+            throws KeyStoreException, CryptoException {
+        if (KeyStoreUtil.isTrustedCertificateEntry(alias, keyStore)) {
+            X509Certificate cert = X509CertUtil.convertCertificate(keyStore.getCertificate(alias));
+            return new KeyStoreEntryMetadata(alias, true, false, new X509Certificate[] { cert });
+        }
+
+        Certificate[] chain = keyStore.getCertificateChain(alias);
+
+        if (chain == null || chain.length == 0) {
+            // Key entry - no certificate information available
+            return new KeyStoreEntryMetadata(alias, false, false, null);
+        }
+
+        // Key pair - first certificate in ordered chain will be for the private key
+        X509Certificate[] orderedChain = X509CertUtil.orderX509CertChain(X509CertUtil.convertCertificates(chain));
+        return new KeyStoreEntryMetadata(alias, false, true, orderedChain);
+    }
+
+    private static String readSki(X509Certificate cert) {
+        try {
+            byte[] skiBytes = X509Ext.getSubjectKeyIdentifier(cert).getKeyIdentifier();
+            return HexUtil.getHexString(skiBytes);
+        } catch (Exception e) {
+            return "-";
+        }
+    }
+
+    private static String readAki(X509Certificate cert) {
+        try {
+            byte[] akiValue = cert.getExtensionValue(X509ExtensionType.AUTHORITY_KEY_IDENTIFIER.oid());
+            byte[] octets = X509Ext.unwrapExtension(akiValue);
+            byte[] akiBytes = AuthorityKeyIdentifier.getInstance(octets).getKeyIdentifierOctets();
+            return HexUtil.getHexString(akiBytes);
+        } catch (Exception e) {
+            return "-";
+        }
+    }
+
+    private static Date readEarliestExpiry(X509Certificate[] certificateChain) {
+        Date earliestExpiry = certificateChain[0].getNotAfter();
+        for (X509Certificate chainCert : certificateChain) {
+            if (chainCert.getNotAfter().before(earliestExpiry)) {
+                earliestExpiry = chainCert.getNotAfter();
+            }
+        }
+        return earliestExpiry;
+    }
+
+    /**
+     * Get the alias of the entry.
+     *
+     * @return Alias
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * Is the entry a trusted certificate entry?
+     *
+     * @return True if it is
+     */
+    public boolean isTrustedCertificateEntry() {
+        return trustedCertificateEntry;
+    }
+
+    /**
+     * Is the entry a key pair entry (a private key with a certificate chain)?
+     *
+     * @return True if it is
+     */
+    public boolean isKeyPairEntry() {
+        return keyPairEntry;
+    }
+
+    /**
+     * Is the entry a key entry without certificate (secret key or private key without chain)?
+     *
+     * @return True if it is
+     */
+    public boolean isKeyEntry() {
+        return !trustedCertificateEntry && !keyPairEntry;
+    }
+
+    /**
+     * Get the certificate of the entry. For key pairs this is the end entity certificate of the
+     * ordered chain.
+     *
+     * @return Certificate or null for key entries
+     */
+    public X509Certificate getCertificate() {
+        return certificateChain == null ? null : certificateChain[0];
+    }
+
+    /**
+     * Get the ordered certificate chain of the entry.
+     *
+     * @return Copy of the certificate chain or null for key entries
+     */
+    public X509Certificate[] getCertificateChain() {
+        return certificateChain == null ? null : certificateChain.clone();
+    }
+
+    /**
+     * Get key info of the certificate's public key.
+     *
+     * @return Key info or null for key entries
+     */
+    public KeyInfo getKeyInfo() {
+        return keyInfo;
+    }
+
+    /**
+     * Get the validity start date of the entry's certificate.
+     *
+     * @return Not before date or null for key entries
+     */
+    public Date getValidityStart() {
+        return certificateChain == null ? null : certificateChain[0].getNotBefore();
+    }
+
+    /**
+     * Get the expiry date of the entry's certificate.
+     *
+     * @return Not after date or null for key entries
+     */
+    public Date getExpiry() {
+        return certificateChain == null ? null : certificateChain[0].getNotAfter();
+    }
+
+    /**
+     * Get the earliest expiry date of all certificates in the entry's chain.
+     *
+     * @return Earliest not after date or null for key entries
+     */
+    public Date getEarliestChainExpiry() {
+        return earliestChainExpiry;
+    }
+
+    /**
+     * Get the subject distinguished name of the entry's certificate.
+     *
+     * @return Subject DN or null for key entries
+     */
+    public String getSubjectDN() {
+        return subjectDN;
+    }
+
+    /**
+     * Get the issuer distinguished name of the entry's certificate.
+     *
+     * @return Issuer DN or null for key entries
+     */
+    public String getIssuerDN() {
+        return issuerDN;
+    }
+
+    /**
+     * Get the common name of the certificate's subject.
+     *
+     * @return Subject CN, empty if the subject has none or null for key entries
+     */
+    public String getSubjectCN() {
+        return subjectCN;
+    }
+
+    /**
+     * Get the common name of the certificate's issuer.
+     *
+     * @return Issuer CN, empty if the issuer has none or null for key entries
+     */
+    public String getIssuerCN() {
+        return issuerCN;
+    }
+
+    /**
+     * Get the organization of the certificate's subject.
+     *
+     * @return Subject O, empty if the subject has none or null for key entries
+     */
+    public String getSubjectO() {
+        return subjectO;
+    }
+
+    /**
+     * Get the organization of the certificate's issuer.
+     *
+     * @return Issuer O, empty if the issuer has none or null for key entries
+     */
+    public String getIssuerO() {
+        return issuerO;
+    }
+
+    /**
+     * Get the serial number of the certificate as hex string.
+     *
+     * @return Serial number or null for key entries
+     */
+    public String getSerialNumberHex() {
+        return serialNumberHex;
+    }
+
+    /**
+     * Get the serial number of the certificate as decimal string.
+     *
+     * @return Serial number or null for key entries
+     */
+    public String getSerialNumberDec() {
+        return serialNumberDec;
+    }
+
+    /**
+     * Get the subject key identifier of the certificate as hex string.
+     *
+     * @return SKI, "-" if the certificate has none or null for key entries
+     */
+    public String getSKI() {
+        return ski;
+    }
+
+    /**
+     * Get the authority key identifier of the certificate as hex string.
+     *
+     * @return AKI, "-" if the certificate has none or null for key entries
+     */
+    public String getAKI() {
+        return aki;
+    }
+
+    /**
+     * Get the fingerprint of the entry's certificate. Fingerprints are calculated on first use and
+     * then kept for each algorithm.
+     *
+     * @param fingerprintAlg Digest algorithm for the fingerprint
+     * @return Fingerprint or null for key entries
+     * @throws CryptoException If the fingerprint could not be calculated
+     */
+    public String getFingerprint(DigestType fingerprintAlg) throws CryptoException {
+        if (certificateChain == null) {
+            return null;
+        }
+
+        String fingerprint = fingerprints.get(fingerprintAlg);
+        if (fingerprint == null) {
+            fingerprint = X509CertUtil.getFingerprint(certificateChain[0], fingerprintAlg);
+            fingerprints.put(fingerprintAlg, fingerprint);
+        }
+        return fingerprint;
+    }
+}
@@ -30,7 +30,6 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -57,6 +56,7 @@ import org.kse.crypto.filetype.CryptoFileUtil;
 import org.kse.gui.dialogs.PasswordCallbackHandler;
 import org.kse.gui.passwordmanager.Password;
 import org.kse.gui.preferences.PreferencesManager;
+import org.kse.utilities.io.AtomicFileOutputStream;
 
 /**
  * Provides utility methods for loading/saving KeyStores. The BouncyCastle
@@ -145,13 +145,15 @@ public final class KeyStoreUtil {
             throws CryptoException, FileNotFoundException, NoSuchFileException {
 
         try {
-            KeyStoreType keyStoreType = CryptoFileUtil.detectKeyStoreType(keyStoreFile);
+            // read file only once and use the data for both type detection and loading
+            byte[] keyStoreData = Files.readAllBytes(keyStoreFile.toPath());
+            KeyStoreType keyStoreType = CryptoFileUtil.detectKeyStoreType(keyStoreData);
 
             if (keyStoreType == null) {
                 return null;
             }
 
-            return load(Files.readAllBytes(keyStoreFile.toPath()), password, keyStoreType);
+            return load(keyStoreData, password, keyStoreType);
         } catch (FileNotFoundException | NoSuchFileException ex) {
             throw ex;
         } catch (IOException ex) {
@@ -325,7 +327,9 @@ public final class KeyStoreUtil {
     }
 
     /**
-     * Save a KeyStore to a file protected by a password.
+     * Save a KeyStore to a file protected by a password. The file is replaced
+     * atomically, i.e. it contains either the old or the new KeyStore, even if
+     * saving fails.
      *
      * @param keyStore     The KeyStore
      * @param keyStoreFile The file to save the KeyStore to
@@ -345,10 +349,15 @@ public final class KeyStoreUtil {
                     MessageFormat.format(res.getString("NoSaveKeyStoreNotFile.exception.message"), keyStoreType.jce()));
         }
 
-        try (FileOutputStream fos = new FileOutputStream(keyStoreFile)) {
-            keyStore.store(fos, password.toCharArray());
-        } catch (KeyStoreException | CertificateException | NoSuchAlgorithmException | IOException ex) {
-            throw new CryptoException(res.getString("NoSaveKeyStore.exception.message"), ex);
+        // write to a temporary file first, so the KeyStore file is never left truncated
+        try (AtomicFileOutputStream afos = new AtomicFileOutputStream(keyStoreFile)) {
+            try {
+                keyStore.store(afos, password.toCharArray());
+            } catch (KeyStoreException | CertificateException | NoSuchAlgorithmException | IOException ex) {
+                throw new CryptoException(res.getString("NoSaveKeyStore.exception.message"), ex);
+            }
+
+            afos.commit();
         }
     }
 
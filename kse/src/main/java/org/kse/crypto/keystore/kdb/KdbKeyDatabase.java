@@ -25,10 +25,17 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import javax.security.auth.x500.X500Principal;
+
+import org.kse.crypto.x509.X509CertificateIndex;
 
 /**
  * Native reader/writer for the CMS key-database container ({@code .kdb}).
@@ -62,6 +69,10 @@ import javax.crypto.spec.SecretKeySpec;
  * in both versions. Certificates and labels are stored in the clear; only private keys are
  * encrypted (PBES2 when written by this class; legacy PKCS#12 PBE schemes in older files are
  * decrypted via the JCA provider mechanism).
+ *
+ * <p>Records are indexed by label. An {@link X509CertificateIndex} over all record certificates
+ * (subject DN, key identifiers, public key) is built on first use and discarded whenever a record
+ * is added or removed, so callers can tell from its identity whether derived data is stale.
  */
 public final class KdbKeyDatabase {
 
@@ -108,11 +119,14 @@ public final class KdbKeyDatabase {
     private int slotSize;
     private byte[] salt;
     private final List<KdbRecord> records;
+    private final Map<String, KdbRecord> byLabel = new HashMap<>();
+    private X509CertificateIndex certificateIndex;
 
     private KdbKeyDatabase(int slotSize, byte[] salt, List<KdbRecord> records) {
         this.slotSize = slotSize;
         this.salt = salt;
         this.records = records;
+        for (KdbRecord r : records) byLabel.putIfAbsent(r.label(), r);
     }
 
     public Kind kind() { return kind; }
@@ -122,22 +136,45 @@ public final class KdbKeyDatabase {
     public KdbKeyDatabase version(Version v) { this.version = v; return this; }
 
     public int slotSize() { return slotSize; }
-    public List<KdbRecord> records() { return records; }
+    /** The records in file order; modify through {@link #add} and {@link #remove} only. */
+    public List<KdbRecord> records() { return Collections.unmodifiableList(records); }
 
-    public KdbRecord find(String label) {
-        for (KdbRecord r : records) if (r.label().equals(label)) return r;
-        return null;
+    public synchronized KdbRecord find(String label) {
+        return byLabel.get(label);
     }
 
-    public boolean remove(String label) {
-        return records.removeIf(r -> r.label().equals(label));
+    public synchronized boolean remove(String label) {
+        if (byLabel.remove(label) == null) return false;
+        records.removeIf(r -> r.label().equals(label));
+        certificateIndex = null;
+        return true;
     }
 
-    public void add(KdbRecord r) {
+    public synchronized void add(KdbRecord r) {
         if (find(r.label()) != null) {
             throw new IllegalArgumentException("label already exists: " + r.label());
         }
         records.add(r);
+        byLabel.put(r.label(), r);
+        certificateIndex = null;
+    }
+
+    /**
+     * Index over the certificates of all records. The same instance is returned until a record is
+     * added or removed; it must not be modified.
+     */
+    public synchronized X509CertificateIndex certificateIndex() {
+        if (certificateIndex == null) {
+            X509CertificateIndex index = new X509CertificateIndex();
+            for (KdbRecord r : records) r.certificates().forEach(index::add);
+            certificateIndex = index;
+        }
+        return certificateIndex;
+    }
+
+    /** Certificates of all records whose subject DN is {@code subject}. */
+    public List<X509Certificate> findBySubject(X500Principal subject) {
+        return certificateIndex().findBySubject(subject);
     }
 
     /** Creates a new, empty key database. */
@@ -192,8 +229,7 @@ public final class KdbKeyDatabase {
             int num = be32(d, base + 4);
             int derLen = be32(d, base + 8);
             int derOff = base + 12;
-            if (derOff + derLen > d.length || d[derOff] != 0x30) continue;
-            byte[] der = slice(d, derOff, derLen);
+            if (derLen < 0 || derOff + derLen > d.length || d[derOff] != 0x30) continue;
             int lblOff = derOff + derLen;
             int lblLen = be32(d, lblOff);
             int after = lblOff + 4;
@@ -203,8 +239,9 @@ public final class KdbKeyDatabase {
                 after += lblLen;
             }
             int trailEnd = Math.min(base + slot, d.length);
-            byte[] trailing = after <= trailEnd ? slice(d, after, trailEnd - after) : new byte[0];
-            recs.add(new KdbRecord(label, type, num, der, trailing));
+            int trailLen = Math.max(0, trailEnd - after);
+            // the record keeps offsets into d and decodes its DER blob only when first accessed
+            recs.add(new KdbRecord(label, type, num, d, derOff, derLen, Math.min(after, trailEnd), trailLen));
         }
         return new KdbKeyDatabase(slot, salt, recs).kind(kindOf(d)).version(version);
     }
@@ -34,7 +34,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import org.kse.crypto.x509.X509CertificateIndex;
 
 /**
  * A KeyStore service provider implementation backed by a CMS key database ({@code .kdb})
@@ -49,6 +53,10 @@ public class KdbKeyStoreSpi extends KeyStoreSpi {
 
     private KdbKeyDatabase db = KdbKeyDatabase.create();
 
+    // assembled chains per alias, valid as long as the database returns the same certificate index
+    private final Map<String, Certificate[]> chains = new HashMap<>();
+    private X509CertificateIndex chainsIndex;
+
     @Override
     public void engineLoad(InputStream stream, char[] password)
             throws IOException, NoSuchAlgorithmException, CertificateException {
@@ -104,8 +112,16 @@ public class KdbKeyStoreSpi extends KeyStoreSpi {
         }
         // The leaf lives in this record; its signers are separate trusted records. Rebuild
         // the chain by following issuer links so callers (and PKCS#12 export) see leaf..root.
-        List<X509Certificate> chain = assembleChain(record.certificate());
-        return chain.toArray(new Certificate[0]);
+        // Chains are memoized until a record is added or removed.
+        X509CertificateIndex index = db.certificateIndex();
+        synchronized (chains) {
+            if (chainsIndex != index) {
+                chains.clear();
+                chainsIndex = index;
+            }
+            return chains.computeIfAbsent(alias, a -> assembleChain(record.certificate(), index)
+                    .toArray(new Certificate[0])).clone();
+        }
     }
 
     /**
@@ -114,11 +130,7 @@ public class KdbKeyStoreSpi extends KeyStoreSpi {
      * self-signed certificate or when no issuer is present (a partial chain), and guards
      * against loops.
      */
-    private List<X509Certificate> assembleChain(X509Certificate leaf) {
-        List<X509Certificate> all = new ArrayList<>();
-        for (KdbRecord record : db.records()) {
-            all.addAll(record.certificates());
-        }
+    private static List<X509Certificate> assembleChain(X509Certificate leaf, X509CertificateIndex all) {
         List<X509Certificate> chain = new ArrayList<>();
         X509Certificate current = leaf;
         while (current != null && !chain.contains(current)) {
@@ -139,19 +151,18 @@ public class KdbKeyStoreSpi extends KeyStoreSpi {
      * further intermediate so assembly heads towards a trust root. Falls back to a DN-only match so
      * a chain can still be built when the issuer's key is not held in the database.
      */
-    private static X509Certificate findIssuer(X509Certificate cert, List<X509Certificate> candidates,
+    private static X509Certificate findIssuer(X509Certificate cert, X509CertificateIndex candidates,
                                               List<X509Certificate> used) {
         X509Certificate dnMatch = null;
         X509Certificate verified = null;
-        for (X509Certificate candidate : candidates) {
-            if (used.contains(candidate)
-                    || !candidate.getSubjectX500Principal().equals(cert.getIssuerX500Principal())) {
+        for (X509Certificate candidate : candidates.findBySubject(cert.getIssuerX500Principal())) {
+            if (used.contains(candidate)) {
                 continue;
             }
             if (dnMatch == null) {
                 dnMatch = candidate;
             }
-            if (!signed(cert, candidate)) {
+            if (!signed(cert, candidate, candidates)) {
                 continue; // shares the issuer DN but did not actually sign cert
             }
             if (candidate.getSubjectX500Principal().equals(candidate.getIssuerX500Principal())) {
@@ -164,11 +175,10 @@ public class KdbKeyStoreSpi extends KeyStoreSpi {
         return verified != null ? verified : dnMatch;
     }
 
-    /** True if {@code issuer}'s public key verifies {@code cert}'s signature. */
-    private static boolean signed(X509Certificate cert, X509Certificate issuer) {
+    /** True if {@code issuer}'s public key verifies {@code cert}'s signature (results are memoized by the index). */
+    private static boolean signed(X509Certificate cert, X509Certificate issuer, X509CertificateIndex index) {
         try {
-            cert.verify(issuer.getPublicKey());
-            return true;
+            return index.verifyCertificate(cert, issuer);
         } catch (Exception e) {
             return false;
         }
@@ -260,14 +270,7 @@ public class KdbKeyStoreSpi extends KeyStoreSpi {
 
     /** True if a certificate equal to {@code cert} is already stored under any label. */
     private boolean containsCertificate(X509Certificate cert) {
-        for (KdbRecord record : db.records()) {
-            for (X509Certificate existing : record.certificates()) {
-                if (existing.equals(cert)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return db.findBySubject(cert.getSubjectX500Principal()).contains(cert);
     }
 
     /** Derives a signer label from a certificate's subject CN, falling back to the full DN. */
@@ -29,10 +29,12 @@ import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.bouncycastle.asn1.ASN1BitString;
 import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.ASN1Integer;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.ASN1OctetString;
@@ -60,6 +62,9 @@ import org.kse.gui.passwordmanager.Password;
  * private key. Outer ASN.1:
  * {@code SEQUENCE { INTEGER version, [1]{cert} | [2]{SEQ{cert, EncryptedPrivateKeyInfo}},
  * VisibleString label, BIT STRING flags }}.
+ *
+ * <p>Records read from a database keep offsets into the original file buffer; the DER blob is
+ * only decoded (certificates, encrypted key) the first time one of its parts is accessed.
  */
 public final class KdbRecord {
 
@@ -73,35 +78,65 @@ public final class KdbRecord {
     private final String label;
     private final int recordType;
     private int recordNumber;
-    private final byte[] recordDer;
-    private final byte[] trailing;
+    private final byte[] source;  // buffer holding the record DER and the trailing bytes
+    private final int derOff, derLen;
+    private final byte[] trailingSource;
+    private final int trailingOff, trailingLen;
 
     private final List<X509Certificate> certificates = new ArrayList<>();
     private byte[] encryptedKeyDer;
     private byte[] csrDer;       // PKCS#10 request DER (request records only)
     private boolean secretKey;   // true for secret-key records
+    private volatile boolean parsed;
 
     KdbRecord(String label, int recordType, int recordNumber, byte[] recordDer, byte[] trailing) {
+        this(label, recordType, recordNumber, recordDer, 0, recordDer.length, trailing, 0, trailing.length);
+    }
+
+    /** A record whose DER blob and trailing bytes are ranges of {@code source}, decoded on first access. */
+    KdbRecord(String label, int recordType, int recordNumber, byte[] source, int derOff, int derLen,
+              int trailingOff, int trailingLen) {
+        this(label, recordType, recordNumber, source, derOff, derLen, source, trailingOff, trailingLen);
+    }
+
+    private KdbRecord(String label, int recordType, int recordNumber, byte[] source, int derOff, int derLen,
+                      byte[] trailingSource, int trailingOff, int trailingLen) {
         this.label = label;
         this.recordType = recordType;
         this.recordNumber = recordNumber;
-        this.recordDer = recordDer;
-        this.trailing = trailing;
-        parse();
+        this.source = source;
+        this.derOff = derOff;
+        this.derLen = derLen;
+        this.trailingSource = trailingSource;
+        this.trailingOff = trailingOff;
+        this.trailingLen = trailingLen;
     }
 
     public String label() { return label; }
-    public boolean hasPrivateKey() { return encryptedKeyDer != null; }
-    public List<X509Certificate> certificates() { return certificates; }
-    public X509Certificate certificate() { return certificates.isEmpty() ? null : certificates.get(0); }
-    public byte[] der() { return recordDer; }
+    public boolean hasPrivateKey() { return parsed().encryptedKeyDer != null; }
+    public List<X509Certificate> certificates() { return parsed().certificates; }
+    public X509Certificate certificate() { return certificates().isEmpty() ? null : certificates.get(0); }
+    public byte[] der() { return Arrays.copyOfRange(source, derOff, derOff + derLen); }
     public int recordType() { return recordType; }
-    public byte[] encryptedKeyDer() { return encryptedKeyDer; }
-    public byte[] csrDer() { return csrDer; }
-    public boolean isRequest() { return csrDer != null; }
-    public boolean isSecretKey() { return secretKey; }
+    public byte[] encryptedKeyDer() { return parsed().encryptedKeyDer; }
+    public byte[] csrDer() { return parsed().csrDer; }
+    public boolean isRequest() { return parsed().csrDer != null; }
+    public boolean isSecretKey() { return parsed().secretKey; }
     void setRecordNumber(int n) { this.recordNumber = n; }
 
+    /** Decodes the DER blob once; records are shared between threads that read a loaded KeyStore. */
+    private KdbRecord parsed() {
+        if (!parsed) {
+            synchronized (this) {
+                if (!parsed) {
+                    parse();
+                    parsed = true;
+                }
+            }
+        }
+        return this;
+    }
+
     // --------------------------------------------------------------- builders
 
     /** Builds a trusted-certificate record (no private key). */
@@ -197,21 +232,21 @@ public final class KdbRecord {
         ByteArrayOutputStream o = new ByteArrayOutputStream();
         put(o, be(recordType));
         put(o, be(recordNumber));
-        put(o, be(recordDer.length));
-        put(o, recordDer);
+        put(o, be(derLen));
+        o.write(source, derOff, derLen);
         byte[] lbl = label.getBytes(StandardCharsets.UTF_8);
         put(o, be(lbl.length + 1));     // length includes NUL
         put(o, lbl);
         o.write(0);
-        put(o, trailing);
+        o.write(trailingSource, trailingOff, trailingLen);
         return o.toByteArray();
     }
 
     // ----------------------------------------------------------------- parse
 
     private void parse() {
-        try {
-            ASN1Sequence root = ASN1Sequence.getInstance(ASN1Primitive.fromByteArray(recordDer));
+        try (ASN1InputStream in = new ASN1InputStream(new ByteArrayInputStream(source, derOff, derLen), derLen)) {
+            ASN1Sequence root = ASN1Sequence.getInstance(in.readObject());
             for (ASN1Encodable element : root) {
                 ASN1Primitive node = element.toASN1Primitive();
                 if (node instanceof ASN1TaggedObject) {
@@ -275,7 +310,7 @@ public final class KdbRecord {
     }
 
     public PrivateKey privateKey(char[] password) throws Exception {
-        if (encryptedKeyDer == null) throw new IllegalStateException("record '" + label + "' has no private key");
+        if (encryptedKeyDer() == null) throw new IllegalStateException("record '" + label + "' has no private key");
         PrivateKey key = Pkcs8Util.loadEncrypted(encryptedKeyDer, new Password(password));
         // BouncyCastle labels EC keys "ECDSA"; re-key off the certificate so this key store reports
         // the same algorithm name ("EC", "RSA", ...) as the JDK-backed key stores do.
@@ -26,6 +26,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.KeyPair;
 import java.security.KeyStoreSpi;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
@@ -34,20 +35,24 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import javax.security.auth.x500.X500Principal;
 
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.kse.KSE;
 import org.kse.crypto.CryptoException;
 import org.kse.crypto.keypair.KeyPairUtil;
@@ -57,6 +62,7 @@ import org.kse.crypto.privatekey.OpenSslPvkUtil;
 import org.kse.crypto.privatekey.Pkcs8PbeType;
 import org.kse.crypto.privatekey.Pkcs8Util;
 import org.kse.crypto.x509.X509CertUtil;
+import org.kse.crypto.x509.X509CertificateIndex;
 import org.kse.gui.passwordmanager.Password;
 import org.kse.utilities.AliasUtil;
 import org.kse.utilities.pem.PemInfo;
@@ -149,28 +155,23 @@ public class PemKeyStoreSpi extends KeyStoreSpi {
 
     private void associateKeys(List<Entry> keyEntries, List<Certificate> certs) throws CryptoException {
 
-        List<X509Certificate> x509Certs = new ArrayList<>();
-        Map<X500Principal, List<X509Certificate>> bySubject = new HashMap<>();
-        Map<X500Principal, List<X509Certificate>> byIssuer = new HashMap<>();
+        X509CertificateIndex index = new X509CertificateIndex();
 
         for (Certificate cert : certs) {
-            X509Certificate x509Cert = X509CertUtil.convertCertificate(cert);
-            x509Certs.add(x509Cert);
-
-            bySubject.computeIfAbsent(
-                    x509Cert.getSubjectX500Principal(), k -> new ArrayList<>()).add(x509Cert);
-
-            byIssuer.computeIfAbsent(
-                    x509Cert.getIssuerX500Principal(), k -> new ArrayList<>()).add(x509Cert);
+            index.add(X509CertUtil.convertCertificate(cert));
         }
 
+        List<X509Certificate> x509Certs = index.getCertificates();
+        Set<Certificate> chainCerts = new HashSet<>();
+
         // Build full certificate chain for each key
         for (Entry keyEntry : keyEntries) {
 
-            X509Certificate leaf = findCertificateForKey(keyEntry.key, x509Certs);
+            X509Certificate leaf = findCertificateForKey(keyEntry.key, index);
 
             if (leaf != null) {
-                keyEntry.chain = buildCertificateChain(leaf, bySubject, byIssuer);
+                keyEntry.chain = buildCertificateChain(leaf, index);
+                chainCerts.addAll(Arrays.asList(keyEntry.chain));
 
                 entries.put(AliasUtil.uniqueAlias(entries.keySet(), leaf), keyEntry);
             }
@@ -178,18 +179,40 @@ public class PemKeyStoreSpi extends KeyStoreSpi {
 
         // Add standalone certificates
         for (X509Certificate cert : x509Certs) {
-            boolean used = entries.values().stream()
-                    .anyMatch(e -> Stream.of(e.chain).anyMatch(c -> c.equals(cert)));
-            if (!used) {
+            if (!chainCerts.contains(cert)) {
                 entries.put(AliasUtil.uniqueAlias(entries.keySet(), cert), new Entry(cert));
             }
         }
     }
 
-    private X509Certificate findCertificateForKey(PrivateKey key, List<X509Certificate> x509Certs) {
-        for (X509Certificate cert : x509Certs) {
+    private X509Certificate findCertificateForKey(PrivateKey key, X509CertificateIndex index) {
+        // Derive the public key and look up the certificates with the same SubjectPublicKeyInfo
+        PublicKey publicKey = derivePublicKey(key);
+        if (publicKey != null) {
+            List<X509Certificate> certs = index.findByPublicKey(publicKey);
+            if (!certs.isEmpty()) {
+                return certs.get(0);
+            }
+
+            // The certificate may encode the same key differently, e.g. with explicit EC parameters
+            for (X509Certificate cert : index.getCertificates()) {
+                if (isSameKey(publicKey, cert.getPublicKey())) {
+                    return cert;
+                }
+            }
+            return null;
+        }
+
+        // Fall back to signing and verifying if the public key cannot be derived, but only with
+        // certificates for the same key algorithm
+        ASN1ObjectIdentifier keyAlgorithm = getKeyAlgorithm(key);
+
+        for (X509Certificate cert : index.getCertificates()) {
             try {
                 PublicKey pub = cert.getPublicKey();
+                if (keyAlgorithm != null && !keyAlgorithm.equals(getKeyAlgorithm(pub))) {
+                    continue;
+                }
                 if (KeyPairUtil.validKeyPair(key, pub)) {
                     return cert;
                 }
@@ -200,8 +223,46 @@ public class PemKeyStoreSpi extends KeyStoreSpi {
         return null;
     }
 
-    private X509Certificate[] buildCertificateChain(X509Certificate leaf,
-            Map<X500Principal, List<X509Certificate>> bySubject, Map<X500Principal, List<X509Certificate>> byIssuer) {
+    private static PublicKey derivePublicKey(PrivateKey key) {
+        try {
+            KeyPair keyPair = KeyPairUtil.generateKeyPair(key);
+            return keyPair != null ? keyPair.getPublic() : null;
+        } catch (CryptoException | RuntimeException e) {
+            // e.g. an RSA key without CRT parameters or an EC key with explicit or unknown curve parameters
+            return null;
+        }
+    }
+
+    private static boolean isSameKey(PublicKey publicKey, PublicKey certKey) {
+        if (publicKey instanceof ECPublicKey && certKey instanceof ECPublicKey) {
+            return ((ECPublicKey) publicKey).getW().equals(((ECPublicKey) certKey).getW());
+        }
+        if (publicKey instanceof RSAPublicKey && certKey instanceof RSAPublicKey) {
+            RSAPublicKey rsaKey = (RSAPublicKey) publicKey;
+            RSAPublicKey rsaCertKey = (RSAPublicKey) certKey;
+            return rsaKey.getModulus().equals(rsaCertKey.getModulus())
+                   && rsaKey.getPublicExponent().equals(rsaCertKey.getPublicExponent());
+        }
+        return false; // other key types are only matched by their encoding
+    }
+
+    private static ASN1ObjectIdentifier getKeyAlgorithm(PrivateKey key) {
+        try {
+            return PrivateKeyInfo.getInstance(key.getEncoded()).getPrivateKeyAlgorithm().getAlgorithm();
+        } catch (Exception e) {
+            return null; // not encodable
+        }
+    }
+
+    private static ASN1ObjectIdentifier getKeyAlgorithm(PublicKey key) {
+        try {
+            return SubjectPublicKeyInfo.getInstance(key.getEncoded()).getAlgorithm().getAlgorithm();
+        } catch (Exception e) {
+            return null; // not encodable
+        }
+    }
+
+    private X509Certificate[] buildCertificateChain(X509Certificate leaf, X509CertificateIndex index) {
 
         List<X509Certificate> chain = new ArrayList<>();
         chain.add(leaf);
@@ -219,13 +280,14 @@ public class PemKeyStoreSpi extends KeyStoreSpi {
                 break;
             }
 
-            List<X509Certificate> issuers = bySubject.get(issuer);
-            if (issuers == null || issuers.isEmpty()) {
+            List<X509Certificate> candidates = index.findBySubject(issuer);
+            if (candidates.isEmpty()) {
                 break;
             }
 
-            // PEM bundles rarely contain ambiguous chains; pick the first
-            X509Certificate next = issuers.get(0);
+            // PEM bundles rarely contain ambiguous chains; prefer the verified issuer, else pick the first
+            List<X509Certificate> issuers = candidates.size() > 1 ? index.findIssuers(current) : candidates;
+            X509Certificate next = issuers.isEmpty() ? candidates.get(0) : issuers.get(0);
 
             if (visited.contains(next)) {
                 break;
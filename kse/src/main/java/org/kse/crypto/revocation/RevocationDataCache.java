@@ -0,0 +1,454 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.revocation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.text.MessageFormat;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.OCSPException;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.util.encoders.Hex;
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.x509.X509CertUtil;
+import org.kse.utilities.io.AtomicFileOutputStream;
+
+/**
+ * Cache for CRLs and OCSP responses, kept in memory and in a directory on disk.
+ * <p>
+ * CRLs are cached per issuer name and distribution point URL and are used without contacting the server until
+ * their nextUpdate time. After that the CRL is fetched again with a conditional request
+ * (If-None-Match/If-Modified-Since), so an unchanged CRL is not downloaded again.
+ * <p>
+ * OCSP responses are cached per responder URL and CertID until the nextUpdate time of the
+ * response. Responses without nextUpdate and requests with a nonce are never cached, as the
+ * responder expects them to be fresh.
+ */
+public class RevocationDataCache {
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/crypto/revocation/resources");
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 15_000;
+    private static final int READ_TIMEOUT_MILLIS = 30_000;
+
+    private static final String CRL_PREFIX = "crl-";
+    private static final String OCSP_PREFIX = "ocsp-";
+    private static final String DATA_SUFFIX = ".der";
+    private static final String HEADERS_SUFFIX = ".properties";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final int LOCK_STRIPES = 64;
+
+    private final File directory;
+    private final Clock clock;
+    private final Map<String, CachedCrl> crls = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> ocspResponses = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private record CachedCrl(X509CRL crl, byte[] encoded, String etag, long lastModified) {
+    }
+
+    /**
+     * Create a cache that stores its data in the supplied directory.
+     *
+     * @param directory Directory for the cached data, created when required
+     */
+    public RevocationDataCache(File directory) {
+        this(directory, Clock.systemUTC());
+    }
+
+    RevocationDataCache(File directory, Clock clock) {
+        this.directory = directory;
+        this.clock = clock;
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    /**
+     * Get the HTTP(S) URLs of the CRL distribution points of a certificate.
+     *
+     * @param cert The certificate
+     * @return The URLs, empty if there are none
+     */
+    public static List<URI> getCrlUris(X509Certificate cert) {
+        List<URI> uris = new ArrayList<>();
+
+        byte[] extensionValue = cert.getExtensionValue(Extension.cRLDistributionPoints.getId());
+        if (extensionValue == null) {
+            return uris;
+        }
+
+        CRLDistPoint crlDistPoint = CRLDistPoint.getInstance(ASN1OctetString.getInstance(extensionValue).getOctets());
+        for (DistributionPoint distributionPoint : crlDistPoint.getDistributionPoints()) {
+            DistributionPointName name = distributionPoint.getDistributionPoint();
+            if (name != null && name.getType() == DistributionPointName.FULL_NAME) {
+                addHttpUris(GeneralNames.getInstance(name.getName()).getNames(), uris);
+            }
+        }
+        return uris;
+    }
+
+    /**
+     * Get the HTTP(S) URLs of the OCSP responders from the authority information access extension
+     * of a certificate.
+     *
+     * @param cert The certificate
+     * @return The URLs, empty if there are none
+     */
+    public static List<URI> getOcspUris(X509Certificate cert) {
+        List<URI> uris = new ArrayList<>();
+
+        byte[] extensionValue = cert.getExtensionValue(Extension.authorityInfoAccess.getId());
+        if (extensionValue == null) {
+            return uris;
+        }
+
+        AuthorityInformationAccess aia = AuthorityInformationAccess.getInstance(
+                ASN1OctetString.getInstance(extensionValue).getOctets());
+        for (AccessDescription accessDescription : aia.getAccessDescriptions()) {
+            if (AccessDescription.id_ad_ocsp.equals(accessDescription.getAccessMethod())) {
+                addHttpUris(new GeneralName[] { accessDescription.getAccessLocation() }, uris);
+            }
+        }
+        return uris;
+    }
+
+    private static void addHttpUris(GeneralName[] names, List<URI> uris) {
+        for (GeneralName name : names) {
+            if (name.getTagNo() == GeneralName.uniformResourceIdentifier) {
+                String uri = name.getName().toString();
+                String lowerCaseUri = uri.toLowerCase(Locale.ROOT);
+                if (lowerCaseUri.startsWith("http://") || lowerCaseUri.startsWith("https://")) {
+                    try {
+                        uris.add(new URI(uri));
+                    } catch (Exception ex) {
+                        // ignore malformed URLs
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the CRL of a distribution point. A cached CRL is returned until its nextUpdate time,
+     * after that it is revalidated with the server.
+     *
+     * @param issuer Issuer of the certificate the CRL is requested for
+     * @param uri    HTTP(S) URL of the distribution point
+     * @return The CRL
+     * @throws IOException     If the CRL could not be fetched
+     * @throws CryptoException If the server did not return a CRL
+     */
+    public X509CRL getCrl(X500Principal issuer, URI uri) throws IOException, CryptoException {
+        // several CAs may publish their CRLs under the same URL
+        String key = CRL_PREFIX + hash(Hex.toHexString(issuer.getEncoded()) + "|" + uri);
+
+        synchronized (lock(key)) {
+            CachedCrl cached = crls.get(key);
+            if (cached == null) {
+                cached = readCrl(key);
+            }
+
+            if (cached != null && isFresh(cached.crl().getNextUpdate())) {
+                crls.put(key, cached);
+                return cached.crl();
+            }
+
+            CachedCrl fetched = fetchCrl(uri, cached);
+            crls.put(key, fetched);
+            if (fetched != cached) {
+                writeCrl(key, fetched);
+            }
+            return fetched.crl();
+        }
+    }
+
+    /**
+     * Get the OCSP response for a request. A cached response is returned until its nextUpdate
+     * time. Requests for several certificates or with a nonce are always sent to the responder.
+     *
+     * @param uri     URL of the OCSP responder
+     * @param request The OCSP request
+     * @return The OCSP response
+     * @throws IOException If the response could not be fetched or parsed
+     */
+    public OCSPResp getOcspResponse(URI uri, OCSPReq request) throws IOException {
+        Req[] requests = request.getRequestList();
+        if (requests.length != 1 || request.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce) != null) {
+            return new OCSPResp(postOcspRequest(uri, request));
+        }
+
+        CertificateID certId = requests[0].getCertID();
+        String key = OCSP_PREFIX + hash(uri + "|" + certId.getHashAlgOID().getId() + "|" +
+                                        Hex.toHexString(certId.getIssuerNameHash()) + "|" +
+                                        Hex.toHexString(certId.getIssuerKeyHash()) + "|" +
+                                        certId.getSerialNumber().toString(16));
+
+        synchronized (lock(key)) {
+            byte[] encoded = ocspResponses.get(key);
+            if (encoded == null) {
+                encoded = readData(key);
+            }
+
+            if (encoded != null) {
+                try {
+                    OCSPResp response = new OCSPResp(encoded);
+                    if (isFresh(getNextUpdate(response, certId))) {
+                        ocspResponses.put(key, encoded);
+                        return response;
+                    }
+                } catch (IOException ex) {
+                    // corrupt cache file, fetch again
+                }
+                ocspResponses.remove(key);
+            }
+
+            encoded = postOcspRequest(uri, request);
+            OCSPResp response = new OCSPResp(encoded);
+
+            if (getNextUpdate(response, certId) != null) {
+                ocspResponses.put(key, encoded);
+                writeData(key, encoded);
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Remove all cached data from memory and disk.
+     */
+    public void clear() {
+        crls.clear();
+        ocspResponses.clear();
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith(CRL_PREFIX) || file.getName().startsWith(OCSP_PREFIX)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private Object lock(String key) {
+        return locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+    }
+
+    private boolean isFresh(Date nextUpdate) {
+        return nextUpdate != null && nextUpdate.toInstant().isAfter(clock.instant());
+    }
+
+    /*
+     * Returns the nextUpdate of the successful response for the CertID or null if the response
+     * must not be cached.
+     */
+    private static Date getNextUpdate(OCSPResp response, CertificateID certId) {
+        if (response.getStatus() != OCSPResp.SUCCESSFUL) {
+            return null;
+        }
+        try {
+            BasicOCSPResp basicResponse = (BasicOCSPResp) response.getResponseObject();
+            for (SingleResp singleResp : basicResponse.getResponses()) {
+                if (certId.equals(singleResp.getCertID())) {
+                    return singleResp.getNextUpdate();
+                }
+            }
+        } catch (OCSPException | ClassCastException ex) {
+            // not a basic response
+        }
+        return null;
+    }
+
+    private CachedCrl fetchCrl(URI uri, CachedCrl cached) throws IOException, CryptoException {
+        HttpURLConnection con = openConnection(uri);
+        try {
+            if (cached != null) {
+                if (cached.etag() != null) {
+                    con.setRequestProperty("If-None-Match", cached.etag());
+                }
+                if (cached.lastModified() > 0) {
+                    con.setIfModifiedSince(cached.lastModified());
+                }
+            }
+
+            int responseCode = con.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                return cached;
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException(MessageFormat.format(res.getString("UnexpectedHttpResponse.exception.message"),
+                                                           responseCode, uri));
+            }
+
+            byte[] encoded;
+            try (InputStream in = con.getInputStream()) {
+                encoded = in.readAllBytes();
+            }
+            return new CachedCrl(X509CertUtil.loadCRL(encoded), encoded, con.getHeaderField("ETag"),
+                                 con.getLastModified());
+        } finally {
+            con.disconnect();
+        }
+    }
+
+    private static byte[] postOcspRequest(URI uri, OCSPReq request) throws IOException {
+        byte[] requestData = request.getEncoded();
+
+        HttpURLConnection con = openConnection(uri);
+        try {
+            con.setRequestProperty("Content-Type", "application/ocsp-request");
+            con.setRequestProperty("Accept", "application/ocsp-response");
+            con.setDoOutput(true);
+            try (OutputStream out = con.getOutputStream()) {
+                out.write(requestData);
+            }
+
+            int responseCode = con.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException(MessageFormat.format(res.getString("UnexpectedHttpResponse.exception.message"),
+                                                           responseCode, uri));
+            }
+            try (InputStream in = con.getInputStream()) {
+                return in.readAllBytes();
+            }
+        } finally {
+            con.disconnect();
+        }
+    }
+
+    private static HttpURLConnection openConnection(URI uri) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) uri.toURL().openConnection();
+        con.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        con.setReadTimeout(READ_TIMEOUT_MILLIS);
+        con.setUseCaches(false);
+        return con;
+    }
+
+    private CachedCrl readCrl(String key) {
+        byte[] encoded = readData(key);
+        if (encoded == null) {
+            return null;
+        }
+
+        Properties headers = new Properties();
+        File headersFile = new File(directory, key + HEADERS_SUFFIX);
+        if (headersFile.isFile()) {
+            try (InputStream in = new FileInputStream(headersFile)) {
+                headers.load(in);
+            } catch (IOException ex) {
+                // revalidate without conditional headers
+            }
+        }
+
+        try {
+            return new CachedCrl(X509CertUtil.loadCRL(encoded), encoded, headers.getProperty(ETAG),
+                                 Long.parseLong(headers.getProperty(LAST_MODIFIED, "0")));
+        } catch (CryptoException | NumberFormatException ex) {
+            // corrupt cache file, fetch again
+            return null;
+        }
+    }
+
+    private void writeCrl(String key, CachedCrl cached) {
+        writeData(key, cached.encoded());
+
+        Properties headers = new Properties();
+        if (cached.etag() != null) {
+            headers.setProperty(ETAG, cached.etag());
+        }
+        headers.setProperty(LAST_MODIFIED, Long.toString(cached.lastModified()));
+
+        try (AtomicFileOutputStream out = new AtomicFileOutputStream(new File(directory, key + HEADERS_SUFFIX))) {
+            headers.store(out, null);
+            out.commit();
+        } catch (IOException ex) {
+            // the cache on disk is optional
+        }
+    }
+
+    private byte[] readData(String key) {
+        File file = new File(directory, key + DATA_SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private void writeData(String key, byte[] data) {
+        directory.mkdirs();
+        try (AtomicFileOutputStream out = new AtomicFileOutputStream(new File(directory, key + DATA_SUFFIX))) {
+            out.write(data);
+            out.commit();
+        } catch (IOException ex) {
+            // the cache on disk is optional
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Hex.toHexString(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
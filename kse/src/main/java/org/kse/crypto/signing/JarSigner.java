@@ -19,6 +19,7 @@
  */
 package org.kse.crypto.signing;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -27,6 +28,7 @@ import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.Provider;
 import java.security.cert.X509Certificate;
@@ -35,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
@@ -125,6 +128,12 @@ public class JarSigner {
     // Meta inf file location
     private static final String METAINF_FILE_LOC = "META-INF/{0}.{1}";
 
+    // Buffer size for reading and writing JAR entries
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Maximum number of bytes per JAR that are kept in memory between digesting and writing entries
+    private static final long SPOOL_LIMIT = 16L * 1024 * 1024;
+
     private JarSigner() {
     }
 
@@ -146,11 +155,21 @@ public class JarSigner {
     public static void sign(File jarFile, PrivateKey privateKey, X509Certificate[] certificateChain,
                             SignatureType signatureType, String signatureName, String signer, DigestType digestType,
                             String tsaUrl, Provider provider) throws IOException, CryptoException {
+
+        SignatureBlockGenerator sigBlockGenerator = new SignatureBlockGenerator(privateKey, certificateChain,
+                                                                                signatureType, tsaUrl, provider);
+        sign(jarFile, signatureName, signer, digestType, sigBlockGenerator);
+    }
+
+    /*
+     * Sign a JAR file in place with a prepared signature block generator
+     */
+    static void sign(File jarFile, String signatureName, String signer, DigestType digestType,
+                     SignatureBlockGenerator sigBlockGenerator) throws IOException, CryptoException {
         File tmpFile = File.createTempFile("kse", "tmp");
         tmpFile.deleteOnExit();
 
-        sign(jarFile, tmpFile, privateKey, certificateChain, signatureType, signatureName, signer, digestType, tsaUrl,
-             provider);
+        sign(jarFile, tmpFile, signatureName, signer, digestType, sigBlockGenerator);
 
         Files.copy(tmpFile.toPath(), jarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
 
@@ -177,21 +196,37 @@ public class JarSigner {
                             SignatureType signatureType, String signatureName, String signer, DigestType digestType,
                             String tsaUrl, Provider provider) throws IOException, CryptoException {
 
+        SignatureBlockGenerator sigBlockGenerator = new SignatureBlockGenerator(privateKey, certificateChain,
+                                                                                signatureType, tsaUrl, provider);
+        sign(jarFile, signedJarFile, signatureName, signer, digestType, sigBlockGenerator);
+    }
+
+    /*
+     * Sign a JAR file with a prepared signature block generator. Each entry is read once: its content
+     * is digested and kept for the output (up to SPOOL_LIMIT bytes per JAR) as it is read. Only the
+     * entries that did not fit are read a second time when the signed JAR is written.
+     */
+    static void sign(File jarFile, File signedJarFile, String signatureName, String signer, DigestType digestType,
+                     SignatureBlockGenerator sigBlockGenerator) throws IOException, CryptoException {
+
         try (JarFile jar = new JarFile(jarFile);
              JarOutputStream jos = new JarOutputStream(Files.newOutputStream(signedJarFile.toPath()))) {
 
             // Replace illegal characters in signature name
             signatureName = convertSignatureName(signatureName);
 
+            // Read the current manifest only once
+            String manifestContent = getManifest(jar);
+
             // Write manifest content to here
             StringBuilder sbManifest = new StringBuilder();
 
             // Write out main attributes to manifest
-            String manifestMainAttrs = getManifestMainAttrs(jar, signer);
+            String manifestMainAttrs = getManifestMainAttrs(manifestContent, signer);
             sbManifest.append(manifestMainAttrs);
 
             // Write out all entries' attributes to manifest
-            String entryManifestAttrs = getManifestEntriesAttrs(jar);
+            String entryManifestAttrs = getManifestEntriesAttrs(jar, manifestContent);
 
             if (!entryManifestAttrs.isEmpty()) {
                 // Only output if there are any
@@ -204,6 +239,11 @@ public class JarSigner {
 
             // Write out digests to manifest and signature file
 
+            MessageDigest messageDigester = DigestUtil.getMessageDigester(digestType);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            Map<String, byte[]> spooledEntries = new HashMap<>();
+            long spooled = 0;
+
             // Sign each JAR entry...
             for (Enumeration<JarEntry> jarEntries = jar.entries(); jarEntries.hasMoreElements(); ) {
                 JarEntry jarEntry = jarEntries.nextElement();
@@ -211,14 +251,23 @@ public class JarSigner {
                 if (!jarEntry.isDirectory()) { // Ignore directories
 
                     if (!ignoreJarEntry(jarEntry)) { // Ignore some entries (existing signature files)
+                        // Read the entry, keeping its content for writing it out if it fits
+                        boolean spool = spooled + Math.max(jarEntry.getSize(), 0) <= SPOOL_LIMIT;
+                        byte[] content = digestJarEntry(jar, jarEntry, messageDigester, buffer, spool);
+                        if (content != null && spooled + content.length <= SPOOL_LIMIT) {
+                            spooledEntries.put(jarEntry.getName(), content);
+                            spooled += content.length;
+                        }
+
                         // Get the digest of the entry as manifest attributes
-                        String manifestEntry = getDigestManifestAttrs(jar, jarEntry, digestType);
+                        String manifestEntry = getDigestManifestAttrs(jarEntry, messageDigester.digest(),
+                                                                      digestType);
 
                         // Add it to the manifest string buffer
                         sbManifest.append(manifestEntry);
 
                         // Get the digest of manifest entries created above
-                        byte[] mdSf = DigestUtil.getMessageDigest(manifestEntry.getBytes(), digestType);
+                        byte[] mdSf = messageDigester.digest(manifestEntry.getBytes());
                         String mdSf64Str = Base64.toBase64String(mdSf);
 
                         // Write this digest as entries in signature file
@@ -235,13 +284,13 @@ public class JarSigner {
             // Manifest file complete - get base 64 encoded digest of its content for inclusion in signature file
             byte[] manifest = sbManifest.toString().getBytes();
 
-            byte[] digestMf = DigestUtil.getMessageDigest(manifest, digestType);
+            byte[] digestMf = messageDigester.digest(manifest);
             String digestMfStr = Base64.toBase64String(digestMf);
 
             // Get base 64 encoded digest of manifest's main attributes for inclusion in signature file
             byte[] manifestMainAttrsBytes = manifestMainAttrs.getBytes();
 
-            byte[] digestMfMainAttrs = DigestUtil.getMessageDigest(manifestMainAttrsBytes, digestType);
+            byte[] digestMfMainAttrs = messageDigester.digest(manifestMainAttrsBytes);
             String digestMfMainAttrsStr = Base64.toBase64String(digestMfMainAttrs);
 
             // Write out Manifest Digest, Created By and Signature Version to start of signature file
@@ -268,11 +317,11 @@ public class JarSigner {
             writeSignatureFile(sf, signatureName, jos);
 
             // Create signature block and write it out to signed JAR
-            byte[] sigBlock = createSignatureBlock(sf, privateKey, certificateChain, signatureType, tsaUrl, provider);
-            writeSignatureBlock(sigBlock, signatureType, signatureName, jos);
+            byte[] sigBlock = sigBlockGenerator.generate(sf);
+            writeSignatureBlock(sigBlock, sigBlockGenerator.getSignatureType(), signatureName, jos);
 
             // Write JAR files from JAR to be signed to signed JAR
-            writeJarEntries(jar, jos, signatureName);
+            writeJarEntries(jar, jos, signatureName, spooledEntries, buffer);
         }
     }
 
@@ -333,16 +382,13 @@ public class JarSigner {
      * manifest verbatim. If there is no manifest in JAR it returns a string
      * with those two attributes
      */
-    private static String getManifestMainAttrs(JarFile jar, String signer) throws IOException {
+    private static String getManifestMainAttrs(String manifestContent, String signer) throws IOException {
 
         StringBuilder sbManifest = new StringBuilder();
 
-        // Get current manifest
-        Manifest manifest = jar.getManifest();
-
         // Write out main attributes to manifest
 
-        if (manifest == null) {
+        if (manifestContent == null) {
             // No current manifest - write out main attributes
             // ("Manifest Version" and "Created By")
             sbManifest.append(createAttributeText(MANIFEST_VERSION_ATTR, MANIFEST_VERSION));
@@ -354,7 +400,7 @@ public class JarSigner {
             sbManifest.append(CRLF);
         } else {
             // Get main attributes as a string to preserve their order
-            String manifestMainAttrs = getManifestMainAttrs(jar);
+            String manifestMainAttrs = getManifestMainAttrs(manifestContent);
 
             // Write them out
             sbManifest.append(manifestMainAttrs);
@@ -367,7 +413,7 @@ public class JarSigner {
     /*
      *  Get all entries' attributes of JAR manifest as a string
      */
-    private static String getManifestEntriesAttrs(JarFile jar) throws IOException {
+    private static String getManifestEntriesAttrs(JarFile jar, String manifestContent) throws IOException {
 
         StringBuilder sbManifest = new StringBuilder();
 
@@ -398,7 +444,7 @@ public class JarSigner {
                 }
 
                 // Get entry attributes as a string to preserve their order
-                String manifestEntryAttributes = getManifestEntryAttrs(jar, entryName);
+                String manifestEntryAttributes = getManifestEntryAttrs(manifestContent, entryName);
 
                 // Write them out
                 sbManifest.append(manifestEntryAttributes);
@@ -412,37 +458,56 @@ public class JarSigner {
     }
 
     /*
-     *  Get the digest of the supplied JAR entry as manifest attributes
-     *  "Name" and "<digestType> Digest"
+     *  Read the supplied JAR entry into the message digester. Returns the entry's content
+     *  if it is to be kept, null otherwise.
      */
-    private static String getDigestManifestAttrs(JarFile jar, JarEntry jarEntry, DigestType digestType)
-            throws IOException, CryptoException {
+    private static byte[] digestJarEntry(JarFile jar, JarEntry jarEntry, MessageDigest messageDigester,
+                                         byte[] buffer, boolean keepContent) throws IOException {
+
+        ByteArrayOutputStream content = keepContent ? new ByteArrayOutputStream() : null;
 
         // Get input stream to JAR entry's content
         try (InputStream jis = jar.getInputStream(jarEntry)) {
+            int read;
+            while ((read = jis.read(buffer)) != -1) {
+                messageDigester.update(buffer, 0, read);
+                if (content != null) {
+                    content.write(buffer, 0, read);
+                }
+            }
+        }
 
-            // Get the digest of content in Base64
-            byte[] md = DigestUtil.getMessageDigest(jis, digestType);
-            String md64Str = Base64.toBase64String(md);
+        return content != null ? content.toByteArray() : null;
+    }
 
-            // Write manifest entries for JARs digest
-            String sbManifestEntry = createAttributeText(NAME_ATTR, jarEntry.getName()) +
-                    CRLF +
-                    createAttributeText(MessageFormat.format(DIGEST_ATTR, digestType.jce()), md64Str) +
-                    CRLF +
-                    CRLF;
+    /*
+     *  Get the supplied digest of a JAR entry as manifest attributes
+     *  "Name" and "<digestType> Digest"
+     */
+    private static String getDigestManifestAttrs(JarEntry jarEntry, byte[] md, DigestType digestType) {
 
-            return sbManifestEntry;
-        }
+        // Get the digest of content in Base64
+        String md64Str = Base64.toBase64String(md);
+
+        // Write manifest entries for JARs digest
+        return createAttributeText(NAME_ATTR, jarEntry.getName()) +
+               CRLF +
+               createAttributeText(MessageFormat.format(DIGEST_ATTR, digestType.jce()), md64Str) +
+               CRLF +
+               CRLF;
     }
 
     /*
-     *  Get JAR file's manifest as a string
+     *  Get JAR file's manifest as a string or null if there is no manifest
      */
     private static String getManifest(JarFile jar) throws IOException {
 
         JarEntry manifestEntry = jar.getJarEntry(JarFile.MANIFEST_NAME);
 
+        if (manifestEntry == null) {
+            return null;
+        }
+
         try (InputStream jis = jar.getInputStream(manifestEntry)) {
             return new String(jis.readAllBytes());
         }
@@ -451,10 +516,7 @@ public class JarSigner {
     /*
      *  Get JAR file manifest's main attributes manifest as a string
      */
-    private static String getManifestMainAttrs(JarFile jar) throws IOException {
-
-        // Get full manifest content
-        String manifestContent = getManifest(jar);
+    private static String getManifestMainAttrs(String manifestContent) throws IOException {
 
         try (StringReader stringReader = new StringReader(manifestContent);
              LineNumberReader lnr = new LineNumberReader(stringReader)) {
@@ -481,10 +543,7 @@ public class JarSigner {
     /*
      *  Get JAR file manifest's attributes for a specified entry as a string
      */
-    private static String getManifestEntryAttrs(JarFile jar, String entryName) throws IOException {
-
-        // Get full manifest content
-        String manifestContent = getManifest(jar);
+    private static String getManifestEntryAttrs(String manifestContent, String entryName) throws IOException {
 
         try (StringReader in = new StringReader(manifestContent); LineNumberReader lnr = new LineNumberReader(in)) {
 
@@ -527,9 +586,11 @@ public class JarSigner {
 
     /*
      * Write out all JAR entries from source JAR to output stream excepting
-     * manifest and existing signature files for the supplied signature name
+     * manifest and existing signature files for the supplied signature name.
+     * Entries that were kept while digesting are not read again.
      */
-    private static void writeJarEntries(JarFile jar, JarOutputStream jos, String signatureName) throws IOException {
+    private static void writeJarEntries(JarFile jar, JarOutputStream jos, String signatureName,
+                                        Map<String, byte[]> spooledEntries, byte[] buffer) throws IOException {
         signatureName = signatureName.toUpperCase();
 
         for (Enumeration<JarEntry> jarEntries = jar.entries(); jarEntries.hasMoreElements(); ) {
@@ -550,16 +611,17 @@ public class JarSigner {
                     (!entryName.equals(ecSigBlockLocation)) &&
                     (!entryName.equals(rsaSigBlockLocation))) {
                     // New JAR entry based on original
-                    transferJarEntry(jar, jos, jarEntry);
+                    transferJarEntry(jar, jos, jarEntry, spooledEntries.get(entryName), buffer);
                 }
             } else {
                 // simply transfer directory
-                transferJarEntry(jar, jos, jarEntry);
+                transferJarEntry(jar, jos, jarEntry, null, buffer);
             }
         }
     }
 
-    private static void transferJarEntry(JarFile jar, JarOutputStream jos, JarEntry jarEntry) throws IOException {
+    private static void transferJarEntry(JarFile jar, JarOutputStream jos, JarEntry jarEntry, byte[] content,
+                                         byte[] buffer) throws IOException {
         JarEntry newJarEntry = new JarEntry(jarEntry.getName());
         newJarEntry.setMethod(jarEntry.getMethod());
         newJarEntry.setTime(jarEntry.getTime());
@@ -571,8 +633,17 @@ public class JarSigner {
         }
         jos.putNextEntry(newJarEntry);
 
+        if (content != null) {
+            jos.write(content);
+            jos.closeEntry();
+            return;
+        }
+
         try (InputStream is = jar.getInputStream(jarEntry)) {
-            is.transferTo(jos);
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                jos.write(buffer, 0, read);
+            }
             jos.closeEntry();
         }
     }
@@ -672,51 +743,82 @@ public class JarSigner {
         return sb.toString();
     }
 
-    private static byte[] createSignatureBlock(byte[] toSign, PrivateKey privateKey, X509Certificate[] certificateChain,
-                                               SignatureType signatureType, String tsaUrl, Provider provider)
-            throws CryptoException {
+    /*
+     * Creates signature blocks with one key. The parts that do not depend on the signed data
+     * (random number generator, digest calculators, content signer configuration and certificate
+     * store) are prepared once, so a generator can be used for several JARs, also concurrently.
+     */
+    static class SignatureBlockGenerator {
+        private final PrivateKey privateKey;
+        private final X509Certificate certificate;
+        private final SignatureType signatureType;
+        private final String tsaUrl;
+        private final JcaContentSignerBuilder contentSignerBuilder;
+        private final JcaSignerInfoGeneratorBuilder signerInfoGeneratorBuilder;
+        private final JcaCertStore certStore;
+
+        SignatureBlockGenerator(PrivateKey privateKey, X509Certificate[] certificateChain,
+                                SignatureType signatureType, String tsaUrl, Provider provider)
+                throws CryptoException {
+            this.privateKey = privateKey;
+            this.certificate = certificateChain[0];
+            this.signatureType = signatureType;
+            this.tsaUrl = tsaUrl;
+
+            try {
+                List<X509Certificate> certList = new ArrayList<>();
+
+                Collections.addAll(certList, certificateChain);
+
+                JcaDigestCalculatorProviderBuilder digCalcProv = new JcaDigestCalculatorProviderBuilder();
+                contentSignerBuilder = new JcaContentSignerBuilder(signatureType.jce())
+                        .setSecureRandom(RNG.newInstanceForLongLivedSecrets());
+                if (provider == null) {
+                    provider = KSE.BC;
+                }
+                digCalcProv.setProvider(provider);
+                contentSignerBuilder.setProvider(provider);
+
+                signerInfoGeneratorBuilder = new JcaSignerInfoGeneratorBuilder(digCalcProv.build());
+                certStore = new JcaCertStore(certList);
+            } catch (Exception ex) {
+                throw new CryptoException(res.getString("SignatureBlockCreationFailed.exception.message"), ex);
+            }
+        }
 
-        try {
-            List<X509Certificate> certList = new ArrayList<>();
+        SignatureType getSignatureType() {
+            return signatureType;
+        }
 
-            Collections.addAll(certList, certificateChain);
+        byte[] generate(byte[] toSign) throws CryptoException {
+            try {
+                // remove cmsAlgorithmProtect for compatibility reasons
+                SignerInfoGenerator sigGen = signerInfoGeneratorBuilder.build(contentSignerBuilder.build(privateKey),
+                                                                              certificate);
+                final CMSAttributeTableGenerator sAttrGen = sigGen.getSignedAttributeTableGenerator();
+                sigGen = new SignerInfoGenerator(sigGen, new DefaultSignedAttributeTableGenerator() {
+                    @Override
+                    public AttributeTable getAttributes(@SuppressWarnings("rawtypes") Map parameters) {
+                        AttributeTable ret = sAttrGen.getAttributes(parameters);
+                        return ret.remove(CMSAttributes.cmsAlgorithmProtect);
+                    }
+                }, sigGen.getUnsignedAttributeTableGenerator());
 
-            JcaDigestCalculatorProviderBuilder digCalcProv = new JcaDigestCalculatorProviderBuilder();
-            JcaContentSignerBuilder csb = new JcaContentSignerBuilder(signatureType.jce())
-                    .setSecureRandom(RNG.newInstanceForLongLivedSecrets());
-            if (provider == null) {
-                provider = KSE.BC;
-            }
-            digCalcProv.setProvider(provider);
-            csb.setProvider(provider);
-
-            JcaSignerInfoGeneratorBuilder siGeneratorBuilder = new JcaSignerInfoGeneratorBuilder(digCalcProv.build());
-
-            // remove cmsAlgorithmProtect for compatibility reasons
-            SignerInfoGenerator sigGen = siGeneratorBuilder.build(csb.build(privateKey), certificateChain[0]);
-            final CMSAttributeTableGenerator sAttrGen = sigGen.getSignedAttributeTableGenerator();
-            sigGen = new SignerInfoGenerator(sigGen, new DefaultSignedAttributeTableGenerator() {
-                @Override
-                public AttributeTable getAttributes(@SuppressWarnings("rawtypes") Map parameters) {
-                    AttributeTable ret = sAttrGen.getAttributes(parameters);
-                    return ret.remove(CMSAttributes.cmsAlgorithmProtect);
-                }
-            }, sigGen.getUnsignedAttributeTableGenerator());
+                CMSSignedDataGenerator dataGen = new CMSSignedDataGenerator();
+                dataGen.addSignerInfoGenerator(sigGen);
+                dataGen.addCertificates(certStore);
 
-            CMSSignedDataGenerator dataGen = new CMSSignedDataGenerator();
-            dataGen.addSignerInfoGenerator(sigGen);
-            dataGen.addCertificates(new JcaCertStore(certList));
+                CMSSignedData signedData = dataGen.generate(new CMSProcessableByteArray(toSign), true);
 
-            CMSSignedData signedData = dataGen.generate(new CMSProcessableByteArray(toSign), true);
+                // now let TSA time-stamp the signature
+                if (tsaUrl != null && !tsaUrl.isEmpty()) {
+                    signedData = addTimestamp(tsaUrl, signedData);
+                }
 
-            // now let TSA time-stamp the signature
-            if (tsaUrl != null && !tsaUrl.isEmpty()) {
-                signedData = addTimestamp(tsaUrl, signedData);
+                return signedData.getEncoded();
+            } catch (Exception ex) {
+                throw new CryptoException(res.getString("SignatureBlockCreationFailed.exception.message"), ex);
             }
-
-            return signedData.getEncoded();
-        } catch (Exception ex) {
-            throw new CryptoException(res.getString("SignatureBlockCreationFailed.exception.message"), ex);
         }
     }
 
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.signing;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.kse.KSE;
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.digest.DigestType;
+import org.kse.crypto.signing.JarSigner.SignatureBlockGenerator;
+
+/**
+ * Signs several JAR files with the same key and settings.
+ * <p>
+ * The JARs are signed in parallel on a bounded number of threads, each JAR with its own signer.
+ * Keys of other providers than Bouncy Castle (PKCS #11 tokens, Windows key store) are only used
+ * from one thread, so these JARs are signed one after the other. The entries of a JAR are kept
+ * in memory (up to 16 MB per JAR) while they are digested, so they do not have to be read again
+ * for the signed JAR; larger entries are read twice (see {@link JarSigner}). Failures are
+ * reported per JAR and do not stop the signing of the other JARs.
+ */
+public class JarSigningEngine {
+
+    /**
+     * Receives the outcome of signing a single JAR. Methods are called from the signing threads.
+     */
+    public interface SigningListener {
+
+        /**
+         * A JAR was signed successfully.
+         *
+         * @param jarFile   The JAR file
+         * @param completed Number of JARs processed so far (successfully or not)
+         */
+        void jarSigned(File jarFile, int completed);
+
+        /**
+         * A JAR could not be signed.
+         *
+         * @param jarFile   The JAR file
+         * @param error     The problem that occurred
+         * @param completed Number of JARs processed so far (successfully or not)
+         */
+        void jarFailed(File jarFile, Exception error, int completed);
+    }
+
+    private static final int MAX_PARALLELISM = 4;
+
+    private final PrivateKey privateKey;
+    private final X509Certificate[] certificateChain;
+    private final SignatureType signatureType;
+    private final String tsaUrl;
+    private final Provider provider;
+    private final String signatureName;
+    private final String signer;
+    private final DigestType digestType;
+
+    /**
+     * Create a signing engine.
+     *
+     * @param privateKey       Private key to sign with
+     * @param certificateChain Certificate chain for private key
+     * @param signatureType    Signature type
+     * @param signatureName    Signature name
+     * @param signer           Signer
+     * @param digestType       Digest type
+     * @param tsaUrl           TSA URL (optional)
+     * @param provider         The security provider to use.
+     * @throws CryptoException If the signer could not be set up
+     */
+    public JarSigningEngine(PrivateKey privateKey, X509Certificate[] certificateChain, SignatureType signatureType,
+                            String signatureName, String signer, DigestType digestType, String tsaUrl,
+                            Provider provider) throws CryptoException {
+        this.privateKey = privateKey;
+        this.certificateChain = certificateChain;
+        this.signatureType = signatureType;
+        this.tsaUrl = tsaUrl;
+        this.provider = provider;
+        this.signatureName = signatureName;
+        this.signer = signer;
+        this.digestType = digestType;
+
+        // fail early if the signer cannot be set up
+        newSignatureBlockGenerator();
+    }
+
+    /**
+     * Get the default number of JARs that are signed in parallel.
+     *
+     * @return Number of available processors, but at most 4
+     */
+    public static int getDefaultParallelism() {
+        return Math.max(1, Math.min(MAX_PARALLELISM, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Sign JAR files. Blocks until all JARs have been processed.
+     *
+     * @param inputJarFiles  JAR files to sign
+     * @param outputJarFiles Output files for the signed JARs, must match 1:1 with the input files. An
+     *                       output file may be identical to its input file.
+     * @param parallelism    Maximum number of JARs signed at the same time, ignored for keys of
+     *                       other providers than Bouncy Castle
+     * @param listener       Receives the outcome for each JAR
+     * @throws InterruptedException If the calling thread was interrupted; JARs that have not
+     *                              been started yet are then not signed
+     */
+    public void sign(File[] inputJarFiles, List<File> outputJarFiles, int parallelism, SigningListener listener)
+            throws InterruptedException {
+
+        int threads = isSoftwareProvider(provider) ? Math.max(1, parallelism) : 1;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "JarSigningEngine");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            AtomicInteger completed = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < inputJarFiles.length; i++) {
+                File inputJarFile = inputJarFiles[i];
+                File outputJarFile = outputJarFiles.get(i);
+
+                futures.add(executor.submit(() -> {
+                    try {
+                        sign(inputJarFile, outputJarFile);
+                        listener.jarSigned(inputJarFile, completed.incrementAndGet());
+                    } catch (Exception e) {
+                        listener.jarFailed(inputJarFile, e, completed.incrementAndGet());
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // listener failed - nothing else to report
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sign a single JAR file.
+     *
+     * @param jarFile       JAR file to sign
+     * @param signedJarFile Output file for signed JAR, may be identical to the JAR file
+     * @throws IOException     If an I/O problem occurs while signing the JAR file
+     * @throws CryptoException     If a crypto problem occurs while signing the JAR file
+     */
+    public void sign(File jarFile, File signedJarFile) throws IOException, CryptoException {
+        // content signer builder and random number generator are not shared between threads
+        SignatureBlockGenerator sigBlockGenerator = newSignatureBlockGenerator();
+
+        if (jarFile.equals(signedJarFile)) {
+            JarSigner.sign(jarFile, signatureName, signer, digestType, sigBlockGenerator);
+        } else {
+            JarSigner.sign(jarFile, signedJarFile, signatureName, signer, digestType, sigBlockGenerator);
+        }
+    }
+
+    private SignatureBlockGenerator newSignatureBlockGenerator() throws CryptoException {
+        return new SignatureBlockGenerator(privateKey, certificateChain, signatureType, tsaUrl, provider);
+    }
+
+    private static boolean isSoftwareProvider(Provider provider) {
+        return provider == null || KSE.BC.getName().equals(provider.getName());
+    }
+}
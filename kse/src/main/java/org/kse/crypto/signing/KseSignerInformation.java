@@ -53,7 +53,9 @@ import org.bouncycastle.util.Store;
 import org.kse.KSE;
 import org.kse.crypto.CryptoException;
 import org.kse.crypto.x509.X500NameUtils;
+import org.kse.crypto.x509.TrustedCertificateStore;
 import org.kse.crypto.x509.X509CertUtil;
+import org.kse.crypto.x509.X509CertificateIndex;
 import org.kse.utilities.StringUtils;
 import org.kse.utilities.io.HexUtil;
 
@@ -142,16 +144,22 @@ public class KseSignerInformation extends SignerInformation {
 
     private void establishTrust() throws CryptoException {
 
-        List<X509Certificate> allCerts = new ArrayList<>();
-
-        List<X509Certificate> certs = new ArrayList<>();
-        for (X509CertificateHolder certHolder : trustedCerts.getMatches(null)) {
-            X509Certificate c = X509CertUtil.convertCertificate(certHolder);
-            certs.add(c);
-            allCerts.add(c);
-        }
-        for (X509CertificateHolder certHolder : signatureCerts.getMatches(null)) {
-            allCerts.add(X509CertUtil.convertCertificate(certHolder));
+        X509CertificateIndex certs;
+        X509CertificateIndex allCerts;
+        if (trustedCerts instanceof TrustedCertificateStore) {
+            // Shared trusted certificates are already converted and indexed
+            TrustedCertificateStore trustedCertificateStore = (TrustedCertificateStore) trustedCerts;
+            certs = trustedCertificateStore.getIndex();
+            allCerts = trustedCertificateStore.indexWith(signedData);
+        } else {
+            certs = new X509CertificateIndex();
+            for (X509CertificateHolder certHolder : trustedCerts.getMatches(null)) {
+                certs.add(X509CertUtil.convertCertificate(certHolder));
+            }
+            allCerts = new X509CertificateIndex(certs);
+            for (X509CertificateHolder certHolder : signatureCerts.getMatches(null)) {
+                allCerts.add(X509CertUtil.convertCertificate(certHolder));
+            }
         }
 
         // Builds a chain from the signer cert to a root cert. The root cert is not
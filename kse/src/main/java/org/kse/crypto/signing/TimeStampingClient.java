@@ -51,6 +51,8 @@ import org.kse.utilities.rng.RNG;
 
 public class TimeStampingClient {
 
+    private static SSLSocketFactory trustAllSocketFactory;
+
     private TimeStampingClient() {
     }
 
@@ -115,56 +117,62 @@ public class TimeStampingClient {
      */
     private static byte[] queryServer(String tsaUrl, byte[] requestBytes) throws IOException, URISyntaxException {
 
-        // Install the all-trusting trust manager
-        SSLContext sc;
-        try {
-            sc = SSLContext.getInstance("SSL");
-            sc.init(null, new TrustManager[] { new X509TrustManager() {
-                @Override
-                public java.security.cert.X509Certificate[] getAcceptedIssuers() {
-                    return null;
-                }
-
-                @Override
-                public void checkClientTrusted(X509Certificate[] certs, String authType) {
-                }
-
-                @Override
-                public void checkServerTrusted(X509Certificate[] certs, String authType) {
-                }
-            } }, RNG.newInstanceDefault());
-        } catch (NoSuchAlgorithmException | KeyManagementException e) {
-            throw new IOException(e);
+        URL url = new URI(tsaUrl).toURL();
+        URLConnection con = url.openConnection();
+
+        // Use the all-trusting trust manager for this connection only (instead of replacing the default
+        // socket factory) so that concurrent requests do not interfere. As the socket factory is always the
+        // same, the connection can be kept alive and reused for subsequent requests to the same TSA.
+        if (con instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) con).setSSLSocketFactory(getTrustAllSocketFactory());
         }
-        SSLSocketFactory defaultSSLSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
-        HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
 
-        try {
-            URL url = new URI(tsaUrl).toURL();
-            URLConnection con = url.openConnection();
-            con.setDoInput(true);
-            con.setDoOutput(true);
-            con.setUseCaches(false);
-            con.setRequestProperty("Content-Type", "application/timestamp-query");
-            con.setRequestProperty("Content-Transfer-Encoding", "binary");
-
-            try (OutputStream out = con.getOutputStream()) {
-                out.write(requestBytes);
-                out.close();
-            }
+        con.setDoInput(true);
+        con.setDoOutput(true);
+        con.setUseCaches(false);
+        con.setRequestProperty("Content-Type", "application/timestamp-query");
+        con.setRequestProperty("Content-Transfer-Encoding", "binary");
 
-            try (InputStream is = con.getInputStream()) {
-                byte[] respBytes = is.readAllBytes();
-                String encoding = con.getContentEncoding();
-                if (encoding != null && encoding.equalsIgnoreCase("base64")) {
-                    respBytes = Base64.decode(new String(respBytes));
-                }
-                return respBytes;
+        try (OutputStream out = con.getOutputStream()) {
+            out.write(requestBytes);
+        }
+
+        try (InputStream is = con.getInputStream()) {
+            byte[] respBytes = is.readAllBytes();
+            String encoding = con.getContentEncoding();
+            if (encoding != null && encoding.equalsIgnoreCase("base64")) {
+                respBytes = Base64.decode(new String(respBytes));
             }
+            return respBytes;
+        }
+    }
 
-        } finally {
-            // restore default trust manager
-            HttpsURLConnection.setDefaultSSLSocketFactory(defaultSSLSocketFactory);
+    private static synchronized SSLSocketFactory getTrustAllSocketFactory() throws IOException {
+
+        if (trustAllSocketFactory == null) {
+            // Install the all-trusting trust manager
+            try {
+                SSLContext sc = SSLContext.getInstance("SSL");
+                sc.init(null, new TrustManager[] { new X509TrustManager() {
+                    @Override
+                    public java.security.cert.X509Certificate[] getAcceptedIssuers() {
+                        return null;
+                    }
+
+                    @Override
+                    public void checkClientTrusted(X509Certificate[] certs, String authType) {
+                    }
+
+                    @Override
+                    public void checkServerTrusted(X509Certificate[] certs, String authType) {
+                    }
+                } }, RNG.newInstanceDefault());
+                trustAllSocketFactory = sc.getSocketFactory();
+            } catch (NoSuchAlgorithmException | KeyManagementException e) {
+                throw new IOException(e);
+            }
         }
+
+        return trustAllSocketFactory;
     }
 }
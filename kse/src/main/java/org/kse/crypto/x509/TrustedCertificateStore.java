@@ -0,0 +1,141 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.x509;
+
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.stream.Collectors;
+
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.util.Selector;
+import org.bouncycastle.util.Store;
+import org.bouncycastle.util.StoreException;
+import org.kse.crypto.CryptoException;
+
+/**
+ * An immutable pool of trusted certificates that is built once and then shared between
+ * signature verifications.
+ * <p>
+ * The certificates are available as a BC certificate store (for CMS signer lookups), as
+ * an {@link X509CertificateIndex} (for trust establishment) and as a set of
+ * {@link TrustAnchor}s (for PKIX path validation), so that callers do not have to extract
+ * and convert the certificates again for every verification.
+ */
+public class TrustedCertificateStore implements Store<X509CertificateHolder> {
+
+    private final Set<X509Certificate> certificates;
+    private final X509CertificateIndex index;
+    private final JcaCertStore certStore;
+    private volatile Set<TrustAnchor> trustAnchors;
+    // weak keys, so that the indexes are released together with the verified signatures
+    private final Map<CMSSignedData, X509CertificateIndex> signatureIndexes = new WeakHashMap<>();
+
+    /**
+     * Create a store for the supplied trusted certificates.
+     *
+     * @param certs Trusted certificates, duplicates are removed
+     * @throws CertificateEncodingException If a certificate could not be encoded
+     */
+    public TrustedCertificateStore(Collection<X509Certificate> certs) throws CertificateEncodingException {
+        certificates = Collections.unmodifiableSet(new LinkedHashSet<>(certs));
+        index = new X509CertificateIndex(certificates);
+        certStore = new JcaCertStore(certificates);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<X509CertificateHolder> getMatches(Selector<X509CertificateHolder> selector)
+            throws StoreException {
+        return certStore.getMatches(selector);
+    }
+
+    /**
+     * Get the trusted certificates.
+     *
+     * @return Trusted certificates
+     */
+    public Set<X509Certificate> getCertificates() {
+        return certificates;
+    }
+
+    /**
+     * Get the trusted certificates indexed by subject and key identifiers.
+     *
+     * @return Certificate index
+     */
+    public X509CertificateIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Is the supplied certificate one of the trusted certificates?
+     *
+     * @param cert Certificate
+     * @return True if it is trusted
+     */
+    public boolean contains(Certificate cert) {
+        return certificates.contains(cert);
+    }
+
+    /**
+     * Get the trusted certificates as trust anchors for PKIX path validation.
+     *
+     * @return Trust anchors
+     */
+    public Set<TrustAnchor> getTrustAnchors() {
+        if (trustAnchors == null) {
+            trustAnchors = certificates.stream()
+                                       .map(cert -> new TrustAnchor(cert, null))
+                                       .collect(Collectors.toUnmodifiableSet());
+        }
+        return trustAnchors;
+    }
+
+    /**
+     * Get an index containing the trusted certificates followed by the certificates of the
+     * supplied signature, without re-parsing the trusted certificates. The index is built once
+     * per signature and shared by all of its signers and counter signers.
+     *
+     * @param signedData Signature whose (untrusted) certificates are added
+     * @return Certificate index
+     * @throws CryptoException If a certificate of the signature could not be converted
+     */
+    public synchronized X509CertificateIndex indexWith(CMSSignedData signedData) throws CryptoException {
+        X509CertificateIndex allCerts = signatureIndexes.get(signedData);
+        if (allCerts == null) {
+            allCerts = new X509CertificateIndex(index);
+            for (X509CertificateHolder certHolder : signedData.getCertificates().getMatches(null)) {
+                allCerts.add(X509CertUtil.convertCertificate(certHolder));
+            }
+            signatureIndexes.put(signedData, allCerts);
+        }
+        return allCerts;
+    }
+}
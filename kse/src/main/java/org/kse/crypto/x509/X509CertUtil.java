@@ -38,12 +38,16 @@ import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 import javax.security.auth.x500.X500Principal;
 
@@ -57,6 +61,7 @@ import org.kse.KSE;
 import org.kse.crypto.CryptoException;
 import org.kse.crypto.digest.DigestType;
 import org.kse.crypto.digest.DigestUtil;
+import org.kse.crypto.keystore.CopyOnWriteKeyStore;
 import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.crypto.signing.SignatureType;
 import org.kse.gui.preferences.PreferencesManager;
@@ -335,34 +340,29 @@ public final class X509CertUtil {
             return certs;
         }
 
-        // Put together each possible certificate path...
-        ArrayList<ArrayList<X509Certificate>> paths = new ArrayList<>();
+        X509CertificateIndex index = new X509CertificateIndex(Arrays.asList(certs));
 
-        // For each possible path...
+        // For each certificate find the first certificate issued by it (at most one lookup per certificate)
+        Map<X509Certificate, X509Certificate> issuedCerts = new IdentityHashMap<>();
         for (X509Certificate cert : certs) {
-            // Each possible path assumes a different certificate is the root issuer
-            ArrayList<X509Certificate> path = new ArrayList<>();
-            X509Certificate issuerCert = cert;
-            path.add(issuerCert);
+            List<X509Certificate> issued = index.findIssued(cert);
+            issuedCerts.put(cert, issued.isEmpty() ? null : firstInArrayOrder(issued, certs));
+        }
 
-            X509Certificate newIssuer = null;
+        // Each possible path assumes a different certificate is the root issuer, get the longest path
+        List<X509Certificate> longestPath = null;
+        for (X509Certificate cert : certs) {
+            List<X509Certificate> path = new ArrayList<>();
+            Set<X509Certificate> visited = Collections.newSetFromMap(new IdentityHashMap<>());
 
-            // Recursively build that path by finding the next issued certificate
-            while ((newIssuer = findIssuedCert(issuerCert, certs)) != null) {
-                // Found an issued cert, now attempt to find its issued certificate
-                issuerCert = newIssuer;
-                path.add(0, newIssuer);
+            // Build that path by following the issued certificates (stop at loops caused by cross certificates)
+            X509Certificate issuerCert = cert;
+            while (issuerCert != null && visited.add(issuerCert)) {
+                path.add(0, issuerCert);
+                issuerCert = issuedCerts.get(issuerCert);
             }
 
-            // Path complete
-            paths.add(path);
-        }
-
-        // Get longest path - this will be the ordered path
-        ArrayList<X509Certificate> longestPath = paths.get(0);
-        for (int i = 1; i < paths.size(); i++) {
-            ArrayList<X509Certificate> path = paths.get(i);
-            if (path.size() > longestPath.size()) {
+            if (longestPath == null || path.size() > longestPath.size()) {
                 longestPath = path;
             }
         }
@@ -371,6 +371,15 @@ public final class X509CertUtil {
         return longestPath.toArray(X509Certificate[]::new);
     }
 
+    private static X509Certificate firstInArrayOrder(List<X509Certificate> found, X509Certificate[] certs) {
+        for (X509Certificate cert : certs) {
+            if (found.contains(cert)) {
+                return cert;
+            }
+        }
+        return found.get(0);
+    }
+
     /**
      * Tries to sort the certificates according to their hierarchy,
      * and adds at the end those that have no dependencies.
@@ -443,26 +452,7 @@ public final class X509CertUtil {
     }
 
     private static boolean certificatesEquals(X509Certificate cert1, X509Certificate cert2) {
-        return cert1.getSubjectX500Principal().equals(cert2.getSubjectX500Principal())
-                && cert1.getIssuerX500Principal().equals(cert2.getIssuerX500Principal())
-                && cert1.getSerialNumber().equals(cert2.getSerialNumber());
-    }
-
-    private static X509Certificate findIssuedCert(X509Certificate issuerCert, X509Certificate[] certs) {
-        // Find a certificate issued by the supplied certificate
-        for (X509Certificate cert : certs) {
-            if (issuerCert.getSubjectX500Principal().equals(cert.getSubjectX500Principal()) &&
-                issuerCert.getIssuerX500Principal().equals(cert.getIssuerX500Principal()) &&
-                issuerCert.getSerialNumber().equals(cert.getSerialNumber())) {
-                // Checked certificate is issuer - ignore it
-                continue;
-            }
-
-            if (isIssuedBy(cert, issuerCert)) {
-                return cert;
-            }
-        }
-        return null;
+        return X509CertificateIndex.isSameCertificate(cert1, cert2);
     }
 
     /**
@@ -708,37 +698,62 @@ public final class X509CertUtil {
      */
     public static X509Certificate[] establishTrust(X509Certificate cert, List<X509Certificate> trustedCerts)
             throws CryptoException {
+        return establishTrust(cert, new X509CertificateIndex(trustedCerts));
+    }
 
-        for (int i = 0; i < trustedCerts.size(); i++) {
-            X509Certificate compCert = trustedCerts.get(i);
+    /**
+     * Check whether or not a trust path exists between the supplied X.509
+     * certificate and the indexed certificates, ie that a chain of trust exists
+     * between the supplied certificate and a self-signed trusted certificate in
+     * the index.
+     *
+     * @param cert         The certificate
+     * @param trustedCerts Index of the trusted certificates.
+     * @return The trust chain, or null if trust could not be established
+     * @throws CryptoException If there is a problem establishing trust
+     */
+    public static X509Certificate[] establishTrust(X509Certificate cert, X509CertificateIndex trustedCerts)
+            throws CryptoException {
+        List<X509Certificate> trustChain = establishTrust(cert, trustedCerts, new ArrayList<>());
 
-            // Verify of certificate issuer is sam as comparison certificate's subject
-            if (cert.getIssuerX500Principal().equals(compCert.getSubjectX500Principal())) {
-                // Verify if the comparison certificate's private key was used to sign the certificate
-                if (X509CertUtil.verifyCertificate(cert, compCert)) {
-                    // If the comparision certificate is self-signed then a chain of trust exists
-                    if (compCert.getSubjectX500Principal().equals(compCert.getIssuerX500Principal())) {
-                        return new X509Certificate[] { cert, compCert };
-                    }
+        return trustChain == null ? null : trustChain.toArray(X509Certificate[]::new);
+    }
 
-                    /*
-                     * Otherwise try and establish a chain of trust from the
-                     * comparison certificate against the other comparison certificates
-                     */
-                    X509Certificate[] tmpChain = establishTrust(compCert, trustedCerts);
-                    if (tmpChain != null) {
-                        X509Certificate[] trustChain = new X509Certificate[tmpChain.length + 1];
+    private static List<X509Certificate> establishTrust(X509Certificate cert, X509CertificateIndex trustedCerts,
+                                                        List<X509Certificate> path) throws CryptoException {
+        path.add(cert);
 
-                        trustChain[0] = cert;
+        // Only certificates with the certificate's issuer as subject are candidates
+        for (X509Certificate compCert : trustedCerts.findBySubject(cert.getIssuerX500Principal())) {
 
-                        System.arraycopy(tmpChain, 0, trustChain, 1, tmpChain.length);
+            // Verify if the comparison certificate's private key was used to sign the certificate
+            if (!trustedCerts.verifyCertificate(cert, compCert)) {
+                continue;
+            }
 
-                        return trustChain;
-                    }
-                }
+            // If the comparision certificate is self-signed then a chain of trust exists
+            if (compCert.getSubjectX500Principal().equals(compCert.getIssuerX500Principal())) {
+                path.add(compCert);
+                return path;
+            }
+
+            // Avoid loops caused by cross certificates
+            if (path.contains(compCert)) {
+                continue;
+            }
+
+            /*
+             * Otherwise try and establish a chain of trust from the
+             * comparison certificate against the other comparison certificates
+             */
+            List<X509Certificate> trustChain = establishTrust(compCert, trustedCerts, path);
+            if (trustChain != null) {
+                return trustChain;
             }
         }
 
+        path.remove(path.size() - 1);
+
         return null; // No chain of trust
     }
 
@@ -779,6 +794,10 @@ public final class X509CertUtil {
      */
     public static String matchCertificate(KseKeyStore keyStore, X509Certificate cert) throws CryptoException {
         try {
+            if (keyStore instanceof CopyOnWriteKeyStore) {
+                return ((CopyOnWriteKeyStore) keyStore).getCertificateIndex().getTrustedCertificateAlias(cert);
+            }
+
             for (Enumeration<String> aliases = keyStore.aliases(); aliases.hasMoreElements(); ) {
                 String alias = aliases.nextElement();
                 if (keyStore.isCertificateEntry(alias)) {
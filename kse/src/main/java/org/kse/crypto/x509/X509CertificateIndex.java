@@ -0,0 +1,292 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.x509;
+
+import java.nio.ByteBuffer;
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.kse.crypto.CryptoException;
+
+/**
+ * An index over a set of X.509 certificates for finding issuers and issued
+ * certificates without scanning (and verifying) all certificates.
+ * <p>
+ * Certificates are indexed by subject DN, issuer DN, subject key identifier
+ * and public key. Issuer candidates are narrowed down by DN and key
+ * identifiers first and only then is the signature verified. Signature
+ * verification results are memoized by the index, so they are kept exactly as
+ * long as the index itself.
+ * </p>
+ * Lookup results keep the order in which the certificates were added.
+ */
+public class X509CertificateIndex {
+
+    private final List<X509Certificate> certificates = new ArrayList<>();
+    private final Map<X500Principal, List<X509Certificate>> bySubject = new HashMap<>();
+    private final Map<X500Principal, List<X509Certificate>> byIssuer = new HashMap<>();
+    private final Map<ByteBuffer, List<X509Certificate>> bySubjectKeyId = new HashMap<>();
+    private final Map<ByteBuffer, List<X509Certificate>> byPublicKey = new HashMap<>();
+
+    // lookups may run concurrently, e.g. when the entries of a KeyStore are verified in parallel
+    private final Map<IssuedBy, Boolean> verificationResults = new ConcurrentHashMap<>();
+
+    private record IssuedBy(X509Certificate cert, X509Certificate issuerCert) {
+    }
+
+    /**
+     * Create an empty index.
+     */
+    public X509CertificateIndex() {
+    }
+
+    /**
+     * Create an index for the supplied certificates.
+     *
+     * @param certs Certificates
+     */
+    public X509CertificateIndex(Collection<X509Certificate> certs) {
+        for (X509Certificate cert : certs) {
+            add(cert);
+        }
+    }
+
+    /**
+     * Create a copy of another index. Certificates added to the copy are not
+     * added to the original index.
+     *
+     * @param other Index to copy
+     */
+    public X509CertificateIndex(X509CertificateIndex other) {
+        certificates.addAll(other.certificates);
+        copy(other.bySubject, bySubject);
+        copy(other.byIssuer, byIssuer);
+        copy(other.bySubjectKeyId, bySubjectKeyId);
+        copy(other.byPublicKey, byPublicKey);
+        verificationResults.putAll(other.verificationResults);
+    }
+
+    private static <K> void copy(Map<K, List<X509Certificate>> from, Map<K, List<X509Certificate>> to) {
+        from.forEach((key, certs) -> to.put(key, new ArrayList<>(certs)));
+    }
+
+    /**
+     * Add a certificate to the index.
+     *
+     * @param cert Certificate
+     */
+    public void add(X509Certificate cert) {
+        certificates.add(cert);
+        bySubject.computeIfAbsent(cert.getSubjectX500Principal(), k -> new ArrayList<>()).add(cert);
+        byIssuer.computeIfAbsent(cert.getIssuerX500Principal(), k -> new ArrayList<>()).add(cert);
+
+        byte[] ski = getSubjectKeyIdentifier(cert);
+        if (ski != null) {
+            bySubjectKeyId.computeIfAbsent(ByteBuffer.wrap(ski), k -> new ArrayList<>()).add(cert);
+        }
+
+        byPublicKey.computeIfAbsent(ByteBuffer.wrap(cert.getPublicKey().getEncoded()), k -> new ArrayList<>())
+                   .add(cert);
+    }
+
+    /**
+     * Get all indexed certificates.
+     *
+     * @return Certificates in the order they were added
+     */
+    public List<X509Certificate> getCertificates() {
+        return Collections.unmodifiableList(certificates);
+    }
+
+    /**
+     * Get the certificates with the supplied subject DN.
+     *
+     * @param subject Subject DN
+     * @return Certificates, may be empty
+     */
+    public List<X509Certificate> findBySubject(X500Principal subject) {
+        return bySubject.getOrDefault(subject, Collections.emptyList());
+    }
+
+    /**
+     * Get the certificates with the supplied subject key identifier.
+     *
+     * @param keyIdentifier Subject key identifier
+     * @return Certificates, may be empty
+     */
+    public List<X509Certificate> findBySubjectKeyIdentifier(byte[] keyIdentifier) {
+        return bySubjectKeyId.getOrDefault(ByteBuffer.wrap(keyIdentifier), Collections.emptyList());
+    }
+
+    /**
+     * Get the certificates that contain the supplied public key.
+     *
+     * @param publicKey Public key
+     * @return Certificates, may be empty
+     */
+    public List<X509Certificate> findByPublicKey(PublicKey publicKey) {
+        return byPublicKey.getOrDefault(ByteBuffer.wrap(publicKey.getEncoded()), Collections.emptyList());
+    }
+
+    /**
+     * Find the certificates that have issued the supplied certificate, i.e. whose subject DN
+     * matches the certificate's issuer DN and whose public key verifies its signature. If the
+     * certificate has an authority key identifier, candidates with a matching subject key
+     * identifier are returned first.
+     *
+     * @param cert Certificate
+     * @return Issuer certificates, may be empty
+     */
+    public List<X509Certificate> findIssuers(X509Certificate cert) {
+        List<X509Certificate> candidates = findBySubject(cert.getIssuerX500Principal());
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<X509Certificate> issuers = new ArrayList<>();
+        byte[] aki = getAuthorityKeyIdentifier(cert);
+
+        if (aki != null && candidates.size() > 1) {
+            // try the candidates with a matching key identifier first
+            for (X509Certificate candidate : findBySubjectKeyIdentifier(aki)) {
+                if (candidates.contains(candidate) && isIssuedBy(cert, candidate)) {
+                    issuers.add(candidate);
+                }
+            }
+        }
+
+        for (X509Certificate candidate : candidates) {
+            if (!issuers.contains(candidate) && isIssuedBy(cert, candidate)) {
+                issuers.add(candidate);
+            }
+        }
+
+        return issuers;
+    }
+
+    /**
+     * Find the certificates that were issued by the supplied certificate, excluding the
+     * certificate itself.
+     *
+     * @param issuerCert Issuer certificate
+     * @return Issued certificates, may be empty
+     */
+    public List<X509Certificate> findIssued(X509Certificate issuerCert) {
+        List<X509Certificate> candidates = byIssuer.getOrDefault(issuerCert.getSubjectX500Principal(),
+                                                                 Collections.emptyList());
+        List<X509Certificate> issued = new ArrayList<>();
+
+        for (X509Certificate candidate : candidates) {
+            if (isSameCertificate(candidate, issuerCert)) {
+                continue;
+            }
+            if (isIssuedBy(candidate, issuerCert)) {
+                issued.add(candidate);
+            }
+        }
+
+        return issued;
+    }
+
+    /**
+     * Checks if a certificate was issued by another certificate like
+     * {@link X509CertUtil#isIssuedBy}, with the signature verification memoized by this index.
+     *
+     * @param cert       The issued certificate
+     * @param issuerCert The possible issuer certificate
+     * @return True, if issuerCert has issued cert, false otherwise
+     */
+    public boolean isIssuedBy(X509Certificate cert, X509Certificate issuerCert) {
+        if (!issuerCert.getSubjectX500Principal().equals(cert.getIssuerX500Principal())) {
+            return false;
+        }
+        try {
+            return verifyCertificate(cert, issuerCert);
+        } catch (CryptoException e) {
+            // ignore technical verification issues as they are not relevant for finding chains
+            return true;
+        }
+    }
+
+    /**
+     * Verify that one certificate was signed with the key of a second certificate like
+     * {@link X509CertUtil#verifyCertificate}. The result is memoized by this index.
+     *
+     * @param signedCert  The signed certificate
+     * @param signingCert The signing certificate
+     * @return True if the first certificate was signed by the second certificate's key
+     * @throws CryptoException If there was a problem verifying the signature.
+     */
+    public boolean verifyCertificate(X509Certificate signedCert, X509Certificate signingCert)
+            throws CryptoException {
+        IssuedBy key = new IssuedBy(signedCert, signingCert);
+
+        Boolean verified = verificationResults.get(key);
+        if (verified == null) {
+            verified = X509CertUtil.verifyCertificate(signedCert, signingCert);
+            verificationResults.put(key, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * Compares certificates by subject, issuer and serial number.
+     */
+    static boolean isSameCertificate(X509Certificate cert1, X509Certificate cert2) {
+        return cert1.getSubjectX500Principal().equals(cert2.getSubjectX500Principal())
+               && cert1.getIssuerX500Principal().equals(cert2.getIssuerX500Principal())
+               && cert1.getSerialNumber().equals(cert2.getSerialNumber());
+    }
+
+    private static byte[] getSubjectKeyIdentifier(X509Certificate cert) {
+        try {
+            byte[] skiValue = cert.getExtensionValue(X509ExtensionType.SUBJECT_KEY_IDENTIFIER.oid());
+            if (skiValue == null) {
+                return null;
+            }
+            return SubjectKeyIdentifier.getInstance(X509Ext.unwrapExtension(skiValue)).getKeyIdentifier();
+        } catch (Exception e) {
+            return null; // malformed extension
+        }
+    }
+
+    private static byte[] getAuthorityKeyIdentifier(X509Certificate cert) {
+        try {
+            byte[] akiValue = cert.getExtensionValue(X509ExtensionType.AUTHORITY_KEY_IDENTIFIER.oid());
+            if (akiValue == null) {
+                return null;
+            }
+            return AuthorityKeyIdentifier.getInstance(X509Ext.unwrapExtension(akiValue)).getKeyIdentifierOctets();
+        } catch (Exception e) {
+            return null; // malformed extension
+        }
+    }
+}
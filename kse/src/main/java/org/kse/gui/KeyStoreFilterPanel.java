@@ -0,0 +1,152 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui;
+
+import java.beans.PropertyChangeEvent;
+import java.security.KeyStoreException;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.RowFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+
+import org.kse.gui.error.DError;
+import org.kse.utilities.history.KeyStoreHistory;
+
+import net.miginfocom.swing.MigLayout;
+
+/**
+ * Filter field shown above a KeyStore table. The table is filtered while typing, using the search
+ * index of the current KeyStore state, so the certificates are not read again for each filter. The
+ * filter is applied again whenever the table's model changes.
+ */
+public class KeyStoreFilterPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/resources");
+
+    // Delay after the last key stroke before the filter is applied
+    private static final int FILTER_DELAY = 200;
+
+    private JLabel jlFilter;
+    private JTextField jtfFilter;
+
+    private final JTable table;
+    private final Timer filterTimer;
+    private final TableModelListener modelListener = e -> SwingUtilities.invokeLater(this::reapplyFilter);
+
+    /**
+     * Construct a filter panel for a KeyStore table.
+     *
+     * @param table KeyStore table with a KeyStoreTableModel and a KeyStoreTableRowSorter
+     */
+    public KeyStoreFilterPanel(JTable table) {
+        this.table = table;
+
+        filterTimer = new Timer(FILTER_DELAY, e -> applyFilter());
+        filterTimer.setRepeats(false);
+
+        initComponents();
+
+        table.getModel().addTableModelListener(modelListener);
+        table.addPropertyChangeListener("model", this::modelChanged);
+        table.addPropertyChangeListener("rowSorter", e -> applyFilter());
+    }
+
+    private void initComponents() {
+        jlFilter = new JLabel(res.getString("KeyStoreFilterPanel.jlFilter.text"));
+
+        jtfFilter = new JTextField(30);
+        jtfFilter.setToolTipText(res.getString("KeyStoreFilterPanel.jtfFilter.tooltip"));
+        jtfFilter.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+        });
+        jtfFilter.addActionListener(e -> {
+            filterTimer.stop();
+            applyFilter();
+        });
+
+        setLayout(new MigLayout("insets 2 4 2 4, fill", "[][grow]", "[]"));
+        add(jlFilter, "");
+        add(jtfFilter, "growx");
+    }
+
+    private void modelChanged(PropertyChangeEvent e) {
+        ((TableModel) e.getOldValue()).removeTableModelListener(modelListener);
+        ((TableModel) e.getNewValue()).addTableModelListener(modelListener);
+    }
+
+    private void reapplyFilter() {
+        // entries may have been added or renamed, so the matches are determined again
+        if (!jtfFilter.getText().trim().isEmpty()) {
+            applyFilter();
+        }
+    }
+
+    private void applyFilter() {
+        if (!(table.getRowSorter() instanceof KeyStoreTableRowSorter)) {
+            return;
+        }
+
+        KeyStoreTableRowSorter sorter = (KeyStoreTableRowSorter) table.getRowSorter();
+        KeyStoreHistory history = sorter.getModel().getHistory();
+        String query = jtfFilter.getText().trim();
+
+        if (query.isEmpty() || history == null) {
+            sorter.setRowFilter(null);
+            return;
+        }
+
+        try {
+            Set<String> matches = history.getCurrentState().getSearchIndex().search(query);
+
+            sorter.setRowFilter(new RowFilter<KeyStoreTableModel, Integer>() {
+                @Override
+                public boolean include(Entry<? extends KeyStoreTableModel, ? extends Integer> entry) {
+                    return matches.contains(entry.getModel().getAlias(entry.getIdentifier()));
+                }
+            });
+        } catch (KeyStoreException ex) {
+            sorter.setRowFilter(null);
+            DError.displayError(this, ex);
+        }
+    }
+}
@@ -21,7 +21,11 @@ package org.kse.gui;
 
 import java.awt.Component;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.TimeZone;
 
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
@@ -34,11 +38,45 @@ import org.kse.utilities.StringUtils;
 /**
  * Custom cell renderer for the cells of the KeyStore table of KeyStore
  * Explorer.
+ * <p>
+ * The renderer is called for every visible cell on every repaint. The icons are
+ * therefore loaded only once and the display texts of dates and numbers are kept
+ * in a bounded cache.
  */
 public class KeyStoreTableCellRend extends DefaultTableCellRenderer {
     private static final long serialVersionUID = 1L;
     private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/resources");
 
+    private static final ImageIcon KEYPAIR_ENTRY_ICON = loadIcon("images/table/keypair_entry.png");
+    private static final ImageIcon TRUSTCERT_ENTRY_ICON = loadIcon("images/table/trustcert_entry.png");
+    private static final ImageIcon KEY_ENTRY_ICON = loadIcon("images/table/key_entry.png");
+    private static final ImageIcon LOCKED_ENTRY_ICON = loadIcon("images/table/locked_entry.png");
+    private static final ImageIcon UNLOCKED_ENTRY_ICON = loadIcon("images/table/unlocked_entry.png");
+    private static final ImageIcon CERT_EXPIRED_ICON = loadIcon("images/table/cert_expired_entry.png");
+    private static final ImageIcon CERT_OLD_ICON = loadIcon("images/table/cert_old_entry.png");
+    private static final ImageIcon CERT_UNEXPIRED_ICON = loadIcon("images/table/cert_unexpired_entry.png");
+
+    // Number of formatted values that are kept; more than fit on a screen
+    private static final int TEXT_CACHE_SIZE = 1000;
+
+    private final Map<Object, String> texts = new LinkedHashMap<Object, String>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, String> eldest) {
+            return size() > TEXT_CACHE_SIZE;
+        }
+    };
+
+    // Format settings the cached texts were created with
+    private Locale textsLocale;
+    private TimeZone textsTimeZone;
+
+    private static ImageIcon loadIcon(String name) {
+        // Java2D scales the icon to the display's DPI when it is painted
+        return new ImageIcon(KeyStoreTableCellRend.class.getResource(name));
+    }
+
     /**
      * Returns the rendered cell for the supplied value and column.
      *
@@ -61,13 +99,13 @@ public class KeyStoreTableCellRend extends DefaultTableCellRenderer {
             ImageIcon icon = null;
 
             if (KeyStoreTableModel.EntryType.KEY_PAIR.equals(value)) {
-                icon = new ImageIcon(getClass().getResource("images/table/keypair_entry.png"));
+                icon = KEYPAIR_ENTRY_ICON;
                 cell.setToolTipText(res.getString("KeyStoreTableCellRend.KeyPairEntry.tooltip"));
             } else if (KeyStoreTableModel.EntryType.TRUST_CERT.equals(value)) {
-                icon = new ImageIcon(getClass().getResource("images/table/trustcert_entry.png"));
+                icon = TRUSTCERT_ENTRY_ICON;
                 cell.setToolTipText(res.getString("KeyStoreTableCellRend.TrustCertEntry.tooltip"));
             } else {
-                icon = new ImageIcon(getClass().getResource("images/table/key_entry.png"));
+                icon = KEY_ENTRY_ICON;
                 cell.setToolTipText(res.getString("KeyStoreTableCellRend.KeyEntry.tooltip"));
             }
 
@@ -89,11 +127,11 @@ public class KeyStoreTableCellRend extends DefaultTableCellRenderer {
 
                 if (value.equals(Boolean.TRUE)) {
                     // Locked
-                    icon = new ImageIcon(getClass().getResource("images/table/locked_entry.png"));
+                    icon = LOCKED_ENTRY_ICON;
                     cell.setToolTipText(res.getString("KeyStoreTableCellRend.LockedEntry.tooltip"));
                 } else {
                     // Unlocked
-                    icon = new ImageIcon(getClass().getResource("images/table/unlocked_entry.png"));
+                    icon = UNLOCKED_ENTRY_ICON;
                     cell.setToolTipText(res.getString("KeyStoreTableCellRend.UnlockedEntry.tooltip"));
                 }
 
@@ -114,15 +152,15 @@ public class KeyStoreTableCellRend extends DefaultTableCellRenderer {
             } else {
                 ImageIcon icon = null;
                 if (KeyStoreTableModel.Expiration.EXPIRED.equals(value)) {
-                    icon = new ImageIcon(getClass().getResource("images/table/cert_expired_entry.png"));
+                    icon = CERT_EXPIRED_ICON;
                     cell.setToolTipText(res.getString("KeyStoreTableCellRend.CertExpiredEntry.tooltip"));
                 } else {
                     if (KeyStoreTableModel.Expiration.ALMOST_EXPIRED.equals(value)) {
-                        icon = new ImageIcon(getClass().getResource("images/table/cert_old_entry.png"));
+                        icon = CERT_OLD_ICON;
                         cell.setToolTipText(res.getString("KeyStoreTableCellRend.CertAlmostExpiredEntry.tooltip"));
                     } else {
                         // Unexpired
-                        icon = new ImageIcon(getClass().getResource("images/table/cert_unexpired_entry.png"));
+                        icon = CERT_UNEXPIRED_ICON;
                         cell.setToolTipText(res.getString("KeyStoreTableCellRend.CertUnexpiredEntry.tooltip"));
                     }
                 }
@@ -155,16 +193,13 @@ public class KeyStoreTableCellRend extends DefaultTableCellRenderer {
                     cell.setHorizontalAlignment(LEFT);
                 } else {
                     if (value instanceof Integer) {
-                        if (((Integer) value < 100_000) && ((Integer) value >= 0)) {
-                            cell.setText(String.valueOf(value));
-                        } else {
-                            cell.setText("X" + String.format("%x", value));
-                        }
+                        cell.setText(texts.computeIfAbsent(value, v -> formatInteger((Integer) v)));
                         cell.setToolTipText(getText());
                         cell.setHorizontalAlignment(LEFT);
                     } else {
                         if (value instanceof Date) {
-                            cell.setText(StringUtils.formatDate((Date) value));
+                            invalidateTextsOnFormatChange();
+                            cell.setText(texts.computeIfAbsent(value, v -> StringUtils.formatDate((Date) v)));
                             cell.setToolTipText(getText());
                             cell.setHorizontalAlignment(LEFT);
                         } else {
@@ -185,4 +220,25 @@ public class KeyStoreTableCellRend extends DefaultTableCellRenderer {
 
         return cell;
     }
+
+    private static String formatInteger(int value) {
+        if (value < 100_000 && value >= 0) {
+            return String.valueOf(value);
+        }
+        return "X" + Integer.toHexString(value);
+    }
+
+    /*
+     * Dates are displayed in the default locale and time zone, which may change at runtime
+     */
+    private void invalidateTextsOnFormatChange() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        TimeZone timeZone = TimeZone.getDefault();
+
+        if (!locale.equals(textsLocale) || !timeZone.equals(textsTimeZone)) {
+            texts.clear();
+            textsLocale = locale;
+            textsTimeZone = timeZone;
+        }
+    }
 }
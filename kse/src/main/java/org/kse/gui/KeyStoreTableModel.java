@@ -23,56 +23,74 @@ import static org.kse.crypto.KeyType.SYMMETRIC;
 
 import java.security.GeneralSecurityException;
 import java.security.Key;
-import java.security.KeyStoreException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.cert.Certificate;
-import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.Calendar;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.Iterator;
-import java.util.Map.Entry;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.TreeMap;
 
 import javax.crypto.SecretKey;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
 
-import org.bouncycastle.asn1.x500.X500Name;
-import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
 import org.kse.crypto.CryptoException;
 import org.kse.crypto.KeyInfo;
-import org.kse.crypto.digest.DigestType;
 import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.KeyStoreEntryMetadata;
 import org.kse.crypto.keystore.KeyStoreType;
 import org.kse.crypto.keystore.KeyStoreUtil;
 import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.crypto.secretkey.PasswordType;
 import org.kse.crypto.secretkey.SecretKeyType;
 import org.kse.crypto.secretkey.SecretKeyUtil;
-import org.kse.crypto.x509.KseX500NameStyle;
-import org.kse.crypto.x509.X500NameUtils;
-import org.kse.crypto.x509.X509CertUtil;
-import org.kse.crypto.x509.X509Ext;
-import org.kse.crypto.x509.X509ExtensionType;
 import org.kse.gui.table.ToolTipTableModel;
 import org.kse.utilities.history.KeyStoreHistory;
 import org.kse.utilities.history.KeyStoreState;
-import org.kse.utilities.io.HexUtil;
 
 /**
  * The table model used to display a KeyStore's entries sorted by alias name.
+ * <p>
+ * Only the sorted aliases are read when the model is loaded. The values of a row are
+ * computed the first time the row is displayed and kept in a bounded LRU cache, so large
+ * KeyStores are shown without reading all of their entries. Columns that are sorted on
+ * are computed completely by {@link #prepareSortColumns(List)}.
  */
 public class KeyStoreTableModel extends ToolTipTableModel {
     private static final long serialVersionUID = 1L;
     private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/resources");
     private String[] columnNames;
     private Class<?>[] columnTypes;
-    private Object[][] data = new Object[0][0];
+    private String[] aliases = new String[0];
     private KeyStoreHistory history;
+    private KeyStoreState currentState;
+
+    // Number of rows whose values are kept; enough for several screens of the table
+    private static final int ROW_CACHE_SIZE = 1000;
+
+    // Upper limit for the changes that are applied row by row instead of loading the model again
+    private static final int MAX_INCREMENTAL_CHANGES = 100;
+
+    private final Map<String, Object[]> rows = new LinkedHashMap<String, Object[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object[]> eldest) {
+            return size() > ROW_CACHE_SIZE;
+        }
+    };
+    private final Map<Integer, Object[]> sortColumns = new HashMap<>();
+    private Comparator<String> aliasComparator;
 
     // This array of nulls is used by the constructor to initialize the
     // ToolTipTableModel that manages the tool tips. This reference must
@@ -167,7 +185,8 @@ public class KeyStoreTableModel extends ToolTipTableModel {
     }
 
     /**
-     * Load the KeyStoreTableModel with the entries from a KeyStore.
+     * Load the KeyStoreTableModel with the entries from a KeyStore. Only the aliases are read
+     * here, the other columns are filled when they are first accessed.
      *
      * @param history KeyStore history
      * @throws GeneralSecurityException If a KeyStore problem occurs while accessing the KeyStore's
@@ -182,266 +201,286 @@ public class KeyStoreTableModel extends ToolTipTableModel {
         KseKeyStore keyStore = currentState.getKeyStore();
         KeyStoreType type = KeyStoreType.resolveJce(keyStore.getType());
 
-        Enumeration<String> aliases = keyStore.aliases();
+        Enumeration<String> aliasEnum = keyStore.aliases();
 
         TreeMap<String, String> sortedAliases = new TreeMap<>(type.getAliasComparator());
 
-        while (aliases.hasMoreElements()) {
-            String alias = aliases.nextElement();
+        while (aliasEnum.hasMoreElements()) {
+            String alias = aliasEnum.nextElement();
             if (!KeyStoreUtil.isSupportedEntryType(alias, keyStore)) {
                 continue;
             }
             sortedAliases.put(alias, alias);
         }
 
-        data = new Object[sortedAliases.size()][nofColumns];
-
-        int i = 0;
-        for (Iterator<Entry<String, String>> itr = sortedAliases.entrySet().iterator(); itr.hasNext(); i++) {
-            String alias = itr.next().getKey();
+        aliases = sortedAliases.keySet().toArray(new String[0]);
+        aliasComparator = type.getAliasComparator();
+        this.currentState = currentState;
+        rows.clear();
+        sortColumns.clear();
 
-            EntryType entryType = null;
+        fireTableDataChanged();
+    }
 
-            // Type column
-            if (KeyStoreUtil.isTrustedCertificateEntry(alias, keyStore)) {
-                entryType = EntryType.TRUST_CERT;
-            } else if (KeyStoreUtil.isKeyPairEntry(alias, keyStore)) {
-                entryType = EntryType.KEY_PAIR;
-            } else {
-                entryType = EntryType.KEY;
+    /**
+     * Update the KeyStoreTableModel to the current state of a KeyStore history. If the current state
+     * directly follows or precedes the displayed state and the changed entries are known, only the rows
+     * of those entries are inserted, deleted or updated. Otherwise the model is loaded again.
+     *
+     * @param history KeyStore history
+     * @throws GeneralSecurityException If a KeyStore problem occurs while accessing the KeyStore's
+     *                                  entries
+     * @throws CryptoException          If a crypto problem occurs while accessing the KeyStore's
+     *                                  entries
+     */
+    public void update(KeyStoreHistory history) throws GeneralSecurityException, CryptoException {
+        KeyStoreState newState = history.getCurrentState();
+        Set<String> changedAliases = null;
+
+        if (history == this.history && currentState != null && newState != currentState) {
+            if (newState.previousState() == currentState) {
+                changedAliases = newState.getChangedAliases(); // new action or redo
+            } else if (currentState.previousState() == newState) {
+                changedAliases = currentState.getChangedAliases(); // undo
             }
+        }
 
-            data[i][0] = entryType;
+        if (changedAliases == null || changedAliases.size() > MAX_INCREMENTAL_CHANGES) {
+            load(history);
+            return;
+        }
 
-            // Lock column - only applies to KeyStores types that actually support passwords for entries
-            if ((entryType == EntryType.KEY_PAIR || entryType == EntryType.KEY) && type.hasEntryPasswords()) {
-                if (currentState.getEntryPassword(alias) != null) {
-                    data[i][1] = Boolean.FALSE; // Unlocked
-                } else {
-                    data[i][1] = Boolean.TRUE; // Locked
-                }
-            } else {
-                data[i][1] = null; // Lock status does not apply
-            }
+        // values of unchanged rows may depend on the state as well (e.g. the lock status), the
+        // sorted columns with such values are computed again by the next sort
+        currentState = newState;
+        rows.clear();
+        sortColumns.keySet().removeIf(this::isStateDependentColumn);
 
-            Expiration expiration;
+        KseKeyStore keyStore = newState.getKeyStore();
 
-            // Expiry status column
-            Date expiry = getCertificateExpiry(alias, keyStore);
-            ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault());
-            ZonedDateTime nowPlusExpiryWarnDays = now.plusDays(expiryWarnDays);
-            if (expiry == null) {
-                expiration = null; // No certExpiration - must be a key entry
-            } else {
-                ZonedDateTime expiryDateTime = expiry.toInstant().atZone(ZoneId.systemDefault());
-                if (now.isAfter(expiryDateTime)) {
-                    expiration = Expiration.EXPIRED;
-                } else {
-                    if (nowPlusExpiryWarnDays.isAfter(expiryDateTime)) {
-                        expiration = Expiration.ALMOST_EXPIRED;
-                    } else {
-                        expiration = Expiration.NOT_EXPIRED;
-                    }
-                }
+        for (String alias : changedAliases) {
+            int row = Arrays.binarySearch(aliases, alias, aliasComparator);
+            boolean exists = keyStore.containsAlias(alias) && KeyStoreUtil.isSupportedEntryType(alias, keyStore);
+
+            if (row >= 0 && !exists) {
+                deleteRow(row);
+            } else if (row >= 0) {
+                updateRow(row);
+            } else if (exists) {
+                insertRow(-row - 1, alias);
             }
+        }
+    }
 
-            data[i][2] = expiration;
+    private void insertRow(int row, String alias) {
+        aliases = insert(aliases, new String[aliases.length + 1], row, alias);
 
-            if (iNameColumn > 0) {
-                // Alias column
-                data[i][iNameColumn] = alias;
-            }
+        if (!sortColumns.isEmpty()) {
+            Object[] values = createRow(alias);
+            sortColumns.replaceAll((col, column) -> insert(column, new Object[column.length + 1], row, values[col]));
+        }
 
-            KeyInfo keyInfo = getKeyInfo(alias, keyStore, currentState);
+        fireTableRowsInserted(row, row);
+    }
 
-            if (keyInfo != null) {
-                // Algorithm column
-                if (iAlgorithmColumn > 0) {
-                    data[i][iAlgorithmColumn] = getAlgorithmName(keyInfo);
-                }
+    private void deleteRow(int row) {
+        aliases = delete(aliases, new String[aliases.length - 1], row);
+        sortColumns.replaceAll((col, column) -> delete(column, new Object[column.length - 1], row));
 
-                // Key Size column
-                if (iKeySizeColumn > 0) {
-                    data[i][iKeySizeColumn] = keyInfo.getSize();
-                }
-                // EC curve column
-                if (keyStoreTableColumns.getEnableCurve()) {
-                    data[i][iCurveColumn] = keyInfo.getDetailedAlgorithm();
-                }
-            }
-            if (iCertValidityStartColumn > 0) {
-                data[i][iCertValidityStartColumn] = getCertificateValidityStart(alias, keyStore);
-            }
-            if (iCertExpiryColumn > 0) {
-                data[i][iCertExpiryColumn] = expiry;
-            }
-            if (iLastModifiedColumn > 0) {
-                // Modified date column - only applies to non-PKCS #11/#12 KeyStores
-                if (!keyStore.getType().equals(KeyStoreType.PKCS12.jce()) &&
-                    !keyStore.getType().equals(KeyStoreType.PKCS11.jce())) {
-                    data[i][iLastModifiedColumn] = keyStore.getCreationDate(alias);
-                } else {
-                    data[i][iLastModifiedColumn] = null;
-                }
-            }
-            if (iSubjectDNColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iSubjectDNColumn] = getCertificateSubjectDN(alias, keyStore);
-                } else {
-                    data[i][iSubjectDNColumn] = null;
-                }
-            }
-            if (iIssuerDNColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iIssuerDNColumn] = getCertificateIssuerDN(alias, keyStore);
-                } else {
-                    data[i][iIssuerDNColumn] = null;
-                }
-            }
-            if (iSerialNumberHexColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iSerialNumberHexColumn] = getCertificateSerialNumberHex(alias, keyStore);
-                } else {
-                    data[i][iSerialNumberHexColumn] = null;
-                }
-            }
-            if (iSerialNumberDecColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iSerialNumberDecColumn] = getCertificateSerialNumberDec(alias, keyStore);
-                } else {
-                    data[i][iSerialNumberDecColumn] = null;
-                }
-            }
-            if (iSubjectCNColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iSubjectCNColumn] = getCertificateSubjectCN(alias, keyStore);
-                } else {
-                    data[i][iSubjectCNColumn] = null;
-                }
-            }
-            if (iIssuerCNColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iIssuerCNColumn] = getCertificateIssuerCN(alias, keyStore);
-                } else {
-                    data[i][iIssuerCNColumn] = null;
-                }
-            }
-            if (iSubjectOColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iSubjectOColumn] = getCertificateSubjectO(alias, keyStore);
-                } else {
-                    data[i][iSubjectOColumn] = null;
-                }
-            }
-            if (iIssuerOColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iIssuerOColumn] = getCertificateIssuerO(alias, keyStore);
-                } else {
-                    data[i][iIssuerOColumn] = null;
-                }
-            }
-            if (iAKIColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iAKIColumn] = getCertificateAKI(alias, keyStore);
-                } else {
-                    data[i][iAKIColumn] = null;
-                }
-            }
-            if (iSKIColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iSKIColumn] = getCertificateSKI(alias, keyStore);
-                } else {
-                    data[i][iSKIColumn] = null;
-                }
-            }
-            if (iFingerprintColumn > 0) {
-                if (entryType != EntryType.KEY) {
-                    data[i][iFingerprintColumn] = getCertificateFingerprint(alias, keyStore,
-                                                                            keyStoreTableColumns.getFingerprintAlg());
-                } else {
-                    data[i][iFingerprintColumn] = null;
-                }
-            }
+        fireTableRowsDeleted(row, row);
+    }
+
+    private void updateRow(int row) {
+        if (!sortColumns.isEmpty()) {
+            Object[] values = createRow(aliases[row]);
+            sortColumns.forEach((col, column) -> column[row] = values[col]);
         }
 
-        fireTableDataChanged();
+        fireTableRowsUpdated(row, row);
     }
 
-    private Date getCertificateValidityStart(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        if (KeyStoreUtil.isTrustedCertificateEntry(alias, keyStore)) {
-            return X509CertUtil.convertCertificate(keyStore.getCertificate(alias)).getNotBefore();
-        } else {
-            Certificate[] chain = keyStore.getCertificateChain(alias);
+    private boolean isStateDependentColumn(int col) {
+        // the lock status and the key info of key entries depend on the known entry passwords
+        return col == 1 || col == iAlgorithmColumn || col == iKeySizeColumn || col == iCurveColumn;
+    }
 
-            if (chain == null) {
-                return null; // Key entry - no validity start date
-            }
+    private static <T> T[] insert(T[] from, T[] to, int index, T value) {
+        System.arraycopy(from, 0, to, 0, index);
+        to[index] = value;
+        System.arraycopy(from, index, to, index + 1, from.length - index);
+        return to;
+    }
+
+    private static <T> T[] delete(T[] from, T[] to, int index) {
+        System.arraycopy(from, 0, to, 0, index);
+        System.arraycopy(from, index + 1, to, index, from.length - index - 1);
+        return to;
+    }
+
+    private Object[] createRow(String alias) {
+        Object[] row = new Object[nofColumns];
+
+        if (iNameColumn > 0) {
+            row[iNameColumn] = alias;
+        }
 
-            // Key pair - first certificate in chain will be for the private key
-            X509Certificate[] x509Chain = X509CertUtil.orderX509CertChain(X509CertUtil.convertCertificates(chain));
-            return x509Chain[0].getNotBefore();
+        try {
+            fillRow(row, alias);
+        } catch (GeneralSecurityException | CryptoException e) {
+            // entry cannot be read, only its alias is displayed
         }
+
+        return row;
     }
 
-    private Date getCertificateExpiry(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        if (KeyStoreUtil.isTrustedCertificateEntry(alias, keyStore)) {
-            return X509CertUtil.convertCertificate(keyStore.getCertificate(alias)).getNotAfter();
+    private void fillRow(Object[] row, String alias) throws GeneralSecurityException, CryptoException {
+        KseKeyStore keyStore = currentState.getKeyStore();
+        KeyStoreType type = KeyStoreType.resolveJce(keyStore.getType());
+
+        KeyStoreEntryMetadata metadata = currentState.getEntryMetadata(alias);
+
+        EntryType entryType = null;
+
+        // Type column
+        if (metadata.isTrustedCertificateEntry()) {
+            entryType = EntryType.TRUST_CERT;
+        } else if (metadata.isKeyPairEntry()) {
+            entryType = EntryType.KEY_PAIR;
         } else {
-            Certificate[] chain = keyStore.getCertificateChain(alias);
+            entryType = EntryType.KEY;
+        }
 
-            if (chain == null) {
-                // Key entry - no expiry date
-                return null;
+        row[0] = entryType;
+
+        // Lock column - only applies to KeyStores types that actually support passwords for entries
+        if ((entryType == EntryType.KEY_PAIR || entryType == EntryType.KEY) && type.hasEntryPasswords()) {
+            if (currentState.getEntryPassword(alias) != null) {
+                row[1] = Boolean.FALSE; // Unlocked
+            } else {
+                row[1] = Boolean.TRUE; // Locked
             }
+        } else {
+            row[1] = null; // Lock status does not apply
+        }
+
+        Expiration expiration;
 
-            // Key pair - first certificate in chain will be for the private key
-            X509Certificate[] x509Chain = X509CertUtil.orderX509CertChain(X509CertUtil.convertCertificates(chain));
-            if (expiryWarnDays < 1) {
-                return x509Chain[0].getNotAfter();
+        // Expiry status column
+        Date expiry = getCertificateExpiry(metadata);
+        ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault());
+        ZonedDateTime nowPlusExpiryWarnDays = now.plusDays(expiryWarnDays);
+        if (expiry == null) {
+            expiration = null; // No certExpiration - must be a key entry
+        } else {
+            ZonedDateTime expiryDateTime = expiry.toInstant().atZone(ZoneId.systemDefault());
+            if (now.isAfter(expiryDateTime)) {
+                expiration = Expiration.EXPIRED;
             } else {
-                Calendar cal = Calendar.getInstance();
-                cal.set(9999, Calendar.FEBRUARY, 1);
-                Date earliest = cal.getTime();
-                for (X509Certificate x509Certificate : x509Chain) {
-                    if (x509Certificate.getNotAfter().before(earliest)) {
-                        earliest = x509Certificate.getNotAfter();
-                    }
+                if (nowPlusExpiryWarnDays.isAfter(expiryDateTime)) {
+                    expiration = Expiration.ALMOST_EXPIRED;
+                } else {
+                    expiration = Expiration.NOT_EXPIRED;
                 }
-                return earliest;
             }
         }
-    }
 
-    private KeyInfo getKeyInfo(String alias, KseKeyStore keyStore, KeyStoreState currentState)
-            throws CryptoException, GeneralSecurityException {
-        if (KeyStoreUtil.isTrustedCertificateEntry(alias, keyStore)) {
-            // Get key info from certificate
-            X509Certificate cert = X509CertUtil.convertCertificate(keyStore.getCertificate(alias));
-            return KeyPairUtil.getKeyInfo(cert.getPublicKey());
-        } else {
-            Certificate[] chain = keyStore.getCertificateChain(alias);
+        row[2] = expiration;
 
-            if (chain != null) {
-                // Key pair - first certificate in chain will be for the private key
-                X509Certificate[] x509Chain = X509CertUtil.orderX509CertChain(X509CertUtil.convertCertificates(chain));
+        KeyInfo keyInfo = getKeyInfo(alias, keyStore, currentState, metadata);
 
-                return KeyPairUtil.getKeyInfo(x509Chain[0].getPublicKey());
+        if (keyInfo != null) {
+            // Algorithm column
+            if (iAlgorithmColumn > 0) {
+                row[iAlgorithmColumn] = getAlgorithmName(keyInfo);
+            }
+
+            // Key Size column
+            if (iKeySizeColumn > 0) {
+                row[iKeySizeColumn] = keyInfo.getSize();
+            }
+            // EC curve column
+            if (keyStoreTableColumns.getEnableCurve()) {
+                row[iCurveColumn] = keyInfo.getDetailedAlgorithm();
+            }
+        }
+        if (iCertValidityStartColumn > 0) {
+            row[iCertValidityStartColumn] = metadata.getValidityStart();
+        }
+        if (iCertExpiryColumn > 0) {
+            row[iCertExpiryColumn] = expiry;
+        }
+        if (iLastModifiedColumn > 0) {
+            // Modified date column - only applies to non-PKCS #11/#12 KeyStores
+            if (!keyStore.getType().equals(KeyStoreType.PKCS12.jce()) &&
+                !keyStore.getType().equals(KeyStoreType.PKCS11.jce())) {
+                row[iLastModifiedColumn] = keyStore.getCreationDate(alias);
             } else {
-                // Key entry - get key info if entry is unlocked
-                if (currentState.getEntryPassword(alias) != null) {
-                    char[] keyPassword = null;
-
-                    keyPassword = currentState.getEntryPassword(alias).toCharArray();
-
-                    Key key = keyStore.getKey(alias, keyPassword);
-                    if (key instanceof SecretKey) {
-                        return SecretKeyUtil.getKeyInfo((SecretKey) key);
-                    } else if (key instanceof PrivateKey) {
-                        return KeyPairUtil.getKeyInfo((PrivateKey) key);
-                    } else if (key instanceof PublicKey) {
-                        return KeyPairUtil.getKeyInfo((PublicKey) key);
-                    }
-                }
+                row[iLastModifiedColumn] = null;
+            }
+        }
+
+        // Certificate columns - null for key entries as the metadata does not contain a certificate
+        if (iSubjectDNColumn > 0) {
+            row[iSubjectDNColumn] = metadata.getSubjectDN();
+        }
+        if (iIssuerDNColumn > 0) {
+            row[iIssuerDNColumn] = metadata.getIssuerDN();
+        }
+        if (iSerialNumberHexColumn > 0) {
+            row[iSerialNumberHexColumn] = metadata.getSerialNumberHex();
+        }
+        if (iSerialNumberDecColumn > 0) {
+            row[iSerialNumberDecColumn] = metadata.getSerialNumberDec();
+        }
+        if (iSubjectCNColumn > 0) {
+            row[iSubjectCNColumn] = metadata.getSubjectCN();
+        }
+        if (iIssuerCNColumn > 0) {
+            row[iIssuerCNColumn] = metadata.getIssuerCN();
+        }
+        if (iSubjectOColumn > 0) {
+            row[iSubjectOColumn] = metadata.getSubjectO();
+        }
+        if (iIssuerOColumn > 0) {
+            row[iIssuerOColumn] = metadata.getIssuerO();
+        }
+        if (iAKIColumn > 0) {
+            row[iAKIColumn] = metadata.getAKI();
+        }
+        if (iSKIColumn > 0) {
+            row[iSKIColumn] = metadata.getSKI();
+        }
+        if (iFingerprintColumn > 0) {
+            row[iFingerprintColumn] = metadata.getFingerprint(keyStoreTableColumns.getFingerprintAlg());
+        }
+    }
+
+    private Date getCertificateExpiry(KeyStoreEntryMetadata metadata) {
+        if (metadata.isKeyPairEntry() && expiryWarnDays >= 1) {
+            // Key pair - warn if any certificate in the chain expires
+            return metadata.getEarliestChainExpiry();
+        }
+        return metadata.getExpiry();
+    }
+
+    private KeyInfo getKeyInfo(String alias, KseKeyStore keyStore, KeyStoreState currentState,
+                               KeyStoreEntryMetadata metadata) throws CryptoException, GeneralSecurityException {
+        if (!metadata.isKeyEntry()) {
+            // Get key info from certificate
+            return metadata.getKeyInfo();
+        }
+
+        // Key entry - get key info if entry is unlocked
+        if (currentState.getEntryPassword(alias) != null) {
+            char[] keyPassword = currentState.getEntryPassword(alias).toCharArray();
+
+            Key key = keyStore.getKey(alias, keyPassword);
+            if (key instanceof SecretKey) {
+                return SecretKeyUtil.getKeyInfo((SecretKey) key);
+            } else if (key instanceof PrivateKey) {
+                return KeyPairUtil.getKeyInfo((PrivateKey) key);
+            } else if (key instanceof PublicKey) {
+                return KeyPairUtil.getKeyInfo((PublicKey) key);
             }
         }
 
@@ -469,92 +508,6 @@ public class KeyStoreTableModel extends ToolTipTableModel {
         return algorithm;
     }
 
-    private String getCertificateSubjectDN(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, keyStore);
-        return X500NameUtils.x500PrincipalToX500Name(x509Cert.getSubjectX500Principal()).toString();
-    }
-
-    private String getCertificateIssuerDN(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, keyStore);
-        return X500NameUtils.x500PrincipalToX500Name(x509Cert.getIssuerX500Principal()).toString();
-    }
-
-    private String getCertificateSerialNumberHex(String alias, KseKeyStore ks) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, ks);
-        return X509CertUtil.getSerialNumberAsHex(x509Cert);
-    }
-
-    private String getCertificateSerialNumberDec(String alias, KseKeyStore ks) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, ks);
-        return X509CertUtil.getSerialNumberAsDec(x509Cert);
-    }
-
-    private String getCertificateFingerprint(String alias, KseKeyStore ks, DigestType fingerprintAlg)
-            throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, ks);
-        return X509CertUtil.getFingerprint(x509Cert, fingerprintAlg);
-    }
-
-    private String getCertificateSubjectCN(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, keyStore);
-        return X500NameUtils.extractCN(x509Cert.getSubjectX500Principal());
-    }
-
-    private String getCertificateIssuerCN(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, keyStore);
-        return X500NameUtils.extractCN(x509Cert.getIssuerX500Principal());
-    }
-
-    private String getCertificateSKI(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, keyStore);
-        try {
-            byte[] skiBytes = X509Ext.getSubjectKeyIdentifier(x509Cert).getKeyIdentifier();
-            return HexUtil.getHexString(skiBytes);
-        } catch (Exception e) {
-            return "-";
-        }
-    }
-
-    private String getCertificateAKI(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, keyStore);
-        try {
-            byte[] akiValue = x509Cert.getExtensionValue(X509ExtensionType.AUTHORITY_KEY_IDENTIFIER.oid());
-            byte[] octets = X509Ext.unwrapExtension(akiValue);
-            byte[] akiBytes = AuthorityKeyIdentifier.getInstance(octets).getKeyIdentifierOctets();
-            return HexUtil.getHexString(akiBytes);
-        } catch (Exception e) {
-            return "-";
-        }
-    }
-
-    private String getCertificateSubjectO(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, keyStore);
-        X500Name subject = X500NameUtils.x500PrincipalToX500Name(x509Cert.getSubjectX500Principal());
-        return X500NameUtils.getRdn(subject, KseX500NameStyle.O);
-    }
-
-    private String getCertificateIssuerO(String alias, KseKeyStore keyStore) throws CryptoException, KeyStoreException {
-        X509Certificate x509Cert = getCertificate(alias, keyStore);
-        X500Name issuer = X500NameUtils.x500PrincipalToX500Name(x509Cert.getIssuerX500Principal());
-        return X500NameUtils.getRdn(issuer, KseX500NameStyle.O);
-    }
-
-    private X509Certificate getCertificate(String alias, KseKeyStore keyStore) throws KeyStoreException, CryptoException {
-        X509Certificate x509Cert = null;
-        if (KeyStoreUtil.isTrustedCertificateEntry(alias, keyStore)) {
-            x509Cert = X509CertUtil.convertCertificate(keyStore.getCertificate(alias));
-        } else {
-            Certificate[] chain = keyStore.getCertificateChain(alias);
-            if (chain == null) {
-                return null;
-            }
-            // Key pair - first certificate in chain will be for the private key
-            X509Certificate[] x509Chain = X509CertUtil.orderX509CertChain(X509CertUtil.convertCertificates(chain));
-            x509Cert = x509Chain[0];
-        }
-        return x509Cert;
-    }
-
     private void adjustColumns() {
         nofColumns = 3 + keyStoreTableColumns.getNofColumns();
 
@@ -702,7 +655,7 @@ public class KeyStoreTableModel extends ToolTipTableModel {
      */
     @Override
     public int getRowCount() {
-        return data.length;
+        return aliases.length;
     }
 
     /**
@@ -725,7 +678,71 @@ public class KeyStoreTableModel extends ToolTipTableModel {
      */
     @Override
     public Object getValueAt(int row, int col) {
-        return data[row][col];
+        if (col == iNameColumn) {
+            return aliases[row];
+        }
+
+        Object[] column = sortColumns.get(col);
+        if (column != null) {
+            return column[row];
+        }
+
+        return getRow(row)[col];
+    }
+
+    private Object[] getRow(int row) {
+        String alias = aliases[row];
+        Object[] values = rows.get(alias);
+
+        if (values == null) {
+            values = createRow(alias);
+            rows.put(alias, values);
+        }
+
+        return values;
+    }
+
+    /**
+     * Compute the complete columns for the supplied sort keys. A row sorter compares the values of
+     * all rows many times, this keeps it from evicting and recomputing rows on every comparison.
+     * Columns that are no longer sorted on are discarded.
+     *
+     * @param sortKeys The sort keys of the row sorter
+     */
+    public void prepareSortColumns(List<? extends RowSorter.SortKey> sortKeys) {
+        Map<Integer, Object[]> columns = new HashMap<>();
+
+        for (RowSorter.SortKey sortKey : sortKeys) {
+            int col = sortKey.getColumn();
+
+            if (sortKey.getSortOrder() == SortOrder.UNSORTED || col == iNameColumn || columns.containsKey(col)) {
+                continue;
+            }
+
+            Object[] column = sortColumns.get(col);
+            if (column == null) {
+                column = new Object[aliases.length];
+                for (int row = 0; row < aliases.length; row++) {
+                    String alias = aliases[row];
+                    Object[] values = rows.containsKey(alias) ? rows.get(alias) : createRow(alias);
+                    column[row] = values[col];
+                }
+            }
+            columns.put(col, column);
+        }
+
+        sortColumns.clear();
+        sortColumns.putAll(columns);
+    }
+
+    /**
+     * Get the alias of the entry at the given row position without computing the other columns.
+     *
+     * @param row The row position
+     * @return The alias
+     */
+    public String getAlias(int row) {
+        return aliases[row];
     }
 
     /**
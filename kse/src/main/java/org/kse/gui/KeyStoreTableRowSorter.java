@@ -0,0 +1,46 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui;
+
+import javax.swing.table.TableRowSorter;
+
+/**
+ * Row sorter for the KeyStore table. Before sorting, the model is asked to compute the
+ * columns that are sorted on, because its rows are only computed on demand. Rows that the
+ * model inserts or updates are moved to their sorted position without sorting all rows.
+ */
+public class KeyStoreTableRowSorter extends TableRowSorter<KeyStoreTableModel> {
+
+    /**
+     * Construct a new KeyStoreTableRowSorter.
+     *
+     * @param model The KeyStore table model
+     */
+    public KeyStoreTableRowSorter(KeyStoreTableModel model) {
+        super(model);
+        setSortsOnUpdates(true);
+    }
+
+    @Override
+    public void sort() {
+        getModel().prepareSortColumns(getSortKeys());
+        super.sort();
+    }
+}
@@ -73,6 +73,7 @@ import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JScrollPane;
@@ -89,7 +90,6 @@ import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.MatteBorder;
 import javax.swing.plaf.TabbedPaneUI;
-import javax.swing.table.TableRowSorter;
 
 import org.kse.KSE;
 import org.kse.crypto.CryptoException;
@@ -165,6 +165,8 @@ import org.kse.gui.actions.RenameTrustedCertificateAction;
 import org.kse.gui.actions.SaveAction;
 import org.kse.gui.actions.SaveAllAction;
 import org.kse.gui.actions.SaveAsAction;
+import org.kse.gui.actions.ScanKeyStoresAction;
+import org.kse.gui.actions.ScanTlsEndpointsAction;
 import org.kse.gui.actions.SecurityProvidersAction;
 import org.kse.gui.actions.SelectedCertificatesChainDetailsAction;
 import org.kse.gui.actions.SetKeyPairPasswordAction;
@@ -189,6 +191,7 @@ import org.kse.gui.actions.TrustedCertificatePublicKeyDetailsAction;
 import org.kse.gui.actions.UndoAction;
 import org.kse.gui.actions.UnlockKeyAction;
 import org.kse.gui.actions.UnlockKeyPairAction;
+import org.kse.gui.actions.VerifyAllCertificatesAction;
 import org.kse.gui.actions.VerifyCertificateAction;
 import org.kse.gui.actions.VerifyJarAction;
 import org.kse.gui.actions.VerifySignatureAction;
@@ -281,6 +284,7 @@ public final class KseFrame implements StatusBar {
     private JMenuItem jmiStorePassphrase;
     private JMenuItem jmiVerifySignature;
     private JMenuItem jmiVerifyJar;
+    private JMenuItem jmiVerifyAllCertificates;
     private JMenu jmChangeType;
     private JRadioButtonMenuItem jrbmiChangeTypeJks;
     private JRadioButtonMenuItem jrbmiChangeTypeJceks;
@@ -299,7 +303,9 @@ public final class KseFrame implements StatusBar {
     private JMenuItem jmiExamineFile;
     private JMenuItem jmiExamineClipboard;
     private JMenuItem jmiExamineSsl;
+    private JMenuItem jmiScanTlsEndpoints;
     private JMenuItem jmiDetectFileType;
+    private JMenuItem jmiScanKeyStores;
 
     private JMenu jmHelp;
     private JMenuItem jmiHelp;
@@ -528,7 +534,9 @@ public final class KseFrame implements StatusBar {
     private final ExamineFileAction examineFileAction = new ExamineFileAction(this);
     private final ExamineClipboardAction examineClipboardAction = new ExamineClipboardAction(this);
     private final ExamineSslAction examineSslAction = new ExamineSslAction(this);
+    private final ScanTlsEndpointsAction scanTlsEndpointsAction = new ScanTlsEndpointsAction(this);
     private final DetectFileTypeAction detectFileTypeAction = new DetectFileTypeAction(this);
+    private final ScanKeyStoresAction scanKeyStoresAction = new ScanKeyStoresAction(this);
     private final HelpAction helpAction = new HelpAction(this);
     private final TipOfTheDayAction tipOfTheDayAction = new TipOfTheDayAction(this);
     private final WebsiteAction websiteAction = new WebsiteAction(this, WebsiteAction.Target.MAIN);
@@ -557,6 +565,7 @@ public final class KseFrame implements StatusBar {
     private final VerifyCertificateAction verifyCertificateAction = new VerifyCertificateAction(this);
     private final VerifySignatureAction verifySignatureAction = new VerifySignatureAction(this);
     private final VerifyJarAction verifyJarAction = new VerifyJarAction(this);
+    private final VerifyAllCertificatesAction verifyAllCertificatesAction = new VerifyAllCertificatesAction(this);
     private final ImportCaReplyFromFileAction importCaReplyFromFileAction = new ImportCaReplyFromFileAction(this);
     private final ImportCaReplyFromClipboardAction importCaReplyFromClipboardAction =
             new ImportCaReplyFromClipboardAction(
@@ -1020,6 +1029,14 @@ public final class KseFrame implements StatusBar {
         new StatusBarChangeHandler(jmiVerifyJar, (String) verifyJarAction.getValue(Action.LONG_DESCRIPTION), this);
         jmTools.add(jmiVerifyJar);
 
+        jmiVerifyAllCertificates = new JMenuItem(verifyAllCertificatesAction);
+        PlatformUtil.setMnemonic(jmiVerifyAllCertificates,
+                                 res.getString("KseFrame.jmiVerifyAllCertificates.mnemonic").charAt(0));
+        jmiVerifyAllCertificates.setToolTipText(null);
+        new StatusBarChangeHandler(jmiVerifyAllCertificates,
+                                   (String) verifyAllCertificatesAction.getValue(Action.LONG_DESCRIPTION), this);
+        jmTools.add(jmiVerifyAllCertificates);
+
         jmTools.addSeparator();
 
         jmiSetPassword = new JMenuItem(setPasswordAction);
@@ -1150,6 +1167,14 @@ public final class KseFrame implements StatusBar {
         new StatusBarChangeHandler(jmiExamineSsl, (String) examineSslAction.getValue(Action.LONG_DESCRIPTION), this);
         jmExamine.add(jmiExamineSsl);
 
+        jmiScanTlsEndpoints = new JMenuItem(scanTlsEndpointsAction);
+        PlatformUtil.setMnemonic(jmiScanTlsEndpoints,
+                                 res.getString("KseFrame.jmiScanTlsEndpoints.mnemonic").charAt(0));
+        jmiScanTlsEndpoints.setToolTipText(null);
+        new StatusBarChangeHandler(jmiScanTlsEndpoints,
+                                   (String) scanTlsEndpointsAction.getValue(Action.LONG_DESCRIPTION), this);
+        jmExamine.add(jmiScanTlsEndpoints);
+
         jmExamine.addSeparator();
 
         jmiDetectFileType = new JMenuItem(detectFileTypeAction);
@@ -1159,6 +1184,13 @@ public final class KseFrame implements StatusBar {
                                    this);
         jmExamine.add(jmiDetectFileType);
 
+        jmiScanKeyStores = new JMenuItem(scanKeyStoresAction);
+        PlatformUtil.setMnemonic(jmiScanKeyStores, res.getString("KseFrame.jmiScanKeyStores.mnemonic").charAt(0));
+        jmiScanKeyStores.setToolTipText(null);
+        new StatusBarChangeHandler(jmiScanKeyStores, (String) scanKeyStoresAction.getValue(Action.LONG_DESCRIPTION),
+                                   this);
+        jmExamine.add(jmiScanKeyStores);
+
         jmHelp = new JMenu(res.getString("KseFrame.jmHelp.text"));
         PlatformUtil.setMnemonic(jmHelp, res.getString("KseFrame.jmHelp.mnemonic").charAt(0));
 
@@ -1772,7 +1804,7 @@ public final class KseFrame implements StatusBar {
         KeyStoreTableModel ksModel = new KeyStoreTableModel(keyStoreTableColumns, preferences.getExpiryWarnDays());
         final JTable jtKeyStore = new ToolTipTable(ksModel);
 
-        RowSorter<KeyStoreTableModel> sorter = new TableRowSorter<>(ksModel);
+        RowSorter<KeyStoreTableModel> sorter = new KeyStoreTableRowSorter(ksModel);
         jtKeyStore.setRowSorter(sorter);
 
         jtKeyStore.setShowGrid(false);
@@ -2834,8 +2866,12 @@ public final class KseFrame implements StatusBar {
 
         JScrollPane jspKeyStore = wrapKeyStoreTableInScrollPane(jtKeyStore);
 
+        JPanel jpKeyStore = new JPanel(new BorderLayout());
+        jpKeyStore.add(new KeyStoreFilterPanel(jtKeyStore), BorderLayout.NORTH);
+        jpKeyStore.add(jspKeyStore, BorderLayout.CENTER);
+
         KeyStoreTab keyStoreTab = new KeyStoreTab(history.getName(), this, history);
-        jkstpKeyStores.addTab(null, jspKeyStore);
+        jkstpKeyStores.addTab(null, jpKeyStore);
         jkstpKeyStores.setTabComponentAt(jkstpKeyStores.getTabCount() - 1, keyStoreTab);
         jkstpKeyStores.setSelectedIndex(jkstpKeyStores.getTabCount() - 1);
 
@@ -2884,7 +2920,7 @@ public final class KseFrame implements StatusBar {
                     ksModel.load(history);
                     keyStoreTable.setModel(ksModel);
 
-                    keyStoreTable.setRowSorter(new TableRowSorter<>(ksModel));
+                    keyStoreTable.setRowSorter(new KeyStoreTableRowSorter(ksModel));
                     TableUtil.setColumnsToIconSize(keyStoreTable, 0, 1, 2);
                     TableUtil.addCustomRenderers(keyStoreTable, keyStoreTableColumns);
 
@@ -3190,9 +3226,9 @@ public final class KseFrame implements StatusBar {
             try {
                 String[] selectedAliases = getSelectedEntryAliases();
 
-                ((KeyStoreTableModel) getActiveKeyStoreTable().getModel()).load(history);
+                ((KeyStoreTableModel) getActiveKeyStoreTable().getModel()).update(history);
 
-                // Loading the model loses the selected entry - preserve it
+                // Loading or updating the model may lose the selected entries - preserve them
                 if (selectedAliases.length > 0) {
                     setSelectedEntriesByAliases(selectedAliases);
                 }
@@ -3252,6 +3288,7 @@ public final class KseFrame implements StatusBar {
         storePassphraseAction.setEnabled(type.supportsKeyEntries());
         propertiesAction.setEnabled(true);
         exportCsvAction.setEnabled(true);
+        verifyAllCertificatesAction.setEnabled(true);
         if (type.isFileBased()) {
             setPasswordAction.setEnabled(true);
         }
@@ -3419,6 +3456,7 @@ public final class KseFrame implements StatusBar {
         jmChangeType.setEnabled(false);
         propertiesAction.setEnabled(false);
         exportCsvAction.setEnabled(false);
+        verifyAllCertificatesAction.setEnabled(false);
 
         // No current KeyStore type
         jrbmiChangeTypeJks.setSelected(false);
@@ -64,6 +64,9 @@ public class TableColumnAdjuster implements PropertyChangeListener, TableModelLi
     // Indicates whether changes to the model should cause the width to be dynamically recalculated.
     private final boolean isDynamicAdjustment = true;
 
+    // Maximum number of rows that are measured per column, larger tables are sampled
+    private static final int MAX_SAMPLED_ROWS = 200;
+
     private final Map<TableColumn, Integer> columnSizes = new HashMap<>();
 
     /*
@@ -140,7 +143,7 @@ public class TableColumnAdjuster implements PropertyChangeListener, TableModelLi
         int preferredWidth = 0;
         int maxWidth = table.getColumnModel().getColumn(column).getMaxWidth();
 
-        for (int row = 0; row < table.getRowCount(); row++) {
+        for (int row : getSampledRows()) {
             preferredWidth = Math.max(preferredWidth, getCellDataWidth(row, column));
 
             // We've exceeded the maximum width, no need to check other rows
@@ -152,6 +155,37 @@ public class TableColumnAdjuster implements PropertyChangeListener, TableModelLi
         return preferredWidth;
     }
 
+    /*
+     * Get the rows used for measuring the column data. All rows of small tables are used. For large
+     * tables the first rows (the ones that are initially visible), the last row and rows spread evenly
+     * in between are used, so that measuring does not compute the values of every row.
+     */
+    private int[] getSampledRows() {
+        int rowCount = table.getRowCount();
+
+        if (rowCount <= MAX_SAMPLED_ROWS) {
+            int[] rows = new int[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                rows[i] = i;
+            }
+            return rows;
+        }
+
+        int head = MAX_SAMPLED_ROWS / 2;
+        int[] rows = new int[MAX_SAMPLED_ROWS];
+        for (int i = 0; i < head; i++) {
+            rows[i] = i;
+        }
+
+        // evenly spaced rows after the head, ending with the last row
+        int spread = MAX_SAMPLED_ROWS - head;
+        long step = rowCount - head;
+        for (int i = 1; i <= spread; i++) {
+            rows[head + i - 1] = head - 1 + (int) (step * i / spread);
+        }
+        return rows;
+    }
+
     /*
      * Get the preferred width for the specified cell
      */
@@ -197,8 +231,7 @@ public class TableColumnAdjuster implements PropertyChangeListener, TableModelLi
             TableColumn column = table.getColumnModel().getColumn(i);
 
             int width = 0;
-            for (int row = 0; row < table.getRowCount(); row++) {
-                width = 0;
+            for (int row : getSampledRows()) {
                 TableCellRenderer renderer = table.getCellRenderer(row, i);
                 Component comp = renderer.getTableCellRendererComponent(table, table.getValueAt(row, i),
                                                                         false, false, row, i);
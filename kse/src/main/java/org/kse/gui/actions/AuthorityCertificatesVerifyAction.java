@@ -27,13 +27,13 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.bouncycastle.cert.X509CertificateHolder;
-import org.bouncycastle.cert.jcajce.JcaCertStore;
-import org.bouncycastle.util.Store;
 import org.kse.AuthorityCertificates;
+import org.kse.AuthorityCertificates.TrustedCertificatesKind;
+import org.kse.AuthorityCertificates.TrustedCertificatesSources;
 import org.kse.crypto.CryptoException;
 import org.kse.crypto.SecurityProvider;
 import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.x509.TrustedCertificateStore;
 import org.kse.crypto.x509.X509CertUtil;
 import org.kse.gui.KseFrame;
 import org.kse.utilities.history.KeyStoreHistory;
@@ -59,11 +59,16 @@ public abstract class AuthorityCertificatesVerifyAction extends AuthorityCertifi
     /**
      * Get the complete set of trusted certificates for establishing trust during signature
      * verification.
+     * <p>
+     * The trusted certificates are extracted only once and then shared application wide
+     * until the active KeyStore changes (including undo/redo) or the authority certificates
+     * are reloaded.
+     * </p>
      *
-     * @return Set<X509Certificate>
+     * @return Trusted certificates
      * @throws CryptoException If there was a problem getting the trusted certificates.
      */
-    protected Set<X509Certificate> getTrustedCertificates() throws CryptoException {
+    protected TrustedCertificateStore getTrustedCertificates() throws CryptoException {
         KeyStoreHistory history = kseFrame.getActiveKeyStoreHistory();
 
         // When a key store is loaded, use the key store for the trusted certs, and
@@ -75,6 +80,15 @@ public abstract class AuthorityCertificatesVerifyAction extends AuthorityCertifi
             KseKeyStore caCertificates = getCaCertificates();
             KseKeyStore windowsTrustedRootCertificates = getWindowsTrustedRootCertificates();
 
+            AuthorityCertificates authorityCertificates = AuthorityCertificates.getInstance();
+            TrustedCertificatesSources sources = new TrustedCertificatesSources(currentState, caCertificates,
+                                                                                windowsTrustedRootCertificates);
+            TrustedCertificateStore trustedCertificates = authorityCertificates.getTrustedCertificates(
+                    getTrustedCertificatesKind(), sources);
+            if (trustedCertificates != null) {
+                return trustedCertificates;
+            }
+
             // Perform cert lookup against current KeyStore
             Set<X509Certificate> trustedCerts = new HashSet<>();
             trustedCerts.addAll(extractCertificates(keyStore));
@@ -89,11 +103,23 @@ public abstract class AuthorityCertificatesVerifyAction extends AuthorityCertifi
                 trustedCerts.addAll(extractCertificates(windowsTrustedRootCertificates));
             }
 
-            return trustedCerts;
+            trustedCertificates = createStore(trustedCerts);
+            authorityCertificates.setTrustedCertificates(getTrustedCertificatesKind(), sources, trustedCertificates);
+            return trustedCertificates;
         }
 
         // When a key store is NOT loaded, use the CA certs regardless of the users preferences.
-        return getTrustedCertsNoPrefsAsSet();
+        return getTrustedCertsNoPrefs();
+    }
+
+    /**
+     * Get the kind of trusted certificates that {@link #extractCertificates(KseKeyStore)} selects.
+     * Actions that select the same kind share their trusted certificates.
+     *
+     * @return Kind of the trusted certificates
+     */
+    protected TrustedCertificatesKind getTrustedCertificatesKind() {
+        return TrustedCertificatesKind.CERTIFICATE_ENTRIES;
     }
 
     protected Collection<X509Certificate> extractCertificates(KseKeyStore keystore) throws CryptoException {
@@ -109,26 +135,22 @@ public abstract class AuthorityCertificatesVerifyAction extends AuthorityCertifi
      * stores are used for establishing trust to time stamping certificates
      * by VerifySignatureAction and VerifyJarAction.
      *
-     * @return
-     * @throws CryptoException
-     * @throws CertificateEncodingException
-     */
-    protected Store<X509CertificateHolder> getTrustedCertsNoPrefs()
-            throws CryptoException, CertificateEncodingException {
-
-        @SuppressWarnings("unchecked")
-        Store<X509CertificateHolder> trustedCerts = new JcaCertStore(getTrustedCertsNoPrefsAsSet());
-        return trustedCerts;
-    }
-
-    /*
-     * A private method for getting the CA trusted certs (no user preferences) as a Set.
+     * @return Trusted certificates
+     * @throws CryptoException If there was a problem getting the trusted certificates.
      */
-    private Set<X509Certificate> getTrustedCertsNoPrefsAsSet() throws CryptoException {
+    protected TrustedCertificateStore getTrustedCertsNoPrefs() throws CryptoException {
         KseKeyStore caCertificates = getCaCertificatesNoPrefCheck();
         KseKeyStore windowsTrustedRootCertificates = getWindowsTrustedRootCertificatesNoPrefCheck();
 
-        // Perform cert lookup against current KeyStore
+        AuthorityCertificates authorityCertificates = AuthorityCertificates.getInstance();
+        TrustedCertificatesSources sources = new TrustedCertificatesSources(null, caCertificates,
+                                                                            windowsTrustedRootCertificates);
+        TrustedCertificateStore trustedCertsNoPrefs = authorityCertificates.getTrustedCertificates(
+                TrustedCertificatesKind.AUTHORITIES_ONLY, sources);
+        if (trustedCertsNoPrefs != null) {
+            return trustedCertsNoPrefs;
+        }
+
         Set<X509Certificate> allCerts = new HashSet<>();
 
         if (caCertificates != null) {
@@ -141,7 +163,18 @@ public abstract class AuthorityCertificatesVerifyAction extends AuthorityCertifi
             allCerts.addAll(X509CertUtil.extractCertificates(windowsTrustedRootCertificates));
         }
 
-        return allCerts;
+        trustedCertsNoPrefs = createStore(allCerts);
+        authorityCertificates.setTrustedCertificates(TrustedCertificatesKind.AUTHORITIES_ONLY, sources,
+                                                     trustedCertsNoPrefs);
+        return trustedCertsNoPrefs;
+    }
+
+    private TrustedCertificateStore createStore(Set<X509Certificate> certs) throws CryptoException {
+        try {
+            return new TrustedCertificateStore(certs);
+        } catch (CertificateEncodingException e) {
+            throw new CryptoException(e);
+        }
     }
 
     /**
@@ -182,5 +215,4 @@ public abstract class AuthorityCertificatesVerifyAction extends AuthorityCertifi
 
         return windowsTrustedRootCertificates;
     }
-
 }
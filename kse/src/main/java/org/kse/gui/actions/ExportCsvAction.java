@@ -23,33 +23,33 @@ package org.kse.gui.actions;
 import java.awt.Toolkit;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
-import java.io.File;
-import java.io.IOException;
-import java.io.PrintStream;
-import java.nio.charset.StandardCharsets;
-import java.text.DateFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
-import javax.swing.JTable;
 import javax.swing.KeyStroke;
-import javax.swing.table.TableColumnModel;
 
 import org.kse.KSE;
+import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.gui.KseFrame;
 import org.kse.gui.dialogs.DExportCsv;
+import org.kse.gui.dialogs.DExportingInventory;
 import org.kse.gui.error.DError;
 import org.kse.utilities.history.KeyStoreHistory;
+import org.kse.utilities.inventory.InventoryExporter;
 
 /**
- * Action to export the active KeyStore table as CSV.
+ * Action to export an inventory of the entries of the active KeyStore, or of all open KeyStores,
+ * as CSV or JSON Lines. The entries are read from the KeyStores in the background, independent
+ * of the columns shown in the KeyStore table.
  */
 public class ExportCsvAction extends KeyStoreExplorerAction {
     private static final long serialVersionUID = 1L;
-    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+    private static final int MAX_PARALLEL_EXPORTS = 4;
 
     /**
      * Construct action.
@@ -75,58 +75,50 @@ public class ExportCsvAction extends KeyStoreExplorerAction {
     protected void doAction() {
         try {
             KeyStoreHistory history = kseFrame.getActiveKeyStoreHistory();
+            KeyStoreHistory[] histories = kseFrame.getKeyStoreHistories();
 
-            DExportCsv dExportCsv = new DExportCsv(frame, history.getName());
+            DExportCsv dExportCsv = new DExportCsv(frame, history.getName(), histories.length > 1);
             dExportCsv.setLocationRelativeTo(frame);
             dExportCsv.setVisible(true);
 
-            if (dExportCsv.exportSelected()) {
-                exportFile(kseFrame.getActiveKeyStoreTable(), dExportCsv.getExportFile());
-                JOptionPane.showMessageDialog(frame, res.getString("ExportCsvAction.ExportSuccessful.message"),
-                        res.getString("ExportCsvAction.ExportCsv.Title"),
-                        JOptionPane.INFORMATION_MESSAGE);
+            if (!dExportCsv.exportSelected()) {
+                return;
             }
-        } catch (Exception ex) {
-            DError.displayError(frame, ex);
-        }
-    }
 
-    private void exportFile(JTable table, File exportFile) throws IOException {
-        char listSeparator = getListSeparator();
-        try (PrintStream csvOut = new PrintStream(exportFile, StandardCharsets.UTF_8)) {
-            int columnCount = table.getColumnCount();
-
-            TableColumnModel columnModel = table.getTableHeader().getColumnModel();
-            for (int col = 0; col < columnCount; ++col) {
-                csvOut.print("\"");
-                csvOut.print(columnModel.getColumn(col).getHeaderValue());
-                csvOut.print("\"");
-                if (col < columnCount - 1) {
-                    csvOut.print(listSeparator);
+            Map<String, KseKeyStore> keyStores = new LinkedHashMap<>();
+            if (dExportCsv.isAllKeyStores()) {
+                for (KeyStoreHistory openHistory : histories) {
+                    keyStores.put(openHistory.getPath(), openHistory.getCurrentState().getKeyStore());
                 }
+            } else {
+                keyStores.put(history.getPath(), history.getCurrentState().getKeyStore());
             }
-            csvOut.println();
-
-            for (int row = 0; row < table.getRowCount(); ++row) {
-                for (int col = 0; col < columnCount; ++col) {
-                    Object value = table.getValueAt(row, col);
-
-                    // Only the lock column will contain nulls, but this will catch anything.
-                    if (value == null) {
-                        value = "-";
-                    }
-                    if (value instanceof Date) {
-                        value = DATE_FORMAT.format(value);
-                    }
-                    csvOut.print("\"");
-                    csvOut.print(String.valueOf(value).replaceAll("\"","\"\""));
-                    csvOut.print("\"");
-                    if (col < columnCount - 1) {
-                        csvOut.print(listSeparator);
-                    }
-                }
-                csvOut.println();
+
+            int entries = 0;
+            for (KseKeyStore keyStore : keyStores.values()) {
+                entries += keyStore.size();
             }
+
+            int threads = Math.min(Runtime.getRuntime().availableProcessors(), MAX_PARALLEL_EXPORTS);
+            InventoryExporter exporter = new InventoryExporter(dExportCsv.getColumns(), dExportCsv.getFormat(),
+                                                               getListSeparator(), threads);
+
+            DExportingInventory dExportingInventory = new DExportingInventory(frame, keyStores, entries,
+                                                                              dExportCsv.getExportFile(), exporter);
+            dExportingInventory.setLocationRelativeTo(frame);
+            dExportingInventory.startExport();
+            dExportingInventory.setVisible(true);
+
+            if (dExportingInventory.getError() != null) {
+                DError.displayError(frame, dExportingInventory.getError());
+            } else if (dExportingInventory.isSuccessful()) {
+                String message = MessageFormat.format(res.getString("ExportCsvAction.ExportSuccessful.message"),
+                                                      dExportingInventory.getExportedEntries());
+                JOptionPane.showMessageDialog(frame, message, res.getString("ExportCsvAction.ExportCsv.Title"),
+                                              JOptionPane.INFORMATION_MESSAGE);
+            }
+        } catch (Exception ex) {
+            DError.displayError(frame, ex);
         }
     }
 
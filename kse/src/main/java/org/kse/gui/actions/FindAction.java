@@ -23,22 +23,20 @@ package org.kse.gui.actions;
 import java.awt.Toolkit;
 import java.security.KeyStoreException;
 import java.text.MessageFormat;
-import java.util.Enumeration;
-import java.util.HashSet;
 import java.util.Set;
 
 import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
 
-import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.gui.KseFrame;
 import org.kse.gui.dialogs.DFindKeyStoreEntry;
 import org.kse.gui.error.DError;
 import org.kse.utilities.history.KeyStoreHistory;
 
 /**
- * Action to Find a KeyStore entry.
+ * Action to Find a KeyStore entry. Entries are found by their alias or certificate attributes
+ * using the search index of the current KeyStore state.
  */
 public class FindAction extends KeyStoreExplorerAction {
     private static final long serialVersionUID = 1L;
@@ -85,16 +83,7 @@ public class FindAction extends KeyStoreExplorerAction {
     }
 
     private Set<String> findEntryAlias(String name) throws KeyStoreException {
-        Set<String> aliases = new HashSet<>();
         KeyStoreHistory history = kseFrame.getActiveKeyStoreHistory();
-        KseKeyStore keyStore = history.getCurrentState().getKeyStore();
-        Enumeration<String> enumeration = keyStore.aliases();
-        while (enumeration.hasMoreElements()) {
-            String alias = enumeration.nextElement();
-            if (alias.contains(name)) {
-                aliases.add(alias);
-            }
-        }
-        return aliases;
+        return history.getCurrentState().getSearchIndex().search(name);
     }
 }
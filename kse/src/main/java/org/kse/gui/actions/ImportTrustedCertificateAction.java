@@ -21,18 +21,28 @@ package org.kse.gui.actions;
 
 import java.awt.Toolkit;
 import java.io.File;
+import java.nio.file.Files;
+import java.security.KeyStoreException;
 import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.swing.ImageIcon;
 import com.formdev.flatlaf.util.SystemFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
 
+import org.kse.crypto.CryptoException;
 import org.kse.crypto.keystore.KeyStoreType;
 import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.crypto.x509.X509CertUtil;
+import org.kse.crypto.x509.X509CertificateIndex;
 import org.kse.gui.CurrentDirectory;
 import org.kse.gui.FileChooserFactory;
 import org.kse.gui.KseFrame;
@@ -111,13 +121,18 @@ public class ImportTrustedCertificateAction extends AuthorityCertificatesAction
             KseKeyStore keyStore = newState.getKeyStore();
             KeyStoreType keyStoreType = KeyStoreType.resolveJce(keyStore.getType());
 
-            // use either cert that was passed to c-tor or the one from file selection dialog
+            // use either cert that was passed to c-tor or the one(s) from file selection dialog
             X509Certificate trustCert = null;
             if (trustCertFromConstructor == null) {
-                trustCert = showFileSelectionDialog();
-                if (trustCert == null) {
+                X509Certificate[] certs = showFileSelectionDialog();
+                if (certs == null) {
                     return;
                 }
+                if (certs.length > 1) {
+                    importCertificates(currentState, newState, certs);
+                    return;
+                }
+                trustCert = certs[0];
             } else {
                 trustCert = trustCertFromConstructor;
             }
@@ -233,41 +248,196 @@ public class ImportTrustedCertificateAction extends AuthorityCertificatesAction
         }
     }
 
-    private X509Certificate showFileSelectionDialog() {
-        certFile = chooseTrustedCertificateFile();
-        if (certFile == null) {
-            return null;
+    /**
+     * Import several certificates (e.g. a CA bundle) as one history state. Certificates that are
+     * already present are skipped, trust is established for all certificates at once and aliases
+     * are generated.
+     */
+    private void importCertificates(KeyStoreState currentState, KeyStoreState newState, X509Certificate[] certs)
+            throws CryptoException, KeyStoreException {
+        KseKeyStore keyStore = newState.getKeyStore();
+        KeyStoreType keyStoreType = KeyStoreType.resolveJce(keyStore.getType());
+
+        List<X509Certificate> newCerts = newCertificates(keyStore, certs);
+
+        if (newCerts.isEmpty()) {
+            JOptionPane.showMessageDialog(frame,
+                                          res.getString("ImportTrustedCertificateAction.NoNewTrustCerts.message"),
+                                          res.getString("ImportTrustedCertificateAction.ImportTrustCert.Title"),
+                                          JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
 
-        X509Certificate[] certs = openCertificate(certFile);
+        if (preferences.getCaCertsSettings().isImportTrustedCertTrustCheckEnabled()) {
+            X509CertificateIndex trustedCerts = new X509CertificateIndex(X509CertUtil.extractCertificates(keyStore));
+
+            KseKeyStore caCertificates = getCaCertificates();
+            if (caCertificates != null) {
+                X509CertUtil.extractCertificates(caCertificates).forEach(trustedCerts::add);
+            }
+
+            KseKeyStore windowsTrustedRootCertificates = getWindowsTrustedRootCertificates();
+            if (windowsTrustedRootCertificates != null) {
+                X509CertUtil.extractCertificates(windowsTrustedRootCertificates).forEach(trustedCerts::add);
+            }
+
+            Set<X509Certificate> untrustedCerts = newCerts.parallelStream()
+                                                          .filter(cert -> !hasTrustPath(cert, trustedCerts))
+                                                          .collect(Collectors.toSet());
+
+            if (!untrustedCerts.isEmpty()) {
+                int selected = JOptionPane.showConfirmDialog(frame, MessageFormat.format(
+                        res.getString("ImportTrustedCertificateAction.NoTrustPathTrustCerts.message"),
+                        untrustedCerts.size(), newCerts.size()), res.getString(
+                        "ImportTrustedCertificateAction.ImportTrustCert.Title"), JOptionPane.YES_NO_CANCEL_OPTION);
+
+                if (selected == JOptionPane.NO_OPTION) {
+                    newCerts.removeAll(untrustedCerts);
+                } else if (selected != JOptionPane.YES_OPTION) {
+                    return;
+                }
+            }
+        }
+
+        if (newCerts.isEmpty()) {
+            return;
+        }
+
+        // counted after the trust check, as untrusted certificates may have been dropped
+        int skipped = certs.length - newCerts.size();
+
+        for (X509Certificate cert : newCerts) {
+            String alias = AliasUtil.uniqueAlias(keyStore,
+                                                 keyStoreType.normalizeAlias(X509CertUtil.getCertificateAlias(cert)));
+            keyStore.setCertificateEntry(alias, cert);
+        }
+
+        currentState.append(newState);
+
+        kseFrame.updateControls(true);
+
+        String message = MessageFormat.format(
+                res.getString("ImportTrustedCertificateAction.ImportTrustCertsSuccessful.message"), newCerts.size(),
+                skipped);
+        JOptionPane.showMessageDialog(frame, message,
+                                      res.getString("ImportTrustedCertificateAction.ImportTrustCert.Title"),
+                                      JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Drop duplicates and the certificates that are already present in the KeyStore.
+     */
+    static List<X509Certificate> newCertificates(KseKeyStore keyStore, X509Certificate[] certs)
+            throws CryptoException {
+        List<X509Certificate> newCerts = new ArrayList<>();
+        for (X509Certificate cert : new LinkedHashSet<>(Arrays.asList(certs))) {
+            if (X509CertUtil.matchCertificate(keyStore, cert) == null) {
+                newCerts.add(cert);
+            }
+        }
+        return newCerts;
+    }
 
-        if ((certs == null) || (certs.length == 0)) {
+    private static boolean hasTrustPath(X509Certificate cert, X509CertificateIndex trustedCerts) {
+        try {
+            return X509CertUtil.establishTrust(cert, trustedCerts) != null;
+        } catch (CryptoException ex) {
+            return false;
+        }
+    }
+
+    private X509Certificate[] showFileSelectionDialog() {
+        File[] certFiles = chooseTrustedCertificateFiles();
+        if (certFiles == null) {
             return null;
         }
 
-        if (certs.length > 1) {
-            JOptionPane.showMessageDialog(frame, res.getString(
-                                                  "ImportTrustedCertificateAction.NoMultipleTrustCertImport.message"),
+        // remember the file for the certificate details dialog of a single certificate
+        certFile = certFiles[0];
+
+        if (certFiles.length == 1 && !certFiles[0].isDirectory()) {
+            X509Certificate[] certs = openCertificate(certFiles[0]);
+            return certs == null || certs.length == 0 ? null : certs;
+        }
+
+        // several files: unreadable ones are skipped and reported once instead of aborting the import
+        List<X509Certificate> certs = new ArrayList<>();
+        List<String> unreadableFiles = new ArrayList<>();
+        for (File file : listCertificateFiles(certFiles)) {
+            X509Certificate[] fileCerts = loadCertificates(file);
+
+            if (fileCerts == null || fileCerts.length == 0) {
+                unreadableFiles.add(file.getName());
+            } else {
+                Collections.addAll(certs, fileCerts);
+            }
+        }
+
+        if (!unreadableFiles.isEmpty()) {
+            String message = MessageFormat.format(
+                    res.getString("ImportTrustedCertificateAction.UnreadableFiles.message"), unreadableFiles.size(),
+                    String.join("\n", unreadableFiles));
+            JOptionPane.showMessageDialog(frame, message,
                                           res.getString("ImportTrustedCertificateAction.ImportTrustCert.Title"),
                                           JOptionPane.WARNING_MESSAGE);
+        }
+
+        if (certs.isEmpty()) {
+            return null;
+        }
+
+        return certs.toArray(X509Certificate[]::new);
+    }
+
+    /**
+     * Load the certificates of a file without reporting problems.
+     *
+     * @return The certificates or null if the file could not be read or parsed
+     */
+    static X509Certificate[] loadCertificates(File file) {
+        try {
+            return X509CertUtil.loadCertificates(Files.readAllBytes(file.toPath()));
+        } catch (Exception ex) {
             return null;
         }
+    }
 
-        return certs[0];
+    /**
+     * Replace directories by the files they contain (not recursive), sorted by name.
+     */
+    static List<File> listCertificateFiles(File[] files) {
+        List<File> certFiles = new ArrayList<>();
+
+        for (File file : files) {
+            if (file.isDirectory()) {
+                File[] children = file.listFiles(File::isFile);
+                if (children != null) {
+                    Arrays.sort(children);
+                    Collections.addAll(certFiles, children);
+                }
+            } else {
+                certFiles.add(file);
+            }
+        }
+
+        return certFiles;
     }
 
-    private File chooseTrustedCertificateFile() {
+    private File[] chooseTrustedCertificateFiles() {
         SystemFileChooser chooser = FileChooserFactory.getX509FileChooser();
         chooser.setCurrentDirectory(CurrentDirectory.get());
         chooser.setDialogTitle(res.getString("ImportTrustedCertificateAction.ImportTrustCert.Title"));
-        chooser.setMultiSelectionEnabled(false);
+        chooser.setMultiSelectionEnabled(true);
         chooser.setApproveButtonText(res.getString("ImportTrustedCertificateAction.ImportTrustCert.button"));
 
         int rtnValue = chooser.showOpenDialog(frame);
         if (rtnValue == SystemFileChooser.APPROVE_OPTION) {
-            File importFile = chooser.getSelectedFile();
-            CurrentDirectory.updateForFile(importFile);
-            return importFile;
+            File[] importFiles = chooser.getSelectedFiles();
+            if (importFiles.length == 0) {
+                return null;
+            }
+            CurrentDirectory.updateForFile(importFiles[0]);
+            return importFiles;
         }
         return null;
     }
@@ -31,7 +31,6 @@ import com.formdev.flatlaf.util.SystemFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
 
-import org.kse.crypto.filetype.CryptoFileUtil;
 import org.kse.crypto.keystore.KeyStoreLoadException;
 import org.kse.crypto.keystore.KeyStoreType;
 import org.kse.crypto.keystore.KeyStoreUtil;
@@ -40,6 +39,7 @@ import org.kse.crypto.keystore.Pkcs12KeyStoreAdapter;
 import org.kse.gui.CurrentDirectory;
 import org.kse.gui.FileChooserFactory;
 import org.kse.gui.KseFrame;
+import org.kse.gui.dialogs.DOpeningKeyStore;
 import org.kse.gui.error.DError;
 import org.kse.gui.error.DProblem;
 import org.kse.gui.error.Problem;
@@ -110,6 +110,8 @@ public class OpenAction extends KeyStoreExplorerAction {
      * @param defaultPassword An optional password to use by default for the first try.
      */
     public void openKeyStore(File keyStoreFile, String defaultPassword) {
+        Password password = null;
+        boolean opened = false;
         try {
             if (!keyStoreFile.isFile()) {
                 JOptionPane.showMessageDialog(frame, MessageFormat.format(res.getString("OpenAction.NotFile.message"),
@@ -128,7 +130,6 @@ public class OpenAction extends KeyStoreExplorerAction {
                 return;
             }
 
-            Password password;
             PasswordManager passwordManager = PasswordManager.getInstance();
             if (passwordManager.isKeyStorePasswordKnown(keyStoreFile)) {
                 unlockPasswordManager();
@@ -138,8 +139,24 @@ public class OpenAction extends KeyStoreExplorerAction {
                 password = (defaultPassword != null) ? new Password(defaultPassword.toCharArray()) : null;
             }
 
-            // detect type up front so the password dialog can offer type specific help (e.g. stash files for KDB)
-            KeyStoreType keyStoreType = CryptoFileUtil.detectKeyStoreType(keyStoreFile);
+            // read file only once in background, the data is used for type detection and for loading the keystore;
+            // the type is detected up front so the password dialog can offer type specific help (e.g. stash files
+            // for KDB)
+            DOpeningKeyStore dReadingKeyStore = new DOpeningKeyStore(frame, keyStoreFile);
+            dReadingKeyStore.setLocationRelativeTo(frame);
+            dReadingKeyStore.startKeyStoreReading();
+            dReadingKeyStore.setVisible(true);
+
+            // user cancelled reading -> abort
+            if (!dReadingKeyStore.isSuccessful()) {
+                return;
+            }
+            if (dReadingKeyStore.getError() != null) {
+                throw dReadingKeyStore.getError();
+            }
+
+            byte[] keyStoreData = dReadingKeyStore.getKeyStoreData();
+            KeyStoreType keyStoreType = dReadingKeyStore.getKeyStoreType();
 
             KseKeyStore openedKeyStore;
             boolean firstTry = true;
@@ -166,9 +183,27 @@ public class OpenAction extends KeyStoreExplorerAction {
                     return;
                 }
 
-                // try to load keystore
-                try {
-                    openedKeyStore = KeyStoreUtil.load(keyStoreFile, password);
+                // file is not a keystore -> no need to try loading it
+                if (keyStoreType == null) {
+                    openedKeyStore = null;
+                    break;
+                }
+
+                // try to load keystore in background
+                DOpeningKeyStore dOpeningKeyStore = new DOpeningKeyStore(frame, keyStoreFile.getName(), keyStoreData,
+                                                                         password, keyStoreType);
+                dOpeningKeyStore.setLocationRelativeTo(frame);
+                dOpeningKeyStore.startKeyStoreLoading();
+                dOpeningKeyStore.setVisible(true);
+
+                // user cancelled loading -> abort
+                if (!dOpeningKeyStore.isSuccessful()) {
+                    return;
+                }
+
+                Exception error = dOpeningKeyStore.getError();
+                if (error == null) {
+                    openedKeyStore = dOpeningKeyStore.getKeyStore();
 
                     // store password in password manager
                     if (passwordManagerWanted) {
@@ -177,16 +212,18 @@ public class OpenAction extends KeyStoreExplorerAction {
                     }
 
                     break;
-                } catch (KeyStoreLoadException klex) {
+                } else if (error instanceof KeyStoreLoadException) {
 
                     // show error message only after first try with default password or if no default password set
                     if (defaultPassword == null || !firstTry) {
 
-                        int tryAgainChoice = showErrorMessage(keyStoreFile, klex);
+                        int tryAgainChoice = showErrorMessage(keyStoreFile, (KeyStoreLoadException) error);
                         if (tryAgainChoice == JOptionPane.NO_OPTION) {
                             return;
                         }
                     }
+                } else {
+                    throw error;
                 }
 
                 // failure, reset password
@@ -217,12 +254,18 @@ public class OpenAction extends KeyStoreExplorerAction {
 
             kseFrame.addKeyStoreHistory(history);
             this.newKeyStoreWasAdded = true;
+            opened = true;
         } catch (FileNotFoundException | NoSuchFileException ex) {
             JOptionPane.showMessageDialog(frame, MessageFormat.format(res.getString("OpenAction.NoReadFile.message"),
                                                                       keyStoreFile),
                                           res.getString("OpenAction.OpenKeyStore.Title"), JOptionPane.WARNING_MESSAGE);
         } catch (Exception ex) {
             DError.displayError(frame, ex);
+        } finally {
+            // the password is only kept by the history of an opened KeyStore
+            if (!opened && password != null) {
+                password.nullPassword();
+            }
         }
     }
 
@@ -21,12 +21,18 @@ package org.kse.gui.actions;
 
 import java.awt.Toolkit;
 import java.awt.event.InputEvent;
+import java.security.KeyStoreException;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.ImageIcon;
 import javax.swing.KeyStroke;
 
+import org.kse.crypto.keystore.KeyStoreType;
 import org.kse.gui.KseFrame;
+import org.kse.gui.dialogs.DSavingKeyStores;
 import org.kse.gui.error.DError;
+import org.kse.gui.passwordmanager.Password;
 import org.kse.utilities.history.KeyStoreHistory;
 import org.kse.utilities.history.KeyStoreState;
 
@@ -62,18 +68,71 @@ public class SaveAllAction extends SaveAction {
         try {
             KeyStoreHistory[] histories = kseFrame.getKeyStoreHistories();
 
+            List<KeyStoreHistory> backgroundHistories = new ArrayList<>();
+            List<KeyStoreState> backgroundStates = new ArrayList<>();
+
             for (KeyStoreHistory history : histories) {
                 KeyStoreState currentState = history.getCurrentState();
 
                 // Does KeyStore require saving and has file been saved before?
                 if (!currentState.isSavedState()) {
-                    if (!saveKeyStore(history)) {
+                    if (canSaveInBackground(history)) {
+                        backgroundHistories.add(history);
+                        backgroundStates.add(currentState);
+                    } else if (!saveKeyStore(history)) {
+                        // cancelled, but the KeyStores already queued are still saved
                         break;
                     }
                 }
             }
+
+            if (!backgroundStates.isEmpty()) {
+                saveInBackground(backgroundHistories, backgroundStates);
+            }
         } catch (Exception ex) {
             DError.displayError(frame, ex);
         }
     }
+
+    /*
+     * KeyStores that need user interaction (file or password selection, stash file update) are
+     * saved one after the other, all others are written behind in parallel
+     */
+    private boolean canSaveInBackground(KeyStoreHistory history) {
+        KeyStoreState currentState = history.getCurrentState();
+        Password password = currentState.getPassword();
+
+        return history.getFile() != null
+               && password != null && !password.isNulled()
+               && !KeyStoreType.KDB.jce().equals(currentState.getKeyStore().getType());
+    }
+
+    private void saveInBackground(List<KeyStoreHistory> histories, List<KeyStoreState> states) {
+        DSavingKeyStores dSavingKeyStores = new DSavingKeyStores(frame, histories, states);
+        dSavingKeyStores.setLocationRelativeTo(frame);
+
+        histories.forEach(history -> history.setSuppressWatcherEvents(true));
+        try {
+            dSavingKeyStores.startKeyStoreSaving();
+            dSavingKeyStores.setVisible(true);
+        } finally {
+            histories.forEach(history -> history.setSuppressWatcherEvents(false));
+        }
+
+        for (KeyStoreState state : dSavingKeyStores.getSavedStates()) {
+            state.setAsSavedState();
+
+            try {
+                saveInPasswordManager(state, state.getHistory().getFile(), state.getPassword(), frame);
+            } catch (KeyStoreException ex) {
+                DError.displayError(frame, ex);
+            }
+        }
+
+        kseFrame.updateControls(false);
+
+        for (Exception ex : dSavingKeyStores.getErrors().values()) {
+            DError.displayError(frame, ex);
+        }
+    }
 }
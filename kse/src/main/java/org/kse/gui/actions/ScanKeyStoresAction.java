@@ -0,0 +1,86 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.actions;
+
+import java.awt.Toolkit;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import javax.swing.ImageIcon;
+
+import org.kse.gui.KseFrame;
+import org.kse.gui.dialogs.DScanKeyStores;
+import org.kse.gui.passwordmanager.PasswordManager;
+
+/**
+ * Action to scan directories for KeyStores with expired or expiring certificates.
+ */
+public class ScanKeyStoresAction extends KeyStoreExplorerAction {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Construct action.
+     *
+     * @param kseFrame KeyStore Explorer frame
+     */
+    public ScanKeyStoresAction(KseFrame kseFrame) {
+        super(kseFrame);
+
+        putValue(LONG_DESCRIPTION, res.getString("ScanKeyStoresAction.statusbar"));
+        putValue(NAME, res.getString("ScanKeyStoresAction.text"));
+        putValue(SHORT_DESCRIPTION, res.getString("ScanKeyStoresAction.tooltip"));
+        putValue(SMALL_ICON, new ImageIcon(
+                Toolkit.getDefaultToolkit().createImage(getClass().getResource("images/verifycert.png"))));
+    }
+
+    /**
+     * Do action.
+     */
+    @Override
+    protected void doAction() {
+        // passwords of KeyStores on disk are only available from the password manager
+        PasswordManager passwordManager = PasswordManager.getInstance();
+        if (passwordManager.isInitialized() && !passwordManager.isUnlocked()) {
+            unlockPasswordManager();
+        }
+
+        DScanKeyStores dScanKeyStores = new DScanKeyStores(frame, ScanKeyStoresAction::getPassword);
+        dScanKeyStores.setLocationRelativeTo(frame);
+        dScanKeyStores.setVisible(true);
+    }
+
+    private static char[] getPassword(File file) {
+        PasswordManager passwordManager = PasswordManager.getInstance();
+        if (!passwordManager.isUnlocked()) {
+            return null;
+        }
+
+        Optional<char[]> password = passwordManager.getKeyStorePassword(file);
+        if (password.isEmpty()) {
+            try {
+                password = passwordManager.getKeyStorePassword(file.getCanonicalFile());
+            } catch (IOException e) {
+                // ignore, password remains unknown
+            }
+        }
+        return password.orElse(null);
+    }
+}
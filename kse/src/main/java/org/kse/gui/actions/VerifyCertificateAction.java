@@ -24,19 +24,15 @@ import java.awt.HeadlessException;
 import java.awt.Toolkit;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.math.BigInteger;
-import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.Security;
-import java.security.SignatureException;
 import java.security.cert.CertPath;
 import java.security.cert.CertPathValidator;
 import java.security.cert.CertPathValidatorException;
@@ -54,12 +50,10 @@ import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.Enumeration;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -88,13 +82,17 @@ import org.kse.crypto.CryptoException;
 import org.kse.crypto.keystore.KeyStoreType;
 import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.crypto.ocsp.OcspDigestAlgorithm;
+import org.kse.crypto.revocation.RevocationDataCache;
+import org.kse.crypto.x509.ExtensionRemovingCertPathChecker;
 import org.kse.crypto.x509.X509CertUtil;
+import org.kse.crypto.x509.X509CertificateIndex;
 import org.kse.gui.KseFrame;
 import org.kse.gui.dialogs.DVerifyCertificate;
 import org.kse.gui.dialogs.DVerifyCertificate.VerifyOptions;
 import org.kse.gui.error.DError;
 import org.kse.gui.error.DProblem;
 import org.kse.gui.error.Problem;
+import org.kse.gui.preferences.PreferencesManager;
 import org.kse.utilities.StringUtils;
 import org.kse.utilities.history.KeyStoreHistory;
 import org.kse.utilities.rng.RNG;
@@ -210,31 +208,13 @@ public class VerifyCertificateAction extends KeyStoreExplorerAction {
                    InvalidAlgorithmParameterException, IllegalStateException, URISyntaxException {
 
         if (verify(false, false, keyStoreHistory, null, alias)) {
-            // search issuer
-            X509Certificate issuer = null;
-
-            if (keyCertChain == null || keyCertChain.length == 1) {
-                KeyStore trustStore = getKeyStore(keyStoreHistory);
-                Enumeration<String> enumeration = trustStore.aliases();
-                while (enumeration.hasMoreElements()) {
-                    String tempAlias = enumeration.nextElement();
-                    X509Certificate cert = (X509Certificate) trustStore.getCertificate(tempAlias);
-                    try {
-                        certificateEval.verify(cert.getPublicKey(), KSE.BC);
-                        issuer = cert;
-                        break;
-                    } catch (InvalidKeyException | CertificateException | NoSuchAlgorithmException | SignatureException e) {
-                        // ignore
-                    }
-                }
-            } else {
-                issuer = keyCertChain[1];
-            }
+            X509Certificate issuer = findIssuer(keyStoreHistory);
             if (issuer == null) {
                 throw new CertPathValidatorException(res.getString("VerifyCertificateAction.trustStoreEmpty.message"));
             }
             OCSPReq request = makeOcspRequest(issuer, certificateEval, ocspDigestAlgorithm.algorithmIdentifier(), ocspIncludeNonce);
-            OCSPResp response = requestOCSPResponse(ocspUrl, request);
+            // responses to requests without nonce are reused until their nextUpdate time
+            OCSPResp response = PreferencesManager.getRevocationDataCache().getOcspResponse(new URI(ocspUrl), request);
             if (isGoodCertificate(response)) {
                 JOptionPane.showMessageDialog(frame, res.getString("VerifyCertificateAction.OcspSuccessful.message"),
                                               MessageFormat.format(
@@ -264,26 +244,25 @@ public class VerifyCertificateAction extends KeyStoreExplorerAction {
         return gen.build();
     }
 
-    private OCSPResp requestOCSPResponse(String url, OCSPReq ocspReq) throws IOException, URISyntaxException {
-        byte[] ocspReqData = ocspReq.getEncoded();
+    private X509Certificate findIssuer(KeyStoreHistory keyStoreHistory)
+            throws KeyStoreException, NoSuchAlgorithmException, CertificateException, IOException {
+        if (keyCertChain != null && keyCertChain.length > 1) {
+            return keyCertChain[1];
+        }
 
-        HttpURLConnection con = (HttpURLConnection) new URI(url).toURL().openConnection();
-        try {
-            con.setRequestProperty("Content-Type", "application/ocsp-request");
-            con.setRequestProperty("Accept", "application/ocsp-response");
-            con.setDoInput(true);
-            con.setDoOutput(true);
-            con.setUseCaches(false);
-            try (OutputStream out = con.getOutputStream()) {
-                out.write(ocspReqData);
-                out.flush();
-            }
-            return new OCSPResp(con.getInputStream().readAllBytes());
-        } finally {
-            if (con != null) {
-                con.disconnect();
+        KeyStore trustStore = getKeyStore(keyStoreHistory);
+        X509CertificateIndex trustedCerts = new X509CertificateIndex();
+        Enumeration<String> enumeration = trustStore.aliases();
+        while (enumeration.hasMoreElements()) {
+            X509Certificate cert = (X509Certificate) trustStore.getCertificate(enumeration.nextElement());
+            // secret key entries have no certificate
+            if (cert != null) {
+                trustedCerts.add(cert);
             }
         }
+        // only certificates with a matching subject are verified
+        List<X509Certificate> issuers = trustedCerts.findIssuers(certificateEval);
+        return issuers.isEmpty() ? null : issuers.get(0);
     }
 
     private boolean isGoodCertificate(OCSPResp ocspResp) throws OCSPException, CertPathValidatorException {
@@ -397,11 +376,7 @@ public class VerifyCertificateAction extends KeyStoreExplorerAction {
         }
 
         boolean revocationEnabled = crl || ocsp;
-        // The CRL DP is not used unless requested by these properties
-        System.setProperty("com.sun.security.enableCRLDP", Boolean.toString(crl));
-        System.setProperty("org.bouncycastle.x509.enableCRLDP", Boolean.toString(crl));
-        // Used by both BC and SUN providers
-        Security.setProperty("ocsp.enable", Boolean.toString(ocsp));
+        RevocationDataCache revocationCache = PreferencesManager.getRevocationDataCache();
 
         List<X509Certificate> listCertificates = new ArrayList<>();
         if (revocationEnabled) {
@@ -417,6 +392,20 @@ public class VerifyCertificateAction extends KeyStoreExplorerAction {
             }
         }
 
+        // CRLs from the revocation data cache do not have to be downloaded by the revocation checker,
+        // the CRL DP is only turned off if the cache served the CRLs for all certificates of the path
+        List<X509CRL> cachedCrls = null;
+        if (crl && xCrl == null) {
+            cachedCrls = getCachedCrls(listCertificates, revocationCache);
+        }
+        boolean crlDp = crl && cachedCrls == null;
+
+        // The CRL DP is not used unless requested by these properties
+        System.setProperty("com.sun.security.enableCRLDP", Boolean.toString(crlDp));
+        System.setProperty("org.bouncycastle.x509.enableCRLDP", Boolean.toString(crlDp));
+        // Used by both BC and SUN providers
+        Security.setProperty("ocsp.enable", Boolean.toString(ocsp));
+
         // Use the BC provider for the PKIX implementation. Allows for verifying certs with
         // algorithms only supported by Bouncy Castle. For example, Brainpool and SM2 curves.
         CertPathValidator validator = CertPathValidator.getInstance("PKIX", KSE.BC);
@@ -427,6 +416,9 @@ public class VerifyCertificateAction extends KeyStoreExplorerAction {
             params.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(
                     Collections.singletonList(xCrl))));
         }
+        if (cachedCrls != null) {
+            params.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(cachedCrls)));
+        }
 
         // This block is not needed when using the SUN provider
         if (revocationEnabled) {
@@ -438,6 +430,12 @@ public class VerifyCertificateAction extends KeyStoreExplorerAction {
                 options.add(PKIXRevocationChecker.Option.PREFER_CRLS);
             }
             revocationChecker.setOptions(options);
+            if (ocsp) {
+                byte[] ocspResponse = getCachedOcspResponse(keyStoreHistory, revocationCache);
+                if (ocspResponse != null) {
+                    revocationChecker.setOcspResponses(Collections.singletonMap(certificateEval, ocspResponse));
+                }
+            }
             params.addCertPathChecker(revocationChecker);
         }
 
@@ -452,6 +450,62 @@ public class VerifyCertificateAction extends KeyStoreExplorerAction {
         return true;
     }
 
+    /*
+     * Returns the CRLs of the certificates from the revocation data cache (the first distribution
+     * point of each certificate that is available) or null if the revocation checker has to
+     * download at least one of them itself.
+     */
+    private static List<X509CRL> getCachedCrls(List<X509Certificate> certs, RevocationDataCache revocationCache) {
+        List<X509CRL> crls = new ArrayList<>();
+        for (X509Certificate cert : certs) {
+            List<URI> uris = RevocationDataCache.getCrlUris(cert);
+            if (uris.isEmpty()) {
+                continue;
+            }
+
+            X509CRL cachedCrl = null;
+            for (URI uri : uris) {
+                try {
+                    cachedCrl = revocationCache.getCrl(cert.getIssuerX500Principal(), uri);
+                    break;
+                } catch (IOException | CryptoException ex) {
+                    // try the next distribution point
+                }
+            }
+            if (cachedCrl == null) {
+                return null;
+            }
+            crls.add(cachedCrl);
+        }
+        return crls;
+    }
+
+    /*
+     * Returns the OCSP response for the certificate from the responder in its AIA extension,
+     * using the revocation data cache, or null if the revocation checker has to request it
+     * itself (no issuer or responder found, responder not reachable).
+     */
+    private byte[] getCachedOcspResponse(KeyStoreHistory keyStoreHistory, RevocationDataCache revocationCache) {
+        try {
+            X509Certificate issuer = findIssuer(keyStoreHistory);
+            if (issuer == null) {
+                return null;
+            }
+
+            for (URI uri : RevocationDataCache.getOcspUris(certificateEval)) {
+                OCSPReq request = makeOcspRequest(issuer, certificateEval,
+                                                  OcspDigestAlgorithm.SHA1.algorithmIdentifier(), false);
+                OCSPResp response = revocationCache.getOcspResponse(uri, request);
+                if (response.getStatus() == OCSPResp.SUCCESSFUL) {
+                    return response.getEncoded();
+                }
+            }
+        } catch (Exception ex) {
+            // the revocation checker reports the problem
+        }
+        return null;
+    }
+
     private boolean isCA(X509Certificate cert) {
         int basicConstraints = cert.getBasicConstraints();
         if (basicConstraints != -1) {
@@ -528,33 +582,4 @@ public class VerifyCertificateAction extends KeyStoreExplorerAction {
             throw new CryptoException(message, ex);
         }
     }
-
-    static class ExtensionRemovingCertPathChecker extends PKIXCertPathChecker {
-        @Override
-        public void init(boolean forward) {
-            // nothing to do here
-        }
-
-        @Override
-        public boolean isForwardCheckingSupported() {
-            return false;
-        }
-
-        @Override
-        public Set<String> getSupportedExtensions() {
-            HashSet<String> hashSet = new HashSet<>();
-
-            // appleCertificateExtensionCodeSigning
-            hashSet.add("1.2.840.113635.100.6.1.13");
-
-            return hashSet;
-        }
-
-        @Override
-        public void check(Certificate cert, Collection<String> unresolvedCritExts) {
-            // remove critical Apple private extension that causes certificate validation to
-            // fail
-            unresolvedCritExts.remove("1.2.840.113635.100.6.1.13");
-        }
-    }
 }
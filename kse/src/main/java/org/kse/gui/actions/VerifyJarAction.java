@@ -26,7 +26,6 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.cert.Certificate;
-import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -36,7 +35,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -47,7 +45,6 @@ import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
 
 import org.bouncycastle.cert.X509CertificateHolder;
-import org.bouncycastle.cert.jcajce.JcaCertStore;
 import org.bouncycastle.cms.CMSProcessableByteArray;
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.cms.SignerInformationStore;
@@ -57,6 +54,7 @@ import org.kse.crypto.signing.CmsUtil;
 import org.kse.crypto.signing.JarSigner;
 import org.kse.crypto.signing.KseJarEntry;
 import org.kse.crypto.signing.KseSignerInformation;
+import org.kse.crypto.x509.TrustedCertificateStore;
 import org.kse.gui.CurrentDirectory;
 import org.kse.gui.FileChooserFactory;
 import org.kse.gui.KseFrame;
@@ -93,7 +91,7 @@ public class VerifyJarAction extends AuthorityCertificatesVerifyAction {
                 return;
             }
 
-            Set<X509Certificate> allCerts = getTrustedCertificates();
+            TrustedCertificateStore allCerts = getTrustedCertificates();
 
             List<KseJarEntry> entries = new ArrayList<>();
             Map<String, byte[]> signatureFiles = new HashMap<>();
@@ -176,8 +174,7 @@ public class VerifyJarAction extends AuthorityCertificatesVerifyAction {
                 return;
             }
 
-            @SuppressWarnings("unchecked")
-            Store<X509CertificateHolder> trustedCerts = new JcaCertStore(allCerts);
+            Store<X509CertificateHolder> trustedCerts = allCerts;
 
             Map<String, Collection<KseSignerInformation>> jarSigners = new HashMap<>();
             for (Entry<String, CMSSignedData> signatureBlock : signatureBlocks.entrySet()) {
@@ -37,10 +37,10 @@ import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
 
 import org.bouncycastle.cert.X509CertificateHolder;
-import org.bouncycastle.cert.jcajce.JcaCertStore;
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.cms.SignerInformationStore;
 import org.bouncycastle.util.Store;
+import org.kse.AuthorityCertificates.TrustedCertificatesKind;
 import org.kse.crypto.CryptoException;
 import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.crypto.signing.CmsUtil;
@@ -94,8 +94,7 @@ public class VerifySignatureAction extends AuthorityCertificatesVerifyAction {
                 return;
             }
 
-            @SuppressWarnings("unchecked")
-            Store<X509CertificateHolder> trustedCerts = new JcaCertStore(getTrustedCertificates());
+            Store<X509CertificateHolder> trustedCerts = getTrustedCertificates();
 
             SignerInformationStore signerInfos = signedData.getSignerInfos();
             List<KseSignerInformation> signers = CmsUtil.convertSignerInformations(signerInfos.getSigners(),
@@ -111,6 +110,11 @@ public class VerifySignatureAction extends AuthorityCertificatesVerifyAction {
         }
     }
 
+    @Override
+    protected TrustedCertificatesKind getTrustedCertificatesKind() {
+        return TrustedCertificatesKind.ALL_CERTIFICATES;
+    }
+
     /*
      * This method checks for the presence of a certificate chain or certificate
      * rather than checking the key store entry type to allow signers to verify
@@ -29,15 +29,22 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
 import java.text.MessageFormat;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import com.formdev.flatlaf.util.SystemFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
@@ -49,11 +56,14 @@ import org.kse.gui.FileChooserFactory;
 import org.kse.gui.PlatformUtil;
 import org.kse.gui.components.JEscDialog;
 import org.kse.utilities.DialogViewer;
+import org.kse.utilities.inventory.InventoryColumn;
+import org.kse.utilities.inventory.InventoryFormat;
 
 import net.miginfocom.swing.MigLayout;
 
 /**
- * Dialog used to display options to export the KeyStore table as a CSV file.
+ * Dialog used to display options to export an inventory of the KeyStore entries as a CSV or
+ * JSON Lines file.
  */
 public class DExportCsv extends JEscDialog {
     private static final long serialVersionUID = 1L;
@@ -62,6 +72,23 @@ public class DExportCsv extends JEscDialog {
 
     private static final String CANCEL_KEY = "CANCEL_KEY";
 
+    private static final Set<InventoryColumn> DEFAULT_COLUMNS = EnumSet.of(InventoryColumn.KEYSTORE,
+                                                                           InventoryColumn.ALIAS,
+                                                                           InventoryColumn.ENTRY_TYPE,
+                                                                           InventoryColumn.ALGORITHM,
+                                                                           InventoryColumn.KEY_SIZE,
+                                                                           InventoryColumn.EXPIRY,
+                                                                           InventoryColumn.SUBJECT_DN,
+                                                                           InventoryColumn.ISSUER_DN,
+                                                                           InventoryColumn.SERIAL_NUMBER_HEX,
+                                                                           InventoryColumn.SHA256_FINGERPRINT);
+
+    private JLabel jlFormat;
+    private JComboBox<InventoryFormat> jcbFormat;
+    private JLabel jlColumns;
+    private JList<InventoryColumn> jltColumns;
+    private JScrollPane jspColumns;
+    private JCheckBox jcbAllKeyStores;
     private JLabel jlExportFile;
     private JTextField jtfExportFile;
     private JButton jbBrowse;
@@ -69,22 +96,47 @@ public class DExportCsv extends JEscDialog {
     private JButton jbCancel;
 
     private String name;
+    private boolean multipleKeyStores;
     private boolean exportSelected = false;
     private File exportFile;
+    private InventoryFormat format;
+    private List<InventoryColumn> columns;
+    private boolean allKeyStores;
 
     /**
      * Creates a new DExportCsv dialog.
      *
-     * @param parent     The parent frame
-     * @param name       The KeyStore name
+     * @param parent            The parent frame
+     * @param name              The KeyStore name
+     * @param multipleKeyStores Are other KeyStores open that may be exported together with this one?
      */
-    public DExportCsv(JFrame parent, String name) {
+    public DExportCsv(JFrame parent, String name, boolean multipleKeyStores) {
         super(parent, Dialog.ModalityType.DOCUMENT_MODAL);
         this.name = name;
+        this.multipleKeyStores = multipleKeyStores;
         initComponents();
     }
 
     private void initComponents() {
+        jlFormat = new JLabel(res.getString("DExportCsv.jlFormat.text"));
+
+        jcbFormat = new JComboBox<>(InventoryFormat.values());
+        jcbFormat.setToolTipText(res.getString("DExportCsv.jcbFormat.tooltip"));
+
+        jlColumns = new JLabel(res.getString("DExportCsv.jlColumns.text"));
+
+        jltColumns = new JList<>(InventoryColumn.values());
+        jltColumns.setToolTipText(res.getString("DExportCsv.jltColumns.tooltip"));
+        jltColumns.setVisibleRowCount(8);
+        for (InventoryColumn column : DEFAULT_COLUMNS) {
+            jltColumns.addSelectionInterval(column.ordinal(), column.ordinal());
+        }
+        jspColumns = new JScrollPane(jltColumns);
+
+        jcbAllKeyStores = new JCheckBox(res.getString("DExportCsv.jcbAllKeyStores.text"));
+        jcbAllKeyStores.setToolTipText(res.getString("DExportCsv.jcbAllKeyStores.tooltip"));
+        jcbAllKeyStores.setEnabled(multipleKeyStores);
+
         jlExportFile = new JLabel(res.getString("DExportCsv.jlExportFile.text"));
 
         jtfExportFile = new JTextField(30);
@@ -103,6 +155,11 @@ public class DExportCsv extends JEscDialog {
         // layout
         Container pane = getContentPane();
         pane.setLayout(new MigLayout("insets dialog, fill", "[right]unrel[]", "[]unrel[]"));
+        pane.add(jlFormat, "");
+        pane.add(jcbFormat, "wrap");
+        pane.add(jlColumns, "top");
+        pane.add(jspColumns, "spanx, growx, wrap");
+        pane.add(jcbAllKeyStores, "skip, spanx, wrap");
         pane.add(jlExportFile, "");
         pane.add(jtfExportFile, "");
         pane.add(jbBrowse, "wrap");
@@ -111,6 +168,8 @@ public class DExportCsv extends JEscDialog {
         pane.add(jbCancel, "tag cancel");
 
 
+        jcbFormat.addItemListener(evt -> updateExportFileExtension());
+
         jbBrowse.addActionListener(evt -> {
             try {
                 CursorUtil.setCursorBusy(DExportCsv.this);
@@ -165,6 +224,20 @@ public class DExportCsv extends JEscDialog {
         jtfExportFile.setText(csrFile.getPath());
     }
 
+    private void updateExportFileExtension() {
+        String exportFileStr = jtfExportFile.getText().trim();
+        InventoryFormat selectedFormat = (InventoryFormat) jcbFormat.getSelectedItem();
+
+        for (InventoryFormat inventoryFormat : InventoryFormat.values()) {
+            String extension = "." + inventoryFormat.getExtension();
+            if (exportFileStr.endsWith(extension)) {
+                exportFileStr = exportFileStr.substring(0, exportFileStr.length() - extension.length());
+                jtfExportFile.setText(exportFileStr + "." + selectedFormat.getExtension());
+                return;
+            }
+        }
+    }
+
     /**
      * Has the user chosen to export?
      *
@@ -183,6 +256,33 @@ public class DExportCsv extends JEscDialog {
         return exportFile;
     }
 
+    /**
+     * Get chosen export format.
+     *
+     * @return Export format
+     */
+    public InventoryFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Get chosen columns.
+     *
+     * @return Columns in their default order
+     */
+    public List<InventoryColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Has the user chosen to export all open KeyStores?
+     *
+     * @return True if they have
+     */
+    public boolean isAllKeyStores() {
+        return allKeyStores;
+    }
+
     private void browsePressed() {
         SystemFileChooser chooser = FileChooserFactory.getCsvFileChooser();
 
@@ -216,6 +316,12 @@ public class DExportCsv extends JEscDialog {
             return;
         }
 
+        if (jltColumns.isSelectionEmpty()) {
+            JOptionPane.showMessageDialog(this, res.getString("DExportCsv.ColumnsRequired.message"),
+                                          res.getString("DExportCsv.Simple.Title"), JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
         File exportFile = new File(exportFileStr);
 
         if (exportFile.isFile()) {
@@ -229,6 +335,9 @@ public class DExportCsv extends JEscDialog {
         }
 
         this.exportFile = exportFile;
+        format = (InventoryFormat) jcbFormat.getSelectedItem();
+        columns = jltColumns.getSelectedValuesList();
+        allKeyStores = jcbAllKeyStores.isSelected();
 
         exportSelected = true;
 
@@ -245,6 +354,6 @@ public class DExportCsv extends JEscDialog {
     }
 
     public static void main(String[] args) throws HeadlessException, UnsupportedLookAndFeelException {
-        DialogViewer.run(new DExportCsv(new JFrame(), "test keystore"));
+        DialogViewer.run(new DExportCsv(new JFrame(), "test keystore", true));
     }
 }
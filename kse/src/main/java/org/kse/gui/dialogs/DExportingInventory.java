@@ -0,0 +1,130 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.dialogs;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.utilities.inventory.InventoryExporter;
+import org.kse.utilities.io.AtomicFileOutputStream;
+
+/**
+ * Exports an inventory of one or more KeyStores in the background while displaying a progress
+ * bar. The export file is only replaced if the export completes, so cancelling the export
+ * leaves an existing file untouched.
+ */
+public class DExportingInventory extends JWaitDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/dialogs/resources");
+
+    private Map<String, KseKeyStore> keyStores;
+    private File exportFile;
+    private InventoryExporter exporter;
+
+    private int exportedEntries;
+    private Exception error;
+
+    /**
+     * Creates a new DExportingInventory dialog.
+     *
+     * @param parent     The parent frame
+     * @param keyStores  The KeyStores to export by their names
+     * @param entries    Total number of entries of the KeyStores
+     * @param exportFile The file to export to
+     * @param exporter   The configured exporter
+     */
+    public DExportingInventory(JFrame parent, Map<String, KseKeyStore> keyStores, int entries, File exportFile,
+                               InventoryExporter exporter) {
+        super(parent, res.getString("DExportingInventory.Title"),
+              MessageFormat.format(res.getString("DExportingInventory.jlExporting.text"), entries),
+              "/org/kse/gui/actions/images/exportcsv.png", res.getString("DExportingInventory.jbCancel.text"));
+        this.keyStores = keyStores;
+        this.exportFile = exportFile;
+        this.exporter = exporter;
+        initProgressBar(0, entries);
+    }
+
+    /**
+     * Start exporting the KeyStores in a separate thread.
+     */
+    public void startExport() {
+        startTask(new ExportInventory());
+    }
+
+    /**
+     * Get the number of exported entries.
+     *
+     * @return Number of entries
+     */
+    public int getExportedEntries() {
+        return exportedEntries;
+    }
+
+    /**
+     * Get the problem that stopped the export.
+     *
+     * @return Problem or null if the export was successful or cancelled
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    private class ExportInventory implements Runnable {
+        @Override
+        public void run() {
+            int exported;
+            Exception problem = null;
+
+            try (AtomicFileOutputStream out = new AtomicFileOutputStream(exportFile);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                exported = exporter.export(keyStores, writer,
+                                           done -> SwingUtilities.invokeLater(() -> updateProgress(done)));
+                out.commit();
+            } catch (InterruptedException ex) {
+                // cancelled
+                return;
+            } catch (Exception ex) {
+                exported = 0;
+                problem = ex;
+            }
+
+            int exportedResult = exported;
+            Exception errorResult = problem;
+            SwingUtilities.invokeLater(() -> {
+                if (DExportingInventory.this.isShowing()) {
+                    exportedEntries = exportedResult;
+                    error = errorResult;
+                    closeDialog();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.dialogs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.ResourceBundle;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+import org.kse.crypto.filetype.CryptoFileUtil;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.gui.passwordmanager.Password;
+
+/**
+ * Reads or loads a KeyStore in a background thread while displaying a progress bar.
+ * <p>
+ * Reading a KeyStore file (e.g. from a network share) and loading large KeyStores
+ * (e.g. PKCS #12 files with many entries or a high iteration count) can take a
+ * while. The user may cancel at any time by pressing the cancel button; the read
+ * data or the loaded KeyStore is then discarded.
+ */
+public class DOpeningKeyStore extends JWaitDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/dialogs/resources");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private File keyStoreFile;
+    private byte[] keyStoreData;
+    private Password password;
+    private KeyStoreType keyStoreType;
+
+    private KseKeyStore keyStore;
+    private Exception error;
+
+    /**
+     * Creates a new DOpeningKeyStore dialog for reading a KeyStore file and detecting its type.
+     *
+     * @param parent       The parent frame
+     * @param keyStoreFile The KeyStore file
+     */
+    public DOpeningKeyStore(JFrame parent, File keyStoreFile) {
+        super(parent, res.getString("DOpeningKeyStore.Title"),
+              MessageFormat.format(res.getString("DOpeningKeyStore.jlOpening.text"), keyStoreFile.getName()),
+              "images/open.png", res.getString("DOpeningKeyStore.jbCancel.text"));
+        this.keyStoreFile = keyStoreFile;
+    }
+
+    /**
+     * Creates a new DOpeningKeyStore dialog for loading a KeyStore.
+     *
+     * @param parent       The parent frame
+     * @param keyStoreName Name of the KeyStore (e.g. file name) for display purposes
+     * @param keyStoreData The KeyStore content
+     * @param password     The KeyStore password
+     * @param keyStoreType The type of the KeyStore
+     */
+    public DOpeningKeyStore(JFrame parent, String keyStoreName, byte[] keyStoreData, Password password,
+                            KeyStoreType keyStoreType) {
+        super(parent, res.getString("DOpeningKeyStore.Title"),
+              MessageFormat.format(res.getString("DOpeningKeyStore.jlOpening.text"), keyStoreName),
+              "images/open.png", res.getString("DOpeningKeyStore.jbCancel.text"));
+        this.keyStoreData = keyStoreData;
+        this.password = password;
+        this.keyStoreType = keyStoreType;
+    }
+
+    /**
+     * Start reading the KeyStore file in a separate thread.
+     */
+    public void startKeyStoreReading() {
+        startTask(new ReadKeyStore());
+    }
+
+    /**
+     * Start loading the KeyStore in a separate thread.
+     */
+    public void startKeyStoreLoading() {
+        startTask(new LoadKeyStore());
+    }
+
+    /**
+     * Get the content of the read KeyStore file.
+     *
+     * @return The content or null if the user cancelled the dialog or the file could not be read
+     */
+    public byte[] getKeyStoreData() {
+        return keyStoreData;
+    }
+
+    /**
+     * Get the type of the read KeyStore file.
+     *
+     * @return The type or null if the file is not a KeyStore, could not be read or the user
+     *         cancelled the dialog
+     */
+    public KeyStoreType getKeyStoreType() {
+        return keyStoreType;
+    }
+
+    /**
+     * Get the loaded KeyStore.
+     *
+     * @return The KeyStore or null if the user cancelled the dialog or the KeyStore could not be
+     *         loaded
+     */
+    public KseKeyStore getKeyStore() {
+        return keyStore;
+    }
+
+    /**
+     * Get the problem that occurred while reading or loading the KeyStore. This is typically a
+     * KeyStoreLoadException caused by a wrong password.
+     *
+     * @return The problem or null if loading was successful or cancelled
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    private class ReadKeyStore implements Runnable {
+        @Override
+        public void run() {
+            try {
+                byte[] data = readFile(keyStoreFile);
+                KeyStoreType type = CryptoFileUtil.detectKeyStoreType(data);
+
+                SwingUtilities.invokeLater(() -> {
+                    if (DOpeningKeyStore.this.isShowing()) {
+                        keyStoreData = data;
+                        keyStoreType = type;
+                        closeDialog();
+                    }
+                });
+            } catch (InterruptedIOException ex) {
+                // cancelled
+            } catch (final Exception ex) {
+                reportError(ex);
+            }
+        }
+    }
+
+    private class LoadKeyStore implements Runnable {
+        @Override
+        public void run() {
+            try {
+                KseKeyStore loadedKeyStore = KeyStoreUtil.load(keyStoreData, password, keyStoreType);
+
+                // the load itself cannot be interrupted, but its result is discarded after a cancel
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                SwingUtilities.invokeLater(() -> {
+                    if (DOpeningKeyStore.this.isShowing()) {
+                        keyStore = loadedKeyStore;
+                        closeDialog();
+                    }
+                });
+            } catch (final Exception ex) {
+                reportError(ex);
+            }
+        }
+    }
+
+    private void reportError(Exception ex) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            if (DOpeningKeyStore.this.isShowing()) {
+                error = ex;
+                closeDialog();
+            }
+        });
+    }
+
+    /*
+     * Reads the file in chunks, so that a cancel stops reading a large file (or one on a slow
+     * network share)
+     */
+    private static byte[] readFile(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream((int) Math.min(file.length(), Integer.MAX_VALUE));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException();
+                }
+                baos.write(buffer, 0, read);
+            }
+            return baos.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.dialogs;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.utilities.history.KeyStoreHistory;
+import org.kse.utilities.history.KeyStoreState;
+
+/**
+ * Saves several KeyStores in parallel in the background while displaying a progress bar.
+ * <p>
+ * The KeyStores are encrypted and written on a small thread pool, so the event dispatch
+ * thread is not blocked by the (possibly slow) encryption and file I/O. The user may cancel
+ * at any time by pressing the cancel button; KeyStores that have not been started yet are
+ * then not saved.
+ */
+public class DSavingKeyStores extends JWaitDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/dialogs/resources");
+
+    private static final int MAX_PARALLEL_SAVES = 4;
+
+    private List<KeyStoreHistory> histories;
+    private List<KeyStoreState> states;
+
+    private Map<KeyStoreState, Exception> errors = new ConcurrentHashMap<>();
+    private List<KeyStoreState> savedStates = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a new DSavingKeyStores dialog.
+     *
+     * @param parent    The parent frame
+     * @param histories The histories of the KeyStores to save, they must have a file
+     * @param states    The states to save, one for each history. Each state must have a password.
+     */
+    public DSavingKeyStores(JFrame parent, List<KeyStoreHistory> histories, List<KeyStoreState> states) {
+        super(parent, res.getString("DSavingKeyStores.Title"),
+              MessageFormat.format(res.getString("DSavingKeyStores.jlSaving.text"), states.size()),
+              "images/save.png", res.getString("DSavingKeyStores.jbCancel.text"));
+        this.histories = histories;
+        this.states = states;
+        initProgressBar(0, states.size());
+    }
+
+    /**
+     * Start saving the KeyStores in separate threads.
+     */
+    public void startKeyStoreSaving() {
+        startTask(new SaveKeyStores());
+    }
+
+    /**
+     * Get the states that were saved successfully. A state is recorded as soon as its file has
+     * been written, so this also holds the KeyStores that were saved before the user cancelled.
+     *
+     * @return Saved states
+     */
+    public List<KeyStoreState> getSavedStates() {
+        return savedStates;
+    }
+
+    /**
+     * Get the problems that occurred while saving.
+     *
+     * @return Problems by state, empty if all KeyStores were saved
+     */
+    public Map<KeyStoreState, Exception> getErrors() {
+        return errors;
+    }
+
+    private class SaveKeyStores implements Runnable {
+        @Override
+        public void run() {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(states.size(), MAX_PARALLEL_SAVES),
+                                                                    runnable -> {
+                                                                        Thread thread = new Thread(runnable,
+                                                                                                   "kse-save");
+                                                                        thread.setDaemon(true);
+                                                                        return thread;
+                                                                    });
+            try {
+                AtomicInteger completed = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+
+                for (int i = 0; i < states.size(); i++) {
+                    KeyStoreHistory history = histories.get(i);
+                    KeyStoreState state = states.get(i);
+
+                    futures.add(executor.submit(() -> {
+                        try {
+                            KeyStoreUtil.save(state.getKeyStore(), history.getFile(), state.getPassword());
+                            savedStates.add(state);
+                        } catch (Exception ex) {
+                            errors.put(state, ex);
+                        } finally {
+                            int done = completed.incrementAndGet();
+                            SwingUtilities.invokeLater(() -> updateProgress(done));
+                        }
+                    }));
+                }
+
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException | ExecutionException ex) {
+                // cancelled
+                return;
+            } finally {
+                executor.shutdownNow();
+            }
+
+            SwingUtilities.invokeLater(() -> {
+                if (DSavingKeyStores.this.isShowing()) {
+                    closeDialog();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.dialogs;
+
+import java.awt.Container;
+import java.awt.Dialog;
+import java.awt.Dimension;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JSeparator;
+import javax.swing.JTable;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableRowSorter;
+
+import org.kse.gui.CurrentDirectory;
+import org.kse.gui.FileChooserFactory;
+import org.kse.gui.PlatformUtil;
+import org.kse.gui.components.JEscDialog;
+import org.kse.gui.error.DError;
+import org.kse.gui.preferences.PreferencesManager;
+import org.kse.gui.preferences.data.KsePreferences;
+import org.kse.gui.table.ToolTipTable;
+import org.kse.utilities.StringUtils;
+import org.kse.utilities.scan.EntryScanResult;
+import org.kse.utilities.scan.KeyStoreScanResult;
+import org.kse.utilities.scan.KeyStoreScanner;
+import org.kse.utilities.scan.ScanStatus;
+
+import com.formdev.flatlaf.util.SystemFileChooser;
+
+import net.miginfocom.swing.MigLayout;
+
+/**
+ * Dialog that scans directory trees for KeyStores and displays which of them contain expired or
+ * expiring certificates or weak algorithms.
+ * <p>
+ * The scan runs in the background and the results are displayed as they arrive. Results are kept
+ * in the KeyStore scan cache, so unchanged files are not opened again by the next scan.
+ */
+public class DScanKeyStores extends JEscDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/dialogs/resources");
+
+    private static final int MAX_SCAN_THREADS = 8;
+
+    private JLabel jlDirectories;
+    private JTextField jtfDirectories;
+    private JButton jbAddDirectory;
+    private JButton jbScan;
+    private JTable jtResults;
+    private JScrollPane jspResults;
+    private JLabel jlStatus;
+    private JButton jbClose;
+
+    private KeyStoreScanTableModel tableModel;
+    private Function<File, char[]> passwords;
+    private KsePreferences preferences = PreferencesManager.getPreferences();
+    private Thread scanThread;
+
+    /**
+     * Creates a new DScanKeyStores dialog.
+     *
+     * @param parent    The parent frame
+     * @param passwords Provides the password of a KeyStore file or null if it is not known
+     */
+    public DScanKeyStores(JFrame parent, Function<File, char[]> passwords) {
+        super(parent, Dialog.ModalityType.DOCUMENT_MODAL);
+        this.passwords = passwords;
+        initComponents();
+    }
+
+    private static class DateRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void setValue(Object value) {
+            setText(value == null ? "" : StringUtils.formatDate((Date) value));
+        }
+    }
+
+    private void initComponents() {
+        jlDirectories = new JLabel(res.getString("DScanKeyStores.jlDirectories.text"));
+
+        jtfDirectories = new JTextField(50);
+        jtfDirectories.setToolTipText(res.getString("DScanKeyStores.jtfDirectories.tooltip"));
+        jtfDirectories.setText(String.join(File.pathSeparator, preferences.getKeyStoreScanDirectories()));
+
+        jbAddDirectory = new JButton(res.getString("DScanKeyStores.jbAddDirectory.text"));
+        jbAddDirectory.setToolTipText(res.getString("DScanKeyStores.jbAddDirectory.tooltip"));
+        PlatformUtil.setMnemonic(jbAddDirectory, res.getString("DScanKeyStores.jbAddDirectory.mnemonic").charAt(0));
+
+        jbScan = new JButton(res.getString("DScanKeyStores.jbScan.text"));
+        jbScan.setToolTipText(res.getString("DScanKeyStores.jbScan.tooltip"));
+        PlatformUtil.setMnemonic(jbScan, res.getString("DScanKeyStores.jbScan.mnemonic").charAt(0));
+
+        tableModel = new KeyStoreScanTableModel(preferences.getExpiryWarnDays());
+
+        jtResults = new ToolTipTable(tableModel);
+        jtResults.setRowSorter(new TableRowSorter<>(tableModel));
+        jtResults.setShowGrid(false);
+        jtResults.setRowMargin(0);
+        jtResults.getColumnModel().setColumnMargin(0);
+        jtResults.getTableHeader().setReorderingAllowed(false);
+        jtResults.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+
+        for (int i = 0; i < jtResults.getColumnCount(); i++) {
+            TableColumn column = jtResults.getColumnModel().getColumn(i);
+
+            column.setPreferredWidth(tableModel.getColumnSize(i));
+            if (i == KeyStoreScanTableModel.COL_EARLIEST_EXPIRY) {
+                column.setCellRenderer(new DateRenderer());
+            }
+        }
+
+        jtResults.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent evt) {
+                if (evt.getClickCount() > 1) {
+                    int row = jtResults.rowAtPoint(evt.getPoint());
+                    if (row >= 0) {
+                        showDetails(tableModel.getResult(jtResults.convertRowIndexToModel(row)));
+                    }
+                }
+            }
+        });
+
+        jspResults = PlatformUtil.createScrollPane(jtResults, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                                                   ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        jspResults.getViewport().setBackground(jtResults.getBackground());
+        jspResults.setPreferredSize(new Dimension(900, 300));
+
+        jlStatus = new JLabel(" ");
+
+        jbClose = new JButton(res.getString("DScanKeyStores.jbClose.text"));
+
+        Container pane = getContentPane();
+        pane.setLayout(new MigLayout("insets dialog, fill", "[right]unrel[grow]", ""));
+        pane.add(jlDirectories, "");
+        pane.add(jtfDirectories, "growx, split 3");
+        pane.add(jbAddDirectory, "");
+        pane.add(jbScan, "wrap unrel");
+        pane.add(jspResults, "spanx, grow, push, wrap");
+        pane.add(jlStatus, "spanx, left, growx, wrap");
+        pane.add(new JSeparator(), "spanx, growx, wrap");
+        pane.add(jbClose, "spanx, tag ok");
+
+        jbAddDirectory.addActionListener(evt -> addDirectoryPressed());
+        jbScan.addActionListener(evt -> scanPressed());
+        jbClose.addActionListener(evt -> closeDialog());
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent evt) {
+                closeDialog();
+            }
+        });
+
+        setTitle(res.getString("DScanKeyStores.Title"));
+        setResizable(true);
+
+        getRootPane().setDefaultButton(jbScan);
+
+        pack();
+    }
+
+    private void addDirectoryPressed() {
+        SystemFileChooser chooser = FileChooserFactory.getNoFileChooser();
+        chooser.setCurrentDirectory(CurrentDirectory.get());
+        chooser.setDialogTitle(res.getString("DScanKeyStores.ChooseDirectory.Title"));
+        chooser.setFileSelectionMode(SystemFileChooser.DIRECTORIES_ONLY);
+        chooser.setMultiSelectionEnabled(false);
+
+        int rtnValue = chooser.showDialog(this, res.getString("DScanKeyStores.ChooseDirectory.button"));
+        if (rtnValue == SystemFileChooser.APPROVE_OPTION) {
+            File directory = chooser.getSelectedFile();
+            String directories = jtfDirectories.getText().trim();
+            jtfDirectories.setText(directories.isEmpty() ? directory.getPath() :
+                                   directories + File.pathSeparator + directory.getPath());
+        }
+    }
+
+    private void scanPressed() {
+        List<File> directories = new ArrayList<>();
+        List<String> directoryNames = new ArrayList<>();
+        for (String directory : jtfDirectories.getText().split(File.pathSeparator)) {
+            if (!directory.trim().isEmpty()) {
+                directories.add(new File(directory.trim()));
+                directoryNames.add(directory.trim());
+            }
+        }
+
+        if (directories.isEmpty()) {
+            JOptionPane.showMessageDialog(this, res.getString("DScanKeyStores.DirectoriesRequired.message"),
+                                          getTitle(), JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        preferences.setKeyStoreScanDirectories(directoryNames);
+
+        tableModel.clear();
+        jbScan.setEnabled(false);
+        jlStatus.setText(res.getString("DScanKeyStores.Scanning.text"));
+
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), MAX_SCAN_THREADS);
+        KeyStoreScanner scanner = new KeyStoreScanner(PreferencesManager.getKeyStoreScanCache(), passwords, threads);
+
+        scanThread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                scanner.scan(directories, result -> SwingUtilities.invokeLater(() -> tableModel.add(result)));
+                long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+                SwingUtilities.invokeLater(() -> scanCompleted(seconds));
+            } catch (InterruptedException ex) {
+                // cancelled
+            } catch (IOException ex) {
+                SwingUtilities.invokeLater(() -> {
+                    jbScan.setEnabled(true);
+                    jlStatus.setText(" ");
+                    DError.displayError(this, ex);
+                });
+            }
+        }, "kse-scan-directories");
+        scanThread.setDaemon(true);
+        scanThread.start();
+    }
+
+    private void scanCompleted(long seconds) {
+        PreferencesManager.persistKeyStoreScanCache();
+
+        jlStatus.setText(MessageFormat.format(res.getString("DScanKeyStores.ScanCompleted.text"),
+                                              tableModel.getRowCount(), seconds,
+                                              tableModel.countKeyStores(KeyStoreScanTableModel.COL_EXPIRED),
+                                              tableModel.countKeyStores(KeyStoreScanTableModel.COL_EXPIRING),
+                                              tableModel.countKeyStores(KeyStoreScanTableModel.COL_WEAK)));
+        jbScan.setEnabled(true);
+    }
+
+    private void showDetails(KeyStoreScanResult result) {
+        StringBuilder sb = new StringBuilder();
+
+        if (result.getStatus() == ScanStatus.ERROR) {
+            sb.append(result.getError());
+        } else if (result.getStatus() == ScanStatus.NO_PASSWORD) {
+            sb.append(res.getString("DScanKeyStores.NoPassword.message"));
+        } else {
+            long warnLimit = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(preferences.getExpiryWarnDays());
+
+            for (EntryScanResult entry : result.getEntries()) {
+                boolean expiring = entry.getExpiry() != null && entry.getExpiry() < warnLimit;
+                if (!expiring && entry.getWeakAlgorithms().isEmpty()) {
+                    continue;
+                }
+
+                sb.append(entry.getAlias());
+                if (expiring) {
+                    sb.append(MessageFormat.format(res.getString("DScanKeyStores.EntryExpiry.text"),
+                                                   StringUtils.formatDate(new Date(entry.getExpiry()))));
+                }
+                if (!entry.getWeakAlgorithms().isEmpty()) {
+                    sb.append(MessageFormat.format(res.getString("DScanKeyStores.EntryWeak.text"),
+                                                   String.join(", ", entry.getWeakAlgorithms())));
+                }
+                sb.append('\n');
+            }
+
+            if (sb.length() == 0) {
+                sb.append(res.getString("DScanKeyStores.NoProblems.message"));
+            }
+        }
+
+        JTextArea jtaDetails = new JTextArea(sb.toString().trim(), 10, 60);
+        jtaDetails.setEditable(false);
+        jtaDetails.setLineWrap(true);
+        jtaDetails.setWrapStyleWord(true);
+
+        JOptionPane.showMessageDialog(this, new JScrollPane(jtaDetails), result.getPath(),
+                                      JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private void closeDialog() {
+        if (scanThread != null && scanThread.isAlive()) {
+            scanThread.interrupt();
+        }
+        setVisible(false);
+        dispose();
+    }
+}
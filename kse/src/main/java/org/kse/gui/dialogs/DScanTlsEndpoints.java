@@ -0,0 +1,353 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.dialogs;
+
+import java.awt.Container;
+import java.awt.Dialog;
+import java.awt.Dimension;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JSeparator;
+import javax.swing.JSpinner;
+import javax.swing.JTable;
+import javax.swing.JTextArea;
+import javax.swing.ScrollPaneConstants;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableRowSorter;
+
+import org.kse.KSE;
+import org.kse.crypto.CryptoException;
+import org.kse.gui.CurrentDirectory;
+import org.kse.gui.FileChooserFactory;
+import org.kse.gui.KseFrame;
+import org.kse.gui.PlatformUtil;
+import org.kse.gui.components.JEscDialog;
+import org.kse.gui.error.DError;
+import org.kse.gui.table.ToolTipTable;
+import org.kse.utilities.StringUtils;
+import org.kse.utilities.io.AtomicFileOutputStream;
+import org.kse.utilities.ssl.SslConnectionInfos;
+import org.kse.utilities.ssl.TlsEndpoint;
+import org.kse.utilities.ssl.TlsEndpointScanner;
+import org.kse.utilities.ssl.TlsScanExporter;
+import org.kse.utilities.ssl.TlsScanResult;
+
+import com.formdev.flatlaf.util.SystemFileChooser;
+
+import net.miginfocom.swing.MigLayout;
+
+/**
+ * Dialog that performs a TLS handshake with a list of endpoints and displays the negotiated
+ * protocol, cipher suite and server certificate of each of them.
+ * <p>
+ * The handshakes run concurrently in the background and the results are displayed as they
+ * arrive. The results can be exported to a CSV file.
+ */
+public class DScanTlsEndpoints extends JEscDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/dialogs/resources");
+
+    private static final int SCAN_THREADS = 16;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 10;
+
+    private JLabel jlEndpoints;
+    private JTextArea jtaEndpoints;
+    private JScrollPane jspEndpoints;
+    private JLabel jlTimeout;
+    private JSpinner jsTimeout;
+    private JButton jbScan;
+    private JButton jbExport;
+    private JTable jtResults;
+    private JScrollPane jspResults;
+    private JLabel jlStatus;
+    private JButton jbClose;
+
+    private KseFrame kseFrame;
+    private TlsScanTableModel tableModel;
+    private Thread scanThread;
+
+    /**
+     * Creates a new DScanTlsEndpoints dialog.
+     *
+     * @param parent   The parent frame
+     * @param kseFrame KeyStore Explorer frame, used to import the retrieved certificates
+     */
+    public DScanTlsEndpoints(JFrame parent, KseFrame kseFrame) {
+        super(parent, Dialog.ModalityType.DOCUMENT_MODAL);
+        this.kseFrame = kseFrame;
+        initComponents();
+    }
+
+    private static class DateRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void setValue(Object value) {
+            setText(value == null ? "" : StringUtils.formatDate((Date) value));
+        }
+    }
+
+    private void initComponents() {
+        jlEndpoints = new JLabel(res.getString("DScanTlsEndpoints.jlEndpoints.text"));
+
+        jtaEndpoints = new JTextArea(5, 50);
+        jtaEndpoints.setToolTipText(res.getString("DScanTlsEndpoints.jtaEndpoints.tooltip"));
+        jspEndpoints = PlatformUtil.createScrollPane(jtaEndpoints, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                                                     ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+
+        jlTimeout = new JLabel(res.getString("DScanTlsEndpoints.jlTimeout.text"));
+
+        jsTimeout = new JSpinner(new SpinnerNumberModel(DEFAULT_TIMEOUT_SECONDS, 1, 300, 1));
+        jsTimeout.setToolTipText(res.getString("DScanTlsEndpoints.jsTimeout.tooltip"));
+
+        jbScan = new JButton(res.getString("DScanTlsEndpoints.jbScan.text"));
+        jbScan.setToolTipText(res.getString("DScanTlsEndpoints.jbScan.tooltip"));
+        PlatformUtil.setMnemonic(jbScan, res.getString("DScanTlsEndpoints.jbScan.mnemonic").charAt(0));
+
+        jbExport = new JButton(res.getString("DScanTlsEndpoints.jbExport.text"));
+        jbExport.setToolTipText(res.getString("DScanTlsEndpoints.jbExport.tooltip"));
+        PlatformUtil.setMnemonic(jbExport, res.getString("DScanTlsEndpoints.jbExport.mnemonic").charAt(0));
+        jbExport.setEnabled(false);
+
+        tableModel = new TlsScanTableModel();
+
+        jtResults = new ToolTipTable(tableModel);
+        jtResults.setRowSorter(new TableRowSorter<>(tableModel));
+        jtResults.setShowGrid(false);
+        jtResults.setRowMargin(0);
+        jtResults.getColumnModel().setColumnMargin(0);
+        jtResults.getTableHeader().setReorderingAllowed(false);
+        jtResults.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+
+        for (int i = 0; i < jtResults.getColumnCount(); i++) {
+            TableColumn column = jtResults.getColumnModel().getColumn(i);
+
+            column.setPreferredWidth(tableModel.getColumnSize(i));
+            if (i == TlsScanTableModel.COL_EXPIRY) {
+                column.setCellRenderer(new DateRenderer());
+            }
+        }
+
+        jtResults.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent evt) {
+                if (evt.getClickCount() > 1) {
+                    int row = jtResults.rowAtPoint(evt.getPoint());
+                    if (row >= 0) {
+                        showDetails(tableModel.getResult(jtResults.convertRowIndexToModel(row)));
+                    }
+                }
+            }
+        });
+
+        jspResults = PlatformUtil.createScrollPane(jtResults, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                                                   ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        jspResults.getViewport().setBackground(jtResults.getBackground());
+        jspResults.setPreferredSize(new Dimension(900, 300));
+
+        jlStatus = new JLabel(" ");
+
+        jbClose = new JButton(res.getString("DScanTlsEndpoints.jbClose.text"));
+
+        Container pane = getContentPane();
+        pane.setLayout(new MigLayout("insets dialog, fill", "[right]unrel[grow]", ""));
+        pane.add(jlEndpoints, "top");
+        pane.add(jspEndpoints, "growx, wrap rel");
+        pane.add(jlTimeout, "");
+        pane.add(jsTimeout, "split 3");
+        pane.add(jbScan, "gapleft push");
+        pane.add(jbExport, "wrap unrel");
+        pane.add(jspResults, "spanx, grow, push, wrap");
+        pane.add(jlStatus, "spanx, left, growx, wrap");
+        pane.add(new JSeparator(), "spanx, growx, wrap");
+        pane.add(jbClose, "spanx, tag ok");
+
+        jbScan.addActionListener(evt -> scanPressed());
+        jbExport.addActionListener(evt -> exportPressed());
+        jbClose.addActionListener(evt -> closeDialog());
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent evt) {
+                closeDialog();
+            }
+        });
+
+        setTitle(res.getString("DScanTlsEndpoints.Title"));
+        setResizable(true);
+
+        pack();
+    }
+
+    private void scanPressed() {
+        List<TlsEndpoint> endpoints;
+        try {
+            endpoints = TlsEndpoint.parseList(jtaEndpoints.getText());
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), getTitle(), JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        if (endpoints.isEmpty()) {
+            JOptionPane.showMessageDialog(this, res.getString("DScanTlsEndpoints.EndpointsRequired.message"),
+                                          getTitle(), JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        int timeoutMillis = (int) TimeUnit.SECONDS.toMillis((Integer) jsTimeout.getValue());
+
+        TlsEndpointScanner scanner;
+        try {
+            scanner = new TlsEndpointScanner(SCAN_THREADS, timeoutMillis);
+        } catch (CryptoException ex) {
+            DError.displayError(this, ex);
+            return;
+        }
+
+        tableModel.clear();
+        jbScan.setEnabled(false);
+        jbExport.setEnabled(false);
+        jlStatus.setText(MessageFormat.format(res.getString("DScanTlsEndpoints.Scanning.text"), endpoints.size()));
+
+        scanThread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                scanner.scan(endpoints, result -> SwingUtilities.invokeLater(() -> tableModel.add(result)));
+                long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+                SwingUtilities.invokeLater(() -> scanCompleted(seconds));
+            } catch (InterruptedException ex) {
+                // cancelled
+            }
+        }, "kse-scan-tls-endpoints");
+        scanThread.setDaemon(true);
+        scanThread.start();
+    }
+
+    private void scanCompleted(long seconds) {
+        jlStatus.setText(MessageFormat.format(res.getString("DScanTlsEndpoints.ScanCompleted.text"),
+                                              tableModel.getRowCount(), seconds, tableModel.countFailed()));
+        jbScan.setEnabled(true);
+        jbExport.setEnabled(tableModel.getRowCount() > 0);
+    }
+
+    private void exportPressed() {
+        SystemFileChooser chooser = FileChooserFactory.getCsvFileChooser();
+        chooser.setCurrentDirectory(CurrentDirectory.get());
+        chooser.setDialogTitle(res.getString("DScanTlsEndpoints.ChooseExportFile.Title"));
+        chooser.setMultiSelectionEnabled(false);
+
+        int rtnValue = chooser.showDialog(this, res.getString("DScanTlsEndpoints.ChooseExportFile.button"));
+        if (rtnValue != SystemFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        File exportFile = chooser.getSelectedFile();
+        CurrentDirectory.updateForFile(exportFile);
+
+        if (exportFile.isFile()) {
+            String message = MessageFormat.format(res.getString("DScanTlsEndpoints.OverWriteExportFile.message"),
+                                                  exportFile);
+
+            int selected = JOptionPane.showConfirmDialog(this, message, getTitle(), JOptionPane.YES_NO_OPTION);
+            if (selected != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+
+        // export in the order currently displayed
+        List<TlsScanResult> results = new ArrayList<>();
+        for (int i = 0; i < jtResults.getRowCount(); i++) {
+            results.add(tableModel.getResult(jtResults.convertRowIndexToModel(i)));
+        }
+
+        try (AtomicFileOutputStream out = new AtomicFileOutputStream(exportFile);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            new TlsScanExporter(getListSeparator()).export(results, writer);
+            out.commit();
+        } catch (Exception ex) {
+            DError.displayError(this, ex);
+            return;
+        }
+
+        jlStatus.setText(MessageFormat.format(res.getString("DScanTlsEndpoints.ExportSuccessful.text"),
+                                              results.size(), exportFile.getName()));
+    }
+
+    private char getListSeparator() {
+        // same as the KeyStore CSV export: semicolon if the decimal separator is a comma
+        if (',' == DecimalFormatSymbols.getInstance(KSE.SYSTEM_LOCALE).getDecimalSeparator()) {
+            return ';';
+        }
+        return ',';
+    }
+
+    private void showDetails(TlsScanResult result) {
+        SslConnectionInfos infos = result.getSslConnectionInfos();
+
+        if (infos == null || infos.getServerCertificates() == null) {
+            JOptionPane.showMessageDialog(this, result.getError(), result.getEndpoint().toString(),
+                                          JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        try {
+            DViewCertificate dViewCertificate = new DViewCertificate(this, MessageFormat.format(
+                    res.getString("DScanTlsEndpoints.CertDetails.Title"), result.getEndpoint().toString(),
+                    infos.getProtocol(), infos.getCipherSuite()), infos.getServerCertificates(), kseFrame,
+                                                                     DViewCertificate.IMPORT_EXPORT);
+            dViewCertificate.setLocationRelativeTo(this);
+            dViewCertificate.setVisible(true);
+        } catch (Exception ex) {
+            DError.displayError(this, ex);
+        }
+    }
+
+    private void closeDialog() {
+        if (scanThread != null && scanThread.isAlive()) {
+            scanThread.interrupt();
+        }
+        setVisible(false);
+        dispose();
+    }
+}
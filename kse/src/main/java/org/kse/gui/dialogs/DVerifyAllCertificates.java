@@ -0,0 +1,241 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.dialogs;
+
+import java.awt.Container;
+import java.awt.Dialog;
+import java.awt.Dimension;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JSeparator;
+import javax.swing.JTable;
+import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableRowSorter;
+
+import org.kse.gui.PlatformUtil;
+import org.kse.gui.components.JEscDialog;
+import org.kse.gui.error.DError;
+import org.kse.gui.preferences.PreferencesManager;
+import org.kse.gui.table.ToolTipTable;
+import org.kse.utilities.StringUtils;
+import org.kse.utilities.history.KeyStoreState;
+import org.kse.utilities.verify.EntryVerificationResult;
+import org.kse.utilities.verify.KeyStoreVerifier;
+
+import net.miginfocom.swing.MigLayout;
+
+/**
+ * Dialog that verifies the certificate chain and the revocation status of all key pair and
+ * trusted certificate entries of a KeyStore and displays the result for each entry.
+ * <p>
+ * The verification runs in the background and the results are displayed as they arrive.
+ * Results of entries that have not changed since they were last verified are reused unless
+ * the user asks for a new verification.
+ */
+public class DVerifyAllCertificates extends JEscDialog {
+    private static final long serialVersionUID = 1L;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/dialogs/resources");
+
+    private static final int VERIFY_THREADS = 8;
+
+    private JCheckBox jcbUseCachedResults;
+    private JButton jbVerify;
+    private JTable jtResults;
+    private JScrollPane jspResults;
+    private JLabel jlStatus;
+    private JButton jbClose;
+
+    private KeyStoreState state;
+    private VerificationTableModel tableModel;
+    private Thread verifyThread;
+
+    /**
+     * Creates a new DVerifyAllCertificates dialog.
+     *
+     * @param parent The parent frame
+     * @param state  The KeyStore state whose entries are verified
+     */
+    public DVerifyAllCertificates(JFrame parent, KeyStoreState state) {
+        super(parent, Dialog.ModalityType.DOCUMENT_MODAL);
+        this.state = state;
+        initComponents();
+    }
+
+    private static class DateRenderer extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void setValue(Object value) {
+            setText(value == null ? "" : StringUtils.formatDate((Date) value));
+        }
+    }
+
+    private void initComponents() {
+        jcbUseCachedResults = new JCheckBox(res.getString("DVerifyAllCertificates.jcbUseCachedResults.text"), true);
+        jcbUseCachedResults.setToolTipText(res.getString("DVerifyAllCertificates.jcbUseCachedResults.tooltip"));
+
+        jbVerify = new JButton(res.getString("DVerifyAllCertificates.jbVerify.text"));
+        jbVerify.setToolTipText(res.getString("DVerifyAllCertificates.jbVerify.tooltip"));
+        PlatformUtil.setMnemonic(jbVerify, res.getString("DVerifyAllCertificates.jbVerify.mnemonic").charAt(0));
+
+        tableModel = new VerificationTableModel();
+
+        jtResults = new ToolTipTable(tableModel);
+        jtResults.setRowSorter(new TableRowSorter<>(tableModel));
+        jtResults.setShowGrid(false);
+        jtResults.setRowMargin(0);
+        jtResults.getColumnModel().setColumnMargin(0);
+        jtResults.getTableHeader().setReorderingAllowed(false);
+        jtResults.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+
+        for (int i = 0; i < jtResults.getColumnCount(); i++) {
+            TableColumn column = jtResults.getColumnModel().getColumn(i);
+
+            column.setPreferredWidth(tableModel.getColumnSize(i));
+            if (i == VerificationTableModel.COL_VERIFIED) {
+                column.setCellRenderer(new DateRenderer());
+            }
+        }
+
+        jtResults.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent evt) {
+                if (evt.getClickCount() > 1) {
+                    int row = jtResults.rowAtPoint(evt.getPoint());
+                    if (row >= 0) {
+                        showDetails(tableModel.getResult(jtResults.convertRowIndexToModel(row)));
+                    }
+                }
+            }
+        });
+
+        jspResults = PlatformUtil.createScrollPane(jtResults, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+                                                   ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+        jspResults.getViewport().setBackground(jtResults.getBackground());
+        jspResults.setPreferredSize(new Dimension(700, 300));
+
+        jlStatus = new JLabel(" ");
+
+        jbClose = new JButton(res.getString("DVerifyAllCertificates.jbClose.text"));
+
+        Container pane = getContentPane();
+        pane.setLayout(new MigLayout("insets dialog, fill", "[grow]", ""));
+        pane.add(jcbUseCachedResults, "split 2");
+        pane.add(jbVerify, "gapleft push, wrap unrel");
+        pane.add(jspResults, "grow, push, wrap");
+        pane.add(jlStatus, "left, growx, wrap");
+        pane.add(new JSeparator(), "growx, wrap");
+        pane.add(jbClose, "tag ok");
+
+        jbVerify.addActionListener(evt -> verifyPressed());
+        jbClose.addActionListener(evt -> closeDialog());
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent evt) {
+                verifyPressed();
+            }
+
+            @Override
+            public void windowClosing(WindowEvent evt) {
+                closeDialog();
+            }
+        });
+
+        setTitle(res.getString("DVerifyAllCertificates.Title"));
+        setResizable(true);
+
+        pack();
+    }
+
+    private void verifyPressed() {
+        KeyStoreVerifier verifier;
+        try {
+            verifier = new KeyStoreVerifier(state, PreferencesManager.getRevocationDataCache(), VERIFY_THREADS);
+        } catch (Exception ex) {
+            DError.displayError(this, ex);
+            return;
+        }
+
+        boolean useCachedResults = jcbUseCachedResults.isSelected();
+
+        tableModel.clear();
+        jbVerify.setEnabled(false);
+        jlStatus.setText(MessageFormat.format(res.getString("DVerifyAllCertificates.Verifying.text"),
+                                              verifier.getEntryCount()));
+
+        verifyThread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                verifier.verify(useCachedResults, result -> SwingUtilities.invokeLater(() -> tableModel.add(result)));
+                long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+                SwingUtilities.invokeLater(() -> verifyCompleted(seconds));
+            } catch (InterruptedException ex) {
+                // cancelled
+            }
+        }, "kse-verify-all");
+        verifyThread.setDaemon(true);
+        verifyThread.start();
+    }
+
+    private void verifyCompleted(long seconds) {
+        jlStatus.setText(MessageFormat.format(res.getString("DVerifyAllCertificates.VerifyCompleted.text"),
+                                              tableModel.getRowCount(), seconds, tableModel.countProblems()));
+        jbVerify.setEnabled(true);
+    }
+
+    private void showDetails(EntryVerificationResult result) {
+        String message = MessageFormat.format(res.getString("DVerifyAllCertificates.Details.message"),
+                                              getDetail(result.getChainMessage()),
+                                              getDetail(result.getOcspMessage()),
+                                              getDetail(result.getCrlMessage()));
+
+        JOptionPane.showMessageDialog(this, message, result.getAlias(), JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private static String getDetail(String message) {
+        return message == null ? res.getString("DVerifyAllCertificates.NoDetails.text") : message;
+    }
+
+    private void closeDialog() {
+        if (verifyThread != null && verifyThread.isAlive()) {
+            verifyThread.interrupt();
+        }
+        setVisible(false);
+        dispose();
+    }
+}
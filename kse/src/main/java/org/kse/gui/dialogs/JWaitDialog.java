@@ -124,6 +124,11 @@ public class JWaitDialog extends JEscDialog {
         jpbProgress.setValue(value);
     }
 
+    protected void updateMessage(String message) {
+        jlMessage.setText(message);
+        pack();
+    }
+
     protected void startTask(Runnable task) {
         thread = new Thread(task);
         thread.setPriority(Thread.MIN_PRIORITY);
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.dialogs;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+import org.kse.gui.table.ToolTipTableModel;
+import org.kse.utilities.scan.EntryScanResult;
+import org.kse.utilities.scan.KeyStoreScanResult;
+import org.kse.utilities.scan.ScanStatus;
+
+/**
+ * The table model used to display the results of a KeyStore scan, one row per KeyStore.
+ * <p>
+ * The expiry status is derived from the recorded expiry dates when a result is added, using
+ * the current time and the expiry warning period.
+ */
+public class KeyStoreScanTableModel extends ToolTipTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/dialogs/resources");
+
+    private static final String[] COLUMN_TOOL_TIPS = { //
+            "KeyStoreScanTableModel.StatusColumn.tooltip", //
+            "KeyStoreScanTableModel.PathColumn.tooltip", //
+            "KeyStoreScanTableModel.TypeColumn.tooltip", //
+            "KeyStoreScanTableModel.EntriesColumn.tooltip", //
+            "KeyStoreScanTableModel.ExpiredColumn.tooltip", //
+            "KeyStoreScanTableModel.ExpiringColumn.tooltip", //
+            "KeyStoreScanTableModel.EarliestExpiryColumn.tooltip", //
+            "KeyStoreScanTableModel.WeakColumn.tooltip" //
+    };
+
+    static final int COL_STATUS = 0;
+    static final int COL_PATH = 1;
+    static final int COL_TYPE = 2;
+    static final int COL_ENTRIES = 3;
+    static final int COL_EXPIRED = 4;
+    static final int COL_EXPIRING = 5;
+    static final int COL_EARLIEST_EXPIRY = 6;
+    static final int COL_WEAK = 7;
+    private static final int COLUMN_COUNT = 8;
+
+    private int[] columnSizes = { 110, 350, 60, 60, 60, 60, 140, 60 };
+    private String[] columnNames;
+    private List<Object[]> data = new ArrayList<>();
+    private List<KeyStoreScanResult> results = new ArrayList<>();
+    private int expiryWarnDays;
+
+    /**
+     * Construct a new KeyStoreScanTableModel.
+     *
+     * @param expiryWarnDays Number of days before expiry that an entry is counted as expiring
+     */
+    public KeyStoreScanTableModel(int expiryWarnDays) {
+        super(res, COLUMN_TOOL_TIPS);
+        this.expiryWarnDays = expiryWarnDays;
+
+        columnNames = new String[COLUMN_COUNT];
+        columnNames[COL_STATUS] = res.getString("KeyStoreScanTableModel.StatusColumn.text");
+        columnNames[COL_PATH] = res.getString("KeyStoreScanTableModel.PathColumn.text");
+        columnNames[COL_TYPE] = res.getString("KeyStoreScanTableModel.TypeColumn.text");
+        columnNames[COL_ENTRIES] = res.getString("KeyStoreScanTableModel.EntriesColumn.text");
+        columnNames[COL_EXPIRED] = res.getString("KeyStoreScanTableModel.ExpiredColumn.text");
+        columnNames[COL_EXPIRING] = res.getString("KeyStoreScanTableModel.ExpiringColumn.text");
+        columnNames[COL_EARLIEST_EXPIRY] = res.getString("KeyStoreScanTableModel.EarliestExpiryColumn.text");
+        columnNames[COL_WEAK] = res.getString("KeyStoreScanTableModel.WeakColumn.text");
+    }
+
+    /**
+     * Remove all results.
+     */
+    public void clear() {
+        data.clear();
+        results.clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Add the result of a scanned KeyStore.
+     *
+     * @param result The result
+     */
+    public void add(KeyStoreScanResult result) {
+        long now = System.currentTimeMillis();
+        long warnLimit = now + TimeUnit.DAYS.toMillis(expiryWarnDays);
+
+        Object[] row = new Object[COLUMN_COUNT];
+        row[COL_PATH] = result.getPath();
+        row[COL_TYPE] = result.getKeyStoreType();
+
+        if (result.getStatus() == ScanStatus.OK) {
+            int expired = 0;
+            int expiring = 0;
+            int weak = 0;
+            Long earliestExpiry = null;
+
+            for (EntryScanResult entry : result.getEntries()) {
+                Long expiry = entry.getExpiry();
+                if (expiry != null) {
+                    if (expiry < now) {
+                        expired++;
+                    } else if (expiry < warnLimit) {
+                        expiring++;
+                    }
+                    if (earliestExpiry == null || expiry < earliestExpiry) {
+                        earliestExpiry = expiry;
+                    }
+                }
+                if (!entry.getWeakAlgorithms().isEmpty()) {
+                    weak++;
+                }
+            }
+
+            row[COL_ENTRIES] = result.getEntries().size();
+            row[COL_EXPIRED] = expired;
+            row[COL_EXPIRING] = expiring;
+            row[COL_EARLIEST_EXPIRY] = earliestExpiry == null ? null : new Date(earliestExpiry);
+            row[COL_WEAK] = weak;
+
+            if (expired > 0) {
+                row[COL_STATUS] = res.getString("KeyStoreScanTableModel.Expired");
+            } else if (expiring > 0) {
+                row[COL_STATUS] = res.getString("KeyStoreScanTableModel.Expiring");
+            } else if (weak > 0) {
+                row[COL_STATUS] = res.getString("KeyStoreScanTableModel.Weak");
+            } else {
+                row[COL_STATUS] = res.getString("KeyStoreScanTableModel.Ok");
+            }
+        } else if (result.getStatus() == ScanStatus.NO_PASSWORD) {
+            row[COL_STATUS] = res.getString("KeyStoreScanTableModel.NoPassword");
+        } else {
+            row[COL_STATUS] = res.getString("KeyStoreScanTableModel.Error");
+        }
+
+        data.add(row);
+        results.add(result);
+        fireTableRowsInserted(data.size() - 1, data.size() - 1);
+    }
+
+    /**
+     * Get the result displayed in a row.
+     *
+     * @param row The row position
+     * @return The result
+     */
+    public KeyStoreScanResult getResult(int row) {
+        return results.get(row);
+    }
+
+    /**
+     * Get the number of KeyStores with affected entries.
+     *
+     * @param col A numeric column, e.g. the expired entries
+     * @return The number of KeyStores with a value greater than zero in the column
+     */
+    public int countKeyStores(int col) {
+        int count = 0;
+        for (Object[] row : data) {
+            if (row[col] != null && (Integer) row[col] > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of columns in the table.
+     *
+     * @return The number of columns
+     */
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    /**
+     * Get the number of rows in the table.
+     *
+     * @return The number of rows
+     */
+    @Override
+    public int getRowCount() {
+        return data.size();
+    }
+
+    /**
+     * Get the name of the column at the given position.
+     *
+     * @param col The column position
+     * @return The column name
+     */
+    @Override
+    public String getColumnName(int col) {
+        return columnNames[col];
+    }
+
+    /**
+     * Get the cell value at the given row and column position.
+     *
+     * @param row The row position
+     * @param col The column position
+     * @return The cell value
+     */
+    @Override
+    public Object getValueAt(int row, int col) {
+        return data.get(row)[col];
+    }
+
+    /**
+     * Get the class at of the cells at the given column position.
+     *
+     * @param col The column position
+     * @return The column cells' class
+     */
+    @Override
+    public Class<?> getColumnClass(int col) {
+        switch (col) {
+            case COL_STATUS:
+            case COL_PATH:
+            case COL_TYPE:
+                return String.class;
+            case COL_ENTRIES:
+            case COL_EXPIRED:
+            case COL_EXPIRING:
+            case COL_WEAK:
+                return Integer.class;
+            case COL_EARLIEST_EXPIRY:
+                return Date.class;
+        }
+        throw new IndexOutOfBoundsException(String.valueOf(col));
+    }
+
+    /**
+     * Is the cell at the given row and column position editable?
+     *
+     * @param row The row position
+     * @param col The column position
+     * @return True if the cell is editable, false otherwise
+     */
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return false;
+    }
+
+    /**
+     *
+     * @param col The column position
+     * @return The size for the column
+     */
+    public int getColumnSize(int col) {
+        return columnSizes[col];
+    }
+}
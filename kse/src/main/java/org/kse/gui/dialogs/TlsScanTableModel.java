@@ -0,0 +1,243 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.dialogs;
+
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import org.kse.crypto.x509.X500NameUtils;
+import org.kse.gui.table.ToolTipTableModel;
+import org.kse.utilities.ssl.SslConnectionInfos;
+import org.kse.utilities.ssl.TlsScanResult;
+
+/**
+ * The table model used to display the results of a TLS endpoint scan, one row per endpoint.
+ */
+public class TlsScanTableModel extends ToolTipTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/dialogs/resources");
+
+    private static final String[] COLUMN_TOOL_TIPS = { //
+            "TlsScanTableModel.EndpointColumn.tooltip", //
+            "TlsScanTableModel.StatusColumn.tooltip", //
+            "TlsScanTableModel.ProtocolColumn.tooltip", //
+            "TlsScanTableModel.CipherSuiteColumn.tooltip", //
+            "TlsScanTableModel.SubjectColumn.tooltip", //
+            "TlsScanTableModel.IssuerColumn.tooltip", //
+            "TlsScanTableModel.ExpiryColumn.tooltip", //
+            "TlsScanTableModel.TimeColumn.tooltip" //
+    };
+
+    static final int COL_ENDPOINT = 0;
+    static final int COL_STATUS = 1;
+    static final int COL_PROTOCOL = 2;
+    static final int COL_CIPHER_SUITE = 3;
+    static final int COL_SUBJECT = 4;
+    static final int COL_ISSUER = 5;
+    static final int COL_EXPIRY = 6;
+    static final int COL_TIME = 7;
+    private static final int COLUMN_COUNT = 8;
+
+    private int[] columnSizes = { 200, 150, 70, 250, 150, 150, 140, 60 };
+    private String[] columnNames;
+    private List<Object[]> data = new ArrayList<>();
+    private List<TlsScanResult> results = new ArrayList<>();
+
+    /**
+     * Construct a new TlsScanTableModel.
+     */
+    public TlsScanTableModel() {
+        super(res, COLUMN_TOOL_TIPS);
+
+        columnNames = new String[COLUMN_COUNT];
+        columnNames[COL_ENDPOINT] = res.getString("TlsScanTableModel.EndpointColumn.text");
+        columnNames[COL_STATUS] = res.getString("TlsScanTableModel.StatusColumn.text");
+        columnNames[COL_PROTOCOL] = res.getString("TlsScanTableModel.ProtocolColumn.text");
+        columnNames[COL_CIPHER_SUITE] = res.getString("TlsScanTableModel.CipherSuiteColumn.text");
+        columnNames[COL_SUBJECT] = res.getString("TlsScanTableModel.SubjectColumn.text");
+        columnNames[COL_ISSUER] = res.getString("TlsScanTableModel.IssuerColumn.text");
+        columnNames[COL_EXPIRY] = res.getString("TlsScanTableModel.ExpiryColumn.text");
+        columnNames[COL_TIME] = res.getString("TlsScanTableModel.TimeColumn.text");
+    }
+
+    /**
+     * Remove all results.
+     */
+    public void clear() {
+        data.clear();
+        results.clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Add the result of a scanned endpoint.
+     *
+     * @param result The result
+     */
+    public void add(TlsScanResult result) {
+        Object[] row = new Object[COLUMN_COUNT];
+        row[COL_ENDPOINT] = result.getEndpoint().toString();
+        row[COL_TIME] = result.getDurationMillis();
+
+        SslConnectionInfos infos = result.getSslConnectionInfos();
+        if (infos == null) {
+            row[COL_STATUS] = result.getError();
+        } else {
+            row[COL_PROTOCOL] = infos.getProtocol();
+            row[COL_CIPHER_SUITE] = infos.getCipherSuite();
+
+            X509Certificate cert = result.getServerCertificate();
+            if (cert != null) {
+                row[COL_SUBJECT] = X500NameUtils.extractCN(cert.getSubjectX500Principal());
+                row[COL_ISSUER] = X500NameUtils.extractCN(cert.getIssuerX500Principal());
+                row[COL_EXPIRY] = cert.getNotAfter();
+
+                if (cert.getNotAfter().before(new Date())) {
+                    row[COL_STATUS] = res.getString("TlsScanTableModel.Expired");
+                } else {
+                    row[COL_STATUS] = res.getString("TlsScanTableModel.Ok");
+                }
+            } else {
+                row[COL_STATUS] = res.getString("TlsScanTableModel.NoCertificate");
+            }
+        }
+
+        data.add(row);
+        results.add(result);
+        fireTableRowsInserted(data.size() - 1, data.size() - 1);
+    }
+
+    /**
+     * Get the result displayed in a row.
+     *
+     * @param row The row position
+     * @return The result
+     */
+    public TlsScanResult getResult(int row) {
+        return results.get(row);
+    }
+
+    /**
+     * Get the number of endpoints for which the handshake failed.
+     *
+     * @return The number of failed endpoints
+     */
+    public int countFailed() {
+        int count = 0;
+        for (TlsScanResult result : results) {
+            if (result.getSslConnectionInfos() == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of columns in the table.
+     *
+     * @return The number of columns
+     */
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    /**
+     * Get the number of rows in the table.
+     *
+     * @return The number of rows
+     */
+    @Override
+    public int getRowCount() {
+        return data.size();
+    }
+
+    /**
+     * Get the name of the column at the given position.
+     *
+     * @param col The column position
+     * @return The column name
+     */
+    @Override
+    public String getColumnName(int col) {
+        return columnNames[col];
+    }
+
+    /**
+     * Get the cell value at the given row and column position.
+     *
+     * @param row The row position
+     * @param col The column position
+     * @return The cell value
+     */
+    @Override
+    public Object getValueAt(int row, int col) {
+        return data.get(row)[col];
+    }
+
+    /**
+     * Get the class at of the cells at the given column position.
+     *
+     * @param col The column position
+     * @return The column cells' class
+     */
+    @Override
+    public Class<?> getColumnClass(int col) {
+        switch (col) {
+            case COL_ENDPOINT:
+            case COL_STATUS:
+            case COL_PROTOCOL:
+            case COL_CIPHER_SUITE:
+            case COL_SUBJECT:
+            case COL_ISSUER:
+                return String.class;
+            case COL_EXPIRY:
+                return Date.class;
+            case COL_TIME:
+                return Long.class;
+        }
+        throw new IndexOutOfBoundsException(String.valueOf(col));
+    }
+
+    /**
+     * Is the cell at the given row and column position editable?
+     *
+     * @param row The row position
+     * @param col The column position
+     * @return True if the cell is editable, false otherwise
+     */
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return false;
+    }
+
+    /**
+     *
+     * @param col The column position
+     * @return The size for the column
+     */
+    public int getColumnSize(int col) {
+        return columnSizes[col];
+    }
+}
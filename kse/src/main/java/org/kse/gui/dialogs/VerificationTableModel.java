@@ -0,0 +1,233 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.dialogs;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.ResourceBundle;
+
+import org.kse.gui.table.ToolTipTableModel;
+import org.kse.utilities.verify.EntryVerificationResult;
+import org.kse.utilities.verify.VerificationStatus;
+
+/**
+ * The table model used to display the results of verifying all entries of a KeyStore, one row
+ * per entry.
+ */
+public class VerificationTableModel extends ToolTipTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/dialogs/resources");
+
+    private static final String[] COLUMN_TOOL_TIPS = { //
+            "VerificationTableModel.AliasColumn.tooltip", //
+            "VerificationTableModel.ChainColumn.tooltip", //
+            "VerificationTableModel.OcspColumn.tooltip", //
+            "VerificationTableModel.CrlColumn.tooltip", //
+            "VerificationTableModel.VerifiedColumn.tooltip" //
+    };
+
+    static final int COL_ALIAS = 0;
+    static final int COL_CHAIN = 1;
+    static final int COL_OCSP = 2;
+    static final int COL_CRL = 3;
+    static final int COL_VERIFIED = 4;
+    private static final int COLUMN_COUNT = 5;
+
+    private int[] columnSizes = { 200, 110, 110, 110, 140 };
+    private String[] columnNames;
+    private List<EntryVerificationResult> results = new ArrayList<>();
+
+    /**
+     * Construct a new VerificationTableModel.
+     */
+    public VerificationTableModel() {
+        super(res, COLUMN_TOOL_TIPS);
+
+        columnNames = new String[COLUMN_COUNT];
+        columnNames[COL_ALIAS] = res.getString("VerificationTableModel.AliasColumn.text");
+        columnNames[COL_CHAIN] = res.getString("VerificationTableModel.ChainColumn.text");
+        columnNames[COL_OCSP] = res.getString("VerificationTableModel.OcspColumn.text");
+        columnNames[COL_CRL] = res.getString("VerificationTableModel.CrlColumn.text");
+        columnNames[COL_VERIFIED] = res.getString("VerificationTableModel.VerifiedColumn.text");
+    }
+
+    /**
+     * Remove all results.
+     */
+    public void clear() {
+        results.clear();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Add the result of a verified entry.
+     *
+     * @param result The result
+     */
+    public void add(EntryVerificationResult result) {
+        results.add(result);
+        fireTableRowsInserted(results.size() - 1, results.size() - 1);
+    }
+
+    /**
+     * Get the result displayed in a row.
+     *
+     * @param row The row position
+     * @return The result
+     */
+    public EntryVerificationResult getResult(int row) {
+        return results.get(row);
+    }
+
+    /**
+     * Get the number of entries with a failed check.
+     *
+     * @return The number of entries that are not valid or are revoked
+     */
+    public int countProblems() {
+        int count = 0;
+        for (EntryVerificationResult result : results) {
+            if (isProblem(result.getChainStatus()) || isProblem(result.getOcspStatus()) ||
+                isProblem(result.getCrlStatus())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isProblem(VerificationStatus status) {
+        return status == VerificationStatus.INVALID || status == VerificationStatus.REVOKED;
+    }
+
+    /**
+     * Get the number of columns in the table.
+     *
+     * @return The number of columns
+     */
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    /**
+     * Get the number of rows in the table.
+     *
+     * @return The number of rows
+     */
+    @Override
+    public int getRowCount() {
+        return results.size();
+    }
+
+    /**
+     * Get the name of the column at the given position.
+     *
+     * @param col The column position
+     * @return The column name
+     */
+    @Override
+    public String getColumnName(int col) {
+        return columnNames[col];
+    }
+
+    /**
+     * Get the cell value at the given row and column position.
+     *
+     * @param row The row position
+     * @param col The column position
+     * @return The cell value
+     */
+    @Override
+    public Object getValueAt(int row, int col) {
+        EntryVerificationResult result = results.get(row);
+
+        switch (col) {
+            case COL_ALIAS:
+                return result.getAlias();
+            case COL_CHAIN:
+                return getStatusText(result.getChainStatus());
+            case COL_OCSP:
+                return getStatusText(result.getOcspStatus());
+            case COL_CRL:
+                return getStatusText(result.getCrlStatus());
+            case COL_VERIFIED:
+                return result.getVerified();
+        }
+        throw new IndexOutOfBoundsException(String.valueOf(col));
+    }
+
+    private static String getStatusText(VerificationStatus status) {
+        switch (status) {
+            case VALID:
+                return res.getString("VerificationTableModel.Valid");
+            case INVALID:
+                return res.getString("VerificationTableModel.Invalid");
+            case REVOKED:
+                return res.getString("VerificationTableModel.Revoked");
+            case UNAVAILABLE:
+                return res.getString("VerificationTableModel.Unavailable");
+            default:
+                return res.getString("VerificationTableModel.NotApplicable");
+        }
+    }
+
+    /**
+     * Get the class at of the cells at the given column position.
+     *
+     * @param col The column position
+     * @return The column cells' class
+     */
+    @Override
+    public Class<?> getColumnClass(int col) {
+        switch (col) {
+            case COL_ALIAS:
+            case COL_CHAIN:
+            case COL_OCSP:
+            case COL_CRL:
+                return String.class;
+            case COL_VERIFIED:
+                return Date.class;
+        }
+        throw new IndexOutOfBoundsException(String.valueOf(col));
+    }
+
+    /**
+     * Is the cell at the given row and column position editable?
+     *
+     * @param row The row position
+     * @param col The column position
+     * @return True if the cell is editable, false otherwise
+     */
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return false;
+    }
+
+    /**
+     *
+     * @param col The column position
+     * @return The size for the column
+     */
+    public int getColumnSize(int col) {
+        return columnSizes[col];
+    }
+}
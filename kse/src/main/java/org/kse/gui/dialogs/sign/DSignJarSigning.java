@@ -24,16 +24,17 @@ import java.io.File;
 import java.security.PrivateKey;
 import java.security.Provider;
 import java.security.cert.X509Certificate;
-import java.util.HashMap;
+import java.text.MessageFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
 import org.kse.crypto.digest.DigestType;
-import org.kse.crypto.signing.JarSigner;
+import org.kse.crypto.signing.JarSigningEngine;
 import org.kse.crypto.signing.SignatureType;
 import org.kse.gui.dialogs.JWaitDialog;
 import org.kse.gui.error.DError;
@@ -114,7 +115,7 @@ public class DSignJarSigning extends JWaitDialog {
     /**
      * Generates the Jar signing
      * <p>
-     * Signs the jars.
+     * Signs the jars in parallel where the key allows it (see JarSigningEngine).
      * <p>
      * Errors generated during the signing are set to the map.
      */
@@ -123,29 +124,33 @@ public class DSignJarSigning extends JWaitDialog {
         public void run() {
             try {
                 // set new hashmap
-                fileExceptions = new HashMap<>();
-                for (int i = 0; i < inputJarFiles.length; i++) {
-                    try {
-                        if (inputJarFiles[i].equals(outputJarFiles.get(i))) {
-                            JarSigner.sign(inputJarFiles[i], privateKey, certs, signatureType, signatureName, signer,
-                                           digestType, tsaUrl, provider);
-                        } else {
-                            JarSigner.sign(inputJarFiles[i], outputJarFiles.get(i), privateKey, certs, signatureType,
-                                           signatureName, signer, digestType, tsaUrl, provider);
-                        }
-                    }
-                    // Add any jar sign exceptions to the map
-                    catch (Exception e) {
-                        fileExceptions.put(inputJarFiles[i].getName(), e.toString());
-                    }
-                    updateProgress(i);
-                }
+                fileExceptions = new ConcurrentHashMap<>();
+
+                JarSigningEngine engine = new JarSigningEngine(privateKey, certs, signatureType, signatureName, signer,
+                                                               digestType, tsaUrl, provider);
+
+                engine.sign(inputJarFiles, outputJarFiles, JarSigningEngine.getDefaultParallelism(),
+                            new JarSigningEngine.SigningListener() {
+                                @Override
+                                public void jarSigned(File jarFile, int completed) {
+                                    showProgress(completed);
+                                }
+
+                                @Override
+                                public void jarFailed(File jarFile, Exception error, int completed) {
+                                    // Add any jar sign exceptions to the map
+                                    fileExceptions.put(jarFile.getName(), error.toString());
+                                    showProgress(completed);
+                                }
+                            });
 
                 SwingUtilities.invokeLater(() -> {
                     if (DSignJarSigning.this.isShowing()) {
                         closeDialog();
                     }
                 });
+            } catch (InterruptedException ex) {
+                // cancelled by user
             } catch (final Exception ex) {
                 SwingUtilities.invokeLater(() -> {
                     if (DSignJarSigning.this.isShowing()) {
@@ -157,5 +162,15 @@ public class DSignJarSigning extends JWaitDialog {
                 });
             }
         }
+
+        private void showProgress(int completed) {
+            int failed = fileExceptions.size();
+
+            SwingUtilities.invokeLater(() -> {
+                updateProgress(completed);
+                updateMessage(MessageFormat.format(res.getString("DSignJarSigning.jlSignJarProgress.text"),
+                                                   completed, inputJarFiles.length, failed));
+            });
+        }
     }
 }
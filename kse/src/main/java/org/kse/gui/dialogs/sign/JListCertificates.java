@@ -32,12 +32,12 @@ import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
 import javax.swing.RowSorter;
 import javax.swing.ScrollPaneConstants;
-import javax.swing.table.TableRowSorter;
 
 import org.kse.crypto.CryptoException;
 import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.gui.KeyStoreTableColumns;
 import org.kse.gui.KeyStoreTableModel;
+import org.kse.gui.KeyStoreTableRowSorter;
 import org.kse.gui.PlatformUtil;
 import org.kse.gui.TableColumnAdjuster;
 import org.kse.gui.preferences.PreferencesManager;
@@ -74,7 +74,7 @@ public class JListCertificates extends JPanel {
         KeyStoreTableModel ksModel = new KeyStoreTableModel(keyStoreTableColumns, preferences.getExpiryWarnDays());
 
         jtListCerts = new ToolTipTable(ksModel);
-        RowSorter<KeyStoreTableModel> sorter = new TableRowSorter<>(ksModel);
+        RowSorter<KeyStoreTableModel> sorter = new KeyStoreTableRowSorter(ksModel);
         jtListCerts.setRowSorter(sorter);
 
         jtListCerts.setShowGrid(false);
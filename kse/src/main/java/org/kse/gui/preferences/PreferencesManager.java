@@ -25,6 +25,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 
+import org.kse.crypto.revocation.RevocationDataCache;
 import org.kse.gui.components.JEscFrame;
 import org.kse.gui.KseRestart;
 import org.kse.gui.error.DError;
@@ -32,6 +33,7 @@ import org.kse.gui.preferences.data.KsePreferences;
 import org.kse.gui.preferences.json.KseJacksonJrExtension;
 import org.kse.gui.preferences.passwordmanager.EncryptedKeyStorePasswords;
 import org.kse.utilities.os.OperatingSystem;
+import org.kse.utilities.scan.KeyStoreScanCache;
 
 import com.fasterxml.jackson.jr.annotationsupport.JacksonAnnotationExtension;
 import com.fasterxml.jackson.jr.ob.JSON;
@@ -55,10 +57,14 @@ public class PreferencesManager {
     private static final String CONFIG_DOTTED_BASE_DIR = ".kse";
     private static final String CONFIG_FILE_NAME = "config.json";
     private static final String PASSWORDS_FILE_NAME = "keystore-passwords.json";
+    private static final String SCAN_CACHE_FILE_NAME = "keystore-scan-cache.json";
+    private static final String REVOCATION_CACHE_DIR_NAME = "revocation-cache";
     private static final String ENV_VAR_CONFIG_DIR = "KSE_CONFIG_DIR";
 
     private static KsePreferences ksePreferences;
     private static EncryptedKeyStorePasswords keyStorePasswords;
+    private static KeyStoreScanCache keyStoreScanCache;
+    private static RevocationDataCache revocationDataCache;
 
     // configure jackson-jr
     private static final JSON json = JSON.builder()
@@ -89,6 +95,33 @@ public class PreferencesManager {
         return keyStorePasswords;
     }
 
+    /**
+     * Returns the results of previous KeyStore scans from JSON file
+     */
+    public static KeyStoreScanCache getKeyStoreScanCache() {
+        if (keyStoreScanCache == null) {
+            keyStoreScanCache = loadKeyStoreScanCache();
+        }
+        return keyStoreScanCache;
+    }
+
+    /**
+     * Returns the cache for CRLs and OCSP responses, which is stored next to the config file
+     */
+    public static synchronized RevocationDataCache getRevocationDataCache() {
+        if (revocationDataCache == null) {
+            File directory;
+            try {
+                directory = determineRevocationCacheDirPath();
+            } catch (IOException e) {
+                directory = new File(System.getProperty("user.home"),
+                                     CONFIG_DOTTED_BASE_DIR + File.separator + REVOCATION_CACHE_DIR_NAME);
+            }
+            revocationDataCache = new RevocationDataCache(directory);
+        }
+        return revocationDataCache;
+    }
+
     private static KsePreferences loadPreferences() {
         try {
             return json.beanFrom(KsePreferences.class, determineConfigFilePath());
@@ -112,6 +145,15 @@ public class PreferencesManager {
         }
     }
 
+    private static KeyStoreScanCache loadKeyStoreScanCache() {
+        try {
+            return json.beanFrom(KeyStoreScanCache.class, determineScanCacheFilePath());
+        } catch (Exception e) {
+            // missing or unreadable cache, all KeyStores are scanned again
+            return new KeyStoreScanCache();
+        }
+    }
+
     private static File determineConfigFilePath() throws IOException {
 
         // 1. Location with the highest priority: Config dir set from outside via env var
@@ -144,6 +186,14 @@ public class PreferencesManager {
         return new File(determineConfigFilePath().getParentFile(), PASSWORDS_FILE_NAME).getCanonicalFile();
     }
 
+    private static File determineScanCacheFilePath() throws IOException {
+        return new File(determineConfigFilePath().getParentFile(), SCAN_CACHE_FILE_NAME).getCanonicalFile();
+    }
+
+    private static File determineRevocationCacheDirPath() throws IOException {
+        return new File(determineConfigFilePath().getParentFile(), REVOCATION_CACHE_DIR_NAME).getCanonicalFile();
+    }
+
     private static String getAppDataConfigDir() {
         String dir = System.getenv("APPDATA");
         if (dir == null || dir.trim().isEmpty()) {
@@ -189,4 +239,17 @@ public class PreferencesManager {
             DError.displayError(new JEscFrame(), e);
         }
     }
+
+    /**
+     * Save the results of KeyStore scans to JSON file
+     */
+    public static void persistKeyStoreScanCache() {
+        try {
+            File scanCacheFilePath = determineScanCacheFilePath();
+            scanCacheFilePath.getParentFile().mkdirs();
+            json.write(keyStoreScanCache, scanCacheFilePath);
+        } catch (Exception e) {
+            DError.displayError(new JEscFrame(), e);
+        }
+    }
 }
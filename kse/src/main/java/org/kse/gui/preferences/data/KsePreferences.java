@@ -91,6 +91,7 @@ public class KsePreferences {
     private boolean openWithExistingInstance = !OperatingSystem.isMacOs();
     // TreeMap for storing the sizes in alphabetical order
     private Map<String, Dimension> dialogSizes = new TreeMap<>();
+    private List<String> keyStoreScanDirectories = new ArrayList<>();
 
     // auto-generated getters/setters
 
@@ -425,4 +426,12 @@ public class KsePreferences {
     public void setDialogSizes(Map<String, Dimension> dialogSizes) {
         this.dialogSizes = dialogSizes;
     }
+
+    public List<String> getKeyStoreScanDirectories() {
+        return keyStoreScanDirectories;
+    }
+
+    public void setKeyStoreScanDirectories(List<String> keyStoreScanDirectories) {
+        this.keyStoreScanDirectories = keyStoreScanDirectories;
+    }
 }
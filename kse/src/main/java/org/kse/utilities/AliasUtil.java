@@ -27,6 +27,8 @@ import java.util.Set;
 import java.util.function.Function;
 
 import org.kse.crypto.CryptoException;
+import org.kse.crypto.keystore.CertificateFingerprintIndex;
+import org.kse.crypto.keystore.CopyOnWriteKeyStore;
 import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.crypto.secretkey.PasswordType;
 import org.kse.crypto.secretkey.SecretKeyType;
@@ -98,6 +100,13 @@ public final class AliasUtil {
      * @return An unique alias
      */
     public static String uniqueAlias(KseKeyStore keyStore, String alias) {
+        if (keyStore instanceof CopyOnWriteKeyStore) {
+            try {
+                return uniqueAlias(((CopyOnWriteKeyStore) keyStore).getCertificateIndex(), alias);
+            } catch (KeyStoreException e) {
+                // fall back to probing the key store
+            }
+        }
         return uniqueAlias(t -> {
             try {
                 return keyStore.containsAlias(t);
@@ -118,6 +127,26 @@ public final class AliasUtil {
         return uniqueAlias(aliases::contains, X509CertUtil.getCertificateAlias(cert));
     }
 
+    private static String uniqueAlias(CertificateFingerprintIndex index, String alias) {
+        if (StringUtils.isBlank(alias)) {
+            alias = "entry";
+        }
+
+        if (!index.containsAlias(alias)) {
+            return alias;
+        }
+
+        // continue where the last search for this alias stopped, the suffixes before are taken
+        int suffix = index.getAliasSuffixHint(alias);
+        String proposedAlias = alias + " (" + suffix + ")";
+        while (index.containsAlias(proposedAlias)) {
+            proposedAlias = alias + " (" + ++suffix + ")";
+        }
+        index.setAliasSuffixHint(alias, suffix);
+
+        return proposedAlias;
+    }
+
     private static String uniqueAlias(Function<String, Boolean> matcher, String alias) {
         if (StringUtils.isBlank(alias)) {
             alias = "entry";
@@ -24,9 +24,14 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
 
 public class StringUtils {
 
+    // DateFormat is expensive to create and not thread-safe, so each thread keeps its own instance
+    private static final ThreadLocal<CachedDateFormat> DATE_FORMAT = new ThreadLocal<>();
+
     private StringUtils() {
     }
 
@@ -100,15 +105,36 @@ public class StringUtils {
      * @return localized short/medium date time string
      */
     public static String formatDate(Date date) {
-        DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM);
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        TimeZone timeZone = TimeZone.getDefault();
+        CachedDateFormat cached = DATE_FORMAT.get();
+
+        if (cached == null || !cached.locale.equals(locale) || !cached.timeZone.equals(timeZone)) {
+            DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM);
 
-        if (dateFormat instanceof SimpleDateFormat) {
-            SimpleDateFormat sdf = (SimpleDateFormat) dateFormat;
-            // we want short date format but with 4 digit year
-            sdf.applyPattern(sdf.toPattern().replaceAll("y+", "yyyy").concat(" z"));
+            if (dateFormat instanceof SimpleDateFormat) {
+                SimpleDateFormat sdf = (SimpleDateFormat) dateFormat;
+                // we want short date format but with 4 digit year
+                sdf.applyPattern(sdf.toPattern().replaceAll("y+", "yyyy").concat(" z"));
+            }
+
+            cached = new CachedDateFormat(locale, timeZone, dateFormat);
+            DATE_FORMAT.set(cached);
         }
 
-        return dateFormat.format(date);
+        return cached.dateFormat.format(date);
+    }
+
+    private static class CachedDateFormat {
+        private final Locale locale;
+        private final TimeZone timeZone;
+        private final DateFormat dateFormat;
+
+        private CachedDateFormat(Locale locale, TimeZone timeZone, DateFormat dateFormat) {
+            this.locale = locale;
+            this.timeZone = timeZone;
+            this.dateFormat = dateFormat;
+        }
     }
 
     /**
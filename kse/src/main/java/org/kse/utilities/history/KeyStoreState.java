@@ -21,17 +21,25 @@ package org.kse.utilities.history;
 
 import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.security.KeyStoreException;
 import java.security.interfaces.DSAPrivateKey;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.bouncycastle.jce.provider.JDKDSAPrivateKey;
 import org.kse.crypto.CryptoException;
+import org.kse.crypto.keystore.CopyOnWriteKeyStore;
+import org.kse.crypto.keystore.KeyStoreEntryMetadata;
 import org.kse.crypto.keystore.KeyStoreType;
 import org.kse.crypto.keystore.KeyStoreUtil;
 import org.kse.crypto.keystore.KseKeyStore;
 import org.kse.gui.passwordmanager.Password;
+import org.kse.utilities.search.EntrySearchIndex;
+import org.kse.utilities.verify.EntryVerificationResult;
 
 /**
  * Records a single state for a KeyStore in the undo/redo history. This includes
@@ -46,7 +54,11 @@ public class KeyStoreState {
     private KseKeyStore keyStore;
     private Password password;
     private HashMap<String, Password> entryPasswords = new HashMap<>();
+    private Map<String, KeyStoreEntryMetadata> entryMetadata = new ConcurrentHashMap<>();
+    private Map<String, EntryVerificationResult> verificationResults = new ConcurrentHashMap<>();
     private boolean isStoredInPasswordManager = false;
+    private boolean keyStoreReplaced = false;
+    private EntrySearchIndex searchIndex;
     private KeyStoreState previous;
     private KeyStoreState next;
 
@@ -76,6 +88,11 @@ public class KeyStoreState {
      * @param keyStoreState State
      */
     public void append(KeyStoreState keyStoreState) {
+        // the states that could have been redone are discarded
+        for (KeyStoreState discarded = next; discarded != null; discarded = discarded.next) {
+            discarded.nullKeyStorePasswords();
+        }
+
         keyStoreState.previous = this;
         this.next = keyStoreState;
         keyStoreState.setAsCurrentState();
@@ -220,6 +237,126 @@ public class KeyStoreState {
      */
     public void setKeyStore(KseKeyStore keyStore) {
         this.keyStore = keyStore;
+        keyStoreReplaced = true;
+        searchIndex = null;
+        entryMetadata.clear();
+        verificationResults.clear();
+    }
+
+    /**
+     * Get the aliases of the entries that the action which created this state has added, changed
+     * or deleted compared to the previous state. The change set is recorded by the KeyStore snapshot
+     * of the state, so it is only known for KeyStore types that support copy-on-write snapshots.
+     *
+     * @return Changed aliases or null if they are not known, e.g. because the KeyStore was replaced
+     */
+    public Set<String> getChangedAliases() {
+        if (keyStoreReplaced || previous == null || !(keyStore instanceof CopyOnWriteKeyStore)) {
+            return null;
+        }
+        return ((CopyOnWriteKeyStore) keyStore).getChangedAliases();
+    }
+
+    /**
+     * Get the certificate metadata of an entry. Metadata of adjacent states in the history is taken
+     * over as long as the entry was not changed between the states, otherwise it is read from the
+     * KeyStore. The metadata is then cached for the lifetime of this state.
+     *
+     * @param alias The entry's alias
+     * @return The entry's metadata
+     * @throws KeyStoreException If there was a problem accessing the KeyStore
+     * @throws CryptoException   If the entry's certificates could not be read
+     */
+    public KeyStoreEntryMetadata getEntryMetadata(String alias) throws KeyStoreException, CryptoException {
+        KeyStoreEntryMetadata metadata = findInUnchangedStates(alias, state -> state.entryMetadata.get(alias));
+
+        if (metadata == null) {
+            metadata = KeyStoreEntryMetadata.create(alias, keyStore);
+        }
+        entryMetadata.put(alias, metadata);
+
+        return metadata;
+    }
+
+    /**
+     * Get the result of the last verification of an entry. Results of adjacent states in the history
+     * are used as long as the entry was not changed between the states.
+     *
+     * @param alias The entry's alias
+     * @return The result or null if the entry was not verified since it was last changed
+     */
+    public EntryVerificationResult getVerificationResult(String alias) {
+        return findInUnchangedStates(alias, state -> state.verificationResults.get(alias));
+    }
+
+    /*
+     * Looks up a value of an entry in this state, then in the previous and next states as long as
+     * the entry is unchanged between them and this state.
+     */
+    private <T> T findInUnchangedStates(String alias, Function<KeyStoreState, T> lookup) {
+        T result = lookup.apply(this);
+        if (result != null) {
+            return result;
+        }
+
+        Set<String> changedAliases;
+        KeyStoreState state = this;
+        while (state.previous != null && (changedAliases = state.getChangedAliases()) != null &&
+               !changedAliases.contains(alias)) {
+            state = state.previous;
+            if ((result = lookup.apply(state)) != null) {
+                return result;
+            }
+        }
+
+        state = this;
+        while (state.next != null && (changedAliases = state.next.getChangedAliases()) != null &&
+               !changedAliases.contains(alias)) {
+            state = state.next;
+            if ((result = lookup.apply(state)) != null) {
+                return result;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Record the result of verifying an entry in this state.
+     *
+     * @param result The result
+     */
+    public void setVerificationResult(EntryVerificationResult result) {
+        verificationResults.put(result.getAlias(), result);
+    }
+
+    /**
+     * Get the search index for the entries of this state. If an adjacent state in the history has an
+     * index and the entries changed between the states are known, that index is taken over and only
+     * updated for the changed entries. Otherwise the index is built from all entries.
+     *
+     * @return Search index
+     * @throws KeyStoreException If there was a problem accessing the KeyStore
+     */
+    public EntrySearchIndex getSearchIndex() throws KeyStoreException {
+        if (searchIndex != null) {
+            return searchIndex;
+        }
+
+        Set<String> changedAliases;
+        if (previous != null && previous.searchIndex != null && (changedAliases = getChangedAliases()) != null) {
+            searchIndex = previous.searchIndex;
+            previous.searchIndex = null;
+            searchIndex.update(this, changedAliases);
+        } else if (next != null && next.searchIndex != null && (changedAliases = next.getChangedAliases()) != null) {
+            searchIndex = next.searchIndex;
+            next.searchIndex = null;
+            searchIndex.update(this, changedAliases);
+        } else {
+            searchIndex = EntrySearchIndex.build(this);
+        }
+
+        return searchIndex;
     }
 
     /**
@@ -286,11 +423,22 @@ public class KeyStoreState {
         for (Map.Entry<String, Password> entry : entryPasswords.entrySet()) {
             entry.getValue().nullPassword();
         }
+
+        nullKeyStorePasswords();
+    }
+
+    private void nullKeyStorePasswords() {
+        // entry passwords recorded by the KeyStore snapshot for building the complete KeyStore
+        if (keyStore instanceof CopyOnWriteKeyStore) {
+            ((CopyOnWriteKeyStore) keyStore).nullPasswords();
+        }
     }
 
     /**
      * Create the basis for the next state based on this one. Makes a copy of
-     * the current state excluding its position in the history.
+     * the current state excluding its position in the history. Where the KeyStore
+     * type allows it, the KeyStore is not copied but shared with this state and
+     * only the entries changed in the next state are recorded.
      *
      * @param action The action responsible for the creation of the next state
      * @return Next state
@@ -299,7 +447,11 @@ public class KeyStoreState {
     public KeyStoreState createBasisForNextState(HistoryAction action) throws CryptoException {
         KeyStoreState copy = new KeyStoreState();
         copy.history = this.history;
-        copy.keyStore = KeyStoreUtil.copy(this.keyStore);
+        if (CopyOnWriteKeyStore.isSupported(getType())) {
+            copy.keyStore = CopyOnWriteKeyStore.snapshot(this.keyStore);
+        } else {
+            copy.keyStore = KeyStoreUtil.copy(this.keyStore);
+        }
 
         if (password != null) {
             copy.password = new Password(password); // Copy as may be cleared
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.inventory;
+
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.KeyInfo;
+import org.kse.crypto.digest.DigestType;
+import org.kse.crypto.keystore.KeyStoreEntryMetadata;
+import org.kse.crypto.keystore.KeyStoreType;
+
+/**
+ * Columns of a KeyStore inventory export. Each column has a stable name that is used as CSV
+ * header and JSON key, so that exports can be processed by scripts independent of the user's
+ * language.
+ */
+public enum InventoryColumn {
+
+    // @formatter:off
+
+    KEYSTORE("keystore", InventoryEntry::getKeyStoreName),
+    ALIAS("alias", InventoryEntry::getAlias),
+    ENTRY_TYPE("entry_type", InventoryColumn::getEntryType),
+    ALGORITHM("algorithm", keyInfo(KeyInfo::getAlgorithm)),
+    KEY_SIZE("key_size", keyInfo(KeyInfo::getSize)),
+    CURVE("curve", keyInfo(KeyInfo::getDetailedAlgorithm)),
+    VALIDITY_START("validity_start", metadata(KeyStoreEntryMetadata::getValidityStart)),
+    EXPIRY("expiry", metadata(KeyStoreEntryMetadata::getExpiry)),
+    CHAIN_EXPIRY("chain_expiry", metadata(KeyStoreEntryMetadata::getEarliestChainExpiry)),
+    LAST_MODIFIED("last_modified", InventoryColumn::getLastModified),
+    SUBJECT_DN("subject_dn", metadata(KeyStoreEntryMetadata::getSubjectDN)),
+    ISSUER_DN("issuer_dn", metadata(KeyStoreEntryMetadata::getIssuerDN)),
+    SUBJECT_CN("subject_cn", metadata(KeyStoreEntryMetadata::getSubjectCN)),
+    ISSUER_CN("issuer_cn", metadata(KeyStoreEntryMetadata::getIssuerCN)),
+    SUBJECT_O("subject_o", metadata(KeyStoreEntryMetadata::getSubjectO)),
+    ISSUER_O("issuer_o", metadata(KeyStoreEntryMetadata::getIssuerO)),
+    SERIAL_NUMBER_HEX("serial_hex", metadata(KeyStoreEntryMetadata::getSerialNumberHex)),
+    SERIAL_NUMBER_DEC("serial_dec", metadata(KeyStoreEntryMetadata::getSerialNumberDec)),
+    SKI("ski", keyIdentifier(KeyStoreEntryMetadata::getSKI)),
+    AKI("aki", keyIdentifier(KeyStoreEntryMetadata::getAKI)),
+    SHA1_FINGERPRINT("sha1_fingerprint", entry -> getFingerprint(entry, DigestType.SHA1)),
+    SHA256_FINGERPRINT("sha256_fingerprint", entry -> getFingerprint(entry, DigestType.SHA256)),
+    SUBJECT_ALT_NAMES("subject_alt_names", InventoryColumn::getSubjectAlternativeNames),
+    KEY_USAGE("key_usage", InventoryColumn::getKeyUsage),
+    EXTENDED_KEY_USAGE("extended_key_usage", InventoryColumn::getExtendedKeyUsage),
+    CHAIN_DEPTH("chain_depth", InventoryColumn::getChainDepth);
+
+    // @formatter:on
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/utilities/inventory/resources");
+
+    // Names of the key usage bits in the order of the KeyUsage BIT STRING (RFC 5280)
+    private static final String[] KEY_USAGE_NAMES = { "digitalSignature", "nonRepudiation", "keyEncipherment",
+                                                      "dataEncipherment", "keyAgreement", "keyCertSign", "cRLSign",
+                                                      "encipherOnly", "decipherOnly" };
+
+    private final String name;
+    private final ValueReader reader;
+
+    InventoryColumn(String name, ValueReader reader) {
+        this.name = name;
+        this.reader = reader;
+    }
+
+    /**
+     * Get the stable name of the column.
+     *
+     * @return Name used as CSV header and JSON key
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the value of the column for an entry. Values are strings, numbers, dates, lists of
+     * strings or null if the column does not apply to the entry.
+     *
+     * @param entry The entry
+     * @return The value
+     * @throws GeneralSecurityException If the KeyStore could not be accessed
+     * @throws CryptoException          If the value could not be derived from the entry's certificate
+     */
+    Object getValue(InventoryEntry entry) throws GeneralSecurityException, CryptoException {
+        return reader.read(entry);
+    }
+
+    /**
+     * Get the localized description of the column.
+     *
+     * @return Description
+     */
+    @Override
+    public String toString() {
+        return res.getString("InventoryColumn." + name());
+    }
+
+    @FunctionalInterface
+    private interface ValueReader {
+        Object read(InventoryEntry entry) throws GeneralSecurityException, CryptoException;
+    }
+
+    private static ValueReader metadata(Function<KeyStoreEntryMetadata, Object> getter) {
+        return entry -> entry.getMetadata() == null ? null : getter.apply(entry.getMetadata());
+    }
+
+    private static ValueReader keyInfo(Function<KeyInfo, Object> getter) {
+        return metadata(metadata -> metadata.getKeyInfo() == null ? null : getter.apply(metadata.getKeyInfo()));
+    }
+
+    private static ValueReader keyIdentifier(Function<KeyStoreEntryMetadata, String> getter) {
+        // the metadata shows missing key identifiers as "-" in the table
+        return metadata(metadata -> "-".equals(getter.apply(metadata)) ? null : getter.apply(metadata));
+    }
+
+    private static String getEntryType(InventoryEntry entry) {
+        KeyStoreEntryMetadata metadata = entry.getMetadata();
+        if (metadata == null) {
+            return null;
+        } else if (metadata.isTrustedCertificateEntry()) {
+            return "trusted_certificate";
+        } else if (metadata.isKeyPairEntry()) {
+            return "key_pair";
+        }
+        return "key";
+    }
+
+    private static Integer getChainDepth(InventoryEntry entry) {
+        X509Certificate[] chain = entry.getMetadata() == null ? null : entry.getMetadata().getCertificateChain();
+        return chain == null ? null : chain.length;
+    }
+
+    private static Object getLastModified(InventoryEntry entry) throws GeneralSecurityException {
+        // Creation dates are not stored by PKCS #11 and PKCS #12 KeyStores
+        String type = entry.getKeyStore().getType();
+        if (type.equals(KeyStoreType.PKCS12.jce()) || type.equals(KeyStoreType.PKCS11.jce())) {
+            return null;
+        }
+        return entry.getKeyStore().getCreationDate(entry.getAlias());
+    }
+
+    private static String getFingerprint(InventoryEntry entry, DigestType digestType) throws CryptoException {
+        return entry.getMetadata() == null ? null : entry.getMetadata().getFingerprint(digestType);
+    }
+
+    private static List<String> getSubjectAlternativeNames(InventoryEntry entry) throws CryptoException {
+        X509Certificate cert = getCertificate(entry);
+        if (cert == null) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        try {
+            Collection<List<?>> names = cert.getSubjectAlternativeNames();
+            if (names != null) {
+                for (List<?> name : names) {
+                    if (name.size() > 1 && name.get(1) instanceof String) {
+                        values.add((String) name.get(1));
+                    }
+                }
+            }
+        } catch (CertificateParsingException ex) {
+            throw new CryptoException(ex);
+        }
+        return values;
+    }
+
+    private static List<String> getKeyUsage(InventoryEntry entry) {
+        X509Certificate cert = getCertificate(entry);
+        if (cert == null) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        boolean[] keyUsage = cert.getKeyUsage();
+        if (keyUsage != null) {
+            for (int i = 0; i < keyUsage.length && i < KEY_USAGE_NAMES.length; i++) {
+                if (keyUsage[i]) {
+                    values.add(KEY_USAGE_NAMES[i]);
+                }
+            }
+        }
+        return values;
+    }
+
+    private static List<String> getExtendedKeyUsage(InventoryEntry entry) throws CryptoException {
+        X509Certificate cert = getCertificate(entry);
+        if (cert == null) {
+            return null;
+        }
+
+        try {
+            List<String> extendedKeyUsage = cert.getExtendedKeyUsage();
+            return extendedKeyUsage == null ? new ArrayList<>() : extendedKeyUsage;
+        } catch (CertificateParsingException ex) {
+            throw new CryptoException(ex);
+        }
+    }
+
+    private static X509Certificate getCertificate(InventoryEntry entry) {
+        return entry.getMetadata() == null ? null : entry.getMetadata().getCertificate();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.inventory;
+
+import org.kse.crypto.keystore.KeyStoreEntryMetadata;
+import org.kse.crypto.keystore.KseKeyStore;
+
+/**
+ * A single KeyStore entry as seen by the inventory columns.
+ */
+final class InventoryEntry {
+    private final String keyStoreName;
+    private final String alias;
+    private final KseKeyStore keyStore;
+    private final KeyStoreEntryMetadata metadata;
+
+    InventoryEntry(String keyStoreName, String alias, KseKeyStore keyStore, KeyStoreEntryMetadata metadata) {
+        this.keyStoreName = keyStoreName;
+        this.alias = alias;
+        this.keyStore = keyStore;
+        this.metadata = metadata;
+    }
+
+    String getKeyStoreName() {
+        return keyStoreName;
+    }
+
+    String getAlias() {
+        return alias;
+    }
+
+    KseKeyStore getKeyStore() {
+        return keyStore;
+    }
+
+    /**
+     * Get the certificate information of the entry.
+     *
+     * @return Metadata or null if the entry's certificates could not be read
+     */
+    KeyStoreEntryMetadata getMetadata() {
+        return metadata;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.inventory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.security.GeneralSecurityException;
+import java.security.KeyStoreException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.keystore.KeyStoreEntryMetadata;
+import org.kse.crypto.keystore.KseKeyStore;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+
+/**
+ * Exports an inventory of the entries of one or more KeyStores as CSV or JSON Lines.
+ * <p>
+ * Rows are read straight from the KeyStore entries and written in chunks to the supplied
+ * writer, so the memory used does not depend on the number of entries. Several KeyStores
+ * are exported in parallel; the rows of one KeyStore are in alias order, but chunks of
+ * different KeyStores may be interleaved. Every row therefore starts with the name of its
+ * KeyStore if the {@link InventoryColumn#KEYSTORE} column is selected.
+ * <p>
+ * CSV files start with a header line of the stable column names, dates are written as
+ * {@code yyyy-MM-dd HH:mm:ss} in the local time zone and missing values as empty fields.
+ * JSON Lines rows contain dates as ISO-8601 instants and missing values as {@code null}.
+ * <p>
+ * Entries whose certificates cannot be read are exported with their KeyStore and alias only.
+ * The key algorithm and size of key entries without certificate are not exported, as this
+ * would require the entry's password.
+ */
+public class InventoryExporter {
+
+    // Characters collected per KeyStore before they are handed to the shared writer
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int PROGRESS_INTERVAL = 100;
+
+    // Same fixed pattern in the local time zone as the previous table export, independent of the locale
+    private static final DateTimeFormatter CSV_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                                                                              .withZone(ZoneId.systemDefault());
+
+    private static final JSON json = JSON.std;
+
+    private final List<InventoryColumn> columns;
+    private final InventoryFormat format;
+    private final char csvSeparator;
+    private final int threads;
+
+    /**
+     * Construct exporter.
+     *
+     * @param columns      Columns to export in this order
+     * @param format       Format of the export
+     * @param csvSeparator Separator of the CSV values, ignored for JSON Lines
+     * @param threads      Maximum number of KeyStores exported at the same time
+     */
+    public InventoryExporter(List<InventoryColumn> columns, InventoryFormat format, char csvSeparator, int threads) {
+        this.columns = new ArrayList<>(columns);
+        this.format = format;
+        this.csvSeparator = csvSeparator;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Export the entries of the supplied KeyStores. The writer is flushed but not closed.
+     *
+     * @param keyStores KeyStores by the name used in the KEYSTORE column
+     * @param writer    Writer for the export
+     * @param progress  Receives the number of entries exported so far, called from the export threads
+     * @return Number of exported entries
+     * @throws IOException          If writing failed
+     * @throws KeyStoreException    If a KeyStore could not be accessed
+     * @throws InterruptedException If the export was cancelled
+     */
+    public int export(Map<String, KseKeyStore> keyStores, Writer writer, IntConsumer progress)
+            throws IOException, KeyStoreException, InterruptedException {
+        if (format == InventoryFormat.CSV) {
+            StringBuilder header = new StringBuilder();
+            for (int i = 0; i < columns.size(); i++) {
+                appendCsvValue(header, columns.get(i).getName(), i);
+            }
+            writer.write(header.append(System.lineSeparator()).toString());
+        }
+
+        AtomicInteger exported = new AtomicInteger();
+
+        if (!keyStores.isEmpty()) {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, keyStores.size()), runnable -> {
+                Thread thread = new Thread(runnable, "kse-inventory");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (Map.Entry<String, KseKeyStore> keyStore : keyStores.entrySet()) {
+                    futures.add(executor.submit(() -> {
+                        exportKeyStore(keyStore.getKey(), keyStore.getValue(), writer, exported, progress);
+                        return null;
+                    }));
+                }
+
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof KeyStoreException) {
+                    throw (KeyStoreException) cause;
+                } else if (cause instanceof InterruptedException) {
+                    throw (InterruptedException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        writer.flush();
+
+        return exported.get();
+    }
+
+    private void exportKeyStore(String name, KseKeyStore keyStore, Writer writer, AtomicInteger exported,
+                                IntConsumer progress)
+            throws IOException, GeneralSecurityException, CryptoException, InterruptedException {
+        List<String> aliases = Collections.list(keyStore.aliases());
+        Collections.sort(aliases);
+
+        StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 1024);
+
+        for (String alias : aliases) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            appendRow(chunk, new InventoryEntry(name, alias, keyStore, readMetadata(alias, keyStore)));
+
+            if (chunk.length() >= CHUNK_SIZE) {
+                write(writer, chunk);
+            }
+
+            int count = exported.incrementAndGet();
+            if (count % PROGRESS_INTERVAL == 0) {
+                progress.accept(count);
+            }
+        }
+
+        write(writer, chunk);
+        progress.accept(exported.get());
+    }
+
+    private static KeyStoreEntryMetadata readMetadata(String alias, KseKeyStore keyStore) throws KeyStoreException {
+        try {
+            return KeyStoreEntryMetadata.create(alias, keyStore);
+        } catch (CryptoException ex) {
+            // certificates cannot be read, only the alias is exported
+            return null;
+        }
+    }
+
+    private static void write(Writer writer, StringBuilder chunk) throws IOException {
+        if (chunk.length() > 0) {
+            synchronized (writer) {
+                writer.append(chunk);
+            }
+            chunk.setLength(0);
+        }
+    }
+
+    private void appendRow(StringBuilder sb, InventoryEntry entry)
+            throws IOException, GeneralSecurityException, CryptoException {
+        if (format == InventoryFormat.CSV) {
+            for (int i = 0; i < columns.size(); i++) {
+                appendCsvValue(sb, formatCsvValue(columns.get(i).getValue(entry)), i);
+            }
+            sb.append(System.lineSeparator());
+        } else {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (InventoryColumn column : columns) {
+                Object value = column.getValue(entry);
+                row.put(column.getName(), value instanceof Date ? ((Date) value).toInstant().toString() : value);
+            }
+            sb.append(json.asString(row)).append('\n');
+        }
+    }
+
+    private void appendCsvValue(StringBuilder sb, String value, int column) {
+        if (column > 0) {
+            sb.append(csvSeparator);
+        }
+        sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static String formatCsvValue(Object value) {
+        if (value == null) {
+            return "";
+        } else if (value instanceof Date) {
+            return CSV_DATE_FORMAT.format(((Date) value).toInstant());
+        } else if (value instanceof List) {
+            StringJoiner joiner = new StringJoiner(", ");
+            for (Object element : (List<?>) value) {
+                joiner.add(String.valueOf(element));
+            }
+            return joiner.toString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.inventory;
+
+import java.util.ResourceBundle;
+
+/**
+ * File formats of a KeyStore inventory export.
+ */
+public enum InventoryFormat {
+
+    /**
+     * Comma (or semicolon) separated values with a header line
+     */
+    CSV("csv"),
+
+    /**
+     * One JSON object per line (JSON Lines)
+     */
+    JSON_LINES("jsonl");
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/utilities/inventory/resources");
+
+    private final String extension;
+
+    InventoryFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Get the usual file extension of the format.
+     *
+     * @return File extension without dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Get the localized description of the format.
+     *
+     * @return Description
+     */
+    @Override
+    public String toString() {
+        return res.getString("InventoryFormat." + name());
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An output stream that replaces a file atomically.
+ * <p>
+ * Data is written (buffered) to a temporary file in the same directory as the target file.
+ * On {@link #commit()} the temporary file is flushed to disk and then moved over the target
+ * file in a single step, so the target file is never seen truncated or half-written, even
+ * if the application crashes or the disk runs full while writing. Closing the stream without
+ * committing discards the temporary file and leaves the target file untouched.
+ * <p>
+ * The POSIX permissions of an existing target file are kept. Symbolic links are followed,
+ * i.e. the file the link points to is replaced.
+ */
+public class AtomicFileOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<Consumer<Path>> commitListeners = new CopyOnWriteArrayList<>();
+
+    private final Path file;
+    private final Path target;
+    private final Path tempFile;
+    private final FileOutputStream fos;
+    private final OutputStream out;
+    private boolean committed;
+    private boolean closed;
+
+    /**
+     * Create a stream for replacing the supplied file.
+     *
+     * @param file The file to write
+     * @throws IOException If the temporary file could not be created
+     */
+    public AtomicFileOutputStream(File file) throws IOException {
+        this.file = file.toPath();
+
+        Path path = file.toPath().toAbsolutePath();
+        target = Files.isSymbolicLink(path) ? path.toRealPath() : path;
+
+        tempFile = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+        try {
+            copyPermissions(target, tempFile);
+            fos = new FileOutputStream(tempFile.toFile());
+        } catch (IOException ex) {
+            Files.deleteIfExists(tempFile);
+            throw ex;
+        }
+        out = new BufferedOutputStream(fos, BUFFER_SIZE);
+    }
+
+    /**
+     * Add a listener that is notified with the path of the target file (as supplied to the
+     * constructor) after it was replaced. Listeners are called on the committing thread.
+     *
+     * @param listener The listener
+     */
+    public static void addCommitListener(Consumer<Path> listener) {
+        commitListeners.add(listener);
+    }
+
+    /**
+     * Remove a listener that was added with {@link #addCommitListener(Consumer)}.
+     *
+     * @param listener The listener
+     */
+    public static void removeCommitListener(Consumer<Path> listener) {
+        commitListeners.remove(listener);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flush all data to disk and replace the target file with it. The stream is closed afterwards.
+     *
+     * @throws IOException If the data could not be written or the target file could not be replaced
+     */
+    public void commit() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        try {
+            out.flush();
+            fos.getFD().sync();
+        } finally {
+            closed = true;
+            out.close();
+        }
+
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            Files.deleteIfExists(tempFile);
+            throw ex;
+        }
+        committed = true;
+
+        syncDirectory(target.getParent());
+
+        for (Consumer<Path> listener : commitListeners) {
+            listener.accept(file);
+        }
+    }
+
+    /**
+     * Close the stream. If it was not committed, the temporary file is deleted.
+     *
+     * @throws IOException If the temporary file could not be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+
+        try {
+            if (!closed) {
+                closed = true;
+                out.close();
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void copyPermissions(Path from, Path to) {
+        try {
+            if (Files.exists(from)) {
+                Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+            }
+        } catch (UnsupportedOperationException | IOException ex) {
+            // not a POSIX file system or permissions cannot be read - keep the defaults
+        }
+    }
+
+    private static void syncDirectory(Path dir) {
+        // makes the rename durable on POSIX systems, not supported on Windows
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // ignore, the data itself has already been synced
+        }
+    }
+}
@@ -17,20 +17,24 @@
  * You should have received a copy of the GNU General Public License
  * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
  */
-
 package org.kse.utilities.io;
 
 import java.io.IOException;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javax.swing.SwingUtilities;
 
@@ -40,6 +44,17 @@ import org.kse.utilities.history.KeyStoreHistory;
 /**
  * A Singleton for watching directories containing KeyStore files. File-based KeyStoreTypes
  * register when the backing file exists and unregister when the KeyStore is closed.
+ * <p>
+ * Events are coalesced per file: a file is only examined once no event arrived for it for
+ * {@value #DEBOUNCE_MILLIS} ms, so that a file written in several chunks leads to a single
+ * check. A file only counts as externally modified if its content differs from the state
+ * when it was loaded, saved or last reloaded (see {@link FileState}). Therefore, writes by
+ * KSE itself through an {@link AtomicFileOutputStream}, touched files and events for other
+ * files in the same directory do not trigger a reload.
+ * <p>
+ * Each directory is registered once, no matter how many KeyStores it contains, and its
+ * registration is cancelled when the last of them is closed. Directories that become
+ * inaccessible (e.g. deleted and recreated) are registered again as soon as possible.
  */
 public enum AutoReloadWatcher {
 
@@ -48,12 +63,23 @@ public enum AutoReloadWatcher {
      */
     INSTANCE;
 
+    private static final long DEBOUNCE_MILLIS = 500;
+    private static final long REREGISTER_MILLIS = 5000;
+
     private KseFrame kseFrame;
     private WatchService ws;
     private Thread watchThread;
 
-    private Set<Path> watchedDirs = new HashSet<>();
-    private Map<Path, KeyStoreHistory> keyStoreFiles = new HashMap<>();
+    private Map<Path, WatchKey> watchedDirs = new ConcurrentHashMap<>();
+    private Set<Path> invalidDirs = ConcurrentHashMap.newKeySet();
+    private Map<Path, KeyStoreHistory> keyStoreFiles = new ConcurrentHashMap<>();
+    private Map<Path, FileState> fileStates = new ConcurrentHashMap<>();
+
+    // only accessed by the watch thread, ordered by time of the last event
+    private Map<Path, Long> pendingFiles = new LinkedHashMap<>();
+    private long lastReregistration;
+
+    private final Consumer<Path> commitListener = this::fileWritten;
 
     /**
      * Starts the file watch service.
@@ -68,6 +94,10 @@ public enum AutoReloadWatcher {
             watchThread = new Thread(this::eventHandler, "kse-ws-listener");
             watchThread.setDaemon(true);
             watchThread.start();
+
+            // a restarted watcher must not be notified twice
+            AtomicFileOutputStream.removeCommitListener(commitListener);
+            AtomicFileOutputStream.addCommitListener(commitListener);
         } catch (IOException e) {
             // Silently ignore - There is nothing the user can do if the
             // watch service cannot be started.
@@ -76,19 +106,19 @@ public enum AutoReloadWatcher {
 
     /**
      * Registers a KeyStoreHistory with the automatic KeyStore file watcher for detecting
-     * external modifications.
+     * external modifications. The current state of the file is remembered as the loaded
+     * state.
      *
      * @param history The KeyStoryHistory to register.
      */
     public void register(KeyStoreHistory history) {
         if (ws != null) {
+            Path path = history.getFile().toPath().toAbsolutePath();
+            keyStoreFiles.put(path, history);
+            rememberState(path);
+
             try {
-                Path parentPath = history.getFile().getParentFile().toPath();
-                if (!watchedDirs.contains(parentPath)) {
-                    parentPath.register(ws, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
-                    watchedDirs.add(parentPath);
-                }
-                keyStoreFiles.put(history.getFile().toPath(), history);
+                registerDirectory(path.getParent());
             } catch (IOException e) {
                 // Silently ignore - There is nothing the user can do if the
                 // KeyStore directory cannot be registered with the WatchService.
@@ -103,31 +133,166 @@ public enum AutoReloadWatcher {
      * @param history The KeyStoreHistory to unregister.
      */
     public void unregister(KeyStoreHistory history) {
-        keyStoreFiles.remove(history.getFile().toPath());
+        Path path = history.getFile().toPath().toAbsolutePath();
+        keyStoreFiles.remove(path);
+        fileStates.remove(path);
+        unregisterDirectory(path.getParent());
     }
 
-    private void eventHandler() {
+    private synchronized void registerDirectory(Path dir) throws IOException {
+        if (!watchedDirs.containsKey(dir)) {
+            // files replaced by a rename (like KSE's own saves) only produce ENTRY_CREATE
+            WatchKey key = dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE,
+                                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirs.put(dir, key);
+            invalidDirs.remove(dir);
+        }
+    }
+
+    private synchronized void unregisterDirectory(Path dir) {
+        if (keyStoreFiles.keySet().stream().noneMatch(path -> dir.equals(path.getParent()))) {
+            WatchKey key = watchedDirs.remove(dir);
+            if (key != null) {
+                key.cancel();
+            }
+            invalidDirs.remove(dir);
+        }
+    }
+
+    private synchronized void reregisterInvalidDirectories() {
+        for (Path dir : invalidDirs) {
+            try {
+                registerDirectory(dir);
+
+                // changes while the directory was not watched are only detected by comparing
+                for (Path path : keyStoreFiles.keySet()) {
+                    if (dir.equals(path.getParent())) {
+                        schedule(path);
+                    }
+                }
+            } catch (IOException e) {
+                // still inaccessible, try again later
+            }
+        }
+    }
+
+    private void fileWritten(Path path) {
+        Path absolutePath = path.toAbsolutePath();
+        if (keyStoreFiles.containsKey(absolutePath)) {
+            rememberState(absolutePath);
+        }
+    }
+
+    private void rememberState(Path path) {
+        try {
+            fileStates.put(path, FileState.of(path));
+        } catch (IOException e) {
+            fileStates.remove(path);
+        }
+    }
+
+    /*
+     * Compares the file with its last known state and remembers the new state if the content
+     * changed. Deleted files are not considered as changed, the watcher waits until they
+     * are created again.
+     */
+    private boolean hasContentChanged(Path path) {
+        FileState known = fileStates.get(path);
+        try {
+            if (known != null && known.isUntouched(Files.readAttributes(path, BasicFileAttributes.class))) {
+                return false;
+            }
+
+            FileState current = FileState.of(path);
+            fileStates.put(path, current);
+            return known == null || !known.hasSameContent(current);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void schedule(Path path) {
+        // re-insert so that the map stays ordered by the time of the last event
+        pendingFiles.remove(path);
+        pendingFiles.put(path, System.currentTimeMillis());
+    }
+
+    private void collectEvents(WatchKey key) {
         // The key represents the directory.
+        Path dir = (Path) key.watchable();
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, check all KeyStores in the directory
+                for (Path path : keyStoreFiles.keySet()) {
+                    if (dir.equals(path.getParent())) {
+                        schedule(path);
+                    }
+                }
+            } else {
+                // event.context() contains the relative path (i.e. name of the file that was modified).
+                Path path = dir.resolve((Path) event.context());
+                if (keyStoreFiles.containsKey(path)) {
+                    schedule(path);
+                }
+            }
+        }
+
+        if (!key.reset() && watchedDirs.remove(dir, key)) {
+            // the directory was deleted or became inaccessible
+            invalidDirs.add(dir);
+        }
+    }
+
+    private void processQuietFiles() {
+        long now = System.currentTimeMillis();
+
+        for (Iterator<Map.Entry<Path, Long>> it = pendingFiles.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Long> pending = it.next();
+            if (now - pending.getValue() < DEBOUNCE_MILLIS) {
+                // all following files had more recent events
+                break;
+            }
+            it.remove();
+
+            Path path = pending.getKey();
+            KeyStoreHistory history = keyStoreFiles.get(path);
+
+            // Don't trigger the update if it's already flagged for update
+            if (history != null && !history.isSuppressWatcherEvents() && !history.isExternallyModified() &&
+                hasContentChanged(path)) {
+                history.setExternallyModified(true);
+
+                SwingUtilities.invokeLater(() -> {
+                    kseFrame.handleExternalModification(history);
+                });
+            }
+        }
+    }
+
+    private long getPollTimeout() {
+        if (!pendingFiles.isEmpty()) {
+            long oldestEvent = pendingFiles.values().iterator().next();
+            return Math.max(1, oldestEvent + DEBOUNCE_MILLIS - System.currentTimeMillis());
+        }
+        return invalidDirs.isEmpty() ? -1 : REREGISTER_MILLIS;
+    }
+
+    private void eventHandler() {
         while (true) {
             try {
-                WatchKey key = ws.take();
-                Path dir = (Path) key.watchable();
-
-                for (WatchEvent<?> event : key.pollEvents()) {
-                    // event.context() contains the relative path (i.e. name of the file that was modified).
-                    KeyStoreHistory history = keyStoreFiles.get(dir.resolve((Path) event.context()));
-                    if (history != null) {
-                        // Don't trigger the update if it's already flagged for update
-                        if (!history.isSuppressWatcherEvents() && !history.isExternallyModified()) {
-                            history.setExternallyModified(true);
-
-                            SwingUtilities.invokeLater(() -> {
-                                kseFrame.handleExternalModification(history);
-                            });
-                        }
-                    }
+                long timeout = getPollTimeout();
+                WatchKey key = timeout < 0 ? ws.take() : ws.poll(timeout, TimeUnit.MILLISECONDS);
+
+                if (key != null) {
+                    collectEvents(key);
+                }
+                processQuietFiles();
+
+                if (!invalidDirs.isEmpty() && System.currentTimeMillis() - lastReregistration >= REREGISTER_MILLIS) {
+                    lastReregistration = System.currentTimeMillis();
+                    reregisterInvalidDirectories();
                 }
-                key.reset();
             } catch (InterruptedException e) {
                 // Ignore -- just keep taking in case the thread is interrupted
             }
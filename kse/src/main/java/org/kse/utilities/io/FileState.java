@@ -0,0 +1,89 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.CRC32C;
+
+/**
+ * Modification time, size and content checksum of a file at some point in time.
+ * <p>
+ * Comparing the modification time and size is cheap and detects untouched files. A file
+ * that was touched, or rewritten with the same bytes, has a different modification time but
+ * the same size and checksum, so it does not count as changed.
+ */
+record FileState(FileTime lastModified, long size, long checksum) {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Read the current state of a file.
+     *
+     * @param path The file
+     * @return The file state
+     * @throws IOException If the file could not be read
+     */
+    static FileState of(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new FileState(attributes.lastModifiedTime(), attributes.size(), checksum(path));
+    }
+
+    /**
+     * Is the file untouched since this state was read, i.e. are modification time and size
+     * still the same?
+     *
+     * @param attributes Current attributes of the file
+     * @return True if untouched
+     */
+    boolean isUntouched(BasicFileAttributes attributes) {
+        return lastModified.equals(attributes.lastModifiedTime()) && size == attributes.size();
+    }
+
+    /**
+     * Does the supplied state have the same content as this one?
+     *
+     * @param other Other state of the same file
+     * @return True if size and checksum are equal
+     */
+    boolean hasSameContent(FileState other) {
+        return size == other.size && checksum == other.checksum;
+    }
+
+    private static long checksum(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.net;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread-safe cache with a maximum size whose entries expire after a fixed time to live.
+ * When the cache is full, the least recently used entry is removed.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+class ExpiringCache<K, V> {
+
+    private final long timeToLiveMillis;
+    private final Clock clock;
+    private final Map<K, Expiring<V>> entries;
+
+    private record Expiring<V>(V value, long expiry) {
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param maxSize    Maximum number of entries
+     * @param timeToLive Time after which entries expire
+     */
+    ExpiringCache(int maxSize, Duration timeToLive) {
+        this(maxSize, timeToLive, Clock.systemUTC());
+    }
+
+    /**
+     * Create a cache that uses the supplied clock, for overriding the current time in unit tests.
+     *
+     * @param maxSize    Maximum number of entries
+     * @param timeToLive Time after which entries expire
+     * @param clock      Clock
+     */
+    ExpiringCache(int maxSize, Duration timeToLive, Clock clock) {
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Expiring<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Expiring<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get a cached value.
+     *
+     * @param key Key
+     * @return The value or null if there is none or it has expired
+     */
+    synchronized V get(K key) {
+        Expiring<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.millis() >= entry.expiry()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * Add a value to the cache.
+     *
+     * @param key   Key
+     * @param value Value
+     */
+    synchronized void put(K key, V value) {
+        entries.put(key, new Expiring<>(value, clock.millis() + timeToLiveMillis));
+    }
+
+    /**
+     * Remove all entries.
+     */
+    synchronized void clear() {
+        entries.clear();
+    }
+}
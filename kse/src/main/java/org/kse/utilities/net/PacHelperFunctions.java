@@ -24,6 +24,7 @@ package org.kse.utilities.net;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -51,6 +52,9 @@ public class PacHelperFunctions {
     static final List<String> MONTHS = Arrays.asList("JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP",
             "OCT", "NOV", "DEC");
 
+    // PAC scripts typically resolve the host of every URL, unresolvable hosts would block each time
+    private static final ExpiringCache<String, String> dnsCache = new ExpiringCache<>(256, Duration.ofMinutes(1));
+
     private PacHelperFunctions() {
         // hide default c-tor
     }
@@ -98,6 +102,7 @@ public class PacHelperFunctions {
 
     /**
      * Resolves the given DNS hostname into an IPv4 address, and returns it in the dot separated format as a string.
+     * Results, including failures, are cached for a minute.
      *
      * @param host A host name
      * @return The resolved IPv4 address for the given hostname or an empty string if an error has occurred
@@ -106,11 +111,16 @@ public class PacHelperFunctions {
         if (StringUtils.isBlank(host)) {
             return "";
         }
-        try {
-            return InetAddress.getByName(host).getHostAddress();
-        } catch (UnknownHostException e) {
-            return "";
+        String address = dnsCache.get(host);
+        if (address == null) {
+            try {
+                address = InetAddress.getByName(host).getHostAddress();
+            } catch (UnknownHostException e) {
+                address = "";
+            }
+            dnsCache.put(host, address);
         }
+        return address;
     }
 
     /**
@@ -45,28 +45,53 @@ import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.text.MessageFormat;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.StringTokenizer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.mozilla.javascript.BaseFunction;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 
 /**
  * Proxy Selector for Proxy Automatic Configuration (PAC).
+ * <p>
+ * The results of the PAC script are cached for a few minutes. If the script does not use the
+ * URL parameter of FindProxyForURL (most scripts only look at the host), results are cached per
+ * scheme, host and port, otherwise per URI. The script is executed in a small pool of scopes so
+ * that concurrent requests (OCSP, CRL, TSA, update checks) do not share the script's globals.
  */
 public class PacProxySelector extends ProxySelector {
     private static final ResourceBundle res = ResourceBundle.getBundle("org/kse/utilities/net/resources");
 
-    private Scriptable pacScope;
+    private static final int MAX_CACHED_RESULTS = 512;
+    private static final Duration RESULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final int MAX_POOLED_SCOPES = 4;
+
+    private static final Pattern FIND_PROXY_FOR_URL_DECLARATION =
+            Pattern.compile("function\\s+FindProxyForURL\\s*\\(\\s*([\\w$]+)");
+
+    private static final Pattern IMPLICIT_PARAMETER_ACCESS = Pattern.compile("(?<![\\w$.])(arguments|eval)(?![\\w$])");
+
     private final URI pacURI;
-    private final Map<URI, List<Proxy>> uriToProxiesCache = new HashMap<>();
+    private final ExpiringCache<String, List<Proxy>> proxiesCache =
+            new ExpiringCache<>(MAX_CACHED_RESULTS, RESULT_TIME_TO_LIVE);
+
+    private Script pacScript;
+    private boolean usesUrl;
+    private final BlockingQueue<Scriptable> idleScopes = new ArrayBlockingQueue<>(MAX_POOLED_SCOPES);
+    private int scopeCount;
 
 
     /**
@@ -93,23 +118,25 @@ public class PacProxySelector extends ProxySelector {
      */
     @Override
     public List<Proxy> select(URI uri) {
-        if (pacScope == null) {
-            try {
-                pacScope = compilePacScript(loadPacScript(pacURI));
-            } catch (PacProxyException ex) {
-                ex.printStackTrace();
-                return singletonList(Proxy.NO_PROXY);
-            }
+        try {
+            initPacScript();
+        } catch (PacProxyException ex) {
+            ex.printStackTrace();
+            return singletonList(Proxy.NO_PROXY);
         }
 
-        if (uriToProxiesCache.containsKey(uri)) {
-            return uriToProxiesCache.get(uri);
+        String cacheKey = getCacheKey(uri);
+        List<Proxy> cachedProxies = proxiesCache.get(cacheKey);
+        if (cachedProxies != null) {
+            return cachedProxies;
         }
 
         String pacFunctionReturn = null;
+        Scriptable pacScope = null;
 
         try (Context cx = Context.enter()) {
             cx.setClassShutter(className -> false);
+            pacScope = acquireScope(cx);
             Object func = ScriptableObject.getProperty(pacScope, "FindProxyForURL");
 
             if (func instanceof Function) {
@@ -117,9 +144,17 @@ public class PacProxySelector extends ProxySelector {
                 Object result = ((Function) func).call(cx, pacScope, pacScope, args);
                 pacFunctionReturn = Context.toString(result);
             }
+        } catch (InterruptedException ex) {
+            // waiting for a scope was interrupted, keep the interrupt for the caller
+            Thread.currentThread().interrupt();
+            return singletonList(Proxy.NO_PROXY);
         } catch (Exception ex) {
             ex.printStackTrace();
             return singletonList(Proxy.NO_PROXY);
+        } finally {
+            if (pacScope != null) {
+                idleScopes.offer(pacScope);
+            }
         }
 
         if (pacFunctionReturn == null) {
@@ -132,11 +167,100 @@ public class PacProxySelector extends ProxySelector {
             proxies.add(Proxy.NO_PROXY);
         }
 
-        uriToProxiesCache.put(uri, proxies);
+        proxies = Collections.unmodifiableList(proxies);
+        proxiesCache.put(cacheKey, proxies);
 
         return proxies;
     }
 
+    private synchronized void initPacScript() throws PacProxyException {
+        if (pacScript == null) {
+            String script = loadPacScript(pacURI);
+
+            try (Context cx = Context.enter()) {
+                cx.setClassShutter(className -> false);
+                Script compiledScript = cx.compileString(script, "pac", 1, null);
+
+                // run the script once to detect errors early, the scope becomes the first pooled scope
+                idleScopes.offer(createScope(cx, compiledScript));
+                scopeCount = 1;
+
+                pacScript = compiledScript;
+                usesUrl = usesUrlParameter(script);
+            } catch (Exception ex) {
+                throw new PacProxyException(res.getString("NoCompilePacScript.exception.message"), ex);
+            }
+        }
+    }
+
+    private String getCacheKey(URI uri) {
+        if (usesUrl || uri.getHost() == null) {
+            return uri.toString();
+        }
+        return uri.getScheme() + "://" + uri.getHost().toLowerCase(Locale.ROOT) + ":" + uri.getPort();
+    }
+
+    /*
+     * Checks if the first parameter of FindProxyForURL appears anywhere else in the script. If the
+     * declaration cannot be found or the script uses "arguments" or "eval", which can read the URL
+     * without naming the parameter, the script is assumed to use the URL.
+     */
+    static boolean usesUrlParameter(String pacScript) {
+        Matcher matcher = FIND_PROXY_FOR_URL_DECLARATION.matcher(pacScript);
+        if (!matcher.find() || IMPLICIT_PARAMETER_ACCESS.matcher(pacScript).find()) {
+            return true;
+        }
+
+        Matcher usages = Pattern.compile("(?<![\\w$.])" + Pattern.quote(matcher.group(1)) + "(?![\\w$])")
+                                .matcher(pacScript);
+        int count = 0;
+        while (usages.find()) {
+            count++;
+        }
+        return count > 1;
+    }
+
+    /*
+     * Takes an idle scope from the pool or creates a new one if the pool is not yet full. Each
+     * scope is used by one thread at a time, as PAC scripts may keep state in global variables.
+     */
+    private Scriptable acquireScope(Context cx) throws InterruptedException {
+        Scriptable scope = idleScopes.poll();
+        if (scope != null) {
+            return scope;
+        }
+
+        synchronized (this) {
+            if (scopeCount < MAX_POOLED_SCOPES) {
+                Scriptable newScope = createScope(cx, pacScript);
+                scopeCount++;
+                return newScope;
+            }
+        }
+        return idleScopes.take();
+    }
+
+    private Scriptable createScope(Context cx, Script script) {
+        Scriptable scope = cx.initStandardObjects();
+
+        put(scope, "alert", args -> { alert(argAsString(args, 0, "")); return Context.getUndefinedValue(); });
+        put(scope, "dnsDomainIs", args -> dnsDomainIs(argAsString(args, 0), argAsString(args, 1)));
+        put(scope, "dnsDomainLevels", args -> dnsDomainLevels(argAsString(args, 0)));
+        put(scope, "dnsResolve", args -> dnsResolve(argAsString(args, 0)));
+        put(scope, "isResolvable", args -> isResolvable(argAsString(args, 0)));
+        put(scope, "myIpAddress", args -> myIpAddress());
+        put(scope, "isPlainHostName", args -> isPlainHostName(argAsString(args, 0)));
+        put(scope, "localHostOrDomainIs", args -> localHostOrDomainIs(argAsString(args, 0), argAsString(args, 1)));
+        put(scope, "shExpMatch", args -> shExpMatch(argAsString(args, 0), argAsString(args, 1, "")));
+        put(scope, "isInNet", args -> isInNet(argAsString(args, 0), argAsString(args, 1), argAsString(args, 2)));
+        put(scope, "dateRange", args -> dateRange(args));
+        put(scope, "weekdayRange", args -> weekdayRange(args));
+        put(scope, "timeRange", args -> timeRange(args));
+
+        script.exec(cx, scope);
+        return scope;
+    }
+
     private String loadPacScript(URI pacURI) throws PacProxyException {
         URLConnection connection = null;
 
@@ -183,32 +307,6 @@ public class PacProxySelector extends ProxySelector {
         });
     }
 
-    private Scriptable compilePacScript(String pacScript) throws PacProxyException {
-        try (Context cx = Context.enter()) {
-            cx.setClassShutter(className -> false);
-            Scriptable scope = cx.initStandardObjects();
-
-            put(scope, "alert", args -> { alert(argAsString(args, 0, "")); return Context.getUndefinedValue(); });
-            put(scope, "dnsDomainIs", args -> dnsDomainIs(argAsString(args, 0), argAsString(args, 1)));
-            put(scope, "dnsDomainLevels", args -> dnsDomainLevels(argAsString(args, 0)));
-            put(scope, "dnsResolve", args -> dnsResolve(argAsString(args, 0)));
-            put(scope, "isResolvable", args -> isResolvable(argAsString(args, 0)));
-            put(scope, "myIpAddress", args -> myIpAddress());
-            put(scope, "isPlainHostName", args -> isPlainHostName(argAsString(args, 0)));
-            put(scope, "localHostOrDomainIs", args -> localHostOrDomainIs(argAsString(args, 0), argAsString(args, 1)));
-            put(scope, "shExpMatch", args -> shExpMatch(argAsString(args, 0), argAsString(args, 1, "")));
-            put(scope, "isInNet", args -> isInNet(argAsString(args, 0), argAsString(args, 1), argAsString(args, 2)));
-            put(scope, "dateRange", args -> dateRange(args));
-            put(scope, "weekdayRange", args -> weekdayRange(args));
-            put(scope, "timeRange", args -> timeRange(args));
-
-            cx.evaluateString(scope, pacScript, "pac", 1, null);
-            return scope;
-        } catch (Exception ex) {
-            throw new PacProxyException(res.getString("NoCompilePacScript.exception.message"), ex);
-        }
-    }
-
     private List<Proxy> parsePacProxies(String pacFunctionReturn) {
         ArrayList<Proxy> proxies = new ArrayList<>();
 
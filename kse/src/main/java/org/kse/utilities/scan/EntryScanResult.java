@@ -0,0 +1,97 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expiry and algorithm information about a single entry of a scanned KeyStore.
+ * <p>
+ * This is written to a JSON file as part of the KeyStore scan cache.
+ */
+public class EntryScanResult {
+    private String alias;
+    private String entryType;
+    private String algorithm;
+    private Integer keySize;
+    private Long expiry;
+    private List<String> weakAlgorithms = new ArrayList<>();
+
+    // auto-generated getters/setters
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public void setAlias(String alias) {
+        this.alias = alias;
+    }
+
+    public String getEntryType() {
+        return entryType;
+    }
+
+    public void setEntryType(String entryType) {
+        this.entryType = entryType;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public Integer getKeySize() {
+        return keySize;
+    }
+
+    public void setKeySize(Integer keySize) {
+        this.keySize = keySize;
+    }
+
+    /**
+     * Get the earliest expiry of the entry's certificate chain.
+     *
+     * @return Milliseconds since the epoch or null for key entries
+     */
+    public Long getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(Long expiry) {
+        this.expiry = expiry;
+    }
+
+    /**
+     * Get the weak algorithms found in the entry, e.g. "RSA 1024" or "SHA1withRSA".
+     *
+     * @return Weak key or signature algorithms, empty if there are none
+     */
+    public List<String> getWeakAlgorithms() {
+        return weakAlgorithms;
+    }
+
+    public void setWeakAlgorithms(List<String> weakAlgorithms) {
+        this.weakAlgorithms = weakAlgorithms;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Results of previous KeyStore scans. A result is reused by the next scan as long as the size and
+ * modification time of its file are unchanged.
+ * <p>
+ * This is written to a JSON file as part of the KSE configuration files.
+ */
+public class KeyStoreScanCache {
+    private int version = 1;
+    private List<KeyStoreScanResult> results = new ArrayList<>();
+
+    // auto-generated getters/setters
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public List<KeyStoreScanResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<KeyStoreScanResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.scan;
+
+import static org.kse.crypto.keypair.KeyPairType.DSA;
+import static org.kse.crypto.keypair.KeyPairType.EC;
+import static org.kse.crypto.keypair.KeyPairType.ECDSA;
+import static org.kse.crypto.keypair.KeyPairType.RSA;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.KeyStoreException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.KeyInfo;
+import org.kse.crypto.filetype.CryptoFileSniffer;
+import org.kse.crypto.filetype.CryptoFileSniffer.Format;
+import org.kse.crypto.filetype.CryptoFileUtil;
+import org.kse.crypto.keystore.KeyStoreEntryMetadata;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.x509.X509CertUtil;
+import org.kse.gui.passwordmanager.Password;
+
+/**
+ * Scans directory trees for KeyStores and records the expiry and weak algorithms of their entries.
+ * <p>
+ * The directories are walked on the calling thread. Files are first classified by their first
+ * bytes, so only files that may be KeyStores are read completely; those are then opened and
+ * examined on a pool of worker threads. A file is not read again as long as its size and
+ * modification time match a result in the scan cache. Only the raw expiry dates are recorded,
+ * so cached results stay valid when the warning period changes.
+ */
+public class KeyStoreScanner {
+
+    // Larger files are not expected to be KeyStores
+    private static final long MAX_FILE_SIZE = 16L * 1024 * 1024;
+
+    // Formats that may contain a KeyStore, the others are skipped after reading the first bytes
+    private static final Set<Format> KEYSTORE_FORMATS = EnumSet.of(Format.JKS, Format.JCEKS, Format.KDB,
+                                                                   Format.BKS_OR_UBER, Format.DER, Format.PEM,
+                                                                   Format.TEXT);
+
+    private static final int MIN_RSA_DSA_KEY_SIZE = 2048;
+    private static final int MIN_EC_KEY_SIZE = 224;
+
+    private final KeyStoreScanCache cache;
+    private final Function<File, char[]> passwords;
+    private final int threads;
+
+    /**
+     * Construct scanner.
+     *
+     * @param cache     Results of previous scans, updated by each scan
+     * @param passwords Provides the password of a KeyStore file or null if it is not known
+     * @param threads   Number of worker threads
+     */
+    public KeyStoreScanner(KeyStoreScanCache cache, Function<File, char[]> passwords, int threads) {
+        this.cache = cache;
+        this.passwords = passwords;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Scan the supplied directories and all their subdirectories. Afterwards the cache contains
+     * the results of all files found, together with the cached results of files outside the
+     * scanned directories.
+     *
+     * @param directories Directories to scan
+     * @param listener    Receives each KeyStore result as soon as it is available, called from
+     *                    the scanning threads
+     * @return Results of all KeyStores found, sorted by path
+     * @throws IOException          If a directory could not be walked
+     * @throws InterruptedException If the scan was cancelled
+     */
+    public List<KeyStoreScanResult> scan(List<File> directories, Consumer<KeyStoreScanResult> listener)
+            throws IOException, InterruptedException {
+        Map<String, KeyStoreScanResult> previous = new HashMap<>();
+        for (KeyStoreScanResult result : cache.getResults()) {
+            previous.put(result.getPath(), result);
+        }
+
+        Map<String, KeyStoreScanResult> results = new ConcurrentHashMap<>();
+        Consumer<KeyStoreScanResult> completed = result -> {
+            results.put(result.getPath(), result);
+            if (result.getStatus() != ScanStatus.NOT_KEYSTORE) {
+                listener.accept(result);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "kse-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (File directory : directories) {
+                Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return FileVisitResult.TERMINATE;
+                        }
+                        if (!attrs.isRegularFile()) {
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        String path = file.toAbsolutePath().normalize().toString();
+                        long size = attrs.size();
+                        long lastModified = attrs.lastModifiedTime().toMillis();
+
+                        KeyStoreScanResult cached = previous.get(path);
+                        if (isReusable(cached, size, lastModified)) {
+                            completed.accept(cached);
+                        } else {
+                            futures.add(executor.submit(
+                                    () -> completed.accept(scanFile(file.toFile(), path, size, lastModified))));
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        // unreadable file or directory
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            // scanFile() does not throw, so this can only be a problem of the listener
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<KeyStoreScanResult> cacheResults = new ArrayList<>(results.values());
+        for (KeyStoreScanResult result : previous.values()) {
+            if (!results.containsKey(result.getPath()) && !isInside(result.getPath(), directories)) {
+                cacheResults.add(result);
+            }
+        }
+        cacheResults.sort(Comparator.comparing(KeyStoreScanResult::getPath));
+        cache.setResults(cacheResults);
+
+        List<KeyStoreScanResult> keyStores = new ArrayList<>();
+        for (KeyStoreScanResult result : cacheResults) {
+            if (results.containsKey(result.getPath()) && result.getStatus() != ScanStatus.NOT_KEYSTORE) {
+                keyStores.add(result);
+            }
+        }
+        return keyStores;
+    }
+
+    private boolean isReusable(KeyStoreScanResult cached, long size, long lastModified) {
+        if (cached == null || cached.getSize() != size || cached.getLastModified() != lastModified) {
+            return false;
+        }
+
+        switch (cached.getStatus()) {
+        case OK:
+        case NOT_KEYSTORE:
+            return true;
+        case NO_PASSWORD:
+            // scan again once the password is known
+            char[] password = passwords.apply(new File(cached.getPath()));
+            if (password != null) {
+                Arrays.fill(password, ' ');
+                return false;
+            }
+            return true;
+        default:
+            // the problem may have been fixed, e.g. the password in the password manager
+            return false;
+        }
+    }
+
+    private static boolean isInside(String path, List<File> directories) {
+        Path file = Path.of(path);
+        for (File directory : directories) {
+            if (file.startsWith(directory.toPath().toAbsolutePath().normalize())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private KeyStoreScanResult scanFile(File file, String path, long size, long lastModified) {
+        KeyStoreScanResult result = new KeyStoreScanResult();
+        result.setPath(path);
+        result.setSize(size);
+        result.setLastModified(lastModified);
+
+        try {
+            byte[] data = readPossibleKeyStore(file, size);
+            KeyStoreType type = data == null ? null : CryptoFileUtil.detectKeyStoreType(data);
+
+            if (type == null || !type.isFileBased()) {
+                result.setStatus(ScanStatus.NOT_KEYSTORE);
+                return result;
+            }
+
+            result.setKeyStoreType(type.name());
+
+            char[] password = passwords.apply(file);
+            if (password == null) {
+                result.setStatus(ScanStatus.NO_PASSWORD);
+                return result;
+            }
+
+            Password keyStorePassword = new Password(password);
+            KseKeyStore keyStore;
+            try {
+                keyStore = KeyStoreUtil.load(data, keyStorePassword, type);
+            } finally {
+                keyStorePassword.nullPassword();
+            }
+
+            List<String> aliases = Collections.list(keyStore.aliases());
+            Collections.sort(aliases);
+            for (String alias : aliases) {
+                result.getEntries().add(examineEntry(alias, keyStore));
+            }
+
+            result.setStatus(ScanStatus.OK);
+        } catch (Exception ex) {
+            result.setStatus(ScanStatus.ERROR);
+            result.setError(ex.getMessage() != null ? ex.getMessage() : ex.toString());
+        }
+
+        return result;
+    }
+
+    private static byte[] readPossibleKeyStore(File file, long size) throws IOException {
+        if (size == 0 || size > MAX_FILE_SIZE) {
+            return null;
+        }
+
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            byte[] prefix = in.readNBytes(CryptoFileSniffer.PREFIX_LENGTH);
+            if (!KEYSTORE_FORMATS.contains(CryptoFileSniffer.sniff(prefix).getFormat())) {
+                return null;
+            }
+
+            byte[] rest = in.readAllBytes();
+            byte[] data = Arrays.copyOf(prefix, prefix.length + rest.length);
+            System.arraycopy(rest, 0, data, prefix.length, rest.length);
+
+            // a PEM KeyStore may be preceded by other text
+            return CryptoFileSniffer.sniff(data).isText() && !CryptoFileSniffer.containsPemHeader(data) ? null : data;
+        }
+    }
+
+    private static EntryScanResult examineEntry(String alias, KseKeyStore keyStore) throws KeyStoreException {
+        EntryScanResult entry = new EntryScanResult();
+        entry.setAlias(alias);
+
+        KeyStoreEntryMetadata metadata;
+        try {
+            metadata = KeyStoreEntryMetadata.create(alias, keyStore);
+        } catch (CryptoException ex) {
+            // certificates cannot be read, only the alias is recorded
+            return entry;
+        }
+
+        if (metadata.isTrustedCertificateEntry()) {
+            entry.setEntryType("trusted_certificate");
+        } else if (metadata.isKeyPairEntry()) {
+            entry.setEntryType("key_pair");
+        } else {
+            entry.setEntryType("key");
+            return entry;
+        }
+
+        KeyInfo keyInfo = metadata.getKeyInfo();
+        entry.setAlgorithm(keyInfo.getAlgorithm());
+        entry.setKeySize(keyInfo.getSize());
+        if (isWeakKey(keyInfo)) {
+            entry.getWeakAlgorithms().add(keyInfo.getAlgorithm() + " " + keyInfo.getSize());
+        }
+
+        for (X509Certificate cert : metadata.getCertificateChain()) {
+            // the signature of a self-signed (root) certificate is not relevant for trust
+            String signatureAlgorithm = cert.getSigAlgName();
+            if (isWeakSignature(signatureAlgorithm) && !X509CertUtil.isCertificateSelfSigned(cert) &&
+                !entry.getWeakAlgorithms().contains(signatureAlgorithm)) {
+                entry.getWeakAlgorithms().add(signatureAlgorithm);
+            }
+        }
+
+        entry.setExpiry(metadata.getEarliestChainExpiry().getTime());
+
+        return entry;
+    }
+
+    private static boolean isWeakKey(KeyInfo keyInfo) {
+        Integer size = keyInfo.getSize();
+        if (size == null) {
+            return false;
+        }
+
+        String algorithm = keyInfo.getAlgorithm();
+        if (RSA.jce().equals(algorithm) || DSA.jce().equals(algorithm)) {
+            return size < MIN_RSA_DSA_KEY_SIZE;
+        } else if (EC.jce().equals(algorithm) || ECDSA.jce().equals(algorithm)) {
+            return size < MIN_EC_KEY_SIZE;
+        }
+        return false;
+    }
+
+    private static boolean isWeakSignature(String signatureAlgorithm) {
+        String algorithm = signatureAlgorithm.toUpperCase(Locale.ROOT);
+        return algorithm.contains("MD2") || algorithm.contains("MD5") || algorithm.startsWith("SHA1") ||
+               algorithm.contains("SHA-1");
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.scan;
+
+/**
+ * Outcome of scanning a single file.
+ */
+public enum ScanStatus {
+
+    /**
+     * The KeyStore was opened and its entries were examined
+     */
+    OK,
+
+    /**
+     * The file does not contain a file based KeyStore
+     */
+    NOT_KEYSTORE,
+
+    /**
+     * The file is a KeyStore, but its password is not known
+     */
+    NO_PASSWORD,
+
+    /**
+     * The KeyStore could not be read, e.g. because the password is wrong
+     */
+    ERROR
+}
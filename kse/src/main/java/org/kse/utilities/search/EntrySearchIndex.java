@@ -0,0 +1,295 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.search;
+
+import java.security.KeyStoreException;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.digest.DigestType;
+import org.kse.crypto.keystore.KeyStoreEntryMetadata;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.utilities.history.KeyStoreState;
+
+/**
+ * Inverted n-gram index over the entries of a KeyStore for finding entries by their alias and
+ * certificate attributes.
+ * <p>
+ * For every entry the alias, subject and issuer DN, serial number, key identifiers, SHA-1 and
+ * SHA-256 fingerprints and the subject alternative names are combined into one lower case text.
+ * Each trigram of the text points to the entries containing it. A search term is looked up by
+ * intersecting the entries of its trigrams and checking the remaining candidates against their
+ * text, so neither the certificates nor the KeyStore are read during a search. Colons are ignored
+ * on both sides, so fingerprints and serial numbers can be entered with or without them.
+ * </p>
+ * A query consists of terms separated by whitespace that must all match. Besides text, a term
+ * can restrict the expiry date of the entry's certificate: {@code expires<2027-01-31} or
+ * {@code expires>2027-01-31} for a date and {@code expires<30d} for a number of days from now.
+ * <p>
+ * The index is built once per KeyStore state and moved to the next or previous state by updating
+ * just the changed entries (see {@link KeyStoreState#getSearchIndex()}).
+ */
+public class EntrySearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final Pattern EXPIRY_TERM = Pattern.compile("expires([<>])(?:(\\d+)d|(\\d{4}-\\d{2}-\\d{2}))");
+
+    private final Map<String, IndexedEntry> entries = new HashMap<>();
+    private final Map<String, Set<String>> aliasesByGram = new HashMap<>();
+
+    private static class IndexedEntry {
+        private final String text;
+        private final Date expiry;
+
+        private IndexedEntry(String text, Date expiry) {
+            this.text = text;
+            this.expiry = expiry;
+        }
+    }
+
+    private EntrySearchIndex() {
+    }
+
+    /**
+     * Build the index for all entries of a KeyStore state.
+     *
+     * @param state KeyStore state
+     * @return Index
+     * @throws KeyStoreException If there was a problem accessing the KeyStore
+     */
+    public static EntrySearchIndex build(KeyStoreState state) throws KeyStoreException {
+        EntrySearchIndex index = new EntrySearchIndex();
+
+        KseKeyStore keyStore = state.getKeyStore();
+        for (Enumeration<String> aliases = keyStore.aliases(); aliases.hasMoreElements(); ) {
+            index.add(state, aliases.nextElement());
+        }
+
+        return index;
+    }
+
+    /**
+     * Update the index for entries that were added, changed or deleted, so that it matches the
+     * supplied KeyStore state.
+     *
+     * @param state   KeyStore state
+     * @param aliases Aliases of the changed entries
+     * @throws KeyStoreException If there was a problem accessing the KeyStore
+     */
+    public void update(KeyStoreState state, Collection<String> aliases) throws KeyStoreException {
+        for (String alias : aliases) {
+            remove(alias);
+            if (state.getKeyStore().containsAlias(alias)) {
+                add(state, alias);
+            }
+        }
+    }
+
+    /**
+     * Find the entries matching a query.
+     *
+     * @param query Query, see class description
+     * @return Aliases of the matching entries
+     */
+    public Set<String> search(String query) {
+        Set<String> result = null;
+
+        for (String term : query.trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+
+            Matcher matcher = EXPIRY_TERM.matcher(term.toLowerCase(Locale.ROOT));
+            Date expiryDate = matcher.matches() ? parseExpiryDate(matcher) : null;
+
+            if (expiryDate != null) {
+                result = findByExpiry(matcher.group(1).equals("<"), expiryDate, result);
+            } else {
+                result = findByText(normalize(term), result);
+            }
+
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+
+        return result == null ? new HashSet<>(entries.keySet()) : result;
+    }
+
+    /**
+     * Get the number of indexed entries.
+     *
+     * @return Number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void add(KeyStoreState state, String alias) throws KeyStoreException {
+        StringBuilder sb = new StringBuilder(alias);
+        Date expiry = null;
+
+        try {
+            KeyStoreEntryMetadata metadata = state.getEntryMetadata(alias);
+            X509Certificate cert = metadata.getCertificate();
+
+            if (cert != null) {
+                append(sb, metadata.getSubjectDN());
+                append(sb, metadata.getIssuerDN());
+                append(sb, metadata.getSerialNumberHex());
+                append(sb, metadata.getSerialNumberDec());
+                append(sb, metadata.getSKI());
+                append(sb, metadata.getAKI());
+                append(sb, metadata.getFingerprint(DigestType.SHA1));
+                append(sb, metadata.getFingerprint(DigestType.SHA256));
+                appendSubjectAlternativeNames(sb, cert);
+                expiry = metadata.getExpiry();
+            }
+        } catch (CryptoException e) {
+            // certificates cannot be read, entry can still be found by its alias
+        }
+
+        String text = normalize(sb.toString());
+        entries.put(alias, new IndexedEntry(text, expiry));
+
+        for (String gram : grams(text)) {
+            aliasesByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(alias);
+        }
+    }
+
+    private void remove(String alias) {
+        IndexedEntry entry = entries.remove(alias);
+        if (entry == null) {
+            return;
+        }
+
+        for (String gram : grams(entry.text)) {
+            Set<String> aliases = aliasesByGram.get(gram);
+            if (aliases != null) {
+                aliases.remove(alias);
+                if (aliases.isEmpty()) {
+                    aliasesByGram.remove(gram);
+                }
+            }
+        }
+    }
+
+    private Set<String> findByText(String term, Set<String> candidates) {
+        Collection<String> toCheck;
+
+        if (term.length() < GRAM_LENGTH) {
+            // too short for the index, but still only the indexed texts are checked
+            toCheck = candidates == null ? entries.keySet() : candidates;
+        } else {
+            Set<String> smallest = null;
+            for (String gram : grams(term)) {
+                Set<String> aliases = aliasesByGram.getOrDefault(gram, Collections.emptySet());
+                if (smallest == null || aliases.size() < smallest.size()) {
+                    smallest = aliases;
+                }
+            }
+            toCheck = smallest;
+        }
+
+        Set<String> matches = new HashSet<>();
+        for (String alias : toCheck) {
+            if ((candidates == null || candidates.contains(alias)) && entries.get(alias).text.contains(term)) {
+                matches.add(alias);
+            }
+        }
+        return matches;
+    }
+
+    private Set<String> findByExpiry(boolean before, Date date, Set<String> candidates) {
+        Set<String> matches = new HashSet<>();
+
+        for (String alias : candidates == null ? entries.keySet() : candidates) {
+            Date expiry = entries.get(alias).expiry;
+            if (expiry != null && (before ? expiry.before(date) : expiry.after(date))) {
+                matches.add(alias);
+            }
+        }
+        return matches;
+    }
+
+    private static Date parseExpiryDate(Matcher matcher) {
+        LocalDate date;
+        if (matcher.group(2) != null) {
+            date = LocalDate.now().plusDays(Long.parseLong(matcher.group(2)));
+        } else {
+            try {
+                date = LocalDate.parse(matcher.group(3));
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static void appendSubjectAlternativeNames(StringBuilder sb, X509Certificate cert) {
+        try {
+            Collection<List<?>> names = cert.getSubjectAlternativeNames();
+            if (names != null) {
+                for (List<?> name : names) {
+                    if (name.size() > 1 && name.get(1) instanceof String) {
+                        append(sb, (String) name.get(1));
+                    }
+                }
+            }
+        } catch (CertificateParsingException e) {
+            // malformed extension, entry can still be found by its other attributes
+        }
+    }
+
+    private static void append(StringBuilder sb, String value) {
+        if (value != null && !value.equals("-")) {
+            sb.append('\n').append(value);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT).replace(":", "");
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
@@ -34,8 +34,17 @@ public class RetrieveSslInfosHandshakeListener implements HandshakeCompletedList
 
     @Override
     public void handshakeCompleted(HandshakeCompletedEvent event) {
+        readSession(event.getSession());
+    }
 
-        SSLSession session = event.getSession();
+    /**
+     * Read the connection infos from an established session. Handshake completed events are
+     * delivered asynchronously, so callers that perform the handshake themselves can use this
+     * method right after it.
+     *
+     * @param session The session
+     */
+    public void readSession(SSLSession session) {
         sslConnectionInfos.setPeerHost(session.getPeerHost());
         sslConnectionInfos.setPeerPort(session.getPeerPort());
         sslConnectionInfos.setProtocol(session.getProtocol());
@@ -92,9 +92,7 @@ public class SslUtils {
             // either in and of themselves or for the host name they are associated with
 
             // 1) set connection's SSL Socket factory to have a very trusting trust manager
-            SSLContext context = SSLContext.getInstance("TLS");
-            X509TrustingManager tm = new X509TrustingManager();
-            context.init(new KeyManager[] { km }, new TrustManager[] { tm }, null);
+            SSLContext context = createTrustingSslContext(km);
 
             // 2) set a host name verifier that always verifies the host name
             connection.setHostnameVerifier((hostname, sslSession) -> true);
@@ -137,6 +135,21 @@ public class SslUtils {
         }
     }
 
+    /**
+     * Create an SSL context that trusts all server certificates, as we are only interested in
+     * getting them for examination.
+     *
+     * @param km Key manager for client authentication or null
+     * @return The SSL context
+     * @throws GeneralSecurityException If the context could not be created
+     */
+    static SSLContext createTrustingSslContext(X509KeyManager km) throws GeneralSecurityException {
+        SSLContext context = SSLContext.getInstance("TLS");
+        X509TrustingManager tm = new X509TrustingManager();
+        context.init(new KeyManager[] { km }, new TrustManager[] { tm }, null);
+        return context;
+    }
+
     /**
      * Implementation of the X509TrustManager. In this implementation we
      * always trust the server as we are only interested in getting its
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.ssl;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * Host and port of a TLS endpoint.
+ *
+ * @param host Host name or IP address
+ * @param port Port number
+ */
+public record TlsEndpoint(String host, int port) {
+
+    /**
+     * Port that is used when an endpoint is specified without one.
+     */
+    public static final int DEFAULT_PORT = 443;
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/utilities/ssl/resources");
+
+    /**
+     * Parse an endpoint in the form "host", "host:port" or "[IPv6 address]:port". A leading
+     * "https://" and anything after the authority are ignored.
+     *
+     * @param endpoint The endpoint
+     * @return The parsed endpoint
+     * @throws IllegalArgumentException If the endpoint is not valid
+     */
+    public static TlsEndpoint parse(String endpoint) {
+        String authority = endpoint.trim();
+        if (authority.toLowerCase(Locale.ROOT).startsWith("https://")) {
+            authority = authority.substring("https://".length());
+        }
+        int slash = authority.indexOf('/');
+        if (slash >= 0) {
+            authority = authority.substring(0, slash);
+        }
+
+        String host = authority;
+        String port = null;
+
+        if (authority.startsWith("[")) {
+            int end = authority.indexOf(']');
+            if (end < 0) {
+                throw invalid(endpoint);
+            }
+            host = authority.substring(1, end);
+            if (authority.length() > end + 1) {
+                if (authority.charAt(end + 1) != ':') {
+                    throw invalid(endpoint);
+                }
+                port = authority.substring(end + 2);
+            }
+        } else if (authority.indexOf(':') >= 0 && authority.indexOf(':') == authority.lastIndexOf(':')) {
+            // more than one colon is an IPv6 address without port
+            host = authority.substring(0, authority.indexOf(':'));
+            port = authority.substring(authority.indexOf(':') + 1);
+        }
+
+        if (host.isEmpty()) {
+            throw invalid(endpoint);
+        }
+
+        try {
+            int portNumber = port == null ? DEFAULT_PORT : Integer.parseInt(port);
+            if (portNumber < 1 || portNumber > 65535) {
+                throw invalid(endpoint);
+            }
+            return new TlsEndpoint(host, portNumber);
+        } catch (NumberFormatException ex) {
+            throw invalid(endpoint);
+        }
+    }
+
+    /**
+     * Parse a list of endpoints, separated by line breaks, whitespace or commas. Lines starting
+     * with '#' are ignored.
+     *
+     * @param endpoints The endpoints
+     * @return The parsed endpoints in the order of the list
+     * @throws IllegalArgumentException If an endpoint is not valid
+     */
+    public static List<TlsEndpoint> parseList(String endpoints) {
+        List<TlsEndpoint> parsed = new ArrayList<>();
+
+        for (String line : endpoints.split("\\R")) {
+            if (line.trim().startsWith("#")) {
+                continue;
+            }
+            for (String endpoint : line.split("[\\s,]+")) {
+                if (!endpoint.isEmpty()) {
+                    parsed.add(parse(endpoint));
+                }
+            }
+        }
+
+        return parsed;
+    }
+
+    private static IllegalArgumentException invalid(String endpoint) {
+        return new IllegalArgumentException(
+                MessageFormat.format(res.getString("InvalidTlsEndpoint.exception.message"), endpoint));
+    }
+
+    @Override
+    public String toString() {
+        return (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":" + port;
+    }
+}
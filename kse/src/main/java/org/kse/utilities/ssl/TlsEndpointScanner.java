@@ -0,0 +1,218 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.ssl;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.GeneralSecurityException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.kse.crypto.CryptoException;
+
+/**
+ * Retrieves the certificates and connection details of many TLS endpoints concurrently.
+ * <p>
+ * Unlike {@link SslUtils#readSSLConnectionInfos}, only a TLS handshake is performed on a plain
+ * socket, without an HTTP request. The whole scan of an endpoint, including connecting, all
+ * reads of the handshake and a second attempt, is limited by a timeout, so that unreachable or
+ * slowly responding endpoints do not hold up the scan. Servers that reject the SNI extension
+ * are contacted a second time without it. HTTP proxies are not used, as there is
+ * no HTTP connection; SOCKS proxies are used by the sockets as usual.
+ */
+public class TlsEndpointScanner {
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/utilities/ssl/resources");
+
+    // Closes the sockets of endpoints that exceed their deadline, as socket reads are not interruptible
+    private static final ScheduledExecutorService DEADLINE_TIMER = createDeadlineTimer();
+
+    private final SSLSocketFactory sslSocketFactory;
+    private final int threads;
+    private final int timeoutMillis;
+
+    /**
+     * Create a scanner.
+     *
+     * @param threads       Maximum number of concurrent handshakes
+     * @param timeoutMillis Timeout for the whole scan of one endpoint
+     * @throws CryptoException If the SSL context could not be created
+     */
+    public TlsEndpointScanner(int threads, int timeoutMillis) throws CryptoException {
+        try {
+            sslSocketFactory = SslUtils.createTrustingSslContext(null).getSocketFactory();
+        } catch (GeneralSecurityException ex) {
+            throw new CryptoException(res.getString("NoCreateSslContext.exception.message"), ex);
+        }
+        this.threads = Math.max(1, threads);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Scan the supplied endpoints.
+     *
+     * @param endpoints The endpoints
+     * @param listener  Receives each result as soon as it is available, called from the scanning
+     *                  threads
+     * @return The results in the order of the endpoints
+     * @throws InterruptedException If the scan was cancelled
+     */
+    public List<TlsScanResult> scan(List<TlsEndpoint> endpoints, Consumer<TlsScanResult> listener)
+            throws InterruptedException {
+        int poolSize = Math.min(threads, Math.max(1, endpoints.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "kse-tls-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<TlsScanResult>> futures = new ArrayList<>();
+            for (TlsEndpoint endpoint : endpoints) {
+                futures.add(executor.submit(() -> {
+                    TlsScanResult result = scan(endpoint);
+                    listener.accept(result);
+                    return result;
+                }));
+            }
+
+            List<TlsScanResult> results = new ArrayList<>();
+            for (Future<TlsScanResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException ex) {
+            // scan() does not throw, so this can only be a problem of the listener
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            // sockets are not interruptible, pending handshakes end with their timeout
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Scan a single endpoint.
+     *
+     * @param endpoint The endpoint
+     * @return The result
+     */
+    public TlsScanResult scan(TlsEndpoint endpoint) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        try {
+            SslConnectionInfos sslConnectionInfos;
+            try {
+                sslConnectionInfos = handshake(endpoint, true, deadline);
+            } catch (SSLException ex) {
+                // handle server misconfiguration
+                if (ex.getMessage() != null && ex.getMessage().contains("unrecognized_name")) {
+                    sslConnectionInfos = handshake(endpoint, false, deadline);
+                } else {
+                    throw ex;
+                }
+            }
+            return new TlsScanResult(endpoint, sslConnectionInfos, null, elapsedMillis(start));
+        } catch (IOException ex) {
+            String error;
+            if (System.nanoTime() - deadline >= 0) {
+                // the socket may have been closed by the deadline timer
+                error = MessageFormat.format(res.getString("ScanTimedOut.exception.message"), timeoutMillis);
+            } else {
+                error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+            }
+            return new TlsScanResult(endpoint, null, error, elapsedMillis(start));
+        }
+    }
+
+    private SslConnectionInfos handshake(TlsEndpoint endpoint, boolean sniEnabled, long deadline)
+            throws IOException {
+        CustomSslSocketFactory factory = new CustomSslSocketFactory(sslSocketFactory, null, sniEnabled);
+        RetrieveSslInfosHandshakeListener handshakeListener = new RetrieveSslInfosHandshakeListener();
+
+        try (Socket plainSocket = new Socket()) {
+            int remainingMillis = remainingMillis(deadline);
+            ScheduledFuture<?> abort = DEADLINE_TIMER.schedule(() -> closeQuietly(plainSocket), remainingMillis,
+                                                               TimeUnit.MILLISECONDS);
+            try {
+                plainSocket.connect(new InetSocketAddress(endpoint.host(), endpoint.port()), remainingMillis);
+                plainSocket.setSoTimeout(remainingMillis(deadline));
+
+                try (SSLSocket socket = (SSLSocket) factory.createSocket(plainSocket, endpoint.host(),
+                                                                         endpoint.port(), true)) {
+                    socket.startHandshake();
+                    handshakeListener.readSession(socket.getSession());
+                }
+            } finally {
+                abort.cancel(false);
+            }
+        }
+
+        SslConnectionInfos sslConnectionInfos = handshakeListener.getSslConnectionInfos();
+        sslConnectionInfos.setSniEnabled(sniEnabled);
+        return sslConnectionInfos;
+    }
+
+    private static int remainingMillis(long deadline) throws SocketTimeoutException {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+            throw new SocketTimeoutException();
+        }
+        // a timeout of 0 would mean infinite
+        return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            // ignore, the scan of the endpoint fails anyway
+        }
+    }
+
+    private static ScheduledExecutorService createDeadlineTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "kse-tls-scan-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.ssl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.security.cert.X509Certificate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.digest.DigestType;
+import org.kse.crypto.x509.X509CertUtil;
+
+/**
+ * Exports the results of a TLS endpoint scan as CSV, one line per endpoint with the details
+ * of the server's end entity certificate. Column names are stable and not localized, so that
+ * the export can be processed by scripts.
+ */
+public class TlsScanExporter {
+
+    private static final String[] COLUMNS = { "endpoint", "host", "port", "error", "protocol", "cipher_suite",
+                                              "sni", "subject_dn", "issuer_dn", "validity_start", "expiry",
+                                              "serial_hex", "sha256_fingerprint", "chain_length", "duration_ms" };
+
+    private static final DateTimeFormatter CSV_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                                                                              .withZone(ZoneId.systemDefault());
+
+    private final char csvSeparator;
+
+    /**
+     * Construct exporter.
+     *
+     * @param csvSeparator Separator of the CSV values
+     */
+    public TlsScanExporter(char csvSeparator) {
+        this.csvSeparator = csvSeparator;
+    }
+
+    /**
+     * Export the supplied results. The writer is flushed but not closed.
+     *
+     * @param results Scan results in the order to export
+     * @param writer  Writer for the export
+     * @throws IOException If writing failed
+     */
+    public void export(Iterable<TlsScanResult> results, Writer writer) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        appendRow(sb, COLUMNS);
+
+        for (TlsScanResult result : results) {
+            appendRow(sb, getValues(result));
+        }
+
+        writer.write(sb.toString());
+        writer.flush();
+    }
+
+    private static String[] getValues(TlsScanResult result) {
+        String[] values = new String[COLUMNS.length];
+        values[0] = result.getEndpoint().toString();
+        values[1] = result.getEndpoint().host();
+        values[2] = Integer.toString(result.getEndpoint().port());
+        values[3] = result.getError();
+        values[14] = Long.toString(result.getDurationMillis());
+
+        SslConnectionInfos infos = result.getSslConnectionInfos();
+        if (infos != null) {
+            values[4] = infos.getProtocol();
+            values[5] = infos.getCipherSuite();
+            values[6] = Boolean.toString(infos.isSniEnabled());
+            values[13] = infos.getServerCertificates() == null ? "0" :
+                         Integer.toString(infos.getServerCertificates().length);
+        }
+
+        X509Certificate cert = result.getServerCertificate();
+        if (cert != null) {
+            values[7] = cert.getSubjectX500Principal().getName();
+            values[8] = cert.getIssuerX500Principal().getName();
+            values[9] = CSV_DATE_FORMAT.format(cert.getNotBefore().toInstant());
+            values[10] = CSV_DATE_FORMAT.format(cert.getNotAfter().toInstant());
+            values[11] = X509CertUtil.getSerialNumberAsHex(cert);
+            try {
+                values[12] = X509CertUtil.getFingerprint(cert, DigestType.SHA256);
+            } catch (CryptoException ex) {
+                // leave empty
+            }
+        }
+        return values;
+    }
+
+    private void appendRow(StringBuilder sb, String[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(csvSeparator);
+            }
+            String value = values[i] == null ? "" : values[i];
+            sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+        sb.append(System.lineSeparator());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.ssl;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * Result of a TLS handshake with an endpoint, either the connection infos or an error.
+ */
+public class TlsScanResult {
+
+    private final TlsEndpoint endpoint;
+    private final SslConnectionInfos sslConnectionInfos;
+    private final String error;
+    private final long durationMillis;
+
+    TlsScanResult(TlsEndpoint endpoint, SslConnectionInfos sslConnectionInfos, String error, long durationMillis) {
+        this.endpoint = endpoint;
+        this.sslConnectionInfos = sslConnectionInfos;
+        this.error = error;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Get the scanned endpoint.
+     *
+     * @return The endpoint
+     */
+    public TlsEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Get the details of the connection.
+     *
+     * @return The connection infos or null if the handshake failed
+     */
+    public SslConnectionInfos getSslConnectionInfos() {
+        return sslConnectionInfos;
+    }
+
+    /**
+     * Get the reason why the handshake failed.
+     *
+     * @return The error message or null if the handshake succeeded
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Get the time taken for connecting and the handshake.
+     *
+     * @return Duration in milliseconds
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Get the end entity certificate of the server.
+     *
+     * @return The first certificate of the server's chain or null if there is none
+     */
+    public X509Certificate getServerCertificate() {
+        if (sslConnectionInfos == null || sslConnectionInfos.getServerCertificates() == null ||
+            sslConnectionInfos.getServerCertificates().length == 0) {
+            return null;
+        }
+        return sslConnectionInfos.getServerCertificates()[0];
+    }
+}
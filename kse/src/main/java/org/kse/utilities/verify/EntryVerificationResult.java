@@ -0,0 +1,155 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.verify;
+
+import java.util.Date;
+
+/**
+ * Result of verifying the certificate of a single KeyStore entry: its chain and its revocation
+ * status according to OCSP and to the CRL.
+ */
+public class EntryVerificationResult {
+    private final String alias;
+    private final VerificationStatus chainStatus;
+    private final String chainMessage;
+    private final VerificationStatus ocspStatus;
+    private final String ocspMessage;
+    private final VerificationStatus crlStatus;
+    private final String crlMessage;
+    private final String trustAnchorsId;
+    private final Date verified;
+    private final Date expires;
+
+    EntryVerificationResult(String alias, VerificationStatus chainStatus, String chainMessage,
+                            VerificationStatus ocspStatus, String ocspMessage, VerificationStatus crlStatus,
+                            String crlMessage, String trustAnchorsId, Date verified, Date expires) {
+        this.alias = alias;
+        this.chainStatus = chainStatus;
+        this.chainMessage = chainMessage;
+        this.ocspStatus = ocspStatus;
+        this.ocspMessage = ocspMessage;
+        this.crlStatus = crlStatus;
+        this.crlMessage = crlMessage;
+        this.trustAnchorsId = trustAnchorsId;
+        this.verified = verified;
+        this.expires = expires;
+    }
+
+    /**
+     * Get the alias of the verified entry.
+     *
+     * @return Alias
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * Get the result of validating the certificate chain against the trusted certificates.
+     *
+     * @return Chain status
+     */
+    public VerificationStatus getChainStatus() {
+        return chainStatus;
+    }
+
+    /**
+     * Get the reason why the chain is not valid.
+     *
+     * @return Message or null if the chain is valid
+     */
+    public String getChainMessage() {
+        return chainMessage;
+    }
+
+    /**
+     * Get the revocation status according to the OCSP responder.
+     *
+     * @return OCSP status
+     */
+    public VerificationStatus getOcspStatus() {
+        return ocspStatus;
+    }
+
+    /**
+     * Get details of the OCSP status, e.g. the revocation date or an error.
+     *
+     * @return Message or null if there are no details
+     */
+    public String getOcspMessage() {
+        return ocspMessage;
+    }
+
+    /**
+     * Get the revocation status according to the CRL.
+     *
+     * @return CRL status
+     */
+    public VerificationStatus getCrlStatus() {
+        return crlStatus;
+    }
+
+    /**
+     * Get details of the CRL status, e.g. the revocation date or an error.
+     *
+     * @return Message or null if there are no details
+     */
+    public String getCrlMessage() {
+        return crlMessage;
+    }
+
+    /**
+     * Get the identifier of the set of trusted certificates the chain was validated against.
+     *
+     * @return Identifier
+     */
+    public String getTrustAnchorsId() {
+        return trustAnchorsId;
+    }
+
+    /**
+     * Get the time of the verification.
+     *
+     * @return Verification time
+     */
+    public Date getVerified() {
+        return verified;
+    }
+
+    /**
+     * Get the time after which the result is outdated: the earliest of the nextUpdate times of
+     * the OCSP response and the CRL and of the expiry dates of the certificate chain.
+     *
+     * @return Expiry time
+     */
+    public Date getExpires() {
+        return expires;
+    }
+
+    /**
+     * Is the result outdated at the supplied time?
+     *
+     * @param now The time
+     * @return True if the entry has to be verified again
+     */
+    public boolean isExpired(Date now) {
+        return !now.before(expires);
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.verify;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStoreException;
+import java.security.PublicKey;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.cert.ocsp.jcajce.JcaCertificateID;
+import org.bouncycastle.operator.ContentVerifierProvider;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.kse.KSE;
+import org.kse.crypto.CryptoException;
+import org.kse.crypto.digest.DigestType;
+import org.kse.crypto.digest.DigestUtil;
+import org.kse.crypto.keystore.KeyStoreEntryMetadata;
+import org.kse.crypto.revocation.RevocationDataCache;
+import org.kse.crypto.x509.ExtensionRemovingCertPathChecker;
+import org.kse.crypto.x509.X509CertUtil;
+import org.kse.crypto.x509.X509CertificateIndex;
+import org.kse.utilities.StringUtils;
+import org.kse.utilities.history.KeyStoreState;
+
+/**
+ * Verifies the certificates of all key pair and trusted certificate entries of a KeyStore state:
+ * the certificate chain against the CA certificates of the KeyStore and the revocation status
+ * by OCSP and by CRL.
+ * <p>
+ * The trust anchors are collected once for all entries and the entries are verified on a pool
+ * of worker threads. CRLs and OCSP responses are obtained through the revocation data cache, so
+ * the CRL of an issuer is downloaded and its signature verified only once, and a server that
+ * is not reachable is contacted only once per run. Results are recorded in the KeyStore state
+ * and are reused until the entry or the set of trusted certificates changes, or until the
+ * revocation data or a certificate of the chain expires. Results whose revocation status could
+ * not be determined are not reused.
+ */
+public class KeyStoreVerifier {
+
+    private static ResourceBundle res = ResourceBundle.getBundle("org/kse/utilities/verify/resources");
+
+    private final KeyStoreState state;
+    private final RevocationDataCache revocationCache;
+    private final int threads;
+
+    private final Map<String, X509Certificate[]> chains = new LinkedHashMap<>();
+    private final Set<TrustAnchor> trustAnchors = new HashSet<>();
+    private final X509CertificateIndex trustedCerts = new X509CertificateIndex();
+    private final String trustAnchorsId;
+    private final DigestCalculatorProvider digestCalculatorProvider;
+
+    // servers that could not be reached during this run
+    private final Map<URI, String> unavailableUris = new ConcurrentHashMap<>();
+
+    // CRLs whose signature has been verified, with the verifying key
+    private final Map<X509CRL, PublicKey> verifiedCrls = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    // validUntil is the nextUpdate of the revocation data the result is based on, if any
+    private record CheckResult(VerificationStatus status, String message, Date validUntil) {
+
+        CheckResult(VerificationStatus status, String message) {
+            this(status, message, null);
+        }
+    }
+
+    /**
+     * Construct verifier. The entries and the trusted certificates are read from the KeyStore.
+     *
+     * @param state           The KeyStore state to verify
+     * @param revocationCache Cache for CRLs and OCSP responses
+     * @param threads         Number of worker threads
+     * @throws KeyStoreException If there was a problem accessing the KeyStore
+     * @throws CryptoException   If the entries' certificates could not be read
+     */
+    public KeyStoreVerifier(KeyStoreState state, RevocationDataCache revocationCache, int threads)
+            throws KeyStoreException, CryptoException {
+        this.state = state;
+        this.revocationCache = revocationCache;
+        this.threads = Math.max(1, threads);
+
+        List<String> aliases = Collections.list(state.getKeyStore().aliases());
+        Collections.sort(aliases);
+
+        List<String> fingerprints = new ArrayList<>();
+        for (String alias : aliases) {
+            KeyStoreEntryMetadata metadata = state.getEntryMetadata(alias);
+            if (metadata.isKeyEntry() || metadata.getCertificateChain().length == 0) {
+                continue;
+            }
+
+            chains.put(alias, metadata.getCertificateChain());
+
+            // the same CA certificates are trusted as by the verification of a single entry
+            X509Certificate cert = metadata.getCertificate();
+            if (isCA(cert)) {
+                trustAnchors.add(new TrustAnchor(cert, null));
+                trustedCerts.add(cert);
+                fingerprints.add(metadata.getFingerprint(DigestType.SHA256));
+            }
+        }
+
+        Collections.sort(fingerprints);
+        trustAnchorsId = DigestUtil.getFriendlyMessageDigest(
+                String.join(",", fingerprints).getBytes(StandardCharsets.US_ASCII), DigestType.SHA256);
+
+        try {
+            digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().setProvider(KSE.BC).build();
+        } catch (Exception ex) {
+            throw new CryptoException(res.getString("NoCreateDigestCalculator.exception.message"), ex);
+        }
+    }
+
+    /**
+     * Get the number of entries that are verified.
+     *
+     * @return Number of key pair and trusted certificate entries
+     */
+    public int getEntryCount() {
+        return chains.size();
+    }
+
+    /**
+     * Verify all key pair and trusted certificate entries.
+     *
+     * @param reuseResults Use the results of previous verifications of unchanged entries
+     * @param listener     Receives each result as soon as it is available, called from any
+     *                     thread
+     * @return The results, sorted by alias
+     * @throws InterruptedException If the verification was cancelled
+     */
+    public List<EntryVerificationResult> verify(boolean reuseResults, Consumer<EntryVerificationResult> listener)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "kse-verify");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<EntryVerificationResult>> futures = new ArrayList<>();
+
+            for (Map.Entry<String, X509Certificate[]> entry : chains.entrySet()) {
+                EntryVerificationResult cached = reuseResults ? state.getVerificationResult(entry.getKey()) : null;
+
+                if (cached != null && cached.getTrustAnchorsId().equals(trustAnchorsId)
+                    && !cached.isExpired(new Date())) {
+                    listener.accept(cached);
+                    futures.add(executor.submit(() -> cached));
+                } else {
+                    futures.add(executor.submit(() -> {
+                        EntryVerificationResult result = verifyEntry(entry.getKey(), entry.getValue());
+                        state.setVerificationResult(result);
+                        listener.accept(result);
+                        return result;
+                    }));
+                }
+            }
+
+            List<EntryVerificationResult> results = new ArrayList<>();
+            for (Future<EntryVerificationResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException ex) {
+            // verifyEntry() does not throw, so this can only be a problem of the listener
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private EntryVerificationResult verifyEntry(String alias, X509Certificate[] chain) {
+        X509Certificate cert = chain[0];
+        X509Certificate issuer = findIssuer(chain);
+
+        CheckResult chainResult = checkChain(chain);
+        CheckResult ocspResult = checkOcsp(cert, issuer);
+        CheckResult crlResult = checkCrl(cert, issuer);
+
+        Date verified = new Date();
+
+        Date expires = cert.getNotAfter();
+        for (X509Certificate chainCert : chain) {
+            expires = earliest(expires, chainCert.getNotAfter());
+        }
+        expires = earliest(expires, ocspResult.validUntil());
+        expires = earliest(expires, crlResult.validUntil());
+
+        // a revocation check that failed, e.g. because a server was not reachable, is tried again next time
+        if (!isReusable(ocspResult) || !isReusable(crlResult)) {
+            expires = verified;
+        }
+
+        return new EntryVerificationResult(alias, chainResult.status(), chainResult.message(), ocspResult.status(),
+                                           ocspResult.message(), crlResult.status(), crlResult.message(),
+                                           trustAnchorsId, verified, expires);
+    }
+
+    private static boolean isReusable(CheckResult revocationResult) {
+        return revocationResult.status() != VerificationStatus.UNAVAILABLE
+               && revocationResult.status() != VerificationStatus.INVALID;
+    }
+
+    private static Date earliest(Date date1, Date date2) {
+        return date2 != null && date2.before(date1) ? date2 : date1;
+    }
+
+    private X509Certificate findIssuer(X509Certificate[] chain) {
+        if (chain.length > 1) {
+            return chain[1];
+        }
+        List<X509Certificate> issuers = trustedCerts.findIssuers(chain[0]);
+        return issuers.isEmpty() ? null : issuers.get(0);
+    }
+
+    private CheckResult checkChain(X509Certificate[] chain) {
+        if (trustAnchors.isEmpty()) {
+            return new CheckResult(VerificationStatus.INVALID, res.getString("NoTrustAnchors.message"));
+        }
+
+        try {
+            // Use the BC provider like the verification of a single entry
+            CertPathValidator validator = CertPathValidator.getInstance("PKIX", KSE.BC);
+            CertPath certPath = CertificateFactory.getInstance(X509CertUtil.X509_CERT_TYPE, KSE.BC)
+                                                  .generateCertPath(Arrays.asList(chain));
+
+            PKIXParameters params = new PKIXParameters(trustAnchors);
+            params.addCertPathChecker(new ExtensionRemovingCertPathChecker());
+            params.setDate(new Date());
+            params.setRevocationEnabled(false);
+
+            validator.validate(certPath, params);
+            return new CheckResult(VerificationStatus.VALID, null);
+        } catch (GeneralSecurityException ex) {
+            return new CheckResult(VerificationStatus.INVALID, getMessage(ex));
+        }
+    }
+
+    private CheckResult checkOcsp(X509Certificate cert, X509Certificate issuer) {
+        List<URI> uris = RevocationDataCache.getOcspUris(cert);
+        if (uris.isEmpty() || X509CertUtil.isCertificateSelfSigned(cert)) {
+            return new CheckResult(VerificationStatus.NOT_APPLICABLE, res.getString("NoOcspResponder.message"));
+        }
+        if (issuer == null) {
+            return new CheckResult(VerificationStatus.UNAVAILABLE, res.getString("NoIssuer.message"));
+        }
+
+        CertificateID certId;
+        OCSPReq request;
+        try {
+            certId = new JcaCertificateID(digestCalculatorProvider.get(CertificateID.HASH_SHA1), issuer,
+                                          cert.getSerialNumber());
+            request = new OCSPReqBuilder().addRequest(certId).build();
+        } catch (Exception ex) {
+            return new CheckResult(VerificationStatus.INVALID, getMessage(ex));
+        }
+
+        String error = null;
+        for (URI uri : uris) {
+            error = unavailableUris.get(uri);
+            if (error != null) {
+                continue;
+            }
+
+            OCSPResp response;
+            try {
+                response = revocationCache.getOcspResponse(uri, request);
+            } catch (IOException ex) {
+                error = getMessage(ex);
+                unavailableUris.put(uri, error);
+                continue;
+            }
+
+            try {
+                return evaluateOcspResponse(response, certId, issuer);
+            } catch (Exception ex) {
+                return new CheckResult(VerificationStatus.INVALID, getMessage(ex));
+            }
+        }
+        return new CheckResult(VerificationStatus.UNAVAILABLE, error);
+    }
+
+    private static CheckResult evaluateOcspResponse(OCSPResp response, CertificateID certId, X509Certificate issuer)
+            throws Exception {
+        if (response.getStatus() != OCSPResp.SUCCESSFUL) {
+            return new CheckResult(VerificationStatus.INVALID,
+                                   MessageFormat.format(res.getString("OcspResponseStatus.message"),
+                                                        response.getStatus()));
+        }
+
+        BasicOCSPResp basicResponse = (BasicOCSPResp) response.getResponseObject();
+        if (!isOcspSignatureValid(basicResponse, issuer)) {
+            return new CheckResult(VerificationStatus.INVALID, res.getString("OcspSignatureInvalid.message"));
+        }
+
+        for (SingleResp singleResp : basicResponse.getResponses()) {
+            if (!certId.equals(singleResp.getCertID())) {
+                continue;
+            }
+
+            if (singleResp.getNextUpdate() != null && singleResp.getNextUpdate().before(new Date())) {
+                return new CheckResult(VerificationStatus.INVALID, res.getString("OcspResponseExpired.message"));
+            }
+
+            Date nextUpdate = singleResp.getNextUpdate();
+            CertificateStatus certStatus = singleResp.getCertStatus();
+            if (certStatus == CertificateStatus.GOOD) {
+                return new CheckResult(VerificationStatus.VALID, null, nextUpdate);
+            }
+            if (certStatus instanceof RevokedStatus) {
+                Date revocationTime = ((RevokedStatus) certStatus).getRevocationTime();
+                return new CheckResult(VerificationStatus.REVOKED,
+                                       MessageFormat.format(res.getString("Revoked.message"),
+                                                            StringUtils.formatDate(revocationTime)), nextUpdate);
+            }
+            return new CheckResult(VerificationStatus.INVALID, res.getString("OcspStatusUnknown.message"),
+                                   nextUpdate);
+        }
+        return new CheckResult(VerificationStatus.INVALID, res.getString("OcspNoSingleResponse.message"));
+    }
+
+    /*
+     * The response must be signed by the issuer or by a responder certificate for OCSP signing
+     * that the issuer has issued.
+     */
+    private static boolean isOcspSignatureValid(BasicOCSPResp basicResponse, X509Certificate issuer)
+            throws Exception {
+        JcaContentVerifierProviderBuilder verifierBuilder = new JcaContentVerifierProviderBuilder().setProvider(
+                KSE.BC);
+        ContentVerifierProvider issuerVerifier = verifierBuilder.build(issuer.getPublicKey());
+
+        if (isSignatureValid(basicResponse, issuerVerifier)) {
+            return true;
+        }
+
+        for (X509CertificateHolder responderCert : basicResponse.getCerts()) {
+            ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(responderCert.getExtensions());
+            if (extendedKeyUsage != null && extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_OCSPSigning) &&
+                responderCert.isSignatureValid(issuerVerifier) &&
+                isSignatureValid(basicResponse, verifierBuilder.build(responderCert))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSignatureValid(BasicOCSPResp basicResponse, ContentVerifierProvider verifier) {
+        try {
+            return basicResponse.isSignatureValid(verifier);
+        } catch (Exception ex) {
+            // e.g. algorithm of the key does not match the signature
+            return false;
+        }
+    }
+
+    private CheckResult checkCrl(X509Certificate cert, X509Certificate issuer) {
+        List<URI> uris = RevocationDataCache.getCrlUris(cert);
+        if (uris.isEmpty() || X509CertUtil.isCertificateSelfSigned(cert)) {
+            return new CheckResult(VerificationStatus.NOT_APPLICABLE,
+                                   res.getString("NoCrlDistributionPoint.message"));
+        }
+        if (issuer == null) {
+            return new CheckResult(VerificationStatus.UNAVAILABLE, res.getString("NoIssuer.message"));
+        }
+
+        String error = null;
+        for (URI uri : uris) {
+            error = unavailableUris.get(uri);
+            if (error != null) {
+                continue;
+            }
+
+            X509CRL crl;
+            try {
+                crl = revocationCache.getCrl(cert.getIssuerX500Principal(), uri);
+            } catch (IOException | CryptoException ex) {
+                error = getMessage(ex);
+                unavailableUris.put(uri, error);
+                continue;
+            }
+
+            if (!isCrlSignatureValid(crl, issuer)) {
+                return new CheckResult(VerificationStatus.INVALID, res.getString("CrlSignatureInvalid.message"));
+            }
+            if (crl.getNextUpdate() != null && crl.getNextUpdate().before(new Date())) {
+                return new CheckResult(VerificationStatus.INVALID, res.getString("CrlExpired.message"));
+            }
+
+            X509CRLEntry crlEntry = crl.getRevokedCertificate(cert);
+            if (crlEntry != null) {
+                return new CheckResult(VerificationStatus.REVOKED,
+                                       MessageFormat.format(res.getString("Revoked.message"),
+                                                            StringUtils.formatDate(crlEntry.getRevocationDate())),
+                                       crl.getNextUpdate());
+            }
+            return new CheckResult(VerificationStatus.VALID, null, crl.getNextUpdate());
+        }
+        return new CheckResult(VerificationStatus.UNAVAILABLE, error);
+    }
+
+    private boolean isCrlSignatureValid(X509CRL crl, X509Certificate issuer) {
+        PublicKey issuerKey = issuer.getPublicKey();
+        if (issuerKey.equals(verifiedCrls.get(crl))) {
+            return true;
+        }
+
+        try {
+            crl.verify(issuerKey, KSE.BC);
+            verifiedCrls.put(crl, issuerKey);
+            return true;
+        } catch (GeneralSecurityException ex) {
+            return false;
+        }
+    }
+
+    private static boolean isCA(X509Certificate cert) {
+        if (cert.getBasicConstraints() != -1) {
+            boolean[] keyUsage = cert.getKeyUsage();
+            return keyUsage != null && keyUsage[5];
+        }
+        return false;
+    }
+
+    private static String getMessage(Exception ex) {
+        return ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+    }
+}
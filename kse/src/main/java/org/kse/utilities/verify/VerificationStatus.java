@@ -0,0 +1,52 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.verify;
+
+/**
+ * Outcome of a single check of a KeyStore entry's certificate.
+ */
+public enum VerificationStatus {
+
+    /**
+     * The check passed
+     */
+    VALID,
+
+    /**
+     * The check failed, e.g. the chain does not lead to a trusted certificate or the revocation
+     * data is not valid
+     */
+    INVALID,
+
+    /**
+     * The certificate has been revoked
+     */
+    REVOKED,
+
+    /**
+     * The revocation data could not be obtained, e.g. because the server is not reachable
+     */
+    UNAVAILABLE,
+
+    /**
+     * The check does not apply, e.g. the certificate does not name an OCSP responder
+     */
+    NOT_APPLICABLE
+}
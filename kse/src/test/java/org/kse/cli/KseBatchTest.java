@@ -0,0 +1,85 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.gui.passwordmanager.Password;
+
+/**
+ * Unit tests for KseBatch.
+ */
+class KseBatchTest extends CryptoTestsBase {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void detectAndConvert() throws Exception {
+        File keyStoreFile = new File(tempDir, "test.jks");
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        KeyStoreUtil.save(keyStore, keyStoreFile, new Password("password".toCharArray()));
+
+        File textFile = new File(tempDir, "test.txt");
+        Files.writeString(textFile.toPath(), "no crypto here");
+
+        List<String> lines = execute(0, "detect", keyStoreFile.getPath(), textFile.getPath());
+        assertThat(lines).hasSize(3);
+        assertThat(lines).anyMatch(line -> line.contains("test.jks") && line.contains("\"JKS_KS\""));
+        assertThat(lines).anyMatch(line -> line.contains("test.txt") && line.contains("\"UNKNOWN\""));
+        assertThat(lines.get(2)).contains("\"failed\":0");
+
+        lines = execute(0, "convert", "--password", "pass:password", "--type", "pkcs12", keyStoreFile.getPath());
+        assertThat(new File(tempDir, "test.p12")).exists();
+        assertThat(lines.get(0)).contains("\"keyStoreType\":\"PKCS12\"");
+
+        lines = execute(1, "list", "--password", "pass:wrong", "--", new File(tempDir, "test.p12").getPath());
+        assertThat(lines.get(0)).contains("\"status\":\"error\"");
+    }
+
+    @Test
+    void invalidArguments() throws Exception {
+        execute(2, "unknown", "file");
+        execute(2, "detect");
+        execute(2, "convert", "--password", "pass:password", "file");
+        execute(2, "detect", "--threads");
+    }
+
+    private static List<String> execute(int expectedExitCode, String... args) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        int exitCode = new KseBatch(new PrintStream(baos, true, StandardCharsets.UTF_8)).execute(args);
+
+        assertThat(exitCode).isEqualTo(expectedExitCode);
+        return baos.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
@@ -24,7 +24,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 
 import org.junit.jupiter.params.ParameterizedTest;
@@ -153,4 +155,32 @@ class CryptoFileUtilTest extends CryptoTestsBase {
         assertEquals(expectedResult, detectedType);
         assertNotNull(detectedType.friendly()); // ensure that English translation has a string
     }
+
+    @ParameterizedTest
+    // @formatter:off
+    @CsvSource({
+            "keystore.jks, JKS_KS",
+            "keystore.jceks, JCEKS_KS",
+            "keystore.bks, BKS_KS",
+            "keystore.uber, UBER_KS",
+            "keystore.kdb, KDB_KS",
+            "keystore.p12, PKCS12_KS",
+            "rsa.enc.pvk, ENC_MS_PVK",
+            "cert.der.cer, CERT",
+            "cert.pem.cer, CERT",
+            "cert.base64.txt, CERT",
+            "ec.unenc.json, UNENC_JSON_WEB_KEY",
+            "unknown.txt, UNKNOWN",
+            "empty.txt, UNKNOWN",
+    })
+    // @formatter:on
+    void detectFileTypeStreaming(String fileName, CryptoFileType expectedResult) throws IOException {
+        File file = new File(TEST_FILES_PATH, fileName);
+
+        assertEquals(expectedResult, CryptoFileUtil.detectFileType(file));
+
+        try (InputStream is = new FileInputStream(file)) {
+            assertEquals(expectedResult, CryptoFileUtil.detectFileType(is));
+        }
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.keystore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.security.KeyPair;
+import java.security.KeyStoreException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.x509.X509CertUtil;
+import org.kse.gui.passwordmanager.Password;
+import org.kse.utilities.AliasUtil;
+
+/**
+ * Unit tests for CopyOnWriteKeyStore.
+ */
+public class CopyOnWriteKeyStoreTest extends CryptoTestsBase {
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @ParameterizedTest
+    // @formatter:off
+    @CsvSource({
+            "JKS",
+            "JCEKS",
+            "PKCS12",
+            "BKS",
+            "UBER",
+    })
+    // @formatter:on
+    void changesDoNotAffectBase(KeyStoreType keyStoreType) throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Cert", keyPair);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(keyStoreType);
+        keyStore.setKeyEntry("keypair", keyPair.getPrivate(), PASSWORD, new Certificate[] { cert });
+        keyStore.setCertificateEntry("trusted", cert);
+
+        // rename "keypair" to "renamed" and delete "trusted" in a snapshot
+        CopyOnWriteKeyStore snapshot = CopyOnWriteKeyStore.snapshot(keyStore);
+        snapshot.setKeyEntry("renamed", snapshot.getKey("keypair", PASSWORD), PASSWORD,
+                             snapshot.getCertificateChain("keypair"));
+        snapshot.deleteEntry("keypair");
+        snapshot.deleteEntry("trusted");
+
+        assertThat(Collections.list(snapshot.aliases())).containsExactly("renamed");
+        assertThat(snapshot.size()).isEqualTo(1);
+        assertThat(snapshot.containsAlias("keypair")).isFalse();
+        assertThat(snapshot.isKeyEntry("renamed")).isTrue();
+        assertThat(snapshot.getCertificateAlias(cert)).isEqualTo("renamed");
+        assertThrows(UnrecoverableKeyException.class, () -> snapshot.getKey("renamed", "wrong".toCharArray()));
+
+        assertThat(Collections.list(keyStore.aliases())).containsExactlyInAnyOrder("keypair", "trusted");
+
+        // a snapshot of the snapshot sees its changes, but is independent
+        CopyOnWriteKeyStore nextSnapshot = CopyOnWriteKeyStore.snapshot(snapshot);
+        nextSnapshot.setCertificateEntry("trusted", cert);
+
+        assertThat(Collections.list(nextSnapshot.aliases())).containsExactlyInAnyOrder("renamed", "trusted");
+        assertThat(Collections.list(snapshot.aliases())).containsExactly("renamed");
+
+        // the complete KeyStore is built on save
+        File keyStoreFile = File.createTempFile("keystore", keyStoreType.jce().toLowerCase());
+        keyStoreFile.deleteOnExit();
+        Password password = new Password(PASSWORD.clone());
+        KeyStoreUtil.save(nextSnapshot, keyStoreFile, password);
+
+        KseKeyStore loaded = KeyStoreUtil.load(keyStoreFile, password);
+        assertThat(Collections.list(loaded.aliases())).containsExactlyInAnyOrder("renamed", "trusted");
+        assertThat(loaded.getKey("renamed", PASSWORD)).isNotNull();
+    }
+
+    @Test
+    void certificateIndexFollowsChanges() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Cert", keyPair);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        keyStore.setCertificateEntry("trusted", cert);
+
+        CopyOnWriteKeyStore snapshot = CopyOnWriteKeyStore.snapshot(keyStore);
+        CertificateFingerprintIndex index = snapshot.getCertificateIndex();
+        assertThat(index.getTrustedCertificateAlias(cert)).isEqualTo("trusted");
+        assertThat(X509CertUtil.matchCertificate(snapshot, cert)).isEqualTo("trusted");
+
+        // the next snapshot shares the index until it is changed
+        CopyOnWriteKeyStore nextSnapshot = CopyOnWriteKeyStore.snapshot(snapshot);
+        assertThat(nextSnapshot.getCertificateIndex()).isSameAs(index);
+
+        nextSnapshot.deleteEntry("trusted");
+        nextSnapshot.setKeyEntry("keypair", keyPair.getPrivate(), PASSWORD, new Certificate[] { cert });
+
+        assertThat(nextSnapshot.getCertificateIndex()).isNotSameAs(index);
+        assertThat(nextSnapshot.getCertificateIndex().getTrustedCertificateAlias(cert)).isNull();
+        assertThat(nextSnapshot.getCertificateAlias(cert)).isEqualTo("keypair");
+        assertThat(snapshot.getCertificateAlias(cert)).isEqualTo("trusted");
+
+        // unique aliases continue after the suffixes already taken
+        nextSnapshot.setCertificateEntry("cert", cert);
+        nextSnapshot.setCertificateEntry("cert (1)", cert);
+        assertThat(AliasUtil.uniqueAlias(nextSnapshot, "cert")).isEqualTo("cert (2)");
+        nextSnapshot.setCertificateEntry("cert (2)", cert);
+        assertThat(AliasUtil.uniqueAlias(nextSnapshot, "cert")).isEqualTo("cert (3)");
+        nextSnapshot.deleteEntry("cert (1)");
+        assertThat(AliasUtil.uniqueAlias(nextSnapshot, "cert")).isEqualTo("cert (1)");
+    }
+
+    @Test
+    @SuppressWarnings("deprecation") // for getKeyStore()
+    void reloadCopyAndPasswords() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Cert", keyPair);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        keyStore.setCertificateEntry("trusted", cert);
+
+        // entry passwords kept for building the complete KeyStore can be nulled
+        CopyOnWriteKeyStore nulled = CopyOnWriteKeyStore.snapshot(keyStore);
+        nulled.setKeyEntry("keypair", keyPair.getPrivate(), PASSWORD, new Certificate[] { cert });
+        nulled.nullPasswords();
+        assertThrows(KeyStoreException.class, () -> nulled.store(new ByteArrayOutputStream(), PASSWORD));
+
+        // many snapshots share their changes
+        CopyOnWriteKeyStore snapshot = CopyOnWriteKeyStore.snapshot(keyStore);
+        for (int i = 0; i < 40; i++) {
+            snapshot.setCertificateEntry("cert" + i, cert);
+            snapshot = CopyOnWriteKeyStore.snapshot(snapshot);
+        }
+        snapshot.deleteEntry("cert0");
+        snapshot.setKeyEntry("keypair", keyPair.getPrivate(), PASSWORD, new Certificate[] { cert });
+        assertThat(snapshot.size()).isEqualTo(41);
+        assertThat(Collections.list(snapshot.aliases())).hasSize(41).doesNotContain("cert0");
+
+        // the underlying KeyStore is a copy
+        snapshot.getKeyStore().deleteEntry("trusted");
+        assertThat(snapshot.containsAlias("trusted")).isTrue();
+        assertThat(snapshot.getKey("keypair", PASSWORD)).isNotNull();
+
+        // reloading replaces all entries and changes
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        keyStore.store(baos, PASSWORD);
+        snapshot.load(new ByteArrayInputStream(baos.toByteArray()), PASSWORD);
+
+        assertThat(Collections.list(snapshot.aliases())).containsExactly("trusted");
+        assertThat(snapshot.size()).isEqualTo(1);
+        assertThat(snapshot.getChangedAliases()).isNull();
+    }
+}
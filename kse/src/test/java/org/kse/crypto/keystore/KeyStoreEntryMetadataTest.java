@@ -0,0 +1,135 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.keystore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.KeyPair;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.Test;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.digest.DigestType;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.secretkey.SecretKeyType;
+import org.kse.crypto.secretkey.SecretKeyUtil;
+import org.kse.crypto.signing.SignatureType;
+import org.kse.crypto.x509.X509CertUtil;
+import org.kse.gui.passwordmanager.Password;
+import org.kse.utilities.history.KeyStoreHistory;
+import org.kse.utilities.history.KeyStoreState;
+
+/**
+ * Unit tests for KeyStoreEntryMetadata.
+ */
+public class KeyStoreEntryMetadataTest extends CryptoTestsBase {
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @Test
+    void keyPairEntry() throws Exception {
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+
+        KeyPair caKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate caCert = TestCertificates.selfSigned("cn=CA,o=KSE", caKeyPair, 3650,
+                                                             SignatureType.SHA256_ECDSA);
+        KeyPair eeKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate eeCert = TestCertificates.issued("cn=EE,o=KSE", eeKeyPair.getPublic(), caCert,
+                                                         caKeyPair.getPrivate(), 365, SignatureType.SHA256_ECDSA);
+
+        // chain deliberately stored in the wrong order
+        keyStore.setKeyEntry("ee", eeKeyPair.getPrivate(), PASSWORD, new Certificate[] { caCert, eeCert });
+
+        KeyStoreEntryMetadata metadata = KeyStoreEntryMetadata.create("ee", keyStore);
+
+        assertThat(metadata.isKeyPairEntry()).isTrue();
+        assertThat(metadata.isTrustedCertificateEntry()).isFalse();
+        assertThat(metadata.isKeyEntry()).isFalse();
+        assertThat(metadata.getCertificate()).isEqualTo(eeCert);
+        assertThat(metadata.getCertificateChain()).containsExactly(eeCert, caCert);
+        assertThat(metadata.getSubjectCN()).isEqualTo("EE");
+        assertThat(metadata.getIssuerCN()).isEqualTo("CA");
+        assertThat(metadata.getSubjectO()).isEqualTo("KSE");
+        assertThat(metadata.getKeyInfo()).isNotNull();
+        assertThat(metadata.getExpiry()).isEqualTo(eeCert.getNotAfter());
+        assertThat(metadata.getEarliestChainExpiry()).isEqualTo(eeCert.getNotAfter());
+        assertThat(metadata.getFingerprint(DigestType.SHA256)).isEqualTo(
+                X509CertUtil.getFingerprint(eeCert, DigestType.SHA256));
+    }
+
+    @Test
+    void trustedCertificateEntry() throws Exception {
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Trusted", keyPair, 30, SignatureType.SHA256_ECDSA);
+        keyStore.setCertificateEntry("trusted", cert);
+
+        KeyStoreEntryMetadata metadata = KeyStoreEntryMetadata.create("trusted", keyStore);
+
+        assertThat(metadata.isTrustedCertificateEntry()).isTrue();
+        assertThat(metadata.getCertificate()).isEqualTo(cert);
+        assertThat(metadata.getSubjectCN()).isEqualTo("Trusted");
+        assertThat(metadata.getValidityStart()).isEqualTo(cert.getNotBefore());
+        assertThat(metadata.getSerialNumberDec()).isEqualTo(X509CertUtil.getSerialNumberAsDec(cert));
+    }
+
+    @Test
+    void keyEntry() throws Exception {
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JCEKS);
+
+        SecretKey secretKey = SecretKeyUtil.generateSecretKey(SecretKeyType.AES, 128);
+        keyStore.setKeyEntry("secret", secretKey, PASSWORD, null);
+
+        KeyStoreEntryMetadata metadata = KeyStoreEntryMetadata.create("secret", keyStore);
+
+        assertThat(metadata.isKeyEntry()).isTrue();
+        assertThat(metadata.getCertificate()).isNull();
+        assertThat(metadata.getCertificateChain()).isNull();
+        assertThat(metadata.getKeyInfo()).isNull();
+        assertThat(metadata.getSubjectDN()).isNull();
+        assertThat(metadata.getFingerprint(DigestType.SHA256)).isNull();
+    }
+
+    @Test
+    void metadataIsTakenOverForUnchangedEntries() throws Exception {
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Trusted", keyPair, 30, SignatureType.SHA256_ECDSA);
+        keyStore.setCertificateEntry("unchanged", cert);
+        keyStore.setCertificateEntry("changed", cert);
+
+        KeyStoreHistory history = new KeyStoreHistory(keyStore, "test", new Password(PASSWORD.clone()), null);
+        KeyStoreState initialState = history.getCurrentState();
+        KeyStoreEntryMetadata unchanged = initialState.getEntryMetadata("unchanged");
+        KeyStoreEntryMetadata changed = initialState.getEntryMetadata("changed");
+
+        KeyStoreState newState = initialState.createBasisForNextState(() -> "Change");
+        newState.getKeyStore().setCertificateEntry("changed", cert);
+        initialState.append(newState);
+
+        assertThat(newState.getEntryMetadata("unchanged")).isSameAs(unchanged);
+        assertThat(newState.getEntryMetadata("changed")).isNotSameAs(changed);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.keystore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.security.KeyPair;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+
+import org.bouncycastle.asn1.pkcs.MacData;
+import org.bouncycastle.asn1.pkcs.Pfx;
+import org.junit.jupiter.api.Test;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.gui.passwordmanager.Password;
+
+/**
+ * Unit tests for Pkcs12KeyStoreAdapter.
+ */
+public class Pkcs12KeyStoreAdapterTest extends CryptoTestsBase {
+    private static final char[] PASSWORD = "password".toCharArray();
+    private static final String MAC_ITERATION_COUNT = "keystore.pkcs12.macIterationCount";
+
+    @Test
+    void loadsSameEntriesAsProvider() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Cert", keyPair);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.PKCS12);
+        keyStore.setKeyEntry("keypair", keyPair.getPrivate(), PASSWORD, new Certificate[] { cert });
+        keyStore.setCertificateEntry("trusted", cert);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        keyStore.store(baos, PASSWORD);
+        byte[] p12 = baos.toByteArray();
+
+        KseKeyStore loaded = KeyStoreUtil.load(p12, new Password(PASSWORD.clone()), KeyStoreType.PKCS12);
+        assertThat(loaded).isInstanceOf(Pkcs12KeyStoreAdapter.class);
+        assertThat(Collections.list(loaded.aliases())).containsExactlyInAnyOrder("keypair", "trusted");
+        assertThat(loaded.getKey("keypair", PASSWORD).getEncoded()).isEqualTo(keyPair.getPrivate().getEncoded());
+        assertThat(loaded.getCertificateChain("keypair")).containsExactly(cert);
+        assertThat(((Pkcs12KeyStoreAdapter) loaded).hasInvisibleCerts()).isFalse();
+
+        assertThrows(KeyStoreLoadException.class,
+                     () -> KeyStoreUtil.load(p12, new Password("wrong".toCharArray()), KeyStoreType.PKCS12));
+    }
+
+    @Test
+    void resaveKeepsMacParameters() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.PKCS12);
+        keyStore.setKeyEntry("keypair", keyPair.getPrivate(), PASSWORD,
+                             new Certificate[] { TestCertificates.selfSigned("cn=Cert", keyPair) });
+
+        String previous = System.getProperty(MAC_ITERATION_COUNT);
+        byte[] p12;
+        try {
+            System.setProperty(MAC_ITERATION_COUNT, "2048");
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            keyStore.store(baos, PASSWORD);
+            p12 = baos.toByteArray();
+        } finally {
+            if (previous == null) {
+                System.clearProperty(MAC_ITERATION_COUNT);
+            } else {
+                System.setProperty(MAC_ITERATION_COUNT, previous);
+            }
+        }
+
+        KseKeyStore loaded = KeyStoreUtil.load(p12, new Password(PASSWORD.clone()), KeyStoreType.PKCS12);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        loaded.store(baos, PASSWORD);
+
+        MacData macData = Pfx.getInstance(baos.toByteArray()).getMacData();
+        assertThat(macData).isNotNull();
+        assertThat(macData.getIterationCount().intValue()).isEqualTo(2048);
+        assertThat(loaded.getKey("keypair", PASSWORD).getEncoded()).isEqualTo(keyPair.getPrivate().getEncoded());
+    }
+}
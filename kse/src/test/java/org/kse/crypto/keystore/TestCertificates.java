@@ -0,0 +1,105 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.keystore;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.kse.KSE;
+import org.kse.crypto.signing.SignatureType;
+import org.kse.crypto.x509.X509CertificateGenerator;
+import org.kse.crypto.x509.X509CertificateVersion;
+import org.kse.crypto.x509.X509ExtensionSet;
+
+/**
+ * Test helper that builds X.509 certificates with KeyStore Explorer's BouncyCastle-based
+ * {@link X509CertificateGenerator}. The certificates are valid from a minute ago, so they are
+ * already valid when a test checks them.
+ */
+public final class TestCertificates {
+
+    private TestCertificates() {
+    }
+
+    /** ECDSA self-signed certificate valid for a year with serial number 1. */
+    public static X509Certificate selfSigned(String dn, KeyPair keyPair) throws Exception {
+        return selfSigned(dn, keyPair, 365, BigInteger.ONE);
+    }
+
+    /** ECDSA self-signed certificate. */
+    public static X509Certificate selfSigned(String dn, KeyPair keyPair, int validityDays, BigInteger serial)
+            throws Exception {
+        return selfSigned(dn, keyPair, validityDays, SignatureType.SHA256_ECDSA, serial);
+    }
+
+    /** Self-signed certificate with a unique serial number. */
+    public static X509Certificate selfSigned(String dn, KeyPair keyPair, int validityDays,
+                                             SignatureType signatureType) throws Exception {
+        return selfSigned(dn, keyPair, validityDays, signatureType, serial());
+    }
+
+    private static X509Certificate selfSigned(String dn, KeyPair keyPair, int validityDays,
+                                              SignatureType signatureType, BigInteger serial) throws Exception {
+        return generator().generateSelfSigned(new X500Name(dn), notBefore(), notAfter(validityDays),
+                                              keyPair.getPublic(), keyPair.getPrivate(), signatureType, serial);
+    }
+
+    /** ECDSA certificate valid for a year, signed by the issuer's key, with a unique serial number. */
+    public static X509Certificate issued(String subjectDn, String issuerDn, KeyPair subjectKeyPair,
+                                         KeyPair issuerKeyPair, X509ExtensionSet extensions) throws Exception {
+        return generator().generate(new X500Name(subjectDn), new X500Name(issuerDn), notBefore(), notAfter(365),
+                                    subjectKeyPair.getPublic(), issuerKeyPair.getPrivate(),
+                                    SignatureType.SHA256_ECDSA, serial(), extensions, KSE.BC);
+    }
+
+    /** Certificate signed by an issuer (CA) with a unique serial number. */
+    public static X509Certificate issued(String subjectDn, PublicKey subjectKey, X509Certificate issuer,
+                                         PrivateKey issuerKey, int validityDays, SignatureType signatureType)
+            throws Exception {
+        return generator().generate(new X500Name(subjectDn),
+                                    X500Name.getInstance(issuer.getSubjectX500Principal().getEncoded()),
+                                    notBefore(), notAfter(validityDays), subjectKey, issuerKey, signatureType,
+                                    serial(), null, null);
+    }
+
+    private static X509CertificateGenerator generator() {
+        return new X509CertificateGenerator(X509CertificateVersion.VERSION3);
+    }
+
+    private static Date notBefore() {
+        return Date.from(Instant.now().minus(1, ChronoUnit.MINUTES));
+    }
+
+    private static Date notAfter(int validityDays) {
+        return Date.from(Instant.now().plus(validityDays, ChronoUnit.DAYS));
+    }
+
+    private static BigInteger serial() {
+        return new BigInteger(64, new SecureRandom()).abs();
+    }
+}
@@ -22,6 +22,9 @@ package org.kse.crypto.keystore.kdb;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.security.KeyPair;
@@ -30,6 +33,9 @@ import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 
 import org.junit.jupiter.api.Test;
+import org.kse.crypto.keystore.TestCertificates;
+import org.kse.crypto.signing.SignatureType;
+import org.kse.crypto.x509.X509CertificateIndex;
 
 /** Round-trip tests for the native CMS key-database engine (no native binary needed). */
 class KdbKeyDatabaseTest {
@@ -54,7 +60,7 @@ class KdbKeyDatabaseTest {
     @Test
     void caCertificateRoundTrips() throws Exception {
         KeyPair kp = rsa();
-        X509Certificate cert = TestCertificates.selfSigned("CN=Root,O=T", kp, 365, "SHA256withRSA");
+        X509Certificate cert = TestCertificates.selfSigned("CN=Root,O=T", kp, 365, SignatureType.SHA256_RSA);
         KdbKeyDatabase db = KdbKeyDatabase.create();
         db.add(KdbRecord.caRecord("root", cert));
         byte[] bytes = db.serialize("pw".toCharArray());
@@ -70,7 +76,7 @@ class KdbKeyDatabaseTest {
     @Test
     void personalCertificateAndKeyRoundTrip() throws Exception {
         KeyPair kp = rsa();
-        X509Certificate cert = TestCertificates.selfSigned("CN=me", kp, 365, "SHA256withRSA");
+        X509Certificate cert = TestCertificates.selfSigned("CN=me", kp, 365, SignatureType.SHA256_RSA);
         byte[] enc = KdbRecord.encryptPrivateKey(kp.getPrivate(), "pw".toCharArray());
         KdbKeyDatabase db = KdbKeyDatabase.create();
         db.add(KdbRecord.personalRecord("me", cert, enc));
@@ -95,7 +101,7 @@ class KdbKeyDatabaseTest {
     @Test
     void version4DatabaseRoundTripsAndVerifies() throws Exception {
         KeyPair kp = rsa();
-        X509Certificate cert = TestCertificates.selfSigned("CN=Root,O=T", kp, 365, "SHA256withRSA");
+        X509Certificate cert = TestCertificates.selfSigned("CN=Root,O=T", kp, 365, SignatureType.SHA256_RSA);
         KdbKeyDatabase db = KdbKeyDatabase.create().version(KdbKeyDatabase.Version.V4);
         db.add(KdbRecord.caRecord("root", cert));
         byte[] bytes = db.serialize("secret".toCharArray());
@@ -120,7 +126,7 @@ class KdbKeyDatabaseTest {
     @Test
     void changingPasswordReEncryptsKeys() throws Exception {
         KeyPair kp = rsa();
-        X509Certificate cert = TestCertificates.selfSigned("CN=me", kp, 365, "SHA256withRSA");
+        X509Certificate cert = TestCertificates.selfSigned("CN=me", kp, 365, SignatureType.SHA256_RSA);
         KdbKeyDatabase db = KdbKeyDatabase.create();
         db.add(KdbRecord.personalRecord("me", cert, KdbRecord.encryptPrivateKey(kp.getPrivate(), "old".toCharArray())));
         byte[] v1 = db.serialize("old".toCharArray());
@@ -138,4 +144,26 @@ class KdbKeyDatabaseTest {
         assertEquals(kp.getPrivate(),
             KdbKeyDatabase.read(v2).find("me").privateKey("new".toCharArray()));
     }
+
+    @Test
+    void indexesFollowAddAndRemove() throws Exception {
+        KeyPair kp = rsa();
+        X509Certificate cert = TestCertificates.selfSigned("CN=Root,O=T", kp, 365, SignatureType.SHA256_RSA);
+        KdbKeyDatabase db = KdbKeyDatabase.create();
+        db.add(KdbRecord.caRecord("root", cert));
+        KdbKeyDatabase back = KdbKeyDatabase.read(db.serialize("pw".toCharArray()));
+
+        X509CertificateIndex index = back.certificateIndex();
+        assertSame(index, back.certificateIndex());
+        assertEquals(1, back.findBySubject(cert.getSubjectX500Principal()).size());
+
+        assertTrue(back.remove("root"));
+        assertNull(back.find("root"));
+        assertNotSame(index, back.certificateIndex());
+        assertTrue(back.findBySubject(cert.getSubjectX500Principal()).isEmpty());
+
+        // a lazily parsed record survives re-serialization unchanged
+        back.add(KdbKeyDatabase.read(db.serialize("pw".toCharArray())).find("root"));
+        assertEquals(cert, KdbKeyDatabase.read(back.serialize("pw".toCharArray())).find("root").certificate());
+    }
 }
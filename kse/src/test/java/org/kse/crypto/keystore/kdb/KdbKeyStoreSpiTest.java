@@ -42,7 +42,9 @@ import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keystore.TestCertificates;
 import org.kse.crypto.keystore.kdb.stash.StashFile;
+import org.kse.crypto.signing.SignatureType;
 
 /**
  * Tests the CMS key database KeyStore SPI via the standard java.security.KeyStore API.
@@ -71,7 +73,7 @@ class KdbKeyStoreSpiTest extends CryptoTestsBase {
         KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
         generator.initialize(2048);
         KeyPair keyPair = generator.generateKeyPair();
-        X509Certificate cert = TestCertificates.selfSigned("CN=Test", keyPair, 365, "SHA256withRSA");
+        X509Certificate cert = TestCertificates.selfSigned("CN=Test", keyPair, 365, SignatureType.SHA256_RSA);
 
         KeyStore keyStore = newKdbKeyStore();
         keyStore.setKeyEntry("key", keyPair.getPrivate(), PASSWORD, new Certificate[] { cert });
@@ -105,7 +107,7 @@ class KdbKeyStoreSpiTest extends CryptoTestsBase {
         KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
         generator.initialize(2048);
         KeyPair keyPair = generator.generateKeyPair();
-        X509Certificate cert = TestCertificates.selfSigned("CN=Test", keyPair, 365, "SHA256withRSA");
+        X509Certificate cert = TestCertificates.selfSigned("CN=Test", keyPair, 365, SignatureType.SHA256_RSA);
 
         KeyStore keyStore = newKdbKeyStore();
         keyStore.setKeyEntry("key", keyPair.getPrivate(), PASSWORD, new Certificate[] { cert });
@@ -130,7 +132,7 @@ class KdbKeyStoreSpiTest extends CryptoTestsBase {
         KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
         generator.initialize(2048);
         KeyPair keyPair = generator.generateKeyPair();
-        X509Certificate cert = TestCertificates.selfSigned("CN=Test", keyPair, 365, "SHA256withRSA");
+        X509Certificate cert = TestCertificates.selfSigned("CN=Test", keyPair, 365, SignatureType.SHA256_RSA);
 
         char[] oldPassword = "old".toCharArray();
         char[] newPassword = "new".toCharArray();
@@ -297,11 +299,11 @@ class KdbKeyStoreSpiTest extends CryptoTestsBase {
         KeyPair rootKp = newRsaKeyPair();
         KeyPair intKp = newRsaKeyPair();
         KeyPair leafKp = newRsaKeyPair();
-        X509Certificate root = TestCertificates.selfSigned("CN=Test Root CA", rootKp, 3650, "SHA256withRSA");
-        X509Certificate intermediate = TestCertificates.sign("CN=Test Intermediate CA", intKp.getPublic(),
-                root, rootKp.getPrivate(), 1825, "SHA256withRSA");
-        X509Certificate leaf = TestCertificates.sign("CN=server.example.com", leafKp.getPublic(),
-                intermediate, intKp.getPrivate(), 825, "SHA256withRSA");
+        X509Certificate root = TestCertificates.selfSigned("CN=Test Root CA", rootKp, 3650, SignatureType.SHA256_RSA);
+        X509Certificate intermediate = TestCertificates.issued("CN=Test Intermediate CA", intKp.getPublic(),
+                root, rootKp.getPrivate(), 1825, SignatureType.SHA256_RSA);
+        X509Certificate leaf = TestCertificates.issued("CN=server.example.com", leafKp.getPublic(),
+                intermediate, intKp.getPrivate(), 825, SignatureType.SHA256_RSA);
 
         KeyStore keyStore = newKdbKeyStore();
         keyStore.setKeyEntry("server-cert", leafKp.getPrivate(), PASSWORD,
@@ -336,14 +338,14 @@ class KdbKeyStoreSpiTest extends CryptoTestsBase {
         KeyPair impostorCaKp = newRsaKeyPair();
         KeyPair leafKp = newRsaKeyPair();
 
-        X509Certificate root = TestCertificates.selfSigned("CN=Root CA", rootKp, 3650, "SHA256withRSA");
-        X509Certificate realCa = TestCertificates.sign("CN=Issuing CA", realCaKp.getPublic(),
-                root, rootKp.getPrivate(), 1825, "SHA256withRSA");
+        X509Certificate root = TestCertificates.selfSigned("CN=Root CA", rootKp, 3650, SignatureType.SHA256_RSA);
+        X509Certificate realCa = TestCertificates.issued("CN=Issuing CA", realCaKp.getPublic(),
+                root, rootKp.getPrivate(), 1825, SignatureType.SHA256_RSA);
         // Same subject DN as the real CA, different key, never signed the leaf
-        X509Certificate impostorCa = TestCertificates.sign("CN=Issuing CA", impostorCaKp.getPublic(),
-                root, rootKp.getPrivate(), 1825, "SHA256withRSA");
-        X509Certificate leaf = TestCertificates.sign("CN=leaf.example.com", leafKp.getPublic(),
-                realCa, realCaKp.getPrivate(), 825, "SHA256withRSA");
+        X509Certificate impostorCa = TestCertificates.issued("CN=Issuing CA", impostorCaKp.getPublic(),
+                root, rootKp.getPrivate(), 1825, SignatureType.SHA256_RSA);
+        X509Certificate leaf = TestCertificates.issued("CN=leaf.example.com", leafKp.getPublic(),
+                realCa, realCaKp.getPrivate(), 825, SignatureType.SHA256_RSA);
 
         KeyStore keyStore = newKdbKeyStore();
         keyStore.setKeyEntry("leaf", leafKp.getPrivate(), PASSWORD, new Certificate[] { leaf });
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.junit.jupiter.api.Test;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairType;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.keystore.TestCertificates;
+import org.kse.crypto.signing.SignatureType;
+import org.kse.gui.passwordmanager.Password;
+
+/**
+ * Unit tests for PemKeyStoreSpi.
+ */
+public class PemKeyStoreSpiTest extends CryptoTestsBase {
+    private static final String PASSWORD = "password";
+
+    @Test
+    void keysAreMatchedWithTheirCertificates() throws Exception {
+        KeyPair rsaKeyPair = KeyPairUtil.generateKeyPair(KeyPairType.RSA, 2048, KSE.BC);
+        KeyPair ecKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        KeyPair edKeyPair = KeyPairUtil.generateKeyPair(KeyPairType.ED25519, KSE.BC);
+        KeyPair otherKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+
+        X509Certificate rsaCert = TestCertificates.selfSigned("cn=RSA", rsaKeyPair, 365, SignatureType.SHA256_RSA);
+        X509Certificate ecCert = TestCertificates.selfSigned("cn=EC", ecKeyPair, 365, SignatureType.SHA256_ECDSA);
+        X509Certificate edCert = TestCertificates.selfSigned("cn=Ed25519", edKeyPair, 365, SignatureType.ED25519);
+        X509Certificate otherCert = TestCertificates.selfSigned("cn=Other", otherKeyPair, 365,
+                                                                SignatureType.SHA256_ECDSA);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.PEM);
+        keyStore.setKeyEntry("rsa", rsaKeyPair.getPrivate(), PASSWORD.toCharArray(), new Certificate[] { rsaCert });
+        keyStore.setKeyEntry("ec", ecKeyPair.getPrivate(), PASSWORD.toCharArray(), new Certificate[] { ecCert });
+        keyStore.setKeyEntry("ed", edKeyPair.getPrivate(), PASSWORD.toCharArray(), new Certificate[] { edCert });
+        keyStore.setCertificateEntry("other", otherCert);
+
+        File keyStoreFile = File.createTempFile("keystore", ".pem");
+        keyStoreFile.deleteOnExit();
+        KeyStoreUtil.save(keyStore, keyStoreFile, new Password(PASSWORD.toCharArray()));
+
+        KseKeyStore loaded = KeyStoreUtil.load(keyStoreFile, new Password(PASSWORD.toCharArray()));
+
+        assertThat(Collections.list(loaded.aliases())).containsExactlyInAnyOrder("RSA", "EC", "Ed25519", "Other");
+        assertThat(loaded.getCertificate("RSA")).isEqualTo(rsaCert);
+        assertThat(loaded.getCertificate("EC")).isEqualTo(ecCert);
+        assertThat(loaded.getCertificate("Ed25519")).isEqualTo(edCert);
+        assertThat(loaded.isKeyEntry("RSA")).isTrue();
+        assertThat(loaded.isKeyEntry("EC")).isTrue();
+        assertThat(loaded.isKeyEntry("Ed25519")).isTrue();
+        assertThat(loaded.isCertificateEntry("Other")).isTrue();
+    }
+
+    @Test
+    void ecKeyWithExplicitParametersIsMatched() throws Exception {
+        // explicit domain parameters instead of a named curve
+        ECNamedCurveParameterSpec namedSpec = ECNamedCurveTable.getParameterSpec("P-256");
+        ECParameterSpec explicitSpec = new ECParameterSpec(namedSpec.getCurve(), namedSpec.getG(), namedSpec.getN(),
+                                                           namedSpec.getH());
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC", KSE.BC);
+        keyPairGenerator.initialize(explicitSpec);
+        KeyPair ecKeyPair = keyPairGenerator.generateKeyPair();
+
+        X509Certificate ecCert = TestCertificates.selfSigned("cn=Explicit", ecKeyPair, 365, SignatureType.SHA256_ECDSA);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.PEM);
+        keyStore.setKeyEntry("ec", ecKeyPair.getPrivate(), PASSWORD.toCharArray(), new Certificate[] { ecCert });
+
+        File keyStoreFile = File.createTempFile("keystore", ".pem");
+        keyStoreFile.deleteOnExit();
+        KeyStoreUtil.save(keyStore, keyStoreFile, new Password(PASSWORD.toCharArray()));
+
+        KseKeyStore loaded = KeyStoreUtil.load(keyStoreFile, new Password(PASSWORD.toCharArray()));
+
+        assertThat(Collections.list(loaded.aliases())).containsExactly("Explicit");
+        assertThat(loaded.isKeyEntry("Explicit")).isTrue();
+        assertThat(loaded.getCertificate("Explicit")).isEqualTo(ecCert);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.revocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPReqBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.jcajce.JcaBasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.jcajce.JcaCertificateID;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.TestCertificates;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit tests for RevocationDataCache, using a local HTTP server as CRL distribution point and
+ * OCSP responder.
+ */
+public class RevocationDataCacheTest extends CryptoTestsBase {
+    private static final String ETAG = "\"crl-1\"";
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private AtomicInteger crlDownloads = new AtomicInteger();
+    private AtomicInteger crlRevalidations = new AtomicInteger();
+    private AtomicInteger ocspRequests = new AtomicInteger();
+
+    private KeyPair caKeyPair;
+    private X509Certificate caCert;
+    private X509Certificate cert;
+    private Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private byte[] crl;
+    private byte[] ocspResponse;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        caKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        caCert = TestCertificates.selfSigned("cn=CA", caKeyPair);
+        cert = TestCertificates.selfSigned("cn=Cert", caKeyPair, 365, BigInteger.TWO);
+
+        ContentSigner signer = new JcaContentSignerBuilder("SHA256withECDSA").setProvider(KSE.BC)
+                                                                             .build(caKeyPair.getPrivate());
+
+        X509v2CRLBuilder crlBuilder = new X509v2CRLBuilder(new X500Name("cn=CA"), Date.from(now));
+        crlBuilder.setNextUpdate(Date.from(now.plus(1, ChronoUnit.DAYS)));
+        crl = crlBuilder.build(signer).getEncoded();
+
+        DigestCalculatorProvider digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().setProvider(
+                KSE.BC).build();
+        BasicOCSPRespBuilder respBuilder = new JcaBasicOCSPRespBuilder(caKeyPair.getPublic(),
+                                                                       digestCalculatorProvider.get(
+                                                                               CertificateID.HASH_SHA1));
+        respBuilder.addResponse(certificateId(), CertificateStatus.GOOD, Date.from(now),
+                                Date.from(now.plus(1, ChronoUnit.HOURS)), null);
+        BasicOCSPResp basicResponse = respBuilder.build(signer, null, Date.from(now));
+        ocspResponse = new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse).getEncoded();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ca.crl", this::handleCrl);
+        server.createContext("/ocsp", this::handleOcsp);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void crlIsCachedUntilNextUpdate() throws Exception {
+        URI uri = uri("/ca.crl");
+        X500Principal issuer = cert.getIssuerX500Principal();
+
+        RevocationDataCache cache = new RevocationDataCache(tempDir.toFile(), clock(Duration.ZERO));
+        X509CRL first = cache.getCrl(issuer, uri);
+        assertThat(cache.getCrl(issuer, uri)).isEqualTo(first);
+        assertThat(crlDownloads.get()).isEqualTo(1);
+
+        // a new cache reads the CRL from disk
+        RevocationDataCache restartedCache = new RevocationDataCache(tempDir.toFile(), clock(Duration.ZERO));
+        assertThat(restartedCache.getCrl(issuer, uri)).isEqualTo(first);
+        assertThat(crlDownloads.get()).isEqualTo(1);
+
+        // after nextUpdate the CRL is revalidated, but not downloaded again
+        RevocationDataCache laterCache = new RevocationDataCache(tempDir.toFile(), clock(Duration.ofDays(2)));
+        assertThat(laterCache.getCrl(issuer, uri)).isEqualTo(first);
+        assertThat(crlRevalidations.get()).isEqualTo(1);
+        assertThat(crlDownloads.get()).isEqualTo(1);
+
+        // the same URL used by another CA is a different CRL
+        cache.getCrl(new X500Principal("cn=Other CA"), uri);
+        assertThat(crlDownloads.get()).isEqualTo(2);
+
+        cache.clear();
+        assertThat(tempDir.toFile().listFiles()).isEmpty();
+    }
+
+    @Test
+    void ocspResponseIsCachedUntilNextUpdate() throws Exception {
+        URI uri = uri("/ocsp");
+        OCSPReq request = new OCSPReqBuilder().addRequest(certificateId()).build();
+
+        RevocationDataCache cache = new RevocationDataCache(tempDir.toFile(), clock(Duration.ZERO));
+        assertThat(cache.getOcspResponse(uri, request).getEncoded()).isEqualTo(ocspResponse);
+        assertThat(cache.getOcspResponse(uri, request).getEncoded()).isEqualTo(ocspResponse);
+        assertThat(new RevocationDataCache(tempDir.toFile(), clock(Duration.ZERO)).getOcspResponse(uri, request)
+                                                                                   .getStatus()).isEqualTo(
+                OCSPResp.SUCCESSFUL);
+        assertThat(ocspRequests.get()).isEqualTo(1);
+
+        // stale after nextUpdate
+        new RevocationDataCache(tempDir.toFile(), clock(Duration.ofHours(2))).getOcspResponse(uri, request);
+        assertThat(ocspRequests.get()).isEqualTo(2);
+
+        // requests with a nonce are always sent to the responder
+        ExtensionsGenerator extGen = new ExtensionsGenerator();
+        extGen.addExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce, false, new DEROctetString(new byte[16]));
+        OCSPReq nonceRequest = new OCSPReqBuilder().addRequest(certificateId())
+                                                   .setRequestExtensions(extGen.generate())
+                                                   .build();
+        cache.getOcspResponse(uri, nonceRequest);
+        assertThat(ocspRequests.get()).isEqualTo(3);
+    }
+
+    private CertificateID certificateId() throws Exception {
+        DigestCalculatorProvider digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().setProvider(
+                KSE.BC).build();
+        return new JcaCertificateID(digestCalculatorProvider.get(CertificateID.HASH_SHA1), caCert,
+                                    cert.getSerialNumber());
+    }
+
+    private Clock clock(Duration offset) {
+        return Clock.fixed(now.plus(offset), ZoneOffset.UTC);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    private void handleCrl(HttpExchange exchange) throws IOException {
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            crlRevalidations.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        crlDownloads.incrementAndGet();
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        send(exchange, crl);
+    }
+
+    private void handleOcsp(HttpExchange exchange) throws IOException {
+        ocspRequests.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        send(exchange, ocspResponse);
+    }
+
+    private static void send(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.signing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.digest.DigestType;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.TestCertificates;
+
+/**
+ * Unit tests for JarSigningEngine.
+ */
+class JarSigningEngineTest extends CryptoTestsBase {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void signsJarsInParallel() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Signer", keyPair);
+
+        File[] inputJars = new File[3];
+        List<File> outputJars = new ArrayList<>();
+        for (int i = 0; i < inputJars.length; i++) {
+            inputJars[i] = createJar("test" + i + ".jar", i);
+            // sign the first JAR in place
+            outputJars.add(i == 0 ? inputJars[i] : new File(tempDir, "signed" + i + ".jar"));
+        }
+        File missingJar = new File(tempDir, "missing.jar");
+
+        File[] jarsToSign = { inputJars[0], inputJars[1], missingJar, inputJars[2] };
+        List<File> signedJars = List.of(outputJars.get(0), outputJars.get(1), new File(tempDir, "out.jar"),
+                                        outputJars.get(2));
+
+        Map<File, Exception> failures = new ConcurrentHashMap<>();
+        List<File> signed = Collections.synchronizedList(new ArrayList<>());
+
+        JarSigningEngine engine = new JarSigningEngine(keyPair.getPrivate(), new X509Certificate[] { cert },
+                                                       SignatureType.SHA256_ECDSA, "my signer", "KSE test",
+                                                       DigestType.SHA256, null, KSE.BC);
+        engine.sign(jarsToSign, signedJars, 2, new JarSigningEngine.SigningListener() {
+            @Override
+            public void jarSigned(File jarFile, int completed) {
+                signed.add(jarFile);
+            }
+
+            @Override
+            public void jarFailed(File jarFile, Exception error, int completed) {
+                failures.put(jarFile, error);
+            }
+        });
+
+        assertThat(signed).containsExactlyInAnyOrder(inputJars);
+        assertThat(failures).containsOnlyKeys(missingJar);
+
+        for (File outputJar : outputJars) {
+            assertThat(JarSigner.hasSignature(outputJar, "MY_SIGNER")).isTrue();
+            assertSigned(outputJar);
+        }
+    }
+
+    private File createJar(String name, int index) throws Exception {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, "org.example.Main" + index);
+
+        File jarFile = new File(tempDir, name);
+        try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(jarFile.toPath()), manifest)) {
+            jos.putNextEntry(new JarEntry("org/example/"));
+            jos.closeEntry();
+            for (int i = 0; i < 10; i++) {
+                jos.putNextEntry(new JarEntry("org/example/file" + i + ".txt"));
+                jos.write(("content " + index + " " + i).repeat(1000).getBytes(StandardCharsets.UTF_8));
+                jos.closeEntry();
+            }
+        }
+        return jarFile;
+    }
+
+    private static void assertSigned(File jarFile) throws Exception {
+        try (JarFile jar = new JarFile(jarFile, true)) {
+            assertThat(jar.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS)).startsWith(
+                    "org.example.Main");
+
+            for (JarEntry entry : Collections.list(jar.entries())) {
+                if (entry.isDirectory() || entry.getName().startsWith("META-INF/")) {
+                    continue;
+                }
+                // entries must be read completely before their signers are known
+                try (InputStream is = jar.getInputStream(entry)) {
+                    is.readAllBytes();
+                }
+                assertThat(entry.getCodeSigners()).as(entry.getName()).hasSize(1);
+            }
+        }
+    }
+}
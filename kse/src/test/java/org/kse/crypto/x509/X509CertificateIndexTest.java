@@ -0,0 +1,114 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.crypto.x509;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.TestCertificates;
+
+/**
+ * Unit tests for X509CertificateIndex and the chain functions of X509CertUtil that use it.
+ */
+public class X509CertificateIndexTest extends CryptoTestsBase {
+
+    private static KeyPair rootKeyPair;
+    private static KeyPair caKeyPair;
+    private static KeyPair eeKeyPair;
+    private static X509Certificate rootCert;
+    private static X509Certificate caCert;
+    private static X509Certificate eeCert;
+
+    @BeforeAll
+    static void generateChain() throws Exception {
+        rootKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        caKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        eeKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+
+        rootCert = TestCertificates.issued("cn=Root", "cn=Root", rootKeyPair, rootKeyPair, null);
+        caCert = TestCertificates.issued("cn=CA", "cn=Root", caKeyPair, rootKeyPair, null);
+        eeCert = TestCertificates.issued("cn=EE", "cn=CA", eeKeyPair, caKeyPair, null);
+    }
+
+    @Test
+    void findIssuersAndIssued() throws Exception {
+        // same subject as the real CA, but a different key
+        X509Certificate otherCaCert = TestCertificates.issued("cn=CA", "cn=Root",
+                                                              KeyPairUtil.generateECKeyPair("P-256", KSE.BC),
+                                                              rootKeyPair, null);
+
+        X509CertificateIndex index = new X509CertificateIndex(List.of(eeCert, otherCaCert, caCert, rootCert));
+
+        assertThat(index.findBySubject(caCert.getSubjectX500Principal())).containsExactly(otherCaCert, caCert);
+        assertThat(index.findIssuers(eeCert)).containsExactly(caCert);
+        assertThat(index.findIssued(rootCert)).containsExactly(otherCaCert, caCert);
+        assertThat(index.findIssued(caCert)).containsExactly(eeCert);
+        assertThat(index.findByPublicKey(eeKeyPair.getPublic())).containsExactly(eeCert);
+    }
+
+    @Test
+    void verifiesIssuedCertificates() throws Exception {
+        X509CertificateIndex index = new X509CertificateIndex(List.of(caCert, rootCert));
+
+        assertThat(index.verifyCertificate(eeCert, caCert)).isTrue();
+        assertThat(index.verifyCertificate(eeCert, rootCert)).isFalse();
+
+        X509CertificateIndex copy = new X509CertificateIndex(index);
+        assertThat(copy.isIssuedBy(eeCert, caCert)).isTrue();
+        assertThat(copy.isIssuedBy(caCert, eeCert)).isFalse();
+    }
+
+    @Test
+    void orderChain() {
+        X509Certificate[] ordered = X509CertUtil.orderX509CertChain(
+                new X509Certificate[] { rootCert, eeCert, caCert });
+
+        assertThat(ordered).containsExactly(eeCert, caCert, rootCert);
+    }
+
+    @Test
+    void orderChainWithCrossCertificates() throws Exception {
+        // two CAs that have certified each other
+        KeyPair otherKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate crossCert1 = TestCertificates.issued("cn=Other", "cn=CA", otherKeyPair, caKeyPair, null);
+        X509Certificate crossCert2 = TestCertificates.issued("cn=CA", "cn=Other", caKeyPair, otherKeyPair, null);
+
+        X509Certificate[] ordered = X509CertUtil.orderX509CertChain(
+                new X509Certificate[] { crossCert1, crossCert2, eeCert });
+
+        assertThat(ordered).hasSize(3).startsWith(eeCert);
+    }
+
+    @Test
+    void establishTrust() throws Exception {
+        X509Certificate[] trustChain = X509CertUtil.establishTrust(eeCert, List.of(rootCert, caCert));
+        assertThat(trustChain).containsExactly(eeCert, caCert, rootCert);
+
+        assertThat(X509CertUtil.establishTrust(eeCert, List.of(caCert))).isNull();
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui;
+
+import java.awt.Component;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.ResourceBundle;
+
+import javax.swing.ImageIcon;
+import javax.swing.JLabel;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableCellRenderer;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+/**
+ * Micro benchmark for KeyStoreTableCellRend in the style of JMH: a number of warm-up iterations
+ * followed by measured iterations, reporting cells rendered per second. For comparison the renderer
+ * as it was before icons and display texts were cached is measured with the same data.
+ * <p>
+ * Every row has its own expiry date and the table is larger than the text cache of the renderer,
+ * so rendering the whole table (like scrolling through it) also measures cache misses.
+ * <p>
+ * Only runs when the environment variable KSE_BENCHMARK is set to "true".
+ */
+@EnabledIfEnvironmentVariable(named = "KSE_BENCHMARK", matches = "true")
+public class KeyStoreTableCellRendBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final int ROWS = 10_000;
+
+    // type, lock and expiry icons, alias, key size, expiry date
+    private static final int COLUMNS = 6;
+
+    private final Object[][] data = createData();
+    private final JTable table = new JTable(new DefaultTableModel(data, new Object[COLUMNS]));
+
+    @Test
+    void renderCells() {
+        run("KeyStoreTableCellRend", new KeyStoreTableCellRend());
+    }
+
+    @Test
+    void renderCellsBaseline() {
+        run("baseline KeyStoreTableCellRend", new BaselineKeyStoreTableCellRend());
+    }
+
+    private void run(String name, TableCellRenderer renderer) {
+        Runnable renderAll = () -> {
+            for (int row = 0; row < ROWS; row++) {
+                for (int col = 0; col < COLUMNS; col++) {
+                    renderer.getTableCellRendererComponent(table, data[row][col], false, false, row, col);
+                }
+            }
+        };
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            renderAll.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            renderAll.run();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double cellsPerSecond = (double) ROWS * COLUMNS * MEASUREMENT_ITERATIONS / (elapsed / 1e9);
+        System.out.printf("%s: %.0f cells/s%n", name, cellsPerSecond);
+    }
+
+    private static Object[][] createData() {
+        KeyStoreTableModel.EntryType[] types = KeyStoreTableModel.EntryType.values();
+        KeyStoreTableModel.Expiration[] expirations = KeyStoreTableModel.Expiration.values();
+        int[] keySizes = { 256, 384, 2048, 3072, 4096 };
+
+        Object[][] data = new Object[ROWS][COLUMNS];
+        long now = System.currentTimeMillis();
+
+        for (int row = 0; row < ROWS; row++) {
+            data[row][0] = types[row % types.length];
+            data[row][1] = row % 3 == 0 ? null : Boolean.valueOf(row % 2 == 0);
+            data[row][2] = expirations[row % expirations.length];
+            data[row][3] = "entry " + row;
+            data[row][4] = keySizes[row % keySizes.length];
+            // certificates issued at different times, so every expiry date is distinct
+            data[row][5] = new Date(now + row * 3_600_017L);
+        }
+        return data;
+    }
+
+    /**
+     * The renderer before the icons and display texts were cached, copied unchanged apart from
+     * the date formatting of StringUtils at that time.
+     */
+    private static class BaselineKeyStoreTableCellRend extends DefaultTableCellRenderer {
+        private static final long serialVersionUID = 1L;
+        private static ResourceBundle res = ResourceBundle.getBundle("org/kse/gui/resources");
+
+        @Override
+        public Component getTableCellRendererComponent(JTable jtKeyStore, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int col) {
+
+            JLabel cell = (JLabel) super.getTableCellRendererComponent(jtKeyStore, value, isSelected, hasFocus, row,
+                                                                       col);
+
+            // Entry Type column - display an icon representing the type and tool-tip text
+            if (col == 0) {
+                ImageIcon icon = null;
+
+                if (KeyStoreTableModel.EntryType.KEY_PAIR.equals(value)) {
+                    icon = new ImageIcon(KeyStoreTableCellRend.class.getResource("images/table/keypair_entry.png"));
+                    cell.setToolTipText(res.getString("KeyStoreTableCellRend.KeyPairEntry.tooltip"));
+                } else if (KeyStoreTableModel.EntryType.TRUST_CERT.equals(value)) {
+                    icon = new ImageIcon(KeyStoreTableCellRend.class.getResource("images/table/trustcert_entry.png"));
+                    cell.setToolTipText(res.getString("KeyStoreTableCellRend.TrustCertEntry.tooltip"));
+                } else {
+                    icon = new ImageIcon(KeyStoreTableCellRend.class.getResource("images/table/key_entry.png"));
+                    cell.setToolTipText(res.getString("KeyStoreTableCellRend.KeyEntry.tooltip"));
+                }
+
+                cell.setIcon(icon);
+                cell.setText("");
+                cell.setVerticalAlignment(CENTER);
+                cell.setHorizontalAlignment(CENTER);
+            }
+            // Lock column - if entry is a key or key pair display an icon for the lock status
+            else if (col == 1) {
+                if (value == null) {
+                    // No lock status available (not a key pair entry or PKCS #12 KeyStore)
+                    cell.setIcon(null);
+                    cell.setText("-");
+                    cell.setToolTipText(res.getString("KeyStoreTableCellRend.NoLockStatus.tooltip"));
+                    cell.setHorizontalAlignment(CENTER);
+                } else {
+                    ImageIcon icon = null;
+
+                    if (value.equals(Boolean.TRUE)) {
+                        // Locked
+                        icon = new ImageIcon(KeyStoreTableCellRend.class.getResource("images/table/locked_entry.png"));
+                        cell.setToolTipText(res.getString("KeyStoreTableCellRend.LockedEntry.tooltip"));
+                    } else {
+                        // Unlocked
+                        icon = new ImageIcon(
+                                KeyStoreTableCellRend.class.getResource("images/table/unlocked_entry.png"));
+                        cell.setToolTipText(res.getString("KeyStoreTableCellRend.UnlockedEntry.tooltip"));
+                    }
+
+                    cell.setIcon(icon);
+                    cell.setText("");
+                    cell.setVerticalAlignment(CENTER);
+                    cell.setHorizontalAlignment(CENTER);
+                }
+            }
+            // Expiry column - if entry is a key pair display an icon for the expired/unexpired
+            else if (col == 2) {
+                if (value == null) {
+                    // No cert expired status available (must be a key entry)
+                    cell.setIcon(null);
+                    cell.setText("-");
+                    cell.setToolTipText(res.getString("KeyStoreTableCellRend.NoCertExpiry.tooltip"));
+                    cell.setHorizontalAlignment(CENTER);
+                } else {
+                    ImageIcon icon = null;
+                    if (KeyStoreTableModel.Expiration.EXPIRED.equals(value)) {
+                        icon = new ImageIcon(
+                                KeyStoreTableCellRend.class.getResource("images/table/cert_expired_entry.png"));
+                        cell.setToolTipText(res.getString("KeyStoreTableCellRend.CertExpiredEntry.tooltip"));
+                    } else {
+                        if (KeyStoreTableModel.Expiration.ALMOST_EXPIRED.equals(value)) {
+                            icon = new ImageIcon(
+                                    KeyStoreTableCellRend.class.getResource("images/table/cert_old_entry.png"));
+                            cell.setToolTipText(
+                                    res.getString("KeyStoreTableCellRend.CertAlmostExpiredEntry.tooltip"));
+                        } else {
+                            // Unexpired
+                            icon = new ImageIcon(
+                                    KeyStoreTableCellRend.class.getResource("images/table/cert_unexpired_entry.png"));
+                            cell.setToolTipText(res.getString("KeyStoreTableCellRend.CertUnexpiredEntry.tooltip"));
+                        }
+                    }
+
+                    cell.setIcon(icon);
+                    cell.setText("");
+                    cell.setVerticalAlignment(CENTER);
+                    cell.setHorizontalAlignment(CENTER);
+                }
+            }
+            // Generic columns
+            else {
+                return writeCell(cell, value);
+            }
+
+            return cell;
+        }
+
+        private JLabel writeCell(JLabel cell, Object value) {
+            try {
+                if (value == null || value.toString().equals("-") || value.toString().isEmpty()) {
+                    cell.setText("-");
+                    cell.setToolTipText(res.getString("KeyStoreTableCellRend.Unavailable.tooltip"));
+                    cell.setHorizontalAlignment(CENTER);
+                } else {
+                    if (value instanceof String) {
+                        String algorithm = (String) value;
+                        cell.setText(algorithm);
+                        cell.setToolTipText(getText());
+                        cell.setHorizontalAlignment(LEFT);
+                    } else {
+                        if (value instanceof Integer) {
+                            if (((Integer) value < 100_000) && ((Integer) value >= 0)) {
+                                cell.setText(String.valueOf(value));
+                            } else {
+                                cell.setText("X" + String.format("%x", value));
+                            }
+                            cell.setToolTipText(getText());
+                            cell.setHorizontalAlignment(LEFT);
+                        } else {
+                            if (value instanceof Date) {
+                                cell.setText(formatDate((Date) value));
+                                cell.setToolTipText(getText());
+                                cell.setHorizontalAlignment(LEFT);
+                            } else {
+                                if (value instanceof byte[]) {
+                                    cell.setText(Hex.toHexString((byte[]) value));
+                                    cell.setToolTipText(getText());
+                                    cell.setHorizontalAlignment(LEFT);
+                                }
+                            }
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                cell.setText("?");
+                cell.setToolTipText(res.getString("KeyStoreTableCellRend.Format.tooltip"));
+                cell.setHorizontalAlignment(CENTER);
+            }
+
+            return cell;
+        }
+
+        private static String formatDate(Date date) {
+            DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM);
+
+            if (dateFormat instanceof SimpleDateFormat) {
+                SimpleDateFormat sdf = (SimpleDateFormat) dateFormat;
+                // we want short date format but with 4 digit year
+                sdf.applyPattern(sdf.toPattern().replaceAll("y+", "yyyy").concat(" z"));
+            }
+
+            return dateFormat.format(date);
+        }
+    }
+}
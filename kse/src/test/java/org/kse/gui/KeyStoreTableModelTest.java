@@ -0,0 +1,123 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.event.TableModelEvent;
+
+import org.junit.jupiter.api.Test;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.keystore.TestCertificates;
+import org.kse.gui.passwordmanager.Password;
+import org.kse.utilities.history.KeyStoreHistory;
+import org.kse.utilities.history.KeyStoreState;
+
+/**
+ * Unit tests for KeyStoreTableModel.
+ */
+public class KeyStoreTableModelTest extends CryptoTestsBase {
+
+    @Test
+    void rowsAreComputedOnDemandAndSortable() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        keyStore.setCertificateEntry("a",
+                                     TestCertificates.selfSigned("cn=Cert", keyPair, 300, BigInteger.valueOf(300)));
+        keyStore.setCertificateEntry("b",
+                                     TestCertificates.selfSigned("cn=Cert", keyPair, 100, BigInteger.valueOf(100)));
+        keyStore.setCertificateEntry("c",
+                                     TestCertificates.selfSigned("cn=Cert", keyPair, 200, BigInteger.valueOf(200)));
+
+        KeyStoreTableColumns columns = new KeyStoreTableColumns();
+        KeyStoreTableModel model = new KeyStoreTableModel(columns, 0);
+        model.load(new KeyStoreHistory(keyStore, "test", new Password("password".toCharArray()), null));
+
+        assertThat(model.getRowCount()).isEqualTo(3);
+        assertThat(model.getAlias(0)).isEqualTo("a");
+        assertThat(model.getValueAt(1, columns.colIndexEntryName())).isEqualTo("b");
+        assertThat(model.getValueAt(2, 0)).isEqualTo(KeyStoreTableModel.EntryType.TRUST_CERT);
+        assertThat(model.getValueAt(2, 2)).isEqualTo(KeyStoreTableModel.Expiration.NOT_EXPIRED);
+
+        // sorting by expiry date computes the complete column
+        KeyStoreTableRowSorter sorter = new KeyStoreTableRowSorter(model);
+        sorter.setSortKeys(Collections.singletonList(
+                new RowSorter.SortKey(columns.colIndexCertificateExpiry(), SortOrder.ASCENDING)));
+
+        assertThat(model.getAlias(sorter.convertRowIndexToModel(0))).isEqualTo("b");
+        assertThat(model.getAlias(sorter.convertRowIndexToModel(1))).isEqualTo("c");
+        assertThat(model.getAlias(sorter.convertRowIndexToModel(2))).isEqualTo("a");
+    }
+
+    @Test
+    void historyChangesAreAppliedRowByRow() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        keyStore.setCertificateEntry("a",
+                                     TestCertificates.selfSigned("cn=Cert", keyPair, 100, BigInteger.valueOf(100)));
+        keyStore.setCertificateEntry("c",
+                                     TestCertificates.selfSigned("cn=Cert", keyPair, 100, BigInteger.valueOf(100)));
+
+        KeyStoreHistory history = new KeyStoreHistory(keyStore, "test", new Password("password".toCharArray()), null);
+        KeyStoreTableModel model = new KeyStoreTableModel(new KeyStoreTableColumns(), 0);
+        model.load(history);
+
+        List<Integer> events = new ArrayList<>();
+        model.addTableModelListener(e -> events.add(e.getType()));
+
+        // rename "c" to "b" in a new state
+        KeyStoreState currentState = history.getCurrentState();
+        KeyStoreState newState = currentState.createBasisForNextState(() -> "Rename");
+        KseKeyStore newKeyStore = newState.getKeyStore();
+        newKeyStore.setCertificateEntry("b", newKeyStore.getCertificate("c"));
+        newKeyStore.deleteEntry("c");
+        currentState.append(newState);
+
+        model.update(history);
+
+        assertThat(model.getRowCount()).isEqualTo(2);
+        assertThat(model.getAlias(0)).isEqualTo("a");
+        assertThat(model.getAlias(1)).isEqualTo("b");
+        assertThat(events).containsExactlyInAnyOrder(TableModelEvent.INSERT, TableModelEvent.DELETE);
+
+        // undo
+        events.clear();
+        newState.setPreviousStateAsCurrentState();
+        model.update(history);
+
+        assertThat(model.getAlias(1)).isEqualTo("c");
+        assertThat(events).containsExactlyInAnyOrder(TableModelEvent.INSERT, TableModelEvent.DELETE);
+    }
+}
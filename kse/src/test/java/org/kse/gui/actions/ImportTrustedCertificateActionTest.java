@@ -0,0 +1,80 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.gui.actions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.keystore.TestCertificates;
+import org.kse.crypto.x509.X509CertUtil;
+
+class ImportTrustedCertificateActionTest extends CryptoTestsBase {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void importDirectorySkipsUnreadableFilesAndDuplicates() throws Exception {
+        X509Certificate certA = generateCert("cn=A");
+        X509Certificate certB = generateCert("cn=B");
+        X509Certificate certC = generateCert("cn=C");
+
+        Files.writeString(tempDir.resolve("1-bundle.pem"),
+                          X509CertUtil.getCertsEncodedX509Pem(new X509Certificate[] { certA, certB }));
+        Files.write(tempDir.resolve("2-single.cer"), X509CertUtil.getCertEncodedX509(certC));
+        Files.writeString(tempDir.resolve("3-readme.txt"), "not a certificate", StandardCharsets.US_ASCII);
+        Files.writeString(tempDir.resolve("4-duplicate.pem"), X509CertUtil.getCertEncodedX509Pem(certB));
+
+        List<File> files = ImportTrustedCertificateAction.listCertificateFiles(new File[] { tempDir.toFile() });
+        assertThat(files).extracting(File::getName)
+                         .containsExactly("1-bundle.pem", "2-single.cer", "3-readme.txt", "4-duplicate.pem");
+
+        assertThat(ImportTrustedCertificateAction.loadCertificates(files.get(0))).containsExactly(certA, certB);
+        assertThat(ImportTrustedCertificateAction.loadCertificates(files.get(1))).containsExactly(certC);
+        X509Certificate[] unreadable = ImportTrustedCertificateAction.loadCertificates(files.get(2));
+        assertThat(unreadable == null || unreadable.length == 0).isTrue();
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.PKCS12);
+        keyStore.setCertificateEntry("a", certA);
+
+        X509Certificate[] certs = { certA, certB, certC, certB };
+        assertThat(ImportTrustedCertificateAction.newCertificates(keyStore, certs)).containsExactly(certB, certC);
+    }
+
+    private static X509Certificate generateCert(String subject) throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        return TestCertificates.selfSigned(subject, keyPair);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.inventory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringWriter;
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.keystore.TestCertificates;
+
+import com.fasterxml.jackson.jr.ob.JSON;
+
+/**
+ * Unit tests for InventoryExporter.
+ */
+public class InventoryExporterTest extends CryptoTestsBase {
+
+    @Test
+    void exportsAllKeyStoresAsJsonLines() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Inventory", keyPair);
+
+        Map<String, KseKeyStore> keyStores = new LinkedHashMap<>();
+        keyStores.put("big.jks", createKeyStore(cert, 250));
+        keyStores.put("small.jks", createKeyStore(cert, 3));
+
+        List<InventoryColumn> columns = List.of(InventoryColumn.KEYSTORE, InventoryColumn.ALIAS,
+                                                InventoryColumn.SUBJECT_DN, InventoryColumn.EXPIRY,
+                                                InventoryColumn.CHAIN_DEPTH, InventoryColumn.KEY_USAGE);
+        InventoryExporter exporter = new InventoryExporter(columns, InventoryFormat.JSON_LINES, ',', 2);
+
+        StringWriter writer = new StringWriter();
+        AtomicInteger progress = new AtomicInteger();
+        int exported = exporter.export(keyStores, writer, progress::set);
+
+        assertThat(exported).isEqualTo(253);
+        assertThat(progress.get()).isEqualTo(253);
+
+        Map<String, List<String>> aliases = new LinkedHashMap<>();
+        for (String line : writer.toString().split("\n")) {
+            Map<String, Object> row = JSON.std.mapFrom(line);
+            assertThat(row.keySet()).containsExactly("keystore", "alias", "subject_dn", "expiry", "chain_depth",
+                                                     "key_usage");
+            assertThat(row.get("subject_dn")).isEqualTo("CN=Inventory");
+            assertThat(row.get("chain_depth")).isEqualTo(1);
+            assertThat(row.get("key_usage")).isInstanceOf(List.class);
+            assertThat(Instant.parse((String) row.get("expiry"))).isAfter(Instant.now());
+            String keyStore = (String) row.get("keystore");
+            aliases.computeIfAbsent(keyStore, k -> new ArrayList<>()).add((String) row.get("alias"));
+        }
+
+        assertThat(aliases.get("big.jks")).hasSize(250).isSorted();
+        assertThat(aliases.get("small.jks")).containsExactly("cert000", "cert001", "cert002");
+    }
+
+    @Test
+    void exportsCsvWithHeader() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Inventory", keyPair);
+        Map<String, KseKeyStore> keyStores = new LinkedHashMap<>();
+        keyStores.put("my \"quoted\" keystore", createKeyStore(cert, 2));
+
+        InventoryExporter exporter = new InventoryExporter(List.of(InventoryColumn.KEYSTORE, InventoryColumn.ALIAS,
+                                                                   InventoryColumn.ENTRY_TYPE, InventoryColumn.EXPIRY,
+                                                                   InventoryColumn.AKI),
+                                                           InventoryFormat.CSV, ';', 1);
+
+        StringWriter writer = new StringWriter();
+        exporter.export(keyStores, writer, done -> {
+        });
+
+        // fixed date pattern in the local time zone, the missing AKI is an empty field
+        String expiry = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                                         .withZone(ZoneId.systemDefault())
+                                         .format(cert.getNotAfter().toInstant());
+        assertThat(writer.toString().split(System.lineSeparator())).containsExactly(
+                "\"keystore\";\"alias\";\"entry_type\";\"expiry\";\"aki\"",
+                "\"my \"\"quoted\"\" keystore\";\"cert000\";\"trusted_certificate\";\"" + expiry + "\";\"\"",
+                "\"my \"\"quoted\"\" keystore\";\"cert001\";\"trusted_certificate\";\"" + expiry + "\";\"\"");
+    }
+
+    private KseKeyStore createKeyStore(X509Certificate cert, int entries) throws Exception {
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        for (int i = 0; i < entries; i++) {
+            keyStore.setCertificateEntry(String.format("cert%03d", i), cert);
+        }
+        return keyStore;
+    }
+}
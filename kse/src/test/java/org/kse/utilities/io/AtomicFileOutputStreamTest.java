@@ -0,0 +1,71 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for AtomicFileOutputStream.
+ */
+class AtomicFileOutputStreamTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void replacesFileOnlyOnCommit() throws Exception {
+        File file = new File(tempDir, "keystore.p12");
+        Files.writeString(file.toPath(), "old");
+
+        List<Path> committed = new ArrayList<>();
+        Consumer<Path> listener = committed::add;
+        AtomicFileOutputStream.addCommitListener(listener);
+
+        try {
+            // not committed: file remains untouched
+            try (AtomicFileOutputStream afos = new AtomicFileOutputStream(file)) {
+                afos.write("new".getBytes(StandardCharsets.UTF_8));
+            }
+            assertThat(Files.readString(file.toPath())).isEqualTo("old");
+            assertThat(tempDir.list()).containsExactly("keystore.p12");
+
+            try (AtomicFileOutputStream afos = new AtomicFileOutputStream(file)) {
+                afos.write("new".getBytes(StandardCharsets.UTF_8));
+                afos.commit();
+            }
+            assertThat(Files.readString(file.toPath())).isEqualTo("new");
+            assertThat(tempDir.list()).containsExactly("keystore.p12");
+            assertThat(committed).containsExactly(file.toPath());
+        } finally {
+            AtomicFileOutputStream.removeCommitListener(listener);
+        }
+    }
+}
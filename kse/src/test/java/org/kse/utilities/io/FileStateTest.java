@@ -0,0 +1,59 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for FileState.
+ */
+class FileStateTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void touchedFileHasSameContent() throws Exception {
+        Path file = new File(tempDir, "keystore.jks").toPath();
+        Files.writeString(file, "content");
+        FileState loaded = FileState.of(file);
+
+        assertThat(loaded.isUntouched(Files.readAttributes(file, BasicFileAttributes.class))).isTrue();
+
+        // rewritten with the same bytes
+        Files.writeString(file, "content");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(loaded.lastModified().toMillis() + 10_000));
+        assertThat(loaded.isUntouched(Files.readAttributes(file, BasicFileAttributes.class))).isFalse();
+        assertThat(loaded.hasSameContent(FileState.of(file))).isTrue();
+
+        // same size, different content
+        Files.writeString(file, "CONTENT");
+        assertThat(loaded.hasSameContent(FileState.of(file))).isFalse();
+    }
+}
@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -83,4 +84,31 @@ class PacProxySelectorTest {
                 of("pac_sandbox2.js")
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void resultsAreCachedPerHost() throws URISyntaxException {
+        File file = new File(TEST_FILES_PATH, "pac_counter.js");
+
+        PacProxySelector selector = new PacProxySelector(file.toURI());
+        List<Proxy> proxies = selector.select(new URI("http://www.example.net/ocsp"));
+
+        assertThat(selector.select(new URI("http://WWW.example.net/crl/ca.crl"))).isSameAs(proxies);
+        assertThat(selector.select(new URI("http://www.example.org/ocsp"))).isNotEqualTo(proxies);
+        assertThat(selector.select(new URI("https://www.example.net/ocsp"))).isNotEqualTo(proxies);
+    }
+
+    @Test
+    void usesUrlParameter() {
+        assertThat(PacProxySelector.usesUrlParameter(
+                "function FindProxyForURL(url, host) { return isPlainHostName(host) ? 'DIRECT' : 'PROXY p:80'; }"))
+                .isFalse();
+        assertThat(PacProxySelector.usesUrlParameter(
+                "function FindProxyForURL(url, host) { return shExpMatch(url, '*/crl/*') ? 'DIRECT' : 'PROXY p:80'; }"))
+                .isTrue();
+        assertThat(PacProxySelector.usesUrlParameter("var FindProxyForURL = function(u, h) { return 'DIRECT'; }"))
+                .isTrue();
+        assertThat(PacProxySelector.usesUrlParameter(
+                "function FindProxyForURL(url, host) { return shExpMatch(arguments[0], '*/crl/*') ? 'DIRECT' : 'X'; }"))
+                .isTrue();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.scan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairType;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.keystore.TestCertificates;
+import org.kse.crypto.signing.SignatureType;
+import org.kse.gui.passwordmanager.Password;
+
+/**
+ * Unit tests for KeyStoreScanner.
+ */
+public class KeyStoreScannerTest extends CryptoTestsBase {
+    private static final String PASSWORD = "password";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void scanReusesCachedResults() throws Exception {
+        File keyStoreFile = createKeyStore();
+        Files.writeString(tempDir.resolve("readme.txt"), "no KeyStore", StandardCharsets.US_ASCII);
+
+        KeyStoreScanCache cache = new KeyStoreScanCache();
+        KeyStoreScanner scanner = new KeyStoreScanner(cache, file -> PASSWORD.toCharArray(), 2);
+
+        List<KeyStoreScanResult> notified = Collections.synchronizedList(new ArrayList<>());
+        List<KeyStoreScanResult> results = scanner.scan(List.of(tempDir.toFile()), notified::add);
+
+        assertThat(results).hasSize(1);
+        assertThat(notified).containsExactlyElementsOf(results);
+        KeyStoreScanResult result = results.get(0);
+        assertThat(result.getPath()).isEqualTo(keyStoreFile.toPath().toAbsolutePath().normalize().toString());
+        assertThat(result.getStatus()).isEqualTo(ScanStatus.OK);
+        assertThat(result.getKeyStoreType()).isNotNull();
+        assertThat(result.getEntries()).hasSize(2);
+
+        // weak RSA key and near expiry are reported for the key pair entry
+        EntryScanResult keyPairEntry = result.getEntries().stream()
+                                             .filter(e -> e.getAlias().equals("weak"))
+                                             .findFirst()
+                                             .orElseThrow();
+        assertThat(keyPairEntry.getKeySize()).isEqualTo(1024);
+        assertThat(keyPairEntry.getWeakAlgorithms()).isNotEmpty();
+        assertThat(keyPairEntry.getExpiry()).isNotNull();
+
+        // the non-KeyStore file is only remembered in the cache
+        assertThat(cache.getResults()).hasSize(2);
+
+        // unchanged files are not opened again
+        List<KeyStoreScanResult> rescanned = new KeyStoreScanner(cache, file -> null, 2)
+                .scan(List.of(tempDir.toFile()), r -> { });
+        assertThat(rescanned).hasSize(1);
+        assertThat(rescanned.get(0)).isSameAs(result);
+    }
+
+    @Test
+    void unknownPasswordIsReported() throws Exception {
+        createKeyStore();
+
+        KeyStoreScanCache cache = new KeyStoreScanCache();
+        List<KeyStoreScanResult> results = new KeyStoreScanner(cache, file -> null, 1)
+                .scan(List.of(tempDir.toFile()), r -> { });
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getStatus()).isEqualTo(ScanStatus.NO_PASSWORD);
+
+        // scanned again once the password is available
+        results = new KeyStoreScanner(cache, file -> PASSWORD.toCharArray(), 1)
+                .scan(List.of(tempDir.toFile()), r -> { });
+
+        assertThat(results.get(0).getStatus()).isEqualTo(ScanStatus.OK);
+    }
+
+    private File createKeyStore() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateKeyPair(KeyPairType.RSA, 1024, KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=Weak", keyPair, 10, SignatureType.SHA256_RSA);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        keyStore.setKeyEntry("weak", keyPair.getPrivate(), PASSWORD.toCharArray(), new Certificate[] { cert });
+        keyStore.setCertificateEntry("trusted", cert);
+
+        File keyStoreFile = tempDir.resolve("keystore.jks").toFile();
+        KeyStoreUtil.save(keyStore, keyStoreFile, new Password(PASSWORD.toCharArray()));
+        return keyStoreFile;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+
+import org.junit.jupiter.api.Test;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.keystore.TestCertificates;
+import org.kse.gui.passwordmanager.Password;
+import org.kse.utilities.history.KeyStoreHistory;
+import org.kse.utilities.history.KeyStoreState;
+
+/**
+ * Unit tests for EntrySearchIndex.
+ */
+public class EntrySearchIndexTest extends CryptoTestsBase {
+
+    @Test
+    void findsEntriesByAttributesAndFollowsHistory() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        keyStore.setCertificateEntry("first", TestCertificates.selfSigned("cn=Acme Root CA", keyPair, 10,
+                                                                            BigInteger.valueOf(0x1234abcd)));
+        keyStore.setCertificateEntry("second", TestCertificates.selfSigned("cn=Other Root,o=Example", keyPair, 1000,
+                                                                             BigInteger.valueOf(42)));
+
+        KeyStoreHistory history = new KeyStoreHistory(keyStore, "test", new Password("password".toCharArray()), null);
+        KeyStoreState initialState = history.getCurrentState();
+        EntrySearchIndex index = initialState.getSearchIndex();
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("root")).containsExactlyInAnyOrder("first", "second");
+        assertThat(index.search("ROOT acme")).containsExactly("first");
+        assertThat(index.search("1234ABCD")).containsExactly("first");
+        assertThat(index.search("sec")).containsExactly("second");
+        assertThat(index.search("expires<30d")).containsExactly("first");
+        assertThat(index.search("expires>30d example")).containsExactly("second");
+        assertThat(index.search("missing")).isEmpty();
+        assertThat(index.search(" ")).containsExactlyInAnyOrder("first", "second");
+
+        // the next state takes over the index and updates the changed entries only
+        KeyStoreState newState = initialState.createBasisForNextState(() -> "Rename");
+        KseKeyStore newKeyStore = newState.getKeyStore();
+        newKeyStore.setCertificateEntry("renamed", newKeyStore.getCertificate("first"));
+        newKeyStore.deleteEntry("first");
+        initialState.append(newState);
+
+        assertThat(newState.getSearchIndex()).isSameAs(index);
+        assertThat(index.search("root acme")).containsExactly("renamed");
+
+        // and hands it back on undo
+        newState.setPreviousStateAsCurrentState();
+        assertThat(initialState.getSearchIndex()).isSameAs(index);
+        assertThat(index.search("root acme")).containsExactly("first");
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.ssl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+
+import org.junit.jupiter.api.Test;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.TestCertificates;
+
+/**
+ * Unit tests for TlsEndpointScanner and TlsEndpoint.
+ */
+public class TlsEndpointScannerTest extends CryptoTestsBase {
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @Test
+    void parseEndpoints() {
+        assertThat(TlsEndpoint.parse("example.com")).isEqualTo(new TlsEndpoint("example.com", 443));
+        assertThat(TlsEndpoint.parse(" example.com:8443 ")).isEqualTo(new TlsEndpoint("example.com", 8443));
+        assertThat(TlsEndpoint.parse("https://example.com/path")).isEqualTo(new TlsEndpoint("example.com", 443));
+        assertThat(TlsEndpoint.parse("[::1]:8443")).isEqualTo(new TlsEndpoint("::1", 8443));
+        assertThat(TlsEndpoint.parse("[::1]:8443").toString()).isEqualTo("[::1]:8443");
+
+        assertThat(TlsEndpoint.parseList("# comment\na.com, b.com:444\n\nc.com")).containsExactly(
+                new TlsEndpoint("a.com", 443), new TlsEndpoint("b.com", 444), new TlsEndpoint("c.com", 443));
+
+        assertThrows(IllegalArgumentException.class, () -> TlsEndpoint.parse("example.com:port"));
+        assertThrows(IllegalArgumentException.class, () -> TlsEndpoint.parse("example.com:70000"));
+    }
+
+    @Test
+    void scanEndpoints() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.selfSigned("cn=localhost", keyPair);
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("server", keyPair.getPrivate(), PASSWORD, new Certificate[] { cert });
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, PASSWORD);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(kmf.getKeyManagers(), null, null);
+
+        // a port without a listener
+        int closedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            closedPort = serverSocket.getLocalPort();
+        }
+
+        try (SSLServerSocket serverSocket = (SSLServerSocket) sslContext.getServerSocketFactory()
+                                                                        .createServerSocket(0)) {
+            Thread server = new Thread(() -> acceptConnections(serverSocket));
+            server.setDaemon(true);
+            server.start();
+
+            TlsEndpoint endpoint = new TlsEndpoint("localhost", serverSocket.getLocalPort());
+            TlsEndpoint closedEndpoint = new TlsEndpoint("localhost", closedPort);
+
+            List<TlsScanResult> received = new CopyOnWriteArrayList<>();
+            List<TlsScanResult> results = new TlsEndpointScanner(2, 5000).scan(List.of(endpoint, closedEndpoint),
+                                                                                received::add);
+
+            assertThat(received).hasSize(2);
+            assertThat(results).extracting(TlsScanResult::getEndpoint).containsExactly(endpoint, closedEndpoint);
+
+            TlsScanResult result = results.get(0);
+            assertThat(result.getError()).isNull();
+            assertThat(result.getServerCertificate()).isEqualTo(cert);
+            assertThat(result.getSslConnectionInfos().getProtocol()).startsWith("TLS");
+
+            TlsScanResult closedResult = results.get(1);
+            assertThat(closedResult.getSslConnectionInfos()).isNull();
+            assertThat(closedResult.getError()).isNotEmpty();
+        }
+    }
+
+    @Test
+    void slowEndpointIsLimitedByDeadline() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            Thread server = new Thread(() -> tricklePartialRecord(serverSocket));
+            server.setDaemon(true);
+            server.start();
+
+            // every read returns within the timeout, but the handshake never completes
+            TlsScanResult result = new TlsEndpointScanner(1, 1000).scan(
+                    new TlsEndpoint("localhost", serverSocket.getLocalPort()));
+
+            assertThat(result.getSslConnectionInfos()).isNull();
+            assertThat(result.getError()).isNotEmpty();
+            assertThat(result.getDurationMillis()).isLessThan(5000);
+        }
+    }
+
+    private static void tricklePartialRecord(ServerSocket serverSocket) {
+        try (Socket socket = serverSocket.accept(); OutputStream out = socket.getOutputStream()) {
+            // header of a 16 KB handshake record, followed by its content byte by byte
+            out.write(new byte[] { 0x16, 0x03, 0x03, 0x40, 0x00 });
+            while (true) {
+                out.write(0);
+                out.flush();
+                Thread.sleep(100);
+            }
+        } catch (IOException | InterruptedException e) {
+            // connection closed by the client
+        }
+    }
+
+    private static void acceptConnections(SSLServerSocket serverSocket) {
+        while (!serverSocket.isClosed()) {
+            try (SSLSocket socket = (SSLSocket) serverSocket.accept()) {
+                socket.startHandshake();
+            } catch (IOException e) {
+                // socket closed or failed handshake, continue with the next connection
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2004 - 2013 Wayne Grant
+ *           2013 - 2026 Kai Kramer
+ *
+ * This file is part of KeyStore Explorer.
+ *
+ * KeyStore Explorer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * KeyStore Explorer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with KeyStore Explorer.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.kse.utilities.verify;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.security.KeyPair;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kse.KSE;
+import org.kse.crypto.CryptoTestsBase;
+import org.kse.crypto.keypair.KeyPairUtil;
+import org.kse.crypto.keystore.KeyStoreType;
+import org.kse.crypto.keystore.KeyStoreUtil;
+import org.kse.crypto.keystore.KseKeyStore;
+import org.kse.crypto.keystore.TestCertificates;
+import org.kse.crypto.revocation.RevocationDataCache;
+import org.kse.crypto.x509.X509ExtensionSet;
+import org.kse.gui.passwordmanager.Password;
+import org.kse.utilities.history.KeyStoreHistory;
+import org.kse.utilities.history.KeyStoreState;
+
+/**
+ * Unit tests for KeyStoreVerifier.
+ */
+public class KeyStoreVerifierTest extends CryptoTestsBase {
+    private static final char[] PASSWORD = "password".toCharArray();
+
+    @TempDir
+    File cacheDir;
+
+    @Test
+    void verifiesAllEntriesAndReusesResults() throws Exception {
+        KeyPair caKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        KeyPair eeKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        KeyPair otherKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+
+        X509ExtensionSet caExtensions = new X509ExtensionSet();
+        caExtensions.addExtension(Extension.basicConstraints.getId(), true,
+                                  new DEROctetString(new BasicConstraints(true)).getEncoded());
+        caExtensions.addExtension(Extension.keyUsage.getId(), true, new DEROctetString(
+                new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign)).getEncoded());
+
+        X509Certificate caCert = TestCertificates.issued("cn=CA", "cn=CA", caKeyPair, caKeyPair, caExtensions);
+        X509Certificate eeCert = TestCertificates.issued("cn=EE", "cn=CA", eeKeyPair, caKeyPair, null);
+        X509Certificate otherCert = TestCertificates.issued("cn=Other", "cn=Other", otherKeyPair, otherKeyPair, null);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        keyStore.setCertificateEntry("ca", caCert);
+        keyStore.setKeyEntry("ee", eeKeyPair.getPrivate(), PASSWORD, new Certificate[] { eeCert, caCert });
+        keyStore.setCertificateEntry("other", otherCert);
+
+        KeyStoreHistory history = new KeyStoreHistory(keyStore, "test", new Password(PASSWORD.clone()), null);
+        KeyStoreState initialState = history.getCurrentState();
+        RevocationDataCache revocationCache = new RevocationDataCache(cacheDir);
+
+        Map<String, EntryVerificationResult> reported = new ConcurrentHashMap<>();
+        KeyStoreVerifier verifier = new KeyStoreVerifier(initialState, revocationCache, 4);
+        List<EntryVerificationResult> results = verifier.verify(true, r -> reported.put(r.getAlias(), r));
+
+        assertThat(results).extracting(EntryVerificationResult::getAlias).containsExactly("ca", "ee", "other");
+        assertThat(reported).hasSize(3);
+
+        Map<String, EntryVerificationResult> byAlias = results.stream().collect(
+                Collectors.toMap(EntryVerificationResult::getAlias, Function.identity()));
+
+        // the end entity is issued by the CA, which is the only trust anchor
+        EntryVerificationResult eeResult = byAlias.get("ee");
+        assertThat(eeResult.getChainStatus()).isEqualTo(VerificationStatus.VALID);
+        assertThat(eeResult.getOcspStatus()).isEqualTo(VerificationStatus.NOT_APPLICABLE);
+        assertThat(eeResult.getCrlStatus()).isEqualTo(VerificationStatus.NOT_APPLICABLE);
+
+        EntryVerificationResult otherResult = byAlias.get("other");
+        assertThat(otherResult.getChainStatus()).isEqualTo(VerificationStatus.INVALID);
+        assertThat(otherResult.getChainMessage()).isNotNull();
+
+        // unchanged entries are not verified again
+        assertThat(new KeyStoreVerifier(initialState, revocationCache, 4).verify(true, r -> {}))
+                .containsExactlyElementsOf(results);
+
+        // a changed entry is verified again in the next state, the others are reused
+        KeyStoreState newState = initialState.createBasisForNextState(() -> "Replace");
+        newState.getKeyStore().setCertificateEntry("other", eeCert);
+        initialState.append(newState);
+
+        assertThat(newState.getVerificationResult("ee")).isSameAs(eeResult);
+        assertThat(newState.getVerificationResult("other")).isNull();
+
+        List<EntryVerificationResult> newResults = new KeyStoreVerifier(newState, revocationCache, 4).verify(true,
+                                                                                                           r -> {});
+        assertThat(newResults.get(1)).isSameAs(eeResult);
+        assertThat(newResults.get(2)).isNotSameAs(otherResult);
+        assertThat(newResults.get(2).getChainStatus()).isEqualTo(VerificationStatus.VALID);
+    }
+
+    @Test
+    void expiredResultsAreVerifiedAgain() throws Exception {
+        KeyPair keyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        X509Certificate cert = TestCertificates.issued("cn=Cert", "cn=Cert", keyPair, keyPair, null);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        keyStore.setCertificateEntry("cert", cert);
+
+        KeyStoreHistory history = new KeyStoreHistory(keyStore, "test", new Password(PASSWORD.clone()), null);
+        KeyStoreState state = history.getCurrentState();
+        RevocationDataCache revocationCache = new RevocationDataCache(cacheDir);
+
+        // without revocation data the result is valid until the certificate expires
+        EntryVerificationResult result = new KeyStoreVerifier(state, revocationCache, 1).verify(true, r -> {}).get(0);
+        assertThat(result.getExpires()).isEqualTo(cert.getNotAfter());
+        assertThat(new KeyStoreVerifier(state, revocationCache, 1).verify(true, r -> {})).containsExactly(result);
+
+        Date past = Date.from(Instant.now().minus(1, ChronoUnit.HOURS));
+        EntryVerificationResult expired = new EntryVerificationResult("cert", result.getChainStatus(), null,
+                                                                      result.getOcspStatus(), null,
+                                                                      result.getCrlStatus(), null,
+                                                                      result.getTrustAnchorsId(), past, past);
+        state.setVerificationResult(expired);
+
+        EntryVerificationResult reverified = new KeyStoreVerifier(state, revocationCache, 1).verify(true, r -> {})
+                                                                                            .get(0);
+        assertThat(reverified).isNotSameAs(expired);
+        assertThat(reverified.isExpired(new Date())).isFalse();
+    }
+
+    @Test
+    void unavailableRevocationStatusIsNotReused() throws Exception {
+        KeyPair caKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+        KeyPair eeKeyPair = KeyPairUtil.generateECKeyPair("P-256", KSE.BC);
+
+        GeneralNames crlUri = new GeneralNames(new GeneralName(GeneralName.uniformResourceIdentifier,
+                                                               "http://localhost/ca.crl"));
+        CRLDistPoint crlDistPoint = new CRLDistPoint(new DistributionPoint[] {
+                new DistributionPoint(new DistributionPointName(crlUri), null, null) });
+
+        X509ExtensionSet extensions = new X509ExtensionSet();
+        extensions.addExtension(Extension.cRLDistributionPoints.getId(), false,
+                                new DEROctetString(crlDistPoint).getEncoded());
+
+        // the issuer is not in the KeyStore, so the CRL cannot be checked
+        X509Certificate cert = TestCertificates.issued("cn=EE", "cn=CA", eeKeyPair, caKeyPair, extensions);
+
+        KseKeyStore keyStore = KeyStoreUtil.create(KeyStoreType.JKS);
+        keyStore.setCertificateEntry("cert", cert);
+
+        KeyStoreHistory history = new KeyStoreHistory(keyStore, "test", new Password(PASSWORD.clone()), null);
+        KeyStoreState state = history.getCurrentState();
+        RevocationDataCache revocationCache = new RevocationDataCache(cacheDir);
+
+        EntryVerificationResult result = new KeyStoreVerifier(state, revocationCache, 1).verify(true, r -> {}).get(0);
+        assertThat(result.getCrlStatus()).isEqualTo(VerificationStatus.UNAVAILABLE);
+        assertThat(result.isExpired(new Date())).isTrue();
+
+        assertThat(new KeyStoreVerifier(state, revocationCache, 1).verify(true, r -> {}).get(0))
+                .isNotSameAs(result);
+    }
+}
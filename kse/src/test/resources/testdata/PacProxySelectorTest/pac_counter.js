@@ -0,0 +1,7 @@
+// PAC file that returns a different proxy on each call, for testing the result cache
+var calls = 0;
+
+function FindProxyForURL(url, host) {
+    calls++;
+    return "PROXY proxy" + calls + ".example.com:8080";
+}